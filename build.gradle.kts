@@ -13,6 +13,23 @@ repositories{
     mavenCentral()
 }
 
+// JMH benchmarks and the load generator live in their own source sets so they never leak into the
+// application jar. The tests cover the load generator too.
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+    val loadtest = create("loadtest") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+    test {
+        compileClasspath += loadtest.output
+        runtimeClasspath += loadtest.output
+    }
+}
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
@@ -20,6 +37,8 @@ dependencies {
     testImplementation("org.mockito:mockito-junit-jupiter:5.21.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 java {
@@ -46,7 +65,51 @@ tasks.jacocoTestReport {
     }
 }
 
+// Usage: ./gradlew jmh -Pjmh.includes=HandlerInvocation -Pjmh.profilers=gc,stack
+// -Pjmh.results=build/reports/jmh/before.json keeps a run to compare the next one against.
+// -Pjmh.args="-p depth=32" passes anything else on to JMH.
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks, writing the results as JSON."
+    dependsOn(tasks.named("jmhClasses"))
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.projectDirectory.file(
+        providers.gradleProperty("jmh.results").getOrElse("build/reports/jmh/results.json"))
+    args(providers.gradleProperty("jmh.includes").getOrElse(".*"))
+    providers.gradleProperty("jmh.profilers").getOrElse("gc").split(",")
+        .filter { it.isNotBlank() }
+        .forEach { args("-prof", it.trim()) }
+    args("-rf", "json", "-rff", results.asFile.path)
+    providers.gradleProperty("jmh.args").orNull?.let { extra ->
+        args(extra.split(" ").filter { it.isNotBlank() })
+    }
+    doFirst { results.asFile.parentFile.mkdirs() }
+}
+
+// Usage: ./gradlew loadTest -Prate=2000 -Pduration=30 -Ppaths=/hello,/ping
+// -Presults=build/reports/loadtest/before.json keeps a run to compare the next one against.
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Serves the example app in-process and drives it at a constant request rate."
+    dependsOn(tasks.named("loadtestClasses"))
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass.set("com.nathanmcunha.minispring.loadtest.LoadTest")
+    listOf("rate", "duration", "warmup", "paths", "results").forEach { name ->
+        providers.gradleProperty(name).orNull
+            ?.let { systemProperty("minispring.loadtest.$name", it) }
+    }
+    providers.gradleProperty("engine").orNull?.let { systemProperty("minispring.server.engine", it) }
+}
+
 application {
     mainClass.set("com.nathanmcunha.minispring.MiniSpringApp")
 
 }
+
+// Usage: ./gradlew run -Pengine=jdk, -Ph2c=true for cleartext HTTP/2, -Plog=logs/access.log
+tasks.named<JavaExec>("run") {
+    providers.gradleProperty("engine").orNull?.let { systemProperty("minispring.server.engine", it) }
+    providers.gradleProperty("h2c").orNull?.let { systemProperty("minispring.server.h2c", it) }
+    providers.gradleProperty("log").orNull?.let { systemProperty("minispring.log.file", it) }
+}
@@ -0,0 +1,96 @@
+package com.nathanmcunha.minispring.benchmark;
+
+/**
+ * The shape of a {@link SyntheticApp}: how many components, how they depend on each other, and
+ * how many routes its controllers serve.
+ *
+ * @param services {@code @Component} classes.
+ * @param controllers {@code @Rest} classes, each depending on some of the services.
+ * @param routesPerController Routes on each controller, a mix of static GETs, templated GETs and
+ *     POSTs.
+ * @param depth Layers of services. A service depends on at least one service of the layer below
+ *     it, so the longest dependency chain is {@code depth} services long.
+ * @param maxFanOut The most dependencies of one component.
+ * @param maxFanIn The most dependents of one service, as far as the random picks allow.
+ * @param interfaceRatio The share of services behind an interface that their dependents depend
+ *     on instead, so the container has to find the implementation.
+ * @param seed Makes the same shape always generate the same application.
+ */
+public record AppShape(
+    int services,
+    int controllers,
+    int routesPerController,
+    int depth,
+    int maxFanOut,
+    int maxFanIn,
+    double interfaceRatio,
+    long seed) {
+
+  /** {@code components} classes, one in ten of them a controller with four routes. */
+  public static AppShape defaults(int components) {
+    int controllers = Math.max(1, components / 10);
+    return new AppShape(
+        Math.max(0, components - controllers), controllers, 4, 8, 4, 32, 0.25, 42);
+  }
+
+  /** Services only, as a plain dependency graph with no routes. */
+  public static AppShape services(int services) {
+    return defaults(services).withControllers(0).withServices(services);
+  }
+
+  public AppShape withServices(int services) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withControllers(int controllers) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withRoutesPerController(int routesPerController) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withDepth(int depth) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withMaxFanOut(int maxFanOut) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withMaxFanIn(int maxFanIn) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withInterfaceRatio(double interfaceRatio) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public AppShape withSeed(long seed) {
+    return new AppShape(
+        services, controllers, routesPerController, depth, maxFanOut, maxFanIn, interfaceRatio,
+        seed);
+  }
+
+  public int components() {
+    return services + controllers;
+  }
+
+  public int routes() {
+    return controllers * routesPerController;
+  }
+}
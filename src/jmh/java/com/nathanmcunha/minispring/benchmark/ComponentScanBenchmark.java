@@ -0,0 +1,50 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.MiniSpringApp;
+import com.nathanmcunha.minispring.benchmark.app.BenchmarkRoutes;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.discovery.ComponentScannerReader;
+import com.nathanmcunha.minispring.container.metadata.BeanDefinition;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Classpath scanning as done at boot, for one small package and for the framework's root package,
+ * which walks every class of the application and of these benchmarks. Classes are loaded once in
+ * the first warmup iteration, so this measures walking, matching and building definitions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ComponentScanBenchmark {
+
+  @Param({"package", "application"})
+  public String scope;
+
+  private Class<?> config;
+
+  @Setup
+  public void setup() {
+    config = scope.equals("package") ? BenchmarkRoutes.class : MiniSpringApp.class;
+  }
+
+  @Benchmark
+  public Result<Set<BeanDefinition>, FrameworkError> scan() {
+    return new ComponentScannerReader().scan(config);
+  }
+}
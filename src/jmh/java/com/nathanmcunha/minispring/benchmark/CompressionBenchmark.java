@@ -0,0 +1,66 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.compression.ContentCoding;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of gzipping a JSON body with a pooled deflater versus a {@link GZIPOutputStream}, which
+ * allocates and initializes a new native deflater per response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:+UseParallelGC")
+public class CompressionBenchmark {
+
+  private static final RouteKey ROUTE = new RouteKey("GET", "/items");
+
+  @Param({"2048", "65536"})
+  public int size;
+
+  private byte[] body;
+  private Compression compression;
+
+  @Setup
+  public void setup() {
+    var json = new StringBuilder("[");
+    for (int i = 0; json.length() < size; i++) {
+      json.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"},");
+    }
+    body = json.substring(0, size - 1).concat("]").getBytes(StandardCharsets.UTF_8);
+    compression = Compression.defaults();
+  }
+
+  @Benchmark
+  public byte[] pooled() {
+    return compression.compress(body, 0, body.length, ContentCoding.GZIP, ROUTE);
+  }
+
+  @Benchmark
+  public byte[] gzipOutputStream() throws IOException {
+    var bytes = new ByteArrayOutputStream(Math.min(body.length, 8 * 1024));
+    try (var out = new GZIPOutputStream(bytes, 8 * 1024)) {
+      out.write(body);
+    }
+    return bytes.toByteArray();
+  }
+}
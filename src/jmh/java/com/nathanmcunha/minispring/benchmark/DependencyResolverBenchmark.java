@@ -0,0 +1,71 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.metadata.BeanDefinition;
+import com.nathanmcunha.minispring.container.wiring.DependencyResolver;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wiring a whole application: {@link DependencyResolver#resolve} over the services of a generated
+ * {@link SyntheticApp}, from a hundred components to ten thousand, to show how the container scales
+ * with the size of the application rather than only how fast it wires a small one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DependencyResolverBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int beans;
+
+  @Param({"4"})
+  public int maxDependencies;
+
+  /** Instantiating on the calling thread, or concurrently on the common fork-join pool. */
+  @Param({"caller", "forkJoin"})
+  public String executor;
+
+  private SyntheticApp app;
+  private Set<BeanDefinition> definitions;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    app = SyntheticApp.generate(AppShape.services(beans).withMaxFanOut(maxDependencies));
+    definitions = app.definitions();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    app.close();
+  }
+
+  @Benchmark
+  public Result<Map<Class<?>, Object>, FrameworkError> resolve() {
+    var resolver =
+        executor.equals("caller")
+            ? new DependencyResolver()
+            : DependencyResolver.concurrent(ForkJoinPool.commonPool());
+    return resolver.resolve(definitions);
+  }
+}
@@ -0,0 +1,78 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.benchmark.app.BenchmarkRoutes;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One request through {@link DispatcherServlet#handle} end to end, against an in-memory exchange:
+ * routing, rate and admission checks, binding, invocation, metrics and writing the body. Run with
+ * {@code -prof gc} to see what each kind of request allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatcherBenchmark {
+
+  /** Plain text, JSON bound from path and query, a JSON request body, and a 404. */
+  @Param({"text", "json", "body", "missing"})
+  public String request;
+
+  private DispatcherServlet dispatcher;
+  private InMemoryExchange exchange;
+  private String method;
+  private URI uri;
+  private byte[] body;
+
+  @Setup
+  public void setup() {
+    var context =
+        ((Result.Success<MiniApplicationContext, FrameworkError>)
+                MiniApplicationContext.boot(BenchmarkRoutes.class))
+            .value();
+    dispatcher = new DispatcherServlet(context.getRouterRegistry());
+    exchange = new InMemoryExchange();
+    method = request.equals("body") ? "POST" : "GET";
+    uri =
+        URI.create(
+            switch (request) {
+              case "text" -> "/hello";
+              case "json" -> "/items/42?name=lamp";
+              case "body" -> "/items";
+              default -> "/nothing/here";
+            });
+    body =
+        "{\"id\":7,\"name\":\"lamp\",\"price\":19.5,\"tags\":[\"new\",\"sale\"]}"
+            .getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public int handle() throws IOException {
+    exchange.reset(method, uri);
+    if (body != null && method.equals("POST")) {
+      exchange.body(body);
+    }
+    dispatcher.handle(exchange);
+    return exchange.responseLength();
+  }
+}
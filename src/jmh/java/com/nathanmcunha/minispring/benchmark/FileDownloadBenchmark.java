@@ -0,0 +1,157 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.dispatch.ResponseOutput;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import com.nathanmcunha.minispring.server.resource.StaticResourceConfig;
+import com.nathanmcunha.minispring.server.resource.StaticResourceHandler;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Downloads of one file over loopback keep-alive connections, written the way {@code
+ * DispatcherServlet} writes handler results. {@code readAllBytes} loads the file into a {@code
+ * byte[]} body on every request, while {@code path} returns the {@link Path}, which is copied
+ * through the pooled buffer on the JDK engine and sent with {@code sendfile} on the NIO engine.
+ * {@code static} serves it through a {@link StaticResourceHandler}, from the heap or a mapping
+ * without touching the disk. Run with {@code -prof gc} to see the heap each download costs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class FileDownloadBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Server {
+
+    @Param({"nio", "jdk"})
+    public String engine;
+
+    @Param({"readAllBytes", "path", "static"})
+    public String body;
+
+    @Param({"65536", "16777216"})
+    public int size;
+
+    ServerEngine server;
+    Path directory;
+    Path file;
+    StaticResourceHandler resources;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+      directory = Files.createTempDirectory("download-");
+      file = Files.write(directory.resolve("download"), new byte[size]);
+      server = ServerEngines.create(engine, ServerConfig.defaults(0));
+      if (body.equals("static")) {
+        resources = StaticResourceHandler.create(StaticResourceConfig.defaults(directory));
+        server.mount("/", resources);
+        server.start();
+        return;
+      }
+      server.mount(
+          "/",
+          exchange -> {
+            Object result = body.equals("path") ? file : Files.readAllBytes(file);
+            var headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", BodyWriters.BINARY.contentType(result));
+            try (var out = new ResponseOutput(exchange, 200)) {
+              BodyWriters.BINARY.write(result, out);
+            }
+          });
+      server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+      server.stop(Duration.ofSeconds(1));
+      if (resources != null) {
+        resources.close();
+      }
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+
+    private static final byte[] REQUEST =
+        "GET /download HTTP/1.1\r\nHost: bench\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    Socket socket;
+    OutputStream out;
+    InputStream in;
+
+    @Setup(Level.Trial)
+    public void connect(Server server) throws IOException {
+      socket = new Socket("127.0.0.1", server.server.address().getPort());
+      out = socket.getOutputStream();
+      in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+      socket.close();
+    }
+
+    /** Reads the head of a Content-Length response and skips its body. */
+    long download() throws IOException {
+      out.write(REQUEST);
+      long length = 0;
+      StringBuilder line = new StringBuilder();
+      while (true) {
+        int b = in.read();
+        if (b < 0) {
+          throw new IOException("Connection closed");
+        }
+        if (b != '\n') {
+          line.append((char) b);
+          continue;
+        }
+        String header = line.toString().strip();
+        if (header.isEmpty()) {
+          break;
+        }
+        if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+          length = Long.parseLong(header.substring(15).strip());
+        }
+        line.setLength(0);
+      }
+      in.skipNBytes(length);
+      return length;
+    }
+  }
+
+  @Benchmark
+  public long download(Client client) throws IOException {
+    return client.download();
+  }
+}
@@ -0,0 +1,65 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import com.nathanmcunha.minispring.server.router.invoke.HandlerInvoker;
+import com.nathanmcunha.minispring.server.router.invoke.InvokerCompiler;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request cost of calling a controller method: the reflective path the dispatcher used to take
+ * versus the invoker compiled at registration time, with a plain Java call as the floor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HandlerInvocationBenchmark {
+
+  private static final Object[] NO_ARGS = new Object[0];
+
+  public static class Controller {
+    public Response<String> hello() {
+      return Response.Builder(200).body("hello");
+    }
+  }
+
+  private Controller controller;
+  private Method method;
+  private HandlerInvoker invoker;
+
+  @Setup
+  public void setup() throws NoSuchMethodException {
+    controller = new Controller();
+    method = Controller.class.getMethod("hello");
+    invoker = InvokerCompiler.compile(controller, method);
+  }
+
+  /** What {@code DispatcherServlet.createExecutionAction} used to do on every request. */
+  @Benchmark
+  public Object reflective() throws Exception {
+    return method.invoke(controller);
+  }
+
+  @Benchmark
+  public Object compiled() throws Exception {
+    return invoker.invoke(NO_ARGS);
+  }
+
+  @Benchmark
+  public Object direct() {
+    return controller.hello();
+  }
+}
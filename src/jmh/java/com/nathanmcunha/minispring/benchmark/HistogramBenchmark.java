@@ -0,0 +1,42 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.metrics.Histogram;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording a latency on the request path, alone and with eight threads recording into the
+ * same route's histogram, where striping keeps them off each other's counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:+UseParallelGC")
+public class HistogramBenchmark {
+
+  private final Histogram histogram = new Histogram();
+
+  @Benchmark
+  @Threads(1)
+  public void recordAlone() {
+    histogram.record(ThreadLocalRandom.current().nextLong(50, 50_000));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void recordContended() {
+    histogram.record(ThreadLocalRandom.current().nextLong(50, 50_000));
+  }
+}
@@ -0,0 +1,153 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An exchange that lives entirely in memory, reused across operations, so a benchmark measures the
+ * code handling it rather than sockets. The response body is collected into a buffer that is kept
+ * between resets.
+ */
+final class InMemoryExchange extends HttpExchange {
+
+  private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 8080);
+
+  private final ByteArrayOutputStream responseBody = new ByteArrayOutputStream(4096);
+  private final OutputStream out =
+      new OutputStream() {
+        @Override
+        public void write(int b) {
+          responseBody.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          responseBody.write(b, off, len);
+        }
+      };
+  private final Map<String, Object> attributes = new HashMap<>();
+  private String method = "GET";
+  private URI uri;
+  private Headers requestHeaders = new Headers();
+  private Headers responseHeaders = new Headers();
+  private InputStream in = InputStream.nullInputStream();
+  private int responseCode = -1;
+
+  /** Starts a new request to {@code uri} without a body. */
+  InMemoryExchange reset(String method, URI uri) {
+    this.method = method;
+    this.uri = uri;
+    this.in = InputStream.nullInputStream();
+    requestHeaders = new Headers();
+    responseHeaders = new Headers();
+    responseBody.reset();
+    attributes.clear();
+    responseCode = -1;
+    return this;
+  }
+
+  /** Gives the current request {@code body}, to be read from the start. */
+  InputStream body(byte[] body) {
+    in = new ByteArrayInputStream(body);
+    return in;
+  }
+
+  int responseLength() {
+    return responseBody.size();
+  }
+
+  @Override
+  public Headers getRequestHeaders() {
+    return requestHeaders;
+  }
+
+  @Override
+  public Headers getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  @Override
+  public URI getRequestURI() {
+    return uri;
+  }
+
+  @Override
+  public String getRequestMethod() {
+    return method;
+  }
+
+  @Override
+  public HttpContext getHttpContext() {
+    return null;
+  }
+
+  @Override
+  public void close() {}
+
+  @Override
+  public InputStream getRequestBody() {
+    return in;
+  }
+
+  @Override
+  public OutputStream getResponseBody() {
+    return out;
+  }
+
+  @Override
+  public void sendResponseHeaders(int code, long length) {
+    responseCode = code;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public int getResponseCode() {
+    return responseCode;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public String getProtocol() {
+    return "HTTP/1.1";
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    attributes.put(name, value);
+  }
+
+  @Override
+  public void setStreams(InputStream i, OutputStream o) {
+    if (i != null) {
+      in = i;
+    }
+  }
+
+  @Override
+  public HttpPrincipal getPrincipal() {
+    return null;
+  }
+}
@@ -0,0 +1,102 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinder;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinders;
+import com.nathanmcunha.minispring.server.router.model.PathVariables;
+import com.nathanmcunha.minispring.server.router.tree.RouteTemplate;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of binding a {@code @Post} body per route shape, next to the cost of merely reading the
+ * same body into a String.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:+UseParallelGC")
+public class RequestBindingBenchmark {
+
+  public record Item(long id, String name, double price, List<String> tags) {}
+
+  public record Order(String customer, List<Item> items) {}
+
+  public static class Routes {
+    public void item(Item item) {}
+
+    public void order(Order order) {}
+  }
+
+  @Param({"item", "order"})
+  public String route;
+
+  @Param({"1", "1000"})
+  public int items;
+
+  private byte[] body;
+  private ArgumentBinder binder;
+  private InMemoryExchange exchange;
+
+  @Setup
+  public void setup() throws NoSuchMethodException {
+    StringBuilder json = new StringBuilder();
+    if (route.equals("item")) {
+      json.append("{\"id\":1,\"name\":\"item-1\",\"price\":1.25,\"tags\":[\"new\",\"sale\"]}");
+    } else {
+      json.append("{\"customer\":\"ana\",\"items\":[");
+      for (int i = 0; i < items; i++) {
+        json.append(i == 0 ? "" : ",")
+            .append("{\"id\":")
+            .append(i)
+            .append(",\"name\":\"item-")
+            .append(i)
+            .append("\",\"price\":")
+            .append(i * 1.25)
+            .append(",\"tags\":[\"new\",\"sale\"]}");
+      }
+      json.append("]}");
+    }
+    body = json.toString().getBytes(StandardCharsets.UTF_8);
+
+    Method method =
+        Routes.class.getMethod(route, route.equals("item") ? Item.class : Order.class);
+    var template =
+        ((Result.Success<RouteTemplate, FrameworkError>) RouteTemplate.parse("/" + route)).value();
+    binder =
+        ((Result.Success<ArgumentBinder[], FrameworkError>)
+                ArgumentBinders.compile(method, template, true))
+            .value()[0];
+    exchange = new InMemoryExchange().reset("POST", URI.create("/" + route));
+  }
+
+  @Benchmark
+  public void readAsString(Blackhole blackhole) throws Exception {
+    blackhole.consume(new String(exchange.body(body).readAllBytes(), StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public void bindStreaming(Blackhole blackhole) {
+    exchange.body(body);
+    blackhole.consume(binder.bind(new Request(exchange, PathVariables.EMPTY)));
+  }
+}
@@ -0,0 +1,69 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.codec.BodyWriter;
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of turning a handler's return value into response bytes: the old {@code
+ * toString().getBytes()} path versus streaming through the precompiled JSON writer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-XX:+UseParallelGC")
+public class ResponseEncodingBenchmark {
+
+  public record Item(long id, String name, double price, List<String> tags) {}
+
+  public record Page(int page, List<Item> items) {}
+
+  @Param({"1", "100", "1000"})
+  public int items;
+
+  private Page body;
+  private BodyWriter writer;
+  private Utf8Output out;
+
+  @Setup
+  public void setup() throws NoSuchMethodException {
+    List<Item> list = new ArrayList<>();
+    for (int i = 0; i < items; i++) {
+      list.add(new Item(i, "item-" + i, i * 1.25, List.of("new", "sale")));
+    }
+    body = new Page(1, list);
+    writer = BodyWriters.forType(Page.class);
+    out = Utf8Output.of(OutputStream.nullOutputStream(), 8 * 1024);
+  }
+
+  @Benchmark
+  public void toStringBytes(Blackhole blackhole) {
+    blackhole.consume(body.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public void streamingJson() throws IOException {
+    writer.write(body, out);
+    out.flush();
+  }
+}
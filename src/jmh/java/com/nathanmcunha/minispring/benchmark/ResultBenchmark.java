@@ -0,0 +1,81 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link Result} combinators every layer chains, on the success and the failure path, with a
+ * plain pattern match as the floor. {@code -prof gc} shows which chains escape analysis removes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResultBenchmark {
+
+  private Result<Integer, FrameworkError> success;
+  private Result<Integer, FrameworkError> failure;
+  private List<Integer> inputs;
+
+  @Setup
+  public void setup() {
+    success = Result.success(21);
+    failure = Result.failure(new FrameworkError.MissingDependency("benchmark"));
+    inputs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      inputs.add(i);
+    }
+  }
+
+  @Benchmark
+  public int match() {
+    return switch (success) {
+      case Result.Success<Integer, FrameworkError>(var value) -> value;
+      case Result.Failure<Integer, FrameworkError> f -> 0;
+    };
+  }
+
+  @Benchmark
+  public int successChain() {
+    return chain(success);
+  }
+
+  @Benchmark
+  public int failureChain() {
+    return chain(failure);
+  }
+
+  @Benchmark
+  public Result<Integer, String> mapError() {
+    return failure.mapError(FrameworkError::toString);
+  }
+
+  @Benchmark
+  public Result<List<Integer>, FrameworkError> traverse() {
+    return Result.traverse(inputs, i -> Result.success(i * 2), Collectors.toList());
+  }
+
+  private static int chain(Result<Integer, FrameworkError> result) {
+    return result
+        .map(x -> x + 1)
+        .flatMap(x -> Result.<Integer, FrameworkError>success(x * 2))
+        .map(x -> x - 1)
+        .orDefault(() -> 0);
+  }
+}
@@ -0,0 +1,76 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.nathanmcunha.minispring.server.router.tree.RouteTemplate;
+import com.nathanmcunha.minispring.server.router.tree.RouteTree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Lookup cost of the radix tree as the number of registered routes grows. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RouteTreeBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  public int routes;
+
+  private RouteTree tree;
+  private String staticPath;
+  private String templatePath;
+  private String missingPath;
+
+  public void handle() {}
+
+  @Setup
+  public void setup() throws NoSuchMethodException {
+    tree = new RouteTree("GET");
+    var handler = new MethodHandler(this, getClass().getMethod("handle"));
+    for (int i = 0; i < routes; i++) {
+      register("/api/v1/resource" + i, handler);
+      register("/api/v1/resource" + i + "/{id}/items/{itemId}", handler);
+    }
+    int middle = routes / 2;
+    staticPath = "/api/v1/resource" + middle;
+    templatePath = "/api/v1/resource" + middle + "/42/items/7";
+    missingPath = "/api/v1/resource" + middle + "/42/unknown";
+  }
+
+  private void register(String path, MethodHandler handler) {
+    var template = ((Result.Success<RouteTemplate, FrameworkError>) RouteTemplate.parse(path)).value();
+    tree.insert(template, new Route(new RouteKey("GET", path), handler));
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> staticHit() {
+    return tree.find(staticPath);
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> templateHit() {
+    return tree.find(templatePath);
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> miss() {
+    return tree.find(missingPath);
+  }
+}
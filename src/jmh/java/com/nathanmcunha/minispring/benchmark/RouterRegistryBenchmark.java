@@ -0,0 +1,69 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.benchmark.app.BenchmarkRoutes;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.RouterRegistry;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the dispatcher pays to find a route in a booted registry: the verb lookup in front of the
+ * route tree, for hits and for the misses that end in a 404.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RouterRegistryBenchmark {
+
+  private RouterRegistry registry;
+  private String staticPath;
+  private String templatePath;
+  private String missingPath;
+
+  @Setup
+  public void setup() {
+    var context =
+        ((Result.Success<MiniApplicationContext, FrameworkError>)
+                MiniApplicationContext.boot(BenchmarkRoutes.class))
+            .value();
+    registry = context.getRouterRegistry();
+    staticPath = "/hello";
+    templatePath = "/items/42";
+    missingPath = "/items/42/reviews";
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> staticHit() {
+    return registry.route("GET", staticPath);
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> templateHit() {
+    return registry.route("GET", templatePath);
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> miss() {
+    return registry.route("GET", missingPath);
+  }
+
+  @Benchmark
+  public Result<RouteMatch, FrameworkError> unknownVerb() {
+    return registry.route("DELETE", staticPath);
+  }
+}
@@ -0,0 +1,136 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of each server engine over loopback, with every benchmark thread holding one
+ * keep-alive connection. One operation writes {@code pipeline} requests back to back and then reads
+ * their responses, so requests per second is the score times {@code pipeline}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class ServerEngineBenchmark {
+
+  private static final byte[] HELLO = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+  @State(Scope.Benchmark)
+  public static class Server {
+
+    @Param({"nio", "jdk"})
+    public String engine;
+
+    ServerEngine server;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+      server = ServerEngines.create(engine, ServerConfig.defaults(0));
+      server.mount(
+          "/",
+          exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, HELLO.length);
+            try (var out = exchange.getResponseBody()) {
+              out.write(HELLO);
+            }
+          });
+      server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+      server.stop(Duration.ofSeconds(1));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+
+    @Param({"1", "8"})
+    public int pipeline;
+
+    Socket socket;
+    OutputStream out;
+    InputStream in;
+    byte[] requests;
+
+    @Setup(Level.Trial)
+    public void connect(Server server) throws IOException {
+      socket = new Socket("127.0.0.1", server.server.address().getPort());
+      socket.setTcpNoDelay(true);
+      out = socket.getOutputStream();
+      in = new BufferedInputStream(socket.getInputStream());
+      requests =
+          "GET /plaintext HTTP/1.1\r\nHost: bench\r\n\r\n"
+              .repeat(pipeline)
+              .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+      socket.close();
+    }
+
+    /** Reads one response with a Content-Length body and returns its size. */
+    int readResponse() throws IOException {
+      int length = 0;
+      StringBuilder line = new StringBuilder();
+      while (true) {
+        int b = in.read();
+        if (b < 0) {
+          throw new IOException("Connection closed");
+        }
+        if (b != '\n') {
+          line.append((char) b);
+          continue;
+        }
+        String header = line.toString().strip();
+        if (header.isEmpty()) {
+          break;
+        }
+        if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+          length = Integer.parseInt(header.substring(15).strip());
+        }
+        line.setLength(0);
+      }
+      return in.readNBytes(length).length;
+    }
+  }
+
+  @Benchmark
+  public int keepAlive(Client client) throws IOException {
+    client.out.write(client.requests);
+    int bytes = 0;
+    for (int i = 0; i < client.pipeline; i++) {
+      bytes += client.readResponse();
+    }
+    return bytes;
+  }
+}
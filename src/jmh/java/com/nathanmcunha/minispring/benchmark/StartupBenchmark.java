@@ -0,0 +1,123 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
+import com.nathanmcunha.minispring.container.discovery.ComponentScannerReader;
+import com.nathanmcunha.minispring.container.metadata.BeanDefinition;
+import com.nathanmcunha.minispring.container.registry.BeanFactory;
+import com.nathanmcunha.minispring.container.registry.DefaultBeanFactory;
+import com.nathanmcunha.minispring.container.wiring.DependencyResolver;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.RouterRegistry;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MiniApplicationContext#boot} of a generated {@link SyntheticApp}, whole and phase by
+ * phase: scanning, resolving dependencies, registering beans and building the routes. Each phase
+ * runs on the output of the one before it, computed once per trial, so the scores show which
+ * phase grows fastest with the size of the application. The shape can be changed from the command
+ * line, for example {@code -p depth=32 -p interfaceRatio=1}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StartupBenchmark {
+
+  /** Components, one in ten of them a controller. */
+  @Param({"100", "1000", "5000"})
+  public int components;
+
+  @Param({"4"})
+  public int routesPerController;
+
+  @Param({"8"})
+  public int depth;
+
+  @Param({"4"})
+  public int maxFanOut;
+
+  @Param({"32"})
+  public int maxFanIn;
+
+  @Param({"0.25"})
+  public double interfaceRatio;
+
+  private SyntheticApp app;
+  private Set<BeanDefinition> definitions;
+  private Map<Class<?>, Object> beans;
+  private BeanFactory factory;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    app =
+        SyntheticApp.generate(
+            AppShape.defaults(components)
+                .withRoutesPerController(routesPerController)
+                .withDepth(depth)
+                .withMaxFanOut(maxFanOut)
+                .withMaxFanIn(maxFanIn)
+                .withInterfaceRatio(interfaceRatio));
+    definitions = success(new ComponentScannerReader().scan(app.config()));
+    beans = success(new DependencyResolver().resolve(definitions));
+    factory = success(new DefaultBeanFactory().registerBeans(beans));
+    success(RouterRegistry.create(factory));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    app.close();
+  }
+
+  @Benchmark
+  public Result<MiniApplicationContext, FrameworkError> boot() {
+    return MiniApplicationContext.boot(app.config());
+  }
+
+  @Benchmark
+  public Result<Set<BeanDefinition>, FrameworkError> scan() {
+    return new ComponentScannerReader().scan(app.config());
+  }
+
+  @Benchmark
+  public Result<Map<Class<?>, Object>, FrameworkError> resolve() {
+    return new DependencyResolver().resolve(definitions);
+  }
+
+  @Benchmark
+  public Result<BeanFactory, FrameworkError> register() {
+    return new DefaultBeanFactory().registerBeans(beans);
+  }
+
+  @Benchmark
+  public Result<RouterRegistry, FrameworkError> routes() {
+    return RouterRegistry.create(factory);
+  }
+
+  /** The value of a phase that has to succeed for the phases after it to be measured. */
+  private static <T> T success(Result<T, FrameworkError> result) {
+    return switch (result) {
+      case Result.Success<T, FrameworkError>(var value) -> value;
+      case Result.Failure<T, FrameworkError>(var error) ->
+          throw new IllegalStateException("The generated application failed to boot: " + error);
+    };
+  }
+}
@@ -0,0 +1,302 @@
+package com.nathanmcunha.minispring.benchmark;
+
+import com.nathanmcunha.minispring.container.metadata.BeanDefinition;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.tools.ToolProvider;
+
+/**
+ * A generated application in the shape of an {@link AppShape}, compiled and loaded at runtime,
+ * for measuring the container on applications far larger than any hand-written fixture.
+ *
+ * <p>Services are spread over {@code depth} layers. Each one outside the bottom layer depends on
+ * one service of the layer right below it and up to {@code maxFanOut - 1} more from any layer
+ * below, picked by a seeded {@link Random} that avoids services already at {@code maxFanIn}
+ * dependents, so the graph has no cycles and the same shape always generates the same
+ * application. Controllers depend on services from any layer and serve their routes under {@code
+ * /c<n>}. Everything sits under {@link #PACKAGE}, with {@link #config()} at its root to scan or
+ * boot from.
+ */
+public final class SyntheticApp implements AutoCloseable {
+
+  public static final String PACKAGE = "minispring.generated";
+
+  private static final String COMPONENT = "@com.nathanmcunha.minispring.annotations.Component";
+  private static final String REST = "@com.nathanmcunha.minispring.annotations.Rest";
+  private static final String GET = "@com.nathanmcunha.minispring.annotations.Get";
+  private static final String POST = "@com.nathanmcunha.minispring.annotations.Post";
+
+  private final AppShape shape;
+  private final Path directory;
+  private final URLClassLoader loader;
+  private final Class<?> config;
+  private final List<Class<?>> components;
+
+  private SyntheticApp(
+      AppShape shape,
+      Path directory,
+      URLClassLoader loader,
+      Class<?> config,
+      List<Class<?>> components) {
+    this.shape = shape;
+    this.directory = directory;
+    this.loader = loader;
+    this.config = config;
+    this.components = components;
+  }
+
+  /**
+   * Writes, compiles and loads the application into a new temporary directory.
+   *
+   * @throws IllegalStateException If this JVM has no Java compiler, as a JRE does not.
+   */
+  public static SyntheticApp generate(AppShape shape) throws IOException {
+    var compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("Generating an application needs a JDK");
+    }
+    Path directory = Files.createTempDirectory("minispring-app-");
+    Path output = directory.resolve("classes");
+    Files.createDirectories(output);
+    List<String> files = new Sources(shape, directory.resolve("src")).write();
+
+    List<String> arguments = new ArrayList<>(files.size() + 8);
+    arguments.addAll(
+        List.of(
+            "-d", output.toString(),
+            "-cp", System.getProperty("java.class.path"),
+            "-parameters", "-proc:none", "-nowarn"));
+    arguments.addAll(files);
+    if (compiler.run(null, null, System.err, arguments.toArray(String[]::new)) != 0) {
+      throw new IllegalStateException("Could not compile the generated application");
+    }
+
+    var loader =
+        new URLClassLoader(
+            new URL[] {output.toUri().toURL()}, SyntheticApp.class.getClassLoader());
+    try {
+      List<Class<?>> components = new ArrayList<>(shape.components());
+      for (int i = 0; i < shape.services(); i++) {
+        components.add(Class.forName(Sources.service(i), true, loader));
+      }
+      for (int i = 0; i < shape.controllers(); i++) {
+        components.add(Class.forName(Sources.controller(i), true, loader));
+      }
+      Class<?> config = Class.forName(PACKAGE + ".App", true, loader);
+      return new SyntheticApp(shape, directory, loader, config, List.copyOf(components));
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public AppShape shape() {
+    return shape;
+  }
+
+  /** The class at the root of the application's packages, to scan or boot from. */
+  public Class<?> config() {
+    return config;
+  }
+
+  public ClassLoader loader() {
+    return loader;
+  }
+
+  /** The definitions the component scanner reads from this application, without scanning. */
+  public Set<BeanDefinition> definitions() {
+    Set<BeanDefinition> definitions = new HashSet<>(2 * components.size());
+    for (Class<?> clazz : components) {
+      definitions.add(
+          new BeanDefinition(clazz, clazz.getDeclaredConstructors()[0].getParameterTypes()));
+    }
+    return definitions;
+  }
+
+  /** Closes the class loader and deletes the generated sources and classes. */
+  @Override
+  public void close() throws IOException {
+    loader.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(file);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Picks the dependency graph and writes one source file per type. */
+  private static final class Sources {
+
+    private final AppShape shape;
+    private final Path root;
+    private final Random random;
+    private final boolean[] api;
+    private final int[] dependents;
+    private final List<String> files = new ArrayList<>();
+
+    Sources(AppShape shape, Path root) {
+      this.shape = shape;
+      this.root = root;
+      this.random = new Random(shape.seed());
+      this.api = new boolean[shape.services()];
+      this.dependents = new int[shape.services()];
+    }
+
+    List<String> write() throws IOException {
+      Files.createDirectories(root.resolve("service"));
+      Files.createDirectories(root.resolve("web"));
+      write(root.resolve("App.java"), "package " + PACKAGE + ";\n\npublic final class App {}\n");
+      for (int i = 0; i < api.length; i++) {
+        api[i] = random.nextDouble() < shape.interfaceRatio();
+      }
+      int layers = Math.max(1, Math.min(shape.depth(), shape.services()));
+      for (int i = 0; i < shape.services(); i++) {
+        int layer = (int) ((long) i * layers / shape.services());
+        int[] dependencies =
+            layer == 0
+                ? new int[0]
+                : pick(first(layer - 1, layers), first(layer, layers), first(layer, layers));
+        writeService(i, dependencies);
+      }
+      for (int i = 0; i < shape.controllers(); i++) {
+        int[] dependencies =
+            shape.services() == 0 ? new int[0] : pick(0, shape.services(), shape.services());
+        writeController(i, dependencies);
+      }
+      return files;
+    }
+
+    /** The index of the first service in {@code layer}. */
+    private int first(int layer, int layers) {
+      return (int) (((long) layer * shape.services() + layers - 1) / layers);
+    }
+
+    /**
+     * One to {@code maxFanOut} distinct services below {@code below}, the first of them from
+     * {@code [from, to)}.
+     */
+    private int[] pick(int from, int to, int below) {
+      int count = 1 + random.nextInt(Math.max(1, Math.min(shape.maxFanOut(), below)));
+      Set<Integer> picked = new LinkedHashSet<>();
+      picked.add(pickOne(from, to));
+      for (int tries = 0; picked.size() < count && tries < 4 * count; tries++) {
+        picked.add(pickOne(0, below));
+      }
+      int[] dependencies = picked.stream().mapToInt(Integer::intValue).toArray();
+      for (int dependency : dependencies) {
+        dependents[dependency]++;
+      }
+      return dependencies;
+    }
+
+    /** A service in {@code [from, to)}, trying a few times for one below the fan-in limit. */
+    private int pickOne(int from, int to) {
+      int candidate = from + random.nextInt(to - from);
+      for (int tries = 0; tries < 8 && dependents[candidate] >= shape.maxFanIn(); tries++) {
+        candidate = from + random.nextInt(to - from);
+      }
+      return candidate;
+    }
+
+    private void writeService(int index, int[] dependencies) throws IOException {
+      String name = "Service" + index;
+      if (api[index]) {
+        write(
+            root.resolve("service/Api" + index + ".java"),
+            "package " + PACKAGE + ".service;\n\npublic interface Api" + index + " {}\n");
+      }
+      var source = new StringBuilder(512);
+      source.append("package ").append(PACKAGE).append(".service;\n\n");
+      source.append(COMPONENT).append('\n');
+      source.append("public class ").append(name);
+      if (api[index]) {
+        source.append(" implements Api").append(index);
+      }
+      source.append(" {\n");
+      fieldsAndConstructor(source, name, dependencies);
+      source.append("}\n");
+      write(root.resolve("service/" + name + ".java"), source.toString());
+    }
+
+    private void writeController(int index, int[] dependencies) throws IOException {
+      String name = "Controller" + index;
+      var source = new StringBuilder(1024);
+      source.append("package ").append(PACKAGE).append(".web;\n\n");
+      source.append(REST).append('\n');
+      source.append("public class ").append(name).append(" {\n");
+      fieldsAndConstructor(source, name, dependencies);
+      for (int route = 0; route < shape.routesPerController(); route++) {
+        String path = "/c" + index + "/r" + route;
+        source.append('\n');
+        switch (route % 3) {
+          case 0 -> {
+            source.append("  ").append(GET).append("(\"").append(path).append("\")\n");
+            source.append("  public String r").append(route).append("() {\n");
+            source.append("    return \"").append(path).append("\";\n  }\n");
+          }
+          case 1 -> {
+            source.append("  ").append(GET).append("(\"").append(path).append("/{id}\")\n");
+            source.append("  public String r").append(route).append("(long id) {\n");
+            source.append("    return \"").append(path).append("/\" + id;\n  }\n");
+          }
+          default -> {
+            source.append("  ").append(POST).append("(\"").append(path).append("\")\n");
+            source.append("  public String r").append(route).append("(String body) {\n");
+            source.append("    return body;\n  }\n");
+          }
+        }
+      }
+      source.append("}\n");
+      write(root.resolve("web/" + name + ".java"), source.toString());
+    }
+
+    private void fieldsAndConstructor(StringBuilder source, String name, int[] dependencies) {
+      for (int dependency : dependencies) {
+        source.append("  private final ").append(type(dependency));
+        source.append(" d").append(dependency).append(";\n");
+      }
+      source.append("\n  public ").append(name).append('(');
+      for (int i = 0; i < dependencies.length; i++) {
+        source.append(i == 0 ? "" : ", ").append(type(dependencies[i]));
+        source.append(" d").append(dependencies[i]);
+      }
+      source.append(") {\n");
+      for (int dependency : dependencies) {
+        source.append("    this.d").append(dependency).append(" = d").append(dependency);
+        source.append(";\n");
+      }
+      source.append("  }\n");
+    }
+
+    /** What dependents of service {@code index} ask for: its interface, if it has one. */
+    private String type(int index) {
+      return PACKAGE + ".service." + (api[index] ? "Api" : "Service") + index;
+    }
+
+    private void write(Path file, String source) throws IOException {
+      Files.writeString(file, source);
+      files.add(file.toString());
+    }
+
+    static String service(int index) {
+      return PACKAGE + ".service.Service" + index;
+    }
+
+    static String controller(int index) {
+      return PACKAGE + ".web.Controller" + index;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.nathanmcunha.minispring.benchmark.app;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Param;
+import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.Rest;
+import java.util.List;
+
+/**
+ * The routes the dispatch benchmarks boot, one per kind of handler: plain text, a JSON body
+ * bound from path and query, and a JSON request body. Booting this class scans only this package.
+ */
+@Rest
+public class BenchmarkRoutes {
+
+  public record Item(long id, String name, double price, List<String> tags) {}
+
+  @Get("/hello")
+  public String hello() {
+    return "Hello, World!";
+  }
+
+  @Get("/items/{id}")
+  public Item item(long id, @Param(required = false) String name) {
+    return new Item(id, name == null ? "item-" + id : name, id * 1.25, List.of("new", "sale"));
+  }
+
+  @Post("/items")
+  public Item create(Item item) {
+    return item;
+  }
+}
@@ -0,0 +1,39 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import java.time.Duration;
+
+/**
+ * How hard and for how long a {@link LoadGenerator} drives a server.
+ *
+ * @param rate Requests per second, sent on a fixed schedule whatever the server does.
+ * @param duration How long to measure for.
+ * @param warmup How long to send at the same rate before measuring, for the JIT and the pools.
+ * @param timeout How long one request may take before it counts as an error.
+ * @param maxInFlight The most requests outstanding at once. A request due while this many are
+ *     still waiting is not sent, and counts as an error, so an overloaded server cannot exhaust
+ *     the generator's memory.
+ */
+public record LoadConfig(
+    double rate, Duration duration, Duration warmup, Duration timeout, int maxInFlight) {
+
+  public static LoadConfig defaults(double rate) {
+    return new LoadConfig(
+        rate, Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ofSeconds(5), 10_000);
+  }
+
+  public LoadConfig withDuration(Duration duration) {
+    return new LoadConfig(rate, duration, warmup, timeout, maxInFlight);
+  }
+
+  public LoadConfig withWarmup(Duration warmup) {
+    return new LoadConfig(rate, duration, warmup, timeout, maxInFlight);
+  }
+
+  public LoadConfig withTimeout(Duration timeout) {
+    return new LoadConfig(rate, duration, warmup, timeout, maxInFlight);
+  }
+
+  public LoadConfig withMaxInFlight(int maxInFlight) {
+    return new LoadConfig(rate, duration, warmup, timeout, maxInFlight);
+  }
+}
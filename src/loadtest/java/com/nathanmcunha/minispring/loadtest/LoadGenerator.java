@@ -0,0 +1,189 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant rate, open loop, and measures each one from when it was due.
+ *
+ * <p>A closed-loop generator waits for a response before sending the next request, so when the
+ * server stalls it stops sending, and the requests that would have been waiting on the stall are
+ * never measured: a one-second pause shows up as one slow request rather than a second of them.
+ * Here request {@code n} is due at {@code start + n / rate} no matter how earlier ones are doing,
+ * is sent on its own virtual thread, and its latency runs from when it was due. A request the
+ * generator sends late, because it was itself descheduled or paused, is timed from the same point,
+ * so the time it spent waiting to be sent counts too.
+ */
+public final class LoadGenerator implements AutoCloseable {
+
+  private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /** Sends one request and waits for its response. */
+  interface Transport extends AutoCloseable {
+
+    /** The status of the response. */
+    int send(LoadTarget target) throws IOException, InterruptedException;
+
+    @Override
+    default void close() {}
+  }
+
+  private final Transport transport;
+  private final LoadConfig config;
+
+  LoadGenerator(Transport transport, LoadConfig config) {
+    this.transport = transport;
+    this.config = config;
+  }
+
+  /** A generator sending HTTP/1.1 requests to the server at {@code server}. */
+  public static LoadGenerator http(URI server, LoadConfig config) {
+    HttpClient client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(config.timeout())
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    return new LoadGenerator(
+        new Transport() {
+          @Override
+          public int send(LoadTarget target) throws IOException, InterruptedException {
+            var request =
+                HttpRequest.newBuilder(server.resolve(target.path()))
+                    .timeout(config.timeout())
+                    .method(
+                        target.method(),
+                        target.body().length == 0
+                            ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofByteArray(target.body()));
+            if (target.contentType() != null) {
+              request.header("Content-Type", target.contentType());
+            }
+            return client.send(request.build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+          }
+
+          @Override
+          public void close() {
+            client.close();
+          }
+        },
+        config);
+  }
+
+  /**
+   * Sends to {@code targets} in turn, at the configured rate, through the warmup and then the
+   * measurement, and waits for the last response or timeout.
+   */
+  public LoadReport run(List<LoadTarget> targets) throws InterruptedException {
+    if (targets.isEmpty()) {
+      throw new IllegalArgumentException("Nothing to send");
+    }
+    Map<String, RouteStats> byName = new HashMap<>();
+    List<RouteStats> routes = new ArrayList<>();
+    RouteStats[] stats = new RouteStats[targets.size()];
+    for (int i = 0; i < stats.length; i++) {
+      stats[i] =
+          byName.computeIfAbsent(
+              targets.get(i).name(),
+              name -> {
+                var route = new RouteStats(name);
+                routes.add(route);
+                return route;
+              });
+    }
+
+    var inFlight = new Semaphore(config.maxInFlight());
+    double interval = TimeUnit.SECONDS.toNanos(1) / config.rate();
+    long start = System.nanoTime();
+    long measureFrom = start + config.warmup().toNanos();
+    long end = measureFrom + config.duration().toNanos();
+    long scheduled = 0;
+    long late = 0;
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long n = 0; ; n++) {
+        long due = start + (long) (n * interval);
+        if (due - end >= 0) {
+          break;
+        }
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        LoadTarget target = targets.get((int) (n % stats.length));
+        RouteStats route = null;
+        if (due - measureFrom >= 0) {
+          route = stats[(int) (n % stats.length)];
+          route.scheduled();
+          scheduled++;
+          if (System.nanoTime() - due > LATE_NANOS) {
+            late++;
+          }
+        }
+        if (!inFlight.tryAcquire()) {
+          if (route != null) {
+            route.error("not sent, " + config.maxInFlight() + " in flight");
+          }
+          continue;
+        }
+        RouteStats measured = route;
+        executor.execute(
+            () -> {
+              try {
+                send(target, due, measured);
+              } finally {
+                inFlight.release();
+              }
+            });
+      }
+    }
+
+    double seconds = config.duration().toNanos() / 1e9;
+    List<LoadReport.RouteReport> reports = new ArrayList<>(routes.size());
+    long responses = 0;
+    for (RouteStats route : routes) {
+      var report = route.report(seconds);
+      reports.add(report);
+      responses += report.responses();
+    }
+    return new LoadReport(
+        config.rate(), seconds, scheduled, late, responses / seconds, List.copyOf(reports));
+  }
+
+  /** Sends one request, recording the outcome if it is {@code measured}. */
+  private void send(LoadTarget target, long due, RouteStats measured) {
+    try {
+      int status = transport.send(target);
+      if (measured != null) {
+        measured.response(status, System.nanoTime() - due);
+      }
+    } catch (HttpTimeoutException e) {
+      if (measured != null) {
+        measured.error("timeout");
+      }
+    } catch (IOException e) {
+      if (measured != null) {
+        measured.error(e.getClass().getSimpleName());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    transport.close();
+  }
+}
@@ -0,0 +1,113 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import com.nathanmcunha.minispring.server.codec.json.JsonWriters;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What a load test measured, per route. Latencies are in microseconds, from when each request was
+ * due to be sent, not from when it actually was.
+ *
+ * @param rate The requests per second that were scheduled.
+ * @param seconds How long the measurement ran.
+ * @param scheduled Requests due within the measurement.
+ * @param late Requests the generator itself sent over a millisecond behind schedule. Their
+ *     latency still counts from when they were due, but many of them mean the generator, not the
+ *     server, was the bottleneck.
+ * @param throughput Responses per second, over every route.
+ * @param routes The results per {@link LoadTarget#name()}, in the order the targets were given.
+ */
+public record LoadReport(
+    double rate,
+    double seconds,
+    long scheduled,
+    long late,
+    double throughput,
+    List<RouteReport> routes) {
+
+  /**
+   * @param requests Requests due within the measurement.
+   * @param responses Responses received, whatever their status.
+   * @param throughput Responses per second.
+   * @param statuses Responses by status code.
+   * @param errors Failures by kind: {@code HTTP 503} for error statuses, {@code timeout}, the
+   *     name of the exception for broken connections, and requests never sent because too many
+   *     were in flight.
+   */
+  public record RouteReport(
+      String name,
+      long requests,
+      long responses,
+      double throughput,
+      Latency latency,
+      Map<String, Long> statuses,
+      Map<String, Long> errors) {}
+
+  /** Latency percentiles in microseconds, each to within the 3% of its histogram bucket. */
+  public record Latency(
+      long p50, long p90, long p99, long p999, long p9999, long max, double mean) {}
+
+  /** Writes the report as JSON, for comparing runs. */
+  public void writeJson(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    try (OutputStream stream = Files.newOutputStream(file);
+        Utf8Output out = Utf8Output.of(stream, 8192)) {
+      JsonWriters.forClass(LoadReport.class).write(this, out);
+    }
+  }
+
+  /** The report as a table, latencies in milliseconds. */
+  public String format() {
+    var text = new StringBuilder();
+    text.append(
+        String.format(
+            Locale.ROOT,
+            "%.0f req/s for %.1f s: %d scheduled, %d sent late, %.1f responses/s%n",
+            rate,
+            seconds,
+            scheduled,
+            late,
+            throughput));
+    text.append(
+        String.format(
+            Locale.ROOT,
+            "%-28s %9s %9s %9s %9s %9s %9s %9s %9s  %s%n",
+            "route",
+            "requests",
+            "resp/s",
+            "p50",
+            "p90",
+            "p99",
+            "p99.9",
+            "p99.99",
+            "max",
+            "errors"));
+    for (RouteReport route : routes) {
+      Latency latency = route.latency();
+      text.append(
+          String.format(
+              Locale.ROOT,
+              "%-28s %9d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f  %s%n",
+              route.name(),
+              route.requests(),
+              route.throughput(),
+              latency.p50() / 1000.0,
+              latency.p90() / 1000.0,
+              latency.p99() / 1000.0,
+              latency.p999() / 1000.0,
+              latency.p9999() / 1000.0,
+              latency.max() / 1000.0,
+              route.errors().isEmpty() ? "-" : route.errors()));
+    }
+    return text.toString();
+  }
+}
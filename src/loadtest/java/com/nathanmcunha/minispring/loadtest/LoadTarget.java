@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One kind of request a load test sends, and the name its results are reported under.
+ *
+ * @param name The route the results are grouped by, such as {@code GET /items/{id}}.
+ * @param method The request method.
+ * @param path The path and query to request, relative to the server.
+ * @param contentType The body's content type, or null without a body.
+ * @param body The request body, empty for none.
+ */
+public record LoadTarget(
+    String name, String method, String path, String contentType, byte[] body) {
+
+  public static LoadTarget get(String path) {
+    return new LoadTarget("GET " + path, "GET", path, null, new byte[0]);
+  }
+
+  public static LoadTarget post(String path, String contentType, String body) {
+    return new LoadTarget(
+        "POST " + path, "POST", path, contentType, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Reports under {@code name}, so that requests to several paths of one route add up. */
+  public LoadTarget withName(String name) {
+    return new LoadTarget(name, method, path, contentType, body);
+  }
+}
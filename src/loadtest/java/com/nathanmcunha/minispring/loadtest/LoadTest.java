@@ -0,0 +1,91 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import com.nathanmcunha.minispring.MiniSpringApp;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots an application and a server in this JVM, on a free port, and drives it with a {@link
+ * LoadGenerator}, so a load test needs nothing but the application's classes.
+ *
+ * <p>Run from the command line it tests {@link MiniSpringApp}, configured through system
+ * properties: {@code minispring.loadtest.rate} (requests per second, default 1000), {@code
+ * .duration} and {@code .warmup} (seconds, default 10 and 2), {@code .paths} (comma-separated,
+ * default {@code /hello,/ping}) and {@code .results} (where to write the JSON report, default
+ * {@code build/reports/loadtest/results.json}). The engine is picked as for the application.
+ */
+public final class LoadTest {
+
+  private static final String PREFIX = "minispring.loadtest.";
+
+  private LoadTest() {}
+
+  /** Boots {@code config}, serves it on a free port, and runs the load test against it. */
+  public static Result<LoadReport, FrameworkError> inProcess(
+      Class<?> config, List<LoadTarget> targets, LoadConfig load)
+      throws IOException, InterruptedException {
+    return switch (MiniApplicationContext.boot(config)) {
+      case Result.Success<MiniApplicationContext, FrameworkError>(var context) ->
+          Result.success(run(context, targets, load));
+      case Result.Failure<MiniApplicationContext, FrameworkError>(var error) ->
+          Result.failure(error);
+    };
+  }
+
+  private static LoadReport run(
+      MiniApplicationContext context, List<LoadTarget> targets, LoadConfig load)
+      throws IOException, InterruptedException {
+    ServerEngine server = ServerEngines.fromSystemProperties(ServerConfig.defaults(0));
+    server.mount("/", new DispatcherServlet(context.getRouterRegistry()));
+    server.start();
+    var address = URI.create("http://127.0.0.1:" + server.address().getPort());
+    try (server;
+        var generator = LoadGenerator.http(address, load)) {
+      return generator.run(targets);
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    var load =
+        LoadConfig.defaults(Double.parseDouble(System.getProperty(PREFIX + "rate", "1000")))
+            .withDuration(seconds("duration", "10"))
+            .withWarmup(seconds("warmup", "2"));
+    List<LoadTarget> targets =
+        Arrays.stream(System.getProperty(PREFIX + "paths", "/hello,/ping").split(","))
+            .map(String::trim)
+            .filter(path -> !path.isEmpty())
+            .map(LoadTarget::get)
+            .toList();
+    Path results =
+        Path.of(System.getProperty(PREFIX + "results", "build/reports/loadtest/results.json"));
+
+    switch (inProcess(MiniSpringApp.class, targets, load)) {
+      case Result.Success<LoadReport, FrameworkError>(var report) -> {
+        System.out.print(report.format());
+        report.writeJson(results);
+        System.out.println("📊 Results written to " + results.toAbsolutePath());
+      }
+      case Result.Failure<LoadReport, FrameworkError>(var error) -> {
+        System.err.println("🔥 Application Failed to Start!");
+        System.err.println("Error: " + error);
+        System.exit(1);
+      }
+    }
+  }
+
+  private static Duration seconds(String property, String fallback) {
+    return Duration.ofMillis(
+        (long) (Double.parseDouble(System.getProperty(PREFIX + property, fallback)) * 1000));
+  }
+}
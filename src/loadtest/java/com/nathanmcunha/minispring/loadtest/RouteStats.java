@@ -0,0 +1,73 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import com.nathanmcunha.minispring.server.metrics.Histogram;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** The results of one {@link LoadTarget} name, updated by every request thread at once. */
+final class RouteStats {
+
+  private final String name;
+  private final Histogram latency = new Histogram();
+  private final LongAdder requests = new LongAdder();
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+  RouteStats(String name) {
+    this.name = name;
+  }
+
+  String name() {
+    return name;
+  }
+
+  void scheduled() {
+    requests.increment();
+  }
+
+  /** Records a response, {@code nanos} after the request was due. */
+  void response(int status, long nanos) {
+    latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+    if (status >= 400) {
+      error("HTTP " + status);
+    }
+  }
+
+  void error(String kind) {
+    errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+  }
+
+  LoadReport.RouteReport report(double seconds) {
+    Histogram.Snapshot snapshot = latency.snapshot();
+    Map<String, Long> byStatus = new TreeMap<>();
+    long responses = 0;
+    for (var entry : statuses.entrySet()) {
+      long count = entry.getValue().sum();
+      byStatus.put(String.valueOf(entry.getKey()), count);
+      responses += count;
+    }
+    Map<String, Long> byError = new TreeMap<>();
+    errors.forEach((kind, count) -> byError.put(kind, count.sum()));
+    var percentiles =
+        new LoadReport.Latency(
+            snapshot.valueAtQuantile(0.5),
+            snapshot.valueAtQuantile(0.9),
+            snapshot.valueAtQuantile(0.99),
+            snapshot.valueAtQuantile(0.999),
+            snapshot.valueAtQuantile(0.9999),
+            snapshot.valueAtQuantile(1.0),
+            snapshot.count() == 0 ? 0 : (double) snapshot.sum() / snapshot.count());
+    return new LoadReport.RouteReport(
+        name,
+        requests.sum(),
+        responses,
+        seconds > 0 ? responses / seconds : 0,
+        percentiles,
+        byStatus,
+        byError);
+  }
+}
@@ -3,17 +3,29 @@ package com.nathanmcunha.minispring;
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.cache.ResponseCache;
+import com.nathanmcunha.minispring.server.compression.Compression;
 import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
-import com.sun.net.httpserver.HttpServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.nathanmcunha.minispring.server.log.AsyncLog;
+import com.nathanmcunha.minispring.server.log.LogConfig;
+import com.nathanmcunha.minispring.server.metrics.HttpMetrics;
+import com.nathanmcunha.minispring.server.metrics.MetricsHandler;
+import com.nathanmcunha.minispring.server.resource.StaticResourceConfig;
+import com.nathanmcunha.minispring.server.resource.StaticResourceHandler;
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 
 public class MiniSpringApp {
 
   public static void main(String[] args) {
     // 1. Start the Server immediately (Listening but Empty)
-    HttpServer server = startServer(8080);
+    ServerEngine server = startServer(8080);
 
     System.out.println("🌱 Booting MiniSpring Context...");
 
@@ -23,26 +35,74 @@ public class MiniSpringApp {
     // 3. Handle Result: Wire the app if success, kill server if fail
     switch (bootResult) {
       case Result.Success<MiniApplicationContext, FrameworkError>(var context) -> {
-        var dispatcher = new DispatcherServlet(context.getRouterRegistry());
+        var compression = Compression.defaults();
+        var dispatcher =
+            new DispatcherServlet(
+                context.getRouterRegistry(),
+                ResponseCache.defaults(),
+                compression,
+                new HttpMetrics(),
+                AdmissionControl.defaults(),
+                startLog());
         // Dynamically add the handler to the running server
-        server.createContext("/", dispatcher);
+        server.mount("/", dispatcher);
+        server.mount(
+            "/metrics",
+            new MetricsHandler(dispatcher.metrics(), compression, dispatcher.admission()));
+        mountStaticResources(server);
         System.out.println("✅ Application Context Wired. Ready to serve!");
       }
       case Result.Failure<MiniApplicationContext, FrameworkError>(var error) -> {
         System.err.println("🔥 Application Failed to Start!");
         System.err.println("Error: " + error);
-        server.stop(0); // Stop the server immediately
+        server.stop(Duration.ZERO); // Stop the server immediately
         System.exit(1);
       }
     }
   }
 
-  private static HttpServer startServer(int port) {
+  /**
+   * Serves the directory named by {@code -Dminispring.static.dir} (default {@code static}) under
+   * {@code /static}, next to the dispatcher, if it exists.
+   */
+  private static void mountStaticResources(ServerEngine server) {
+    Path root = Path.of(System.getProperty("minispring.static.dir", "static"));
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    try {
+      server.mount("/static", StaticResourceHandler.create(StaticResourceConfig.defaults(root)));
+      System.out.println("📁 Serving " + root.toAbsolutePath() + " under /static");
+    } catch (IOException e) {
+      System.err.println("❌ Failed to serve static resources from " + root + ": " + e);
+    }
+  }
+
+  /**
+   * Writes errors and an access log to the file named by {@code -Dminispring.log.file}, rolled
+   * over as it grows, or errors only to standard error if it is not set.
+   */
+  private static AsyncLog startLog() {
+    String file = System.getProperty("minispring.log.file");
+    if (file == null) {
+      return AsyncLog.standardError();
+    }
+    try {
+      var log = AsyncLog.start(LogConfig.toFile(Path.of(file)));
+      System.out.println("📝 Logging requests to " + Path.of(file).toAbsolutePath());
+      return log;
+    } catch (IOException e) {
+      System.err.println("❌ Failed to open the log file " + file + ": " + e);
+      return AsyncLog.standardError();
+    }
+  }
+
+  /** Starts the engine named by {@code -Dminispring.server.engine} ({@code nio} or {@code jdk}). */
+  private static ServerEngine startServer(int port) {
     try {
-      var server = HttpServer.create(new InetSocketAddress(port), 0);
-      server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+      var server = ServerEngines.fromSystemProperties(ServerConfig.defaults(port));
       server.start();
-      System.out.println("🚀 Server started on port " + port);
+      System.out.println("🚀 Server started on port " + port + " (" + server.name() + " engine)");
       return server;
     } catch (IOException e) {
       System.err.println("❌ Failed to bind port " + port);
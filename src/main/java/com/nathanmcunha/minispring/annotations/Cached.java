@@ -0,0 +1,21 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the encoded responses of a {@link Get} route for {@link #ttl()}. Within that time requests
+ * to the same path and query are answered from the cache without calling the handler, and
+ * revalidations whose {@code If-None-Match} still matches get a 304. Since the key leaves headers
+ * out, a route that binds a {@link Header} or the whole request cannot be cached.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+  long ttl();
+
+  TimeUnit unit() default TimeUnit.SECONDS;
+}
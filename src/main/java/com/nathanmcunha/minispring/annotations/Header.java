@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a handler parameter to the first value of a request header, converted like a path
+ * variable. A request without it gets a 400, unless it is not {@link #required()}, in which case
+ * the parameter is null.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Header {
+  /** The header's name, in any case. */
+  String value();
+
+  boolean required() default true;
+}
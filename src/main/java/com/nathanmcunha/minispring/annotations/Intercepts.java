@@ -0,0 +1,25 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a bean implementing {@code Interceptor} for the routes whose templates match one of
+ * {@link #value()} and none of {@link #exclude()}.
+ *
+ * <p>Patterns are matched against route templates, not request paths, segment by segment: {@code
+ * *} stands for any one segment, including a {@code {variable}}, and {@code **} for any number of
+ * them. Interceptors run in ascending {@link #order()}, ties broken by class name.
+ */
+@Component
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Intercepts {
+  String[] value() default "/**";
+
+  String[] exclude() default {};
+
+  int order() default 0;
+}
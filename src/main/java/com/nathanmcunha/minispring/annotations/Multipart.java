@@ -0,0 +1,27 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the limits of the {@code multipart/form-data} body a {@link Post} route reads into its
+ * {@code MultipartForm} parameter. Routes without it get {@code MultipartConfig.defaults()}, whose
+ * values these defaults repeat.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Multipart {
+  /** Parts up to this size stay in memory; bigger ones are written to a temporary file. */
+  long memoryThreshold() default 64 * 1024;
+
+  /** The largest part accepted; a bigger one fails the request with 413. */
+  long maxPartBytes() default 1024 * 1024 * 1024;
+
+  /** The largest body accepted; a bigger one fails the request with 413. */
+  long maxRequestBytes() default 1024 * 1024 * 1024;
+
+  /** The most parts accepted; more fail the request with 413. */
+  int maxParts() default 64;
+}
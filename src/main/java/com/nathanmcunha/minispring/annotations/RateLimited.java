@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits each client of a {@link Get} or {@link Post} route to {@link #requests()} per {@link
+ * #period()}, with bursts of up to {@link #burst()}. Requests over the limit get a 429 with {@code
+ * Retry-After} before the handler is called.
+ *
+ * <p>Clients are told apart by their remote address or, if {@link #header()} is set and present, by
+ * that header's value, such as an API key.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RateLimited {
+  long requests();
+
+  long period() default 1;
+
+  TimeUnit unit() default TimeUnit.SECONDS;
+
+  /** The most requests a client may send at once after a quiet spell, {@link #requests()} if 0. */
+  long burst() default 0;
+
+  String header() default "";
+}
@@ -0,0 +1,15 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends a route's responses as they are, even to clients that accept compressed ones: for bodies
+ * that are already compressed or too cheap to be worth it, or ones that must not be, such as
+ * responses mixing secrets with reflected input.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Uncompressed {}
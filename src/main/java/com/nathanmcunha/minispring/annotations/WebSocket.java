@@ -0,0 +1,21 @@
+package com.nathanmcunha.minispring.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Accepts WebSocket connections on a path, which may be a template like those of {@link Get}. The
+ * method returns the {@code WebSocketListener} of each new session, and may take the path
+ * variables as arguments.
+ */
+@Component
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface WebSocket {
+  String value() default "";
+
+  /** The largest message accepted, after reassembling fragments; bigger ones close with 1009. */
+  int maxMessageBytes() default 64 * 1024;
+}
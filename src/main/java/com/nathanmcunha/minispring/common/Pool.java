@@ -0,0 +1,60 @@
+package com.nathanmcunha.minispring.common;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, lock-free object pool.
+ *
+ * <p>Idle objects sit in a fixed array of slots claimed with compare-and-set, starting from a slot
+ * derived from the calling thread so concurrent callers rarely touch the same slot. When the pool
+ * is empty a new object is created, and when it is full a released object is simply dropped for
+ * the GC, so callers never block.
+ *
+ * @param <T> The type of the pooled objects.
+ */
+public final class Pool<T> {
+
+  private final AtomicReferenceArray<T> slots;
+  private final Supplier<T> factory;
+
+  public Pool(int capacity, Supplier<T> factory) {
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.factory = factory;
+  }
+
+  /** Takes an idle object, or creates a new one if none is available. */
+  public T acquire() {
+    int length = slots.length();
+    int start = start(length);
+    for (int i = 0; i < length; i++) {
+      int index = (start + i) % length;
+      T candidate = slots.get(index);
+      if (candidate != null && slots.compareAndSet(index, candidate, null)) {
+        return candidate;
+      }
+    }
+    return factory.get();
+  }
+
+  /**
+   * Returns an object to the pool. The caller must not use it afterwards.
+   *
+   * @return Whether the pool kept it, so objects holding native resources can free them if not.
+   */
+  public boolean release(T value) {
+    int length = slots.length();
+    int start = start(length);
+    for (int i = 0; i < length; i++) {
+      int index = (start + i) % length;
+      if (slots.get(index) == null && slots.compareAndSet(index, null, value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int start(int length) {
+    return (int) (Thread.currentThread().threadId() % length);
+  }
+}
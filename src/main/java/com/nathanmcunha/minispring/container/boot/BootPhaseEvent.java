@@ -0,0 +1,29 @@
+package com.nathanmcunha.minispring.container.boot;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for one phase of {@link MiniApplicationContext#boot}: scanning,
+ * resolving dependencies, registering beans or building the routes, plus one for the whole boot.
+ */
+@Name("minispring.boot.Phase")
+@Label("Boot Phase")
+@Category({"MiniSpring", "Boot"})
+@StackTrace(false)
+final class BootPhaseEvent extends Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Configuration")
+  @Description("The configuration class the context was booted from")
+  Class<?> config;
+
+  @Label("Succeeded")
+  boolean succeeded;
+}
@@ -8,6 +8,7 @@ import com.nathanmcunha.minispring.container.wiring.DependencyResolver;
 import com.nathanmcunha.minispring.error.FrameworkError;
 import com.nathanmcunha.minispring.server.router.RouterRegistry;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public class MiniApplicationContext implements ApplicationContext {
 
@@ -20,18 +21,51 @@ public class MiniApplicationContext implements ApplicationContext {
   }
 
   public static Result<MiniApplicationContext, FrameworkError> boot(Class<?> config) {
-    return buildFactory(config)
+    return boot(config, new DependencyResolver());
+  }
+
+  /**
+   * Boots with the beans instantiated by {@code resolver}, such as a {@link
+   * DependencyResolver#concurrent} one for applications whose constructors are slow.
+   */
+  public static Result<MiniApplicationContext, FrameworkError> boot(
+      Class<?> config, DependencyResolver resolver) {
+    return phase(
+        "boot",
+        config,
+        () ->
+            buildFactory(config, resolver)
+                .flatMap(
+                    factory ->
+                        phase("routes", config, () -> RouterRegistry.create(factory))
+                            .map(router -> new MiniApplicationContext(factory, router))));
+  }
+
+  private static Result<BeanFactory, FrameworkError> buildFactory(
+      Class<?> config, DependencyResolver resolver) {
+    return phase("scan", config, () -> new ComponentScannerReader().scan(config))
+        .flatMap(
+            definitions ->
+                phase("resolve", config, () -> resolver.resolve(definitions)))
         .flatMap(
-            factory ->
-                RouterRegistry.create(factory)
-                    .map(router -> new MiniApplicationContext(factory, router)));
+            beans ->
+                phase("register", config, () -> new DefaultBeanFactory().registerBeans(beans)));
   }
 
-  private static Result<BeanFactory, FrameworkError> buildFactory(Class<?> config) {
-    return new ComponentScannerReader()
-        .scan(config)
-        .flatMap(definitions -> new DependencyResolver().resolve(definitions))
-        .flatMap(beans -> new DefaultBeanFactory().registerBeans(beans));
+  /** Runs one step of the boot as a {@link BootPhaseEvent}. */
+  private static <T> Result<T, FrameworkError> phase(
+      String name, Class<?> config, Supplier<Result<T, FrameworkError>> step) {
+    var event = new BootPhaseEvent();
+    event.begin();
+    var result = step.get();
+    event.end();
+    if (event.shouldCommit()) {
+      event.phase = name;
+      event.config = config;
+      event.succeeded = result instanceof Result.Success;
+      event.commit();
+    }
+    return result;
   }
 
   @Override
@@ -22,6 +22,10 @@ import java.util.stream.Collectors;
  * <p>The scanning process starts from the package of the provided configuration class.
  * Only classes within this package or its sub-packages are considered for discovery.
  * To scan the entire project, the configuration class should be placed in the project's root package.</p>
+ *
+ * <p>Classes are found and loaded through the configuration class's own class loader, so an
+ * application loaded by a class loader of its own, such as a plugin or a generated test
+ * application, is scanned just like one on the application classpath.</p>
  */
 public class ComponentScannerReader implements BeanDefinitionReader {
 
@@ -35,11 +39,11 @@ public class ComponentScannerReader implements BeanDefinitionReader {
     try {
       String packageName = config.getPackageName();
       String path = packageName.replace(".", "/");
-      ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      ClassLoader classLoader = config.getClassLoader();
       List<URL> resources = classLoader.resources(path).toList();
       return Result.traverse(
           resources,
-          url -> scanRoot(url, packageName),
+          url -> scanRoot(url, packageName, classLoader),
           Collectors.flatMapping(Set::stream, Collectors.toSet()));
     } catch (Exception e) {
       return Result.failure(new FrameworkError.ScanFailed("Failed to scan resources", e));
@@ -51,9 +55,11 @@ public class ComponentScannerReader implements BeanDefinitionReader {
    *
    * @param resource The URL representing the package directory in the classpath.
    * @param packageName The base package name corresponding to this resource.
+   * @param classLoader The class loader the resource was found through.
    * @return A Result containing a set of discovered {@link BeanDefinition}s.
    */
-  private Result<Set<BeanDefinition>, FrameworkError> scanRoot(URL resource, String packageName) {
+  private Result<Set<BeanDefinition>, FrameworkError> scanRoot(
+      URL resource, String packageName, ClassLoader classLoader) {
     try {
       Path root = Paths.get(resource.toURI());
 
@@ -61,7 +67,7 @@ public class ComponentScannerReader implements BeanDefinitionReader {
       return filesResult.map(
           paths ->
               paths.stream()
-                  .flatMap(file -> loadClass(root, file, packageName).stream())
+                  .flatMap(file -> loadClass(root, file, packageName, classLoader).stream())
                   .filter(this::isComponent)
                   .map(this::createBeanDefinition)
                   .collect(Collectors.toSet()));
@@ -97,12 +103,13 @@ public class ComponentScannerReader implements BeanDefinitionReader {
     return new BeanDefinition(clazz, constructors[0].getParameterTypes());
   }
 
-  private Result<Class<?>, FrameworkError> loadClass(Path root, Path file, String packageName) {
+  private Result<Class<?>, FrameworkError> loadClass(
+      Path root, Path file, String packageName, ClassLoader classLoader) {
     String relative = root.relativize(file).toString();
     String className =
         packageName.concat(".").concat(relative).replace(File.separator, ".").replace(".class", "");
     try {
-      return Result.success(Class.forName(className));
+      return Result.success(Class.forName(className, true, classLoader));
     } catch (Exception e) {
       return Result.failure(new FrameworkError.ScanFailed("Failed to load class: " + className, e));
     }
@@ -4,121 +4,391 @@ import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.container.metadata.BeanDefinition;
 import com.nathanmcunha.minispring.error.FrameworkError;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Parameter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Orchestrates the instantiation and wiring of beans based on their definitions.
  *
- * <p>This resolver performs a recursive depth-first resolution of dependencies, ensuring that all
- * required arguments for a bean's constructor are instantiated and available before the bean itself
- * is created.
+ * <p>The resolver first builds the whole dependency graph: each constructor argument is matched to
+ * the one bean that can supply it, through an index of every bean's supertypes, and the graph is
+ * checked for cycles, which are reported with their full path. Nothing is instantiated until the
+ * graph is known to be complete and acyclic.
  *
- * <p>It also includes safeguards against circular dependencies.
+ * <p>Beans are then instantiated in dependency order, on the calling thread by default. A resolver
+ * made with {@link #concurrent} instead hands each bean to its executor as soon as the last of its
+ * dependencies exists, so independent beans are built at the same time and beans with slow
+ * constructors hold up only the beans that depend on them: the wiring takes as long as the slowest
+ * chain of dependencies, not as long as all the constructors added up. Neither walks the graph
+ * recursively, even on an executor that runs tasks in place, so dependency chains of any depth are
+ * fine.
  */
 public class DependencyResolver {
-  private final Map<Class<?>, Object> builtBeans = new HashMap<>();
-  private final Set<Class<?>> currentlyBuilding = new HashSet<>();
 
-  public DependencyResolver() {}
+  // Null to instantiate on the calling thread.
+  private final Executor executor;
+
+  public DependencyResolver() {
+    this(null);
+  }
+
+  private DependencyResolver(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * A resolver that instantiates independent beans concurrently on {@code executor}, such as
+   * {@link java.util.concurrent.ForkJoinPool#commonPool()} for constructors that compute, or a
+   * virtual thread per task executor for constructors that block on I/O.
+   */
+  public static DependencyResolver concurrent(Executor executor) {
+    return new DependencyResolver(executor);
+  }
 
   public Result<Map<Class<?>, Object>, FrameworkError> resolve(Set<BeanDefinition> definitions) {
-    for (BeanDefinition beanDefinition : definitions) {
-      Result<Object, FrameworkError> result = resolveBean(beanDefinition.clazz(), definitions);
-      if (result instanceof Result.Failure<Object, FrameworkError> failure) {
-        return Result.failure(failure.error());
+    return Graph.of(definitions)
+        .flatMap(
+            graph ->
+                graph
+                    .order()
+                    .flatMap(
+                        order ->
+                            executor == null
+                                ? instantiateInOrder(graph, order)
+                                : new ConcurrentInstantiation(graph, executor).run()));
+  }
+
+  private static Result<Map<Class<?>, Object>, FrameworkError> instantiateInOrder(
+      Graph graph, int[] order) {
+    Object[] instances = new Object[graph.size()];
+    for (int bean : order) {
+      switch (instantiate(graph.constructors[bean], graph.arguments(bean, instances))) {
+        case Result.Success<Object, FrameworkError>(var instance) -> instances[bean] = instance;
+        case Result.Failure<Object, FrameworkError>(var error) -> {
+          return Result.failure(error);
+        }
       }
     }
-    return Result.success(Map.copyOf(builtBeans));
+    return Result.success(graph.beans(instances));
   }
 
-  private Result<Object, FrameworkError> resolveBean(
-      Class<?> type, Set<BeanDefinition> definitions) {
-    return findImplementation(type, definitions).flatMap(impl -> createInstance(impl, definitions));
+  private static Result<Object, FrameworkError> instantiate(
+      Constructor<?> constructor, Object[] args) {
+    try {
+      return Result.success(constructor.newInstance(args));
+    } catch (Exception e) {
+      return Result.failure(
+          new FrameworkError.BeanInstantiationFailed(
+              "Failed to build bean:" + constructor.getDeclaringClass().getName(), e));
+    }
   }
 
-  private Result<Class<?>, FrameworkError> findImplementation(
-      Class<?> type, Set<BeanDefinition> definitions) {
-    List<Class<?>> candidates =
-        definitions.stream()
-            .map(BeanDefinition::clazz)
-            .filter(type::isAssignableFrom)
-            .collect(Collectors.toList());
+  /**
+   * The beans and, for each one, the beans its constructor takes, by index. Each constructor
+   * argument resolves to the one bean assignable to its type.
+   */
+  private static final class Graph {
 
-    if (candidates.isEmpty()) {
-      return Result.failure(
-          new FrameworkError.MissingDependency(
-              "No implementation found for required type: " + type.getName()));
+    private static final byte UNVISITED = 0;
+    private static final byte VISITING = 1;
+    private static final byte DONE = 2;
+
+    private final Class<?>[] types;
+    private final Constructor<?>[] constructors;
+    private final int[][] dependencies;
+
+    private Graph(Class<?>[] types, Constructor<?>[] constructors, int[][] dependencies) {
+      this.types = types;
+      this.constructors = constructors;
+      this.dependencies = dependencies;
     }
 
-    if (candidates.size() > 1) {
-      return Result.failure(
-          new FrameworkError.AmbiguousDependency(
-              "Multiple beans found for type " + type.getName() + ": " + candidates));
+    static Result<Graph, FrameworkError> of(Set<BeanDefinition> definitions) {
+      Class<?>[] types =
+          definitions.stream()
+              .map(BeanDefinition::clazz)
+              .collect(LinkedHashSet<Class<?>>::new, Set::add, Set::addAll)
+              .toArray(Class<?>[]::new);
+      Map<Class<?>, List<Integer>> implementations = new HashMap<>();
+      for (int bean = 0; bean < types.length; bean++) {
+        for (Class<?> supertype : supertypes(types[bean])) {
+          implementations.computeIfAbsent(supertype, type -> new ArrayList<>(1)).add(bean);
+        }
+      }
+
+      Constructor<?>[] constructors = new Constructor<?>[types.length];
+      int[][] dependencies = new int[types.length][];
+      for (int bean = 0; bean < types.length; bean++) {
+        Constructor<?>[] declared = types[bean].getDeclaredConstructors();
+        if (declared.length == 0) {
+          return Result.failure(
+              new FrameworkError.BeanInstantiationFailed(
+                  "No constructors found for " + types[bean].getName(), null));
+        }
+        constructors[bean] = declared[0];
+        Class<?>[] parameters = declared[0].getParameterTypes();
+        dependencies[bean] = new int[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+          switch (implementation(parameters[i], implementations, types)) {
+            case Result.Success<Integer, FrameworkError>(var dependency) ->
+                dependencies[bean][i] = dependency;
+            case Result.Failure<Integer, FrameworkError>(var error) -> {
+              return Result.failure(error);
+            }
+          }
+        }
+      }
+      return Result.success(new Graph(types, constructors, dependencies));
+    }
+
+    private static Result<Integer, FrameworkError> implementation(
+        Class<?> type, Map<Class<?>, List<Integer>> implementations, Class<?>[] types) {
+      List<Integer> candidates = implementations.getOrDefault(type, List.of());
+      if (candidates.isEmpty()) {
+        return Result.failure(
+            new FrameworkError.MissingDependency(
+                "No implementation found for required type: " + type.getName()));
+      }
+      if (candidates.size() > 1) {
+        return Result.failure(
+            new FrameworkError.AmbiguousDependency(
+                "Multiple beans found for type "
+                    + type.getName()
+                    + ": "
+                    + candidates.stream().map(bean -> types[bean]).toList()));
+      }
+      return Result.success(candidates.get(0));
+    }
+
+    /** {@code type} and every class and interface it extends or implements. */
+    private static Set<Class<?>> supertypes(Class<?> type) {
+      Set<Class<?>> supertypes = new HashSet<>();
+      var pending = new ArrayDeque<Class<?>>();
+      pending.add(type);
+      while (!pending.isEmpty()) {
+        Class<?> next = pending.poll();
+        if (supertypes.add(next)) {
+          if (next.getSuperclass() != null) {
+            pending.add(next.getSuperclass());
+          }
+          pending.addAll(List.of(next.getInterfaces()));
+        }
+      }
+      return supertypes;
+    }
+
+    /**
+     * Every bean after its dependencies, from an iterative depth-first walk.
+     *
+     * @return A {@link FrameworkError.CircularDependencyDetected} naming each bean on the first
+     *     cycle found, if there is one.
+     */
+    Result<int[], FrameworkError> order() {
+      byte[] state = new byte[size()];
+      int[] order = new int[size()];
+      int ordered = 0;
+      // The path being walked, and the next dependency to visit from each bean on it.
+      int[] path = new int[size()];
+      int[] next = new int[size()];
+      for (int root = 0; root < size(); root++) {
+        if (state[root] != UNVISITED) {
+          continue;
+        }
+        int depth = 0;
+        path[depth] = root;
+        next[depth++] = 0;
+        state[root] = VISITING;
+        while (depth > 0) {
+          int bean = path[depth - 1];
+          if (next[depth - 1] < dependencies[bean].length) {
+            int dependency = dependencies[bean][next[depth - 1]++];
+            if (state[dependency] == VISITING) {
+              return Result.failure(cycle(path, depth, dependency));
+            }
+            if (state[dependency] == UNVISITED) {
+              state[dependency] = VISITING;
+              path[depth] = dependency;
+              next[depth++] = 0;
+            }
+          } else {
+            state[bean] = DONE;
+            order[ordered++] = bean;
+            depth--;
+          }
+        }
+      }
+      return Result.success(order);
     }
 
-    return Result.success(candidates.get(0));
+    /** The cycle from {@code dependency}, which is on the path, back round to itself. */
+    private FrameworkError cycle(int[] path, int depth, int dependency) {
+      var names = new StringJoiner(" -> ", "Circular Dependency: ", "");
+      int from = depth - 1;
+      while (path[from] != dependency) {
+        from--;
+      }
+      for (int i = from; i < depth; i++) {
+        names.add(types[path[i]].getName());
+      }
+      names.add(types[dependency].getName());
+      return new FrameworkError.CircularDependencyDetected(names.toString());
+    }
+
+    int size() {
+      return types.length;
+    }
+
+    Object[] arguments(int bean, Object[] instances) {
+      Object[] arguments = new Object[dependencies[bean].length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = instances[dependencies[bean][i]];
+      }
+      return arguments;
+    }
+
+    Map<Class<?>, Object> beans(Object[] instances) {
+      Map<Class<?>, Object> beans = new HashMap<>(2 * size());
+      for (int bean = 0; bean < size(); bean++) {
+        beans.put(types[bean], instances[bean]);
+      }
+      return Map.copyOf(beans);
+    }
   }
 
-  private Result<Object, FrameworkError> createInstance(
-      Class<?> type, Set<BeanDefinition> definitions) {
-    if (builtBeans.containsKey(type)) {
-      return Result.success(builtBeans.get(type));
+  /**
+   * One concurrent wiring of a {@link Graph}. Each bean counts the dependencies it is waiting on;
+   * the task that builds a bean's last dependency queues it as ready and hands the executor a task
+   * to build whatever is ready. A task that is already building on the current thread, as with an
+   * executor that runs tasks in place, leaves the bean to its own loop rather than building it in a
+   * nested call. After the first failure no more beans are built, and the wiring fails without
+   * waiting for those already being built.
+   */
+  private static final class ConcurrentInstantiation {
+
+    private final Graph graph;
+    private final Executor executor;
+    private final int[][] dependents;
+    private final AtomicIntegerArray waitingOn;
+    // Written before the bean's dependents are counted down, which publishes it to them.
+    private final Object[] instances;
+    private final AtomicInteger remaining;
+    private final AtomicReference<FrameworkError> failure = new AtomicReference<>();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private final Queue<Integer> ready = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> false);
+
+    ConcurrentInstantiation(Graph graph, Executor executor) {
+      this.graph = graph;
+      this.executor = executor;
+      this.instances = new Object[graph.size()];
+      this.remaining = new AtomicInteger(graph.size());
+      this.waitingOn = new AtomicIntegerArray(graph.size());
+      int[] counts = new int[graph.size()];
+      for (int bean = 0; bean < graph.size(); bean++) {
+        waitingOn.set(bean, graph.dependencies[bean].length);
+        for (int dependency : graph.dependencies[bean]) {
+          counts[dependency]++;
+        }
+      }
+      this.dependents = new int[graph.size()][];
+      for (int bean = 0; bean < graph.size(); bean++) {
+        dependents[bean] = new int[counts[bean]];
+      }
+      for (int bean = 0; bean < graph.size(); bean++) {
+        for (int dependency : graph.dependencies[bean]) {
+          dependents[dependency][--counts[dependency]] = bean;
+        }
+      }
     }
 
-    if (currentlyBuilding.contains(type)) {
-      return Result.failure(
-          new FrameworkError.CircularDependencyDetected("Circular Dependency: " + type.getName()));
+    Result<Map<Class<?>, Object>, FrameworkError> run() {
+      if (graph.size() == 0) {
+        return Result.success(Map.of());
+      }
+      for (int bean = 0; bean < graph.size(); bean++) {
+        if (graph.dependencies[bean].length == 0) {
+          schedule(bean);
+        }
+      }
+      finished.join();
+      FrameworkError error = failure.get();
+      return error != null ? Result.failure(error) : Result.success(graph.beans(instances));
     }
 
-    currentlyBuilding.add(type);
-    try {
-      Constructor<?>[] constructors = type.getDeclaredConstructors();
-      if (constructors.length == 0) {
-        return Result.failure(
+    private void schedule(int bean) {
+      if (failure.get() != null) {
+        return;
+      }
+      ready.add(bean);
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        fail(
             new FrameworkError.BeanInstantiationFailed(
-                "No constructors found for " + type.getName(), null));
-      }
-      Constructor<?> constructor = constructors[0];
-      return resolveArguments(constructor.getParameters(), definitions)
-          .flatMap(args -> instantiate(constructor, args))
-          .map(
-              instance -> {
-                builtBeans.put(type, instance);
-                return instance;
-              });
-    } finally {
-      currentlyBuilding.remove(type);
+                "Could not schedule bean:" + graph.types[bean].getName(), e));
+      }
     }
-  }
 
-  private Result<Object[], FrameworkError> resolveArguments(
-      Parameter[] parameters, Set<BeanDefinition> definitions) {
-    List<Object> args = new ArrayList<>();
-    for (Parameter param : parameters) {
-      switch (resolveBean(param.getType(), definitions)) {
-        case Result.Success<Object, FrameworkError>(var value) -> args.add(value);
-        case Result.Failure<Object, FrameworkError>(var error) -> {
-          return Result.failure(error);
+    private void drain() {
+      if (draining.get()) {
+        return;
+      }
+      draining.set(true);
+      try {
+        Integer bean;
+        while (failure.get() == null && (bean = ready.poll()) != null) {
+          build(bean);
         }
+      } finally {
+        draining.remove();
       }
     }
-    return Result.success(args.toArray());
-  }
 
-  private Result<Object, FrameworkError> instantiate(Constructor<?> constructor, Object[] args) {
-    try {
-      return Result.success(constructor.newInstance(args));
-    } catch (Exception e) {
-      return Result.failure(
-          new FrameworkError.BeanInstantiationFailed(
-              "Failed to build bean:" + constructor.getDeclaringClass().getName(), e));
+    private void build(int bean) {
+      Result<Object, FrameworkError> result;
+      try {
+        result = instantiate(graph.constructors[bean], graph.arguments(bean, instances));
+      } catch (RuntimeException | Error e) {
+        result =
+            Result.failure(
+                new FrameworkError.BeanInstantiationFailed(
+                    "Failed to build bean:" + graph.types[bean].getName(), e));
+      }
+      switch (result) {
+        case Result.Success<Object, FrameworkError>(var instance) -> {
+          instances[bean] = instance;
+          for (int dependent : dependents[bean]) {
+            if (waitingOn.decrementAndGet(dependent) == 0) {
+              schedule(dependent);
+            }
+          }
+          if (remaining.decrementAndGet() == 0) {
+            finished.complete(null);
+          }
+        }
+        case Result.Failure<Object, FrameworkError>(var error) -> fail(error);
+      }
+    }
+
+    private void fail(FrameworkError error) {
+      if (failure.compareAndSet(null, error)) {
+        finished.complete(null);
+      }
     }
   }
 }
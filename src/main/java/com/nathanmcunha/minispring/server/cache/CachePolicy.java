@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.server.cache;
+
+/**
+ * Whether and for how long a route's responses are cached, resolved from {@code @Cached} at
+ * registration.
+ *
+ * @param ttlNanos How long a cached response stays fresh; 0 for routes that are not cached.
+ */
+public record CachePolicy(long ttlNanos) {
+
+  public static final CachePolicy NONE = new CachePolicy(0);
+
+  public boolean enabled() {
+    return ttlNanos > 0;
+  }
+}
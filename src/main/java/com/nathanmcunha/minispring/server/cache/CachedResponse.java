@@ -0,0 +1,91 @@
+package com.nathanmcunha.minispring.server.cache;
+
+import com.nathanmcunha.minispring.server.codec.BodyWriter;
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.compression.ContentCoding;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A 200 response as it goes out on the wire: its headers and encoded body, so a hit costs neither
+ * the handler nor the encoder.
+ *
+ * <p>The ETag is a digest of the body rather than a version counter, so when an entry expires and
+ * the handler produces the same bytes again, clients holding the old tag still get a 304.
+ *
+ * @param expiresAt When the entry goes stale, on the {@link System#nanoTime()} clock.
+ */
+public record CachedResponse(
+    Map<String, String> headers, byte[] body, String etag, long expiresAt) {
+
+  private static final byte[] EMPTY = new byte[0];
+  // Rough per-entry overhead beyond the body: the key, the headers and the map node.
+  private static final int OVERHEAD = 256;
+
+  /** Encodes {@code response} with the route's writer, as the dispatcher would have streamed it. */
+  public static CachedResponse encode(Response<?> response, BodyWriter writer, long expiresAt)
+      throws IOException {
+    Map<String, String> headers = new LinkedHashMap<>(response.headers());
+    byte[] body = EMPTY;
+    if (response.body() != null) {
+      headers.putIfAbsent("Content-Type", writer.contentType(response.body()));
+      var bytes = new ByteArrayOutputStream();
+      try (var out = Utf8Output.of(bytes, 4096)) {
+        writer.write(response.body(), out);
+      }
+      body = bytes.toByteArray();
+    }
+    return new CachedResponse(Map.copyOf(headers), body, etag(body), expiresAt);
+  }
+
+  /**
+   * This response as it should be cached for clients accepting {@code coding} (null for none): its
+   * body compressed, or only marked as varying with {@code Accept-Encoding} when {@code coding} is
+   * null. Returns this response if compression does not apply to it.
+   */
+  public CachedResponse compressedWith(
+      Compression compression, ContentCoding coding, RouteKey route) {
+    long length = body.length == 0 ? -1 : body.length;
+    if (!compression.appliesTo(
+        headers.get("Content-Type"), headers.get("Content-Encoding"), length)) {
+      return this;
+    }
+    Map<String, String> varied = new LinkedHashMap<>(headers);
+    varied.put("Vary", "Accept-Encoding");
+    if (coding == null) {
+      return new CachedResponse(Map.copyOf(varied), body, etag, expiresAt);
+    }
+    varied.put("Content-Encoding", coding.token());
+    byte[] compressed = compression.compress(body, 0, body.length, coding, route);
+    return new CachedResponse(Map.copyOf(varied), compressed, etag(compressed), expiresAt);
+  }
+
+  public boolean isFreshAt(long now) {
+    return expiresAt - now > 0;
+  }
+
+  /** Approximate heap cost, counted against the cache's byte budget. */
+  long weight() {
+    return body.length + OVERHEAD;
+  }
+
+  private static String etag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return '"'
+          + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16))
+          + '"';
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required of every JVM", e);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.nathanmcunha.minispring.server.cache;
+
+/**
+ * Estimates how often each key was requested recently, in a fixed amount of memory.
+ *
+ * <p>A count-min sketch of 4-bit counters: each key bumps one counter in each of four rows and its
+ * estimate is the smallest of them, so collisions can only inflate it. Counters saturate at 15,
+ * and every {@code 10 × width} increments all of them are halved, so old popularity fades and a
+ * key that was hot an hour ago does not outrank one that is hot now.
+ *
+ * <p>Updates are not synchronized. A lost increment under contention only blurs an estimate that
+ * is approximate anyway, which is cheaper than making every cache hit contend on a lock.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /** Sizes the sketch for about {@code capacity} distinct keys. */
+  FrequencySketch(int capacity) {
+    int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+    this.table = new long[width];
+    this.mask = width - 1;
+    this.sampleSize = 10 * width;
+  }
+
+  int frequency(int hash) {
+    int frequency = 15;
+    for (int row = 0; row < 4; row++) {
+      int counter = (int) ((table[index(hash, row)] >>> offset(hash, row)) & 0xF);
+      frequency = Math.min(frequency, counter);
+    }
+    return frequency;
+  }
+
+  void increment(int hash) {
+    boolean added = false;
+    for (int row = 0; row < 4; row++) {
+      int index = index(hash, row);
+      int offset = offset(hash, row);
+      long word = table[index];
+      if (((word >>> offset) & 0xF) != 0xF) {
+        table[index] = word + (1L << offset);
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /** Halves every counter. */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private int index(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & mask;
+  }
+
+  /** Which of the 16 counters in the word the key uses in {@code row}. */
+  private static int offset(int hash, int row) {
+    return ((hash >>> (row << 3)) & 0xF) << 2;
+  }
+}
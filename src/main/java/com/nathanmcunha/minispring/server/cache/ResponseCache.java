@@ -0,0 +1,102 @@
+package com.nathanmcunha.minispring.server.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of encoded responses, keyed by request path and query.
+ *
+ * <p>Hits read a {@link ConcurrentHashMap} and bump a {@link FrequencySketch}, without locking.
+ * Only insertions take the lock, to keep the byte and entry bounds. When full, the oldest entries
+ * make room, except that a newcomer requested less often than the oldest fresh entry is turned
+ * away instead (TinyLFU admission). A burst of one-off URLs, such as a crawler walking {@code
+ * /users/{id}}, therefore cannot flush out the entries that are actually hot. Stale entries are
+ * dropped when met, by a lookup or by the eviction scan.
+ */
+public final class ResponseCache {
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+  private final FrequencySketch sketch;
+  // Insertion order, oldest first; guarded by this.
+  private final LinkedHashMap<String, CachedResponse> order = new LinkedHashMap<>();
+  private long bytes;
+
+  public ResponseCache(int maxEntries, long maxBytes) {
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.sketch = new FrequencySketch(maxEntries);
+  }
+
+  /** Up to 10,000 responses and 64 MiB. */
+  public static ResponseCache defaults() {
+    return new ResponseCache(10_000, 64L * 1024 * 1024);
+  }
+
+  /** The fresh response cached for {@code key}, or null. Counts as a use of the key either way. */
+  public CachedResponse get(String key, long now) {
+    sketch.increment(spread(key.hashCode()));
+    CachedResponse cached = entries.get(key);
+    if (cached == null) {
+      return null;
+    }
+    if (!cached.isFreshAt(now)) {
+      remove(key, cached);
+      return null;
+    }
+    return cached;
+  }
+
+  /** Stores {@code response}, unless the cache would rather keep what it has. */
+  public synchronized void put(String key, CachedResponse response, long now) {
+    long weight = response.weight();
+    if (weight > maxBytes) {
+      return;
+    }
+    CachedResponse previous = order.remove(key);
+    if (previous != null) {
+      entries.remove(key);
+      bytes -= previous.weight();
+    }
+
+    int frequency = sketch.frequency(spread(key.hashCode()));
+    Iterator<Map.Entry<String, CachedResponse>> oldest = order.entrySet().iterator();
+    while ((order.size() >= maxEntries || bytes + weight > maxBytes) && oldest.hasNext()) {
+      Map.Entry<String, CachedResponse> victim = oldest.next();
+      if (victim.getValue().isFreshAt(now)
+          && sketch.frequency(spread(victim.getKey().hashCode())) > frequency) {
+        return;
+      }
+      oldest.remove();
+      entries.remove(victim.getKey());
+      bytes -= victim.getValue().weight();
+    }
+    order.put(key, response);
+    entries.put(key, response);
+    bytes += weight;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  private synchronized void remove(String key, CachedResponse cached) {
+    if (order.remove(key, cached)) {
+      entries.remove(key);
+      bytes -= cached.weight();
+    }
+  }
+
+  /** String hashes of similar keys differ mostly in their low bits; mix them across the word. */
+  private static int spread(int hash) {
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.server.codec;
+
+import java.io.IOException;
+
+/**
+ * Encodes a response body. One is resolved per handler at registration time from the handler's
+ * declared return type; see {@link BodyWriters}.
+ */
+public interface BodyWriter {
+
+  /** The {@code Content-Type} to announce for this body. */
+  String contentType(Object body);
+
+  /** Streams the (non-null) body into the response. */
+  void write(Object body, Utf8Output out) throws IOException;
+}
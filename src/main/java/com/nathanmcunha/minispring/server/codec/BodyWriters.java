@@ -0,0 +1,243 @@
+package com.nathanmcunha.minispring.server.codec;
+
+import com.nathanmcunha.minispring.server.codec.json.JsonWriter;
+import com.nathanmcunha.minispring.server.codec.json.JsonWriters;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Resolves the {@link BodyWriter} of a handler from its declared return type.
+ *
+ * <p>Text ({@link CharSequence}) bodies are written as-is as {@code text/plain}; everything else is
+ * encoded as {@code application/json}. For {@code Response<T>} the body type is {@code T}, and
+ * so it is for a {@link CompletionStage} of {@code T} or of {@code Response<T>}. For a {@link
+ * Flow.Publisher} of {@code T} the writer is the one of each item.
+ *
+ * <p>Binary bodies ({@code byte[]}, {@link ByteBuffer}, {@link InputStream}, {@link Path} and
+ * {@link ReadableByteChannel}) are sent as they are. Arrays, buffers and files have a known size
+ * and go out with a Content-Length; streams and channels are chunked once they outgrow the
+ * buffer. Files are sent with {@link FileChannel#transferTo} where the engine supports it, and
+ * streams, channels and files are closed once written.
+ */
+public final class BodyWriters {
+
+  public static final String TEXT_PLAIN = "text/plain; charset=utf-8";
+  public static final String APPLICATION_JSON = "application/json";
+  public static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+
+  private static final List<Class<?>> BINARY_TYPES =
+      List.of(
+          byte[].class, ByteBuffer.class, InputStream.class, Path.class, ReadableByteChannel.class);
+
+  public static final BodyWriter TEXT =
+      new BodyWriter() {
+        @Override
+        public String contentType(Object body) {
+          return TEXT_PLAIN;
+        }
+
+        @Override
+        public void write(Object body, Utf8Output out) throws IOException {
+          out.writeUtf8(body instanceof CharSequence text ? text : String.valueOf(body));
+        }
+      };
+
+  /** Copies binary bodies as they are; a file's content type is guessed from its name. */
+  public static final BodyWriter BINARY =
+      new BodyWriter() {
+        @Override
+        public String contentType(Object body) {
+          if (body instanceof Path path && path.getFileName() != null) {
+            return MediaTypes.forFileName(path.getFileName().toString());
+          }
+          return APPLICATION_OCTET_STREAM;
+        }
+
+        @Override
+        public void write(Object body, Utf8Output out) throws IOException {
+          writeBinary(body, out);
+        }
+      };
+
+  /** Decides between text, binary and JSON from the runtime class of each body. */
+  public static final BodyWriter DYNAMIC =
+      new BodyWriter() {
+        @Override
+        public String contentType(Object body) {
+          if (body instanceof CharSequence) {
+            return TEXT_PLAIN;
+          }
+          return isBinary(body.getClass()) ? BINARY.contentType(body) : APPLICATION_JSON;
+        }
+
+        @Override
+        public void write(Object body, Utf8Output out) throws IOException {
+          if (body instanceof CharSequence text) {
+            out.writeUtf8(text);
+          } else if (isBinary(body.getClass())) {
+            writeBinary(body, out);
+          } else {
+            JsonWriters.DYNAMIC.write(body, out);
+          }
+        }
+      };
+
+  private BodyWriters() {}
+
+  public static BodyWriter forMethod(Method method) {
+    return forType(bodyType(method.getGenericReturnType()));
+  }
+
+  public static BodyWriter forType(Type type) {
+    if (type instanceof Class<?> c && CharSequence.class.isAssignableFrom(c)) {
+      return TEXT;
+    }
+    if (type instanceof Class<?> c && isBinary(c)) {
+      return BINARY;
+    }
+    if (type == Object.class || type == void.class || type == Void.class) {
+      return DYNAMIC;
+    }
+    return json(JsonWriters.forType(type));
+  }
+
+  /**
+   * Whether the handler declares a body that is read from a stream, channel or file as it is sent,
+   * and so should not be buffered whole.
+   */
+  public static boolean streamsBody(Method method) {
+    return bodyType(method.getGenericReturnType()) instanceof Class<?> c && isStreamed(c);
+  }
+
+  /** Whether the handler declares a {@link CompletionStage} or a {@link Flow.Publisher}. */
+  public static boolean completesLater(Method method) {
+    return isAsync(rawType(unwrapResponse(method.getGenericReturnType())));
+  }
+
+  /** Whether {@code body} is read from a stream, channel or file as it is sent. */
+  public static boolean isStreamed(Object body) {
+    return body != null && isStreamed(body.getClass());
+  }
+
+  private static boolean isStreamed(Class<?> type) {
+    return InputStream.class.isAssignableFrom(type)
+        || ReadableByteChannel.class.isAssignableFrom(type)
+        || Path.class.isAssignableFrom(type);
+  }
+
+  public static BodyWriter json(JsonWriter<Object> writer) {
+    return new BodyWriter() {
+      @Override
+      public String contentType(Object body) {
+        return APPLICATION_JSON;
+      }
+
+      @Override
+      public void write(Object body, Utf8Output out) throws IOException {
+        writer.write(body, out);
+      }
+    };
+  }
+
+  private static boolean isBinary(Class<?> type) {
+    for (Class<?> binary : BINARY_TYPES) {
+      if (binary.isAssignableFrom(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void writeBinary(Object body, Utf8Output out) throws IOException {
+    switch (body) {
+      case byte[] bytes -> {
+        out.expectLength(bytes.length);
+        out.write(bytes);
+      }
+      case ByteBuffer buffer -> {
+        out.expectLength(buffer.remaining());
+        out.write(buffer);
+      }
+      case Path path -> {
+        try (var file = FileChannel.open(path)) {
+          writeFile(file, out);
+        }
+      }
+      case FileChannel file -> {
+        try (file) {
+          writeFile(file, out);
+        }
+      }
+      case ReadableByteChannel channel -> {
+        try (channel) {
+          out.transferFrom(channel);
+        }
+      }
+      case InputStream stream -> {
+        try (stream) {
+          out.transferFrom(stream);
+        }
+      }
+      default -> throw new IllegalArgumentException("Not a binary body: " + body.getClass());
+    }
+  }
+
+  /** Sends a file from its current position to its end. */
+  private static void writeFile(FileChannel file, Utf8Output out) throws IOException {
+    long from = file.position();
+    long count = Math.max(0, file.size() - from);
+    out.expectLength(count);
+    out.transferFrom(file, from, count);
+  }
+
+  /**
+   * Unwraps {@code Response<T>}, {@code CompletionStage<T>} and {@code Flow.Publisher<T>} down to
+   * {@code T}, in any nesting a handler can return.
+   */
+  private static Type bodyType(Type returnType) {
+    Type type = unwrapResponse(returnType);
+    if (type instanceof ParameterizedType p && isAsync(rawType(p))) {
+      Type value = p.getActualTypeArguments()[0];
+      if (value instanceof WildcardType wildcard) {
+        value = wildcard.getUpperBounds()[0];
+      }
+      return unwrapResponse(value);
+    }
+    return type;
+  }
+
+  private static boolean isAsync(Class<?> type) {
+    return CompletionStage.class.isAssignableFrom(type)
+        || Flow.Publisher.class.isAssignableFrom(type);
+  }
+
+  private static Class<?> rawType(Type type) {
+    if (type instanceof ParameterizedType p && p.getRawType() instanceof Class<?> raw) {
+      return raw;
+    }
+    return type instanceof Class<?> c ? c : Object.class;
+  }
+
+  /** Unwraps {@code Response<T>} to {@code T}; a raw {@code Response} carries an unknown body. */
+  private static Type unwrapResponse(Type returnType) {
+    if (returnType == Response.class) {
+      return Object.class;
+    }
+    if (returnType instanceof ParameterizedType p && p.getRawType() == Response.class) {
+      return p.getActualTypeArguments()[0];
+    }
+    return returnType;
+  }
+}
@@ -0,0 +1,65 @@
+package com.nathanmcunha.minispring.server.codec;
+
+import java.net.URLConnection;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Content types guessed from file names, for file bodies and static resources.
+ *
+ * <p>Common web formats are looked up in a small table first, since the JDK's own table lacks
+ * several of them (CSS, JavaScript modules, fonts, WebAssembly). Text types carry a UTF-8 charset.
+ */
+public final class MediaTypes {
+
+  private static final Map<String, String> BY_EXTENSION =
+      Map.ofEntries(
+          Map.entry("html", "text/html; charset=utf-8"),
+          Map.entry("htm", "text/html; charset=utf-8"),
+          Map.entry("css", "text/css; charset=utf-8"),
+          Map.entry("js", "text/javascript; charset=utf-8"),
+          Map.entry("mjs", "text/javascript; charset=utf-8"),
+          Map.entry("json", "application/json"),
+          Map.entry("map", "application/json"),
+          Map.entry("txt", "text/plain; charset=utf-8"),
+          Map.entry("xml", "application/xml"),
+          Map.entry("svg", "image/svg+xml"),
+          Map.entry("png", "image/png"),
+          Map.entry("jpg", "image/jpeg"),
+          Map.entry("jpeg", "image/jpeg"),
+          Map.entry("gif", "image/gif"),
+          Map.entry("webp", "image/webp"),
+          Map.entry("avif", "image/avif"),
+          Map.entry("ico", "image/x-icon"),
+          Map.entry("woff", "font/woff"),
+          Map.entry("woff2", "font/woff2"),
+          Map.entry("wasm", "application/wasm"),
+          Map.entry("pdf", "application/pdf"));
+
+  private MediaTypes() {}
+
+  /** The content type for {@code fileName}, or {@code application/octet-stream} if unknown. */
+  public static String forFileName(String fileName) {
+    int dot = fileName.lastIndexOf('.');
+    if (dot >= 0) {
+      String type = BY_EXTENSION.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+      if (type != null) {
+        return type;
+      }
+    }
+    String guess = URLConnection.guessContentTypeFromName(fileName);
+    return guess != null ? guess : BodyWriters.APPLICATION_OCTET_STREAM;
+  }
+
+  /**
+   * Whether bodies of {@code contentType} shrink when compressed: text, JSON, XML (SVG included) and
+   * JavaScript. Images, fonts, archives and other binary formats are mostly compressed already.
+   */
+  public static boolean isCompressible(String contentType) {
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/")
+        || type.contains("json")
+        || type.contains("xml")
+        || type.contains("javascript");
+  }
+}
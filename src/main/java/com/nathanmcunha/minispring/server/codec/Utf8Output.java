@@ -0,0 +1,309 @@
+package com.nathanmcunha.minispring.server.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A buffered {@link OutputStream} that encodes text straight into its byte buffer.
+ *
+ * <p>Characters, JSON strings and integers are written as UTF-8 without building an intermediate
+ * {@link String} or {@code byte[]}. When the buffer fills up it is handed to {@link #drain}, which
+ * subclasses implement to push the bytes to their destination.
+ *
+ * <p>Binary sources (buffers, streams, channels and file regions) are copied through the same
+ * buffer, so a body of any size costs one buffer of heap. Sinks that can do better, such as a
+ * socket that takes file regions directly, override {@link #expectLength} and {@link
+ * #transferFrom(FileChannel, long, long)}.
+ */
+public abstract class Utf8Output extends OutputStream {
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+  private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+  protected byte[] buffer;
+  protected int position;
+
+  protected Utf8Output(byte[] buffer) {
+    this.buffer = buffer;
+  }
+
+  /** A plain buffered output in front of any stream. */
+  public static Utf8Output of(OutputStream target, int bufferSize) {
+    return new Utf8Output(new byte[bufferSize]) {
+      @Override
+      protected void drain(byte[] bytes, int offset, int length) throws IOException {
+        target.write(bytes, offset, length);
+      }
+
+      @Override
+      public void close() throws IOException {
+        flush();
+        target.close();
+      }
+    };
+  }
+
+  /** Sends bytes downstream. The array may be this output's buffer, which is reused afterwards. */
+  protected abstract void drain(byte[] bytes, int offset, int length) throws IOException;
+
+  @Override
+  public void write(int b) throws IOException {
+    if (position == buffer.length) {
+      drainBuffer();
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (length > buffer.length - position) {
+      drainBuffer();
+      if (length > buffer.length) {
+        drain(bytes, offset, length);
+        return;
+      }
+    }
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+  /** Writes the remaining bytes of {@code source} without moving its position. */
+  public void write(ByteBuffer source) throws IOException {
+    if (source.hasArray()) {
+      write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+      return;
+    }
+    ByteBuffer rest = source.duplicate();
+    while (rest.hasRemaining()) {
+      if (position == buffer.length) {
+        drainBuffer();
+      }
+      int count = Math.min(rest.remaining(), buffer.length - position);
+      rest.get(buffer, position, count);
+      position += count;
+    }
+  }
+
+  /**
+   * Announces that exactly {@code length} more bytes follow, before any of them is written. A sink
+   * that sends headers can declare them as the Content-Length instead of buffering to find out;
+   * the default ignores it.
+   */
+  public void expectLength(long length) throws IOException {}
+
+  /** Copies {@code count} bytes of {@code file}, starting at {@code from}, through the buffer. */
+  public void transferFrom(FileChannel file, long from, long count) throws IOException {
+    ByteBuffer window = ByteBuffer.wrap(buffer);
+    while (count > 0) {
+      if (position == buffer.length) {
+        drainBuffer();
+      }
+      window.limit(position + (int) Math.min(count, buffer.length - position)).position(position);
+      int read = file.read(window, from);
+      if (read < 0) {
+        throw new EOFException("File ended " + count + " bytes early");
+      }
+      position += read;
+      from += read;
+      count -= read;
+    }
+  }
+
+  /** Copies a blocking channel until it ends. */
+  public void transferFrom(ReadableByteChannel source) throws IOException {
+    ByteBuffer window = ByteBuffer.wrap(buffer);
+    while (true) {
+      if (position == buffer.length) {
+        drainBuffer();
+      }
+      window.limit(buffer.length).position(position);
+      int read = source.read(window);
+      if (read < 0) {
+        return;
+      }
+      position += read;
+    }
+  }
+
+  /** Copies a stream until it ends, reading straight into the buffer. */
+  public void transferFrom(InputStream source) throws IOException {
+    while (true) {
+      if (position == buffer.length) {
+        drainBuffer();
+      }
+      int read = source.read(buffer, position, buffer.length - position);
+      if (read < 0) {
+        return;
+      }
+      position += read;
+    }
+  }
+
+  /** Writes raw characters as UTF-8. */
+  public void writeUtf8(CharSequence text) throws IOException {
+    for (int i = 0, length = text.length(); i < length; i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        write(c);
+      } else {
+        i = writeMultiByte(text, i, c);
+      }
+    }
+  }
+
+  /** Writes a quoted and escaped JSON string. */
+  public void writeJsonString(CharSequence text) throws IOException {
+    write('"');
+    for (int i = 0, length = text.length(); i < length; i++) {
+      char c = text.charAt(i);
+      if (c >= 0x80) {
+        i = writeMultiByte(text, i, c);
+      } else if (c == '"' || c == '\\') {
+        write('\\');
+        write(c);
+      } else if (c >= 0x20) {
+        write(c);
+      } else {
+        writeControl(c);
+      }
+    }
+    write('"');
+  }
+
+  /** Writes the decimal digits of {@code value} without allocating. */
+  public void writeLong(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      write(MIN_LONG, 0, MIN_LONG.length);
+      return;
+    }
+    ensure(20);
+    if (value < 0) {
+      buffer[position++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest > 0; rest /= 10) {
+      digits++;
+    }
+    int end = position + digits;
+    for (int i = end - 1; i >= position; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    position = end;
+  }
+
+  /**
+   * Writes a JSON number. Non-finite values have no JSON representation and become {@code null}.
+   * Unlike integers this goes through {@link Double#toString}, which is the one allocation left.
+   */
+  public void writeDouble(double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      writeNull();
+    } else if (value == (long) value && Math.abs(value) < 1e15) {
+      writeLong((long) value);
+    } else {
+      writeUtf8(Double.toString(value));
+    }
+  }
+
+  /**
+   * Writes a {@code float} as {@link #writeDouble} does a {@code double}, but with the shortest
+   * digits of the float itself, so {@code 0.1f} is {@code 0.1} rather than its widened value.
+   */
+  public void writeFloat(float value) throws IOException {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      writeNull();
+    } else if (value == (long) value && Math.abs(value) < 1e15f) {
+      writeLong((long) value);
+    } else {
+      writeUtf8(Float.toString(value));
+    }
+  }
+
+  public void writeNull() throws IOException {
+    write(NULL, 0, NULL.length);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    drainBuffer();
+  }
+
+  protected void drainBuffer() throws IOException {
+    if (position > 0) {
+      drain(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  private void ensure(int bytes) throws IOException {
+    if (buffer.length - position < bytes) {
+      drainBuffer();
+    }
+  }
+
+  private int writeMultiByte(CharSequence text, int index, char c) throws IOException {
+    ensure(4);
+    if (c < 0x800) {
+      buffer[position++] = (byte) (0xC0 | (c >> 6));
+      buffer[position++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c)
+        && index + 1 < text.length()
+        && Character.isLowSurrogate(text.charAt(index + 1))) {
+      int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+      buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+      return index + 1;
+    } else if (Character.isSurrogate(c)) {
+      buffer[position++] = '?';
+    } else {
+      buffer[position++] = (byte) (0xE0 | (c >> 12));
+      buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      buffer[position++] = (byte) (0x80 | (c & 0x3F));
+    }
+    return index;
+  }
+
+  private void writeControl(char c) throws IOException {
+    switch (c) {
+      case '\n' -> {
+        write('\\');
+        write('n');
+      }
+      case '\r' -> {
+        write('\\');
+        write('r');
+      }
+      case '\t' -> {
+        write('\\');
+        write('t');
+      }
+      case '\b' -> {
+        write('\\');
+        write('b');
+      }
+      case '\f' -> {
+        write('\\');
+        write('f');
+      }
+      default -> {
+        ensure(6);
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = '0';
+        buffer[position++] = '0';
+        buffer[position++] = HEX[c >> 4];
+        buffer[position++] = HEX[c & 0xF];
+      }
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import java.io.IOException;
+
+/**
+ * Reads one Java type from a {@link JsonReader}. Decoders are built once per type by {@link
+ * JsonDecoders} and hold everything they need (constructor handles, pre-encoded field names), so
+ * decoding does no reflection.
+ *
+ * @param <T> The type this decoder produces.
+ */
+@FunctionalInterface
+public interface JsonDecoder<T> {
+
+  T read(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,492 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds {@link JsonDecoder}s from Java types.
+ *
+ * <p>Records are built through their canonical constructor, with incoming keys matched against
+ * pre-encoded component names; unknown keys are skipped and missing components get their type's
+ * default value ({@code null}, zero, {@code false} or an empty {@link Optional}). Collections,
+ * arrays, maps and {@link Optional} reuse the decoder of their declared element type, and {@code
+ * Object} decodes to plain maps, lists, strings, numbers and booleans. Enums and UUIDs are read
+ * from JSON strings.
+ *
+ * <p>Decoders for a class are built once and cached per class. Types that cannot be constructed
+ * from JSON, such as arbitrary classes, have no decoder.
+ */
+public final class JsonDecoders {
+
+  private static final MethodType CONSTRUCTOR_TYPE =
+      MethodType.methodType(Object.class, Object[].class);
+
+  private static final ClassValue<Optional<JsonDecoder<Object>>> BY_CLASS =
+      new ClassValue<>() {
+        @Override
+        protected Optional<JsonDecoder<Object>> computeValue(Class<?> type) {
+          try {
+            return Optional.of(build(type));
+          } catch (Unsupported e) {
+            return Optional.empty();
+          }
+        }
+      };
+
+  // Records currently being built on this thread, to break cycles such as
+  // record Node(List<Node> children).
+  private static final ThreadLocal<Set<Class<?>>> BUILDING = ThreadLocal.withInitial(HashSet::new);
+
+  private static final JsonDecoder<Object> STRING = JsonReader::nextString;
+  private static final JsonDecoder<Object> BOOLEAN = JsonReader::nextBoolean;
+  private static final JsonDecoder<Object> LONG = JsonReader::nextLong;
+  private static final JsonDecoder<Object> DOUBLE = JsonReader::nextDouble;
+  private static final JsonDecoder<Object> INT =
+      reader -> (int) ranged(reader, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  private static final JsonDecoder<Object> SHORT =
+      reader -> (short) ranged(reader, Short.MIN_VALUE, Short.MAX_VALUE);
+  private static final JsonDecoder<Object> BYTE =
+      reader -> (byte) ranged(reader, Byte.MIN_VALUE, Byte.MAX_VALUE);
+  private static final JsonDecoder<Object> FLOAT = reader -> (float) reader.nextDouble();
+  private static final JsonDecoder<Object> CHAR = JsonDecoders::character;
+  private static final JsonDecoder<Object> BIG_DECIMAL =
+      reader -> new BigDecimal(reader.nextNumberText());
+  private static final JsonDecoder<Object> BIG_INTEGER =
+      reader -> new BigDecimal(reader.nextNumberText()).toBigIntegerExact();
+  private static final JsonDecoder<Object> UUIDS = reader -> UUID.fromString(reader.nextString());
+  private static final JsonDecoder<Object> BYTES =
+      reader -> Base64.getDecoder().decode(reader.nextString());
+
+  /** Decodes whatever comes next into maps, lists, strings, longs, doubles and booleans. */
+  public static final JsonDecoder<Object> ANY = JsonDecoders::any;
+
+  private JsonDecoders() {}
+
+  /**
+   * Resolves the decoder for a declared (possibly generic) type, such as a handler parameter's
+   * type or a record component's type. JSON {@code null} decodes to {@code null} for reference
+   * types, to an empty {@link Optional} for optionals, and is rejected for primitives.
+   *
+   * @return The decoder, or empty if values of the type cannot be built from JSON.
+   */
+  public static Optional<JsonDecoder<Object>> forType(Type type) {
+    try {
+      JsonDecoder<Object> decoder = resolve(type);
+      Class<?> raw = erasure(type);
+      return Optional.of(raw.isPrimitive() || raw == Optional.class ? decoder : nullable(decoder));
+    } catch (Unsupported e) {
+      return Optional.empty();
+    }
+  }
+
+  private static JsonDecoder<Object> resolve(Type type) {
+    return switch (type) {
+      case Class<?> c -> forClass(c);
+      case ParameterizedType p -> forParameterized(p);
+      case GenericArrayType a -> array(erasure(a), resolve(a.getGenericComponentType()));
+      case WildcardType w -> resolve(w.getUpperBounds()[0]);
+      default -> ANY;
+    };
+  }
+
+  private static JsonDecoder<Object> forClass(Class<?> type) {
+    if (BUILDING.get().contains(type)) {
+      return reader -> BY_CLASS.get(type).orElseThrow().read(reader);
+    }
+    return BY_CLASS.get(type).orElseThrow(Unsupported::new);
+  }
+
+  private static JsonDecoder<Object> forParameterized(ParameterizedType type) {
+    Class<?> raw = (Class<?>) type.getRawType();
+    Type[] arguments = type.getActualTypeArguments();
+    if (raw == Optional.class) {
+      JsonDecoder<Object> element = resolve(arguments[0]);
+      return reader -> Optional.ofNullable(reader.nextIfNull() ? null : element.read(reader));
+    }
+    if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+      return map(raw, keyConverter(arguments[0]), resolve(arguments[1]));
+    }
+    if (Iterable.class.isAssignableFrom(raw) && arguments.length == 1) {
+      return collection(raw, resolve(arguments[0]));
+    }
+    return forClass(raw);
+  }
+
+  private static JsonDecoder<Object> build(Class<?> type) {
+    if (type == Object.class) {
+      return ANY;
+    }
+    if (type == String.class || type == CharSequence.class) {
+      return STRING;
+    }
+    if (type == boolean.class || type == Boolean.class) {
+      return BOOLEAN;
+    }
+    if (type == int.class || type == Integer.class) {
+      return INT;
+    }
+    if (type == long.class || type == Long.class) {
+      return LONG;
+    }
+    if (type == double.class || type == Double.class) {
+      return DOUBLE;
+    }
+    if (type == float.class || type == Float.class) {
+      return FLOAT;
+    }
+    if (type == short.class || type == Short.class) {
+      return SHORT;
+    }
+    if (type == byte.class || type == Byte.class) {
+      return BYTE;
+    }
+    if (type == char.class || type == Character.class) {
+      return CHAR;
+    }
+    if (type == BigDecimal.class || type == Number.class) {
+      return BIG_DECIMAL;
+    }
+    if (type == BigInteger.class) {
+      return BIG_INTEGER;
+    }
+    if (type == UUID.class) {
+      return UUIDS;
+    }
+    if (type.isEnum()) {
+      return enumeration(type);
+    }
+    if (type.isRecord()) {
+      BUILDING.get().add(type);
+      try {
+        return record(type);
+      } finally {
+        BUILDING.get().remove(type);
+      }
+    }
+    if (type == byte[].class) {
+      return BYTES;
+    }
+    if (type.isArray()) {
+      return type.getComponentType().isPrimitive()
+          ? primitiveArray(type.getComponentType())
+          : array(type, forClass(type.getComponentType()));
+    }
+    if (Map.class.isAssignableFrom(type)) {
+      return map(type, key -> key, nullable(ANY));
+    }
+    if (Iterable.class.isAssignableFrom(type)) {
+      return collection(type, nullable(ANY));
+    }
+    throw new Unsupported();
+  }
+
+  private static JsonDecoder<Object> record(Class<?> type) {
+    RecordComponent[] components = type.getRecordComponents();
+    Class<?>[] parameterTypes = new Class<?>[components.length];
+    byte[][] names = new byte[components.length][];
+    Object[] defaults = new Object[components.length];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    JsonDecoder<Object>[] decoders = new JsonDecoder[components.length];
+    for (int i = 0; i < components.length; i++) {
+      RecordComponent component = components[i];
+      Class<?> componentType = component.getType();
+      parameterTypes[i] = componentType;
+      names[i] = component.getName().getBytes(StandardCharsets.UTF_8);
+      JsonDecoder<Object> decoder = resolve(component.getGenericType());
+      if (componentType.isPrimitive()) {
+        defaults[i] = Array.get(Array.newInstance(componentType, 1), 0);
+        decoders[i] = decoder;
+      } else if (componentType == Optional.class) {
+        defaults[i] = Optional.empty();
+        decoders[i] = decoder;
+      } else {
+        decoders[i] = nullable(decoder);
+      }
+    }
+    MethodHandle constructor;
+    try {
+      var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      constructor =
+          lookup
+              .unreflectConstructor(type.getDeclaredConstructor(parameterTypes))
+              .asSpreader(Object[].class, components.length)
+              .asType(CONSTRUCTOR_TYPE);
+    } catch (ReflectiveOperationException e) {
+      // The record lives in a module that is not open to us.
+      throw new Unsupported();
+    }
+    return new RecordDecoder(names, decoders, defaults, constructor);
+  }
+
+  private record RecordDecoder(
+      byte[][] names, JsonDecoder<Object>[] decoders, Object[] defaults, MethodHandle constructor)
+      implements JsonDecoder<Object> {
+
+    @Override
+    public Object read(JsonReader reader) throws IOException {
+      Object[] values = defaults.clone();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        int index = reader.nextName(names);
+        if (index < 0) {
+          reader.skipValue();
+        } else {
+          values[index] = decoders[index].read(reader);
+        }
+      }
+      reader.endObject();
+      try {
+        return (Object) constructor.invokeExact(values);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new UndeclaredThrowableException(t);
+      }
+    }
+  }
+
+  private static JsonDecoder<Object> enumeration(Class<?> type) {
+    Object[] constants = type.getEnumConstants();
+    byte[][] names = new byte[constants.length][];
+    for (int i = 0; i < constants.length; i++) {
+      names[i] = ((Enum<?>) constants[i]).name().getBytes(StandardCharsets.UTF_8);
+    }
+    return reader -> {
+      int index = reader.nextString(names);
+      if (index < 0) {
+        throw reader.error("Unknown " + type.getSimpleName() + " constant");
+      }
+      return constants[index];
+    };
+  }
+
+  private static JsonDecoder<Object> collection(Class<?> type, JsonDecoder<Object> element) {
+    Supplier<Collection<Object>> factory;
+    if (type.isAssignableFrom(ArrayList.class)) {
+      factory = ArrayList::new;
+    } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+      factory = LinkedHashSet::new;
+    } else {
+      throw new Unsupported();
+    }
+    JsonDecoder<Object> nullableElement = nullable(element);
+    return reader -> {
+      Collection<Object> items = factory.get();
+      reader.beginArray();
+      while (reader.hasNext()) {
+        items.add(nullableElement.read(reader));
+      }
+      reader.endArray();
+      return items;
+    };
+  }
+
+  private static JsonDecoder<Object> array(Class<?> type, JsonDecoder<Object> element) {
+    Object[] empty = (Object[]) Array.newInstance(type.getComponentType(), 0);
+    JsonDecoder<Object> items = collection(List.class, element);
+    return reader -> ((List<?>) items.read(reader)).toArray(empty);
+  }
+
+  private static JsonDecoder<Object> primitiveArray(Class<?> component) {
+    if (component == int.class) {
+      return reader -> {
+        int[] values = new int[16];
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+          }
+          values[size++] = (int) ranged(reader, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        reader.endArray();
+        return Arrays.copyOf(values, size);
+      };
+    }
+    if (component == long.class) {
+      return reader -> {
+        long[] values = new long[16];
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+          }
+          values[size++] = reader.nextLong();
+        }
+        reader.endArray();
+        return Arrays.copyOf(values, size);
+      };
+    }
+    if (component == double.class) {
+      return reader -> {
+        double[] values = new double[16];
+        int size = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+          }
+          values[size++] = reader.nextDouble();
+        }
+        reader.endArray();
+        return Arrays.copyOf(values, size);
+      };
+    }
+    if (component == char.class) {
+      return reader -> reader.nextString().toCharArray();
+    }
+    // boolean[], short[] and float[] are rare enough to go through a list of boxes.
+    JsonDecoder<Object> element = forClass(component);
+    JsonDecoder<Object> items = collection(List.class, element);
+    return reader -> {
+      List<?> boxes = (List<?>) items.read(reader);
+      Object values = Array.newInstance(component, boxes.size());
+      for (int i = 0; i < boxes.size(); i++) {
+        Array.set(values, i, boxes.get(i));
+      }
+      return values;
+    };
+  }
+
+  private static JsonDecoder<Object> map(
+      Class<?> type, Function<String, Object> key, JsonDecoder<Object> value) {
+    if (!type.isAssignableFrom(LinkedHashMap.class)) {
+      throw new Unsupported();
+    }
+    JsonDecoder<Object> nullableValue = nullable(value);
+    return reader -> {
+      Map<Object, Object> entries = new LinkedHashMap<>();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        entries.put(key.apply(reader.nextName()), nullableValue.read(reader));
+      }
+      reader.endObject();
+      return entries;
+    };
+  }
+
+  private static Function<String, Object> keyConverter(Type type) {
+    if (!(type instanceof Class<?> c) || c == String.class || c == Object.class) {
+      return key -> key;
+    }
+    if (c == Integer.class) {
+      return Integer::valueOf;
+    }
+    if (c == Long.class) {
+      return Long::valueOf;
+    }
+    if (c == UUID.class) {
+      return UUID::fromString;
+    }
+    if (c.isEnum()) {
+      return key -> enumValue(c, key);
+    }
+    throw new Unsupported();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object enumValue(Class<?> type, String name) {
+    return Enum.valueOf((Class<? extends Enum>) type, name);
+  }
+
+  private static Class<?> erasure(Type type) {
+    return switch (type) {
+      case Class<?> c -> c;
+      case ParameterizedType p -> (Class<?>) p.getRawType();
+      case GenericArrayType a -> erasure(a.getGenericComponentType()).arrayType();
+      default -> Object.class;
+    };
+  }
+
+  private static Object any(JsonReader reader) throws IOException {
+    return switch (reader.peek()) {
+      case BEGIN_OBJECT -> {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+          entries.put(reader.nextName(), any(reader));
+        }
+        reader.endObject();
+        yield entries;
+      }
+      case BEGIN_ARRAY -> {
+        List<Object> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          items.add(any(reader));
+        }
+        reader.endArray();
+        yield items;
+      }
+      case STRING -> reader.nextString();
+      case NUMBER -> {
+        String text = reader.nextNumberText();
+        yield text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0
+            ? (Object) Long.valueOf(text)
+            : (Object) Double.valueOf(text);
+      }
+      case BOOLEAN -> reader.nextBoolean();
+      case NULL -> {
+        reader.nextIfNull();
+        yield null;
+      }
+      case END_OBJECT, END_ARRAY, END_DOCUMENT -> throw reader.error("Expected a value");
+    };
+  }
+
+  private static JsonDecoder<Object> nullable(JsonDecoder<Object> decoder) {
+    return reader -> reader.nextIfNull() ? null : decoder.read(reader);
+  }
+
+  private static long ranged(JsonReader reader, long min, long max) throws IOException {
+    long value = reader.nextLong();
+    if (value < min || value > max) {
+      throw reader.error("Number out of range: " + value);
+    }
+    return value;
+  }
+
+  private static Object character(JsonReader reader) throws IOException {
+    String value = reader.nextString();
+    if (value.length() != 1) {
+      throw reader.error("Expected a single character");
+    }
+    return value.charAt(0);
+  }
+
+  /** Thrown while building a decoder for a type that cannot be built from JSON. */
+  private static final class Unsupported extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    Unsupported() {
+      super(null, null, false, false);
+    }
+  }
+}
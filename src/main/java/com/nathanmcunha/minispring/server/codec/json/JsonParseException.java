@@ -0,0 +1,13 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import java.io.IOException;
+
+/** The request body is not valid JSON, or does not fit the type it is being decoded into. */
+public class JsonParseException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  public JsonParseException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,426 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import com.nathanmcunha.minispring.common.Pool;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A pull parser that reads JSON incrementally from an {@link InputStream}.
+ *
+ * <p>Input is consumed through a pooled 8 KiB buffer that is refilled on demand, so documents of any
+ * size are decoded without first being read into memory. Strings are unescaped into a scratch
+ * array that is reused for the whole document; object keys and enum constants can be matched
+ * against pre-encoded names straight from that array without creating a {@link String}.
+ *
+ * <p>Closing the reader returns its buffer to the pool but leaves the stream open.
+ */
+public final class JsonReader implements Closeable {
+
+  public enum Token {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT
+  }
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_DEPTH = 512;
+  private static final Pool<byte[]> BUFFERS = new Pool<>(256, () -> new byte[BUFFER_SIZE]);
+
+  private final InputStream in;
+  private byte[] buffer;
+  private int position;
+  private int limit;
+  private long consumed;
+
+  private byte[] scratch = new byte[128];
+  private int scratchLength;
+
+  // needsComma[depth] is set once the current object/array has produced its first element.
+  private boolean[] needsComma = new boolean[16];
+  private int depth;
+
+  public JsonReader(InputStream in) {
+    this.in = in;
+    this.buffer = BUFFERS.acquire();
+  }
+
+  public Token peek() throws IOException {
+    int c = peekNonWhitespace();
+    return switch (c) {
+      case -1 -> Token.END_DOCUMENT;
+      case '{' -> Token.BEGIN_OBJECT;
+      case '}' -> Token.END_OBJECT;
+      case '[' -> Token.BEGIN_ARRAY;
+      case ']' -> Token.END_ARRAY;
+      case '"' -> Token.STRING;
+      case 't', 'f' -> Token.BOOLEAN;
+      case 'n' -> Token.NULL;
+      default -> {
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          yield Token.NUMBER;
+        }
+        throw error("Unexpected character " + describe(c));
+      }
+    };
+  }
+
+  public void beginObject() throws IOException {
+    expect('{');
+    push();
+  }
+
+  public void endObject() throws IOException {
+    expect('}');
+    depth--;
+  }
+
+  public void beginArray() throws IOException {
+    expect('[');
+    push();
+  }
+
+  public void endArray() throws IOException {
+    expect(']');
+    depth--;
+  }
+
+  /** Whether the current object or array has another element, consuming the separating comma. */
+  public boolean hasNext() throws IOException {
+    int c = peekNonWhitespace();
+    if (c == '}' || c == ']' || c == -1) {
+      return false;
+    }
+    if (needsComma[depth]) {
+      if (c != ',') {
+        throw error("Expected ',' but found " + describe(c));
+      }
+      position++;
+    } else {
+      needsComma[depth] = true;
+    }
+    return true;
+  }
+
+  public String nextName() throws IOException {
+    readString();
+    expect(':');
+    return scratchString();
+  }
+
+  /**
+   * Reads an object key and returns its index in {@code names}, or -1 if it is not one of them.
+   * The names are compared as UTF-8 bytes, so no String is created for the key.
+   */
+  public int nextName(byte[][] names) throws IOException {
+    readString();
+    expect(':');
+    return matchScratch(names);
+  }
+
+  public String nextString() throws IOException {
+    readString();
+    return scratchString();
+  }
+
+  /** Reads a string value and returns its index in {@code candidates}, or -1. */
+  public int nextString(byte[][] candidates) throws IOException {
+    readString();
+    return matchScratch(candidates);
+  }
+
+  public boolean nextBoolean() throws IOException {
+    int c = peekNonWhitespace();
+    if (c == 't') {
+      literal("true");
+      return true;
+    }
+    if (c == 'f') {
+      literal("false");
+      return false;
+    }
+    throw error("Expected a boolean but found " + describe(c));
+  }
+
+  /** Consumes a {@code null} if that is what comes next. */
+  public boolean nextIfNull() throws IOException {
+    if (peekNonWhitespace() == 'n') {
+      literal("null");
+      return true;
+    }
+    return false;
+  }
+
+  public long nextLong() throws IOException {
+    readNumber();
+    boolean negative = scratch[0] == '-';
+    int start = negative ? 1 : 0;
+    long value = 0;
+    for (int i = start; i < scratchLength; i++) {
+      int digit = scratch[i] - '0';
+      if (digit < 0 || digit > 9) {
+        double decimal = nextDecimal();
+        if (decimal != Math.rint(decimal) || Math.abs(decimal) > Long.MAX_VALUE) {
+          throw error("Expected an integer but found " + scratchString());
+        }
+        return (long) decimal;
+      }
+      if (value < (Long.MIN_VALUE + digit) / 10) {
+        throw error("Integer out of range: " + scratchString());
+      }
+      value = value * 10 - digit;
+    }
+    if (!negative && value == Long.MIN_VALUE) {
+      throw error("Integer out of range: " + scratchString());
+    }
+    return negative ? value : -value;
+  }
+
+  public double nextDouble() throws IOException {
+    readNumber();
+    return nextDecimal();
+  }
+
+  /** The raw text of the next number, for arbitrary-precision types. */
+  public String nextNumberText() throws IOException {
+    readNumber();
+    return scratchString();
+  }
+
+  /** Skips the next value, however deeply nested. */
+  public void skipValue() throws IOException {
+    switch (peek()) {
+      case BEGIN_OBJECT -> {
+        beginObject();
+        while (hasNext()) {
+          readString();
+          expect(':');
+          skipValue();
+        }
+        endObject();
+      }
+      case BEGIN_ARRAY -> {
+        beginArray();
+        while (hasNext()) {
+          skipValue();
+        }
+        endArray();
+      }
+      case STRING -> readString();
+      case NUMBER -> readNumber();
+      case BOOLEAN -> nextBoolean();
+      case NULL -> nextIfNull();
+      case END_OBJECT, END_ARRAY, END_DOCUMENT -> throw error("Expected a value");
+    }
+  }
+
+  /** Fails unless only whitespace is left in the stream. */
+  public void endDocument() throws IOException {
+    int c = peekNonWhitespace();
+    if (c != -1) {
+      throw error("Unexpected trailing content " + describe(c));
+    }
+  }
+
+  @Override
+  public void close() {
+    if (buffer != null) {
+      BUFFERS.release(buffer);
+      buffer = null;
+    }
+  }
+
+  JsonParseException error(String message) {
+    return new JsonParseException(message + " at offset " + (consumed + position));
+  }
+
+  private void push() throws JsonParseException {
+    if (++depth >= MAX_DEPTH) {
+      throw error("Document nested deeper than " + MAX_DEPTH + " levels");
+    }
+    if (depth == needsComma.length) {
+      needsComma = Arrays.copyOf(needsComma, depth * 2);
+    }
+    needsComma[depth] = false;
+  }
+
+  private void readString() throws IOException {
+    expect('"');
+    scratchLength = 0;
+    while (true) {
+      int b = read();
+      if (b == '"') {
+        return;
+      }
+      if (b == '\\') {
+        readEscape();
+      } else if (b < 0x20) {
+        throw error(b < 0 ? "Unterminated string" : "Unescaped control character in string");
+      } else {
+        append(b);
+      }
+    }
+  }
+
+  private void readEscape() throws IOException {
+    int b = read();
+    switch (b) {
+      case '"', '\\', '/' -> append(b);
+      case 'n' -> append('\n');
+      case 't' -> append('\t');
+      case 'r' -> append('\r');
+      case 'b' -> append('\b');
+      case 'f' -> append('\f');
+      case 'u' -> {
+        int codePoint = readHex();
+        if (Character.isHighSurrogate((char) codePoint)) {
+          if (read() != '\\' || read() != 'u') {
+            throw error("Unpaired surrogate in string");
+          }
+          codePoint = Character.toCodePoint((char) codePoint, (char) readHex());
+        }
+        appendCodePoint(codePoint);
+      }
+      default -> throw error("Invalid escape " + describe(b));
+    }
+  }
+
+  private int readHex() throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int digit = Character.digit(read(), 16);
+      if (digit < 0) {
+        throw error("Invalid unicode escape");
+      }
+      value = value << 4 | digit;
+    }
+    return value;
+  }
+
+  private void readNumber() throws IOException {
+    peekNonWhitespace();
+    scratchLength = 0;
+    while (true) {
+      if (position == limit && !fill()) {
+        break;
+      }
+      byte b = buffer[position];
+      if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+        append(b);
+        position++;
+      } else {
+        break;
+      }
+    }
+    if (scratchLength == 0 || (scratchLength == 1 && scratch[0] == '-')) {
+      throw error("Malformed number");
+    }
+  }
+
+  private double nextDecimal() throws JsonParseException {
+    try {
+      return Double.parseDouble(scratchString());
+    } catch (NumberFormatException e) {
+      throw error("Malformed number " + scratchString());
+    }
+  }
+
+  private void literal(String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      if (read() != text.charAt(i)) {
+        throw error("Expected '" + text + "'");
+      }
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    int c = peekNonWhitespace();
+    if (c != expected) {
+      throw error("Expected '" + expected + "' but found " + describe(c));
+    }
+    position++;
+  }
+
+  private int peekNonWhitespace() throws IOException {
+    while (true) {
+      if (position == limit && !fill()) {
+        return -1;
+      }
+      byte b = buffer[position];
+      if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        position++;
+      } else {
+        return b & 0xFF;
+      }
+    }
+  }
+
+  private int read() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  private boolean fill() throws IOException {
+    consumed += limit;
+    position = 0;
+    limit = 0;
+    int read = in.read(buffer, 0, buffer.length);
+    if (read <= 0) {
+      return false;
+    }
+    limit = read;
+    return true;
+  }
+
+  private void append(int b) {
+    if (scratchLength == scratch.length) {
+      scratch = Arrays.copyOf(scratch, scratch.length * 2);
+    }
+    scratch[scratchLength++] = (byte) b;
+  }
+
+  private void appendCodePoint(int codePoint) {
+    if (codePoint < 0x80) {
+      append(codePoint);
+    } else if (codePoint < 0x800) {
+      append(0xC0 | (codePoint >> 6));
+      append(0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      append(0xE0 | (codePoint >> 12));
+      append(0x80 | ((codePoint >> 6) & 0x3F));
+      append(0x80 | (codePoint & 0x3F));
+    } else {
+      append(0xF0 | (codePoint >> 18));
+      append(0x80 | ((codePoint >> 12) & 0x3F));
+      append(0x80 | ((codePoint >> 6) & 0x3F));
+      append(0x80 | (codePoint & 0x3F));
+    }
+  }
+
+  private int matchScratch(byte[][] names) {
+    for (int i = 0; i < names.length; i++) {
+      if (Arrays.equals(names[i], 0, names[i].length, scratch, 0, scratchLength)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private String scratchString() {
+    return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+  }
+
+  private static String describe(int c) {
+    return c < 0 ? "end of input" : "'" + (char) c + "'";
+  }
+}
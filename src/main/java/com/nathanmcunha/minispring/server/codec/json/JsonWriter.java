@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import java.io.IOException;
+
+/**
+ * Streams one Java type as JSON. Writers are built once per type by {@link JsonWriters} and hold
+ * everything they need (accessor handles, pre-encoded field names), so writing does no reflection.
+ *
+ * @param <T> The type this writer serializes.
+ */
+@FunctionalInterface
+public interface JsonWriter<T> {
+
+  void write(T value, Utf8Output out) throws IOException;
+}
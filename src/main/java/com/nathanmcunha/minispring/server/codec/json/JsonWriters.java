@@ -0,0 +1,371 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Builds {@link JsonWriter}s from Java types.
+ *
+ * <p>Records are written field by field through accessor {@link MethodHandle}s with their {@code
+ * "name":} prefixes encoded up front. Collections, arrays, maps and {@link Optional} reuse the
+ * writer of their declared element type; primitives, boxes, strings and enums have dedicated
+ * writers. Anything else is written as a JSON string of its {@code toString()}.
+ *
+ * <p>Writers for a class are built once and cached per class. When the declared type is too vague
+ * to pick a writer up front ({@code Object}, interfaces, type variables), the returned writer
+ * looks the runtime class up in that cache instead.
+ */
+public final class JsonWriters {
+
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<JsonWriter<Object>> BY_CLASS =
+      new ClassValue<>() {
+        @Override
+        protected JsonWriter<Object> computeValue(Class<?> type) {
+          return build(type);
+        }
+      };
+
+  // Records currently being built on this thread, to break cycles such as
+  // record Node(List<Node> children).
+  private static final ThreadLocal<Set<Class<?>>> BUILDING = ThreadLocal.withInitial(HashSet::new);
+
+  /** Picks the writer from the runtime class of each value. */
+  public static final JsonWriter<Object> DYNAMIC =
+      (value, out) -> {
+        if (value == null) {
+          out.writeNull();
+        } else {
+          BY_CLASS.get(value.getClass()).write(value, out);
+        }
+      };
+
+  private static final JsonWriter<Object> STRING =
+      (value, out) -> out.writeJsonString((CharSequence) value);
+  private static final JsonWriter<Object> CHARACTER =
+      (value, out) -> out.writeJsonString(String.valueOf((char) (Character) value));
+  private static final JsonWriter<Object> INTEGRAL =
+      (value, out) -> out.writeLong(((Number) value).longValue());
+  private static final JsonWriter<Object> DOUBLE =
+      (value, out) -> out.writeDouble(((Number) value).doubleValue());
+  private static final JsonWriter<Object> FLOAT = (value, out) -> out.writeFloat((Float) value);
+  private static final JsonWriter<Object> NUMBER = (value, out) -> out.writeUtf8(value.toString());
+  private static final JsonWriter<Object> BOOLEAN =
+      (value, out) -> out.writeUtf8((Boolean) value ? "true" : "false");
+  private static final JsonWriter<Object> BYTES =
+      (value, out) -> out.writeJsonString(Base64.getEncoder().encodeToString((byte[]) value));
+  private static final JsonWriter<Object> FALLBACK =
+      (value, out) -> out.writeJsonString(value.toString());
+
+  private JsonWriters() {}
+
+  /**
+   * Resolves the writer for a declared (possibly generic) type, such as a handler's return type or a
+   * record component's type.
+   */
+  public static JsonWriter<Object> forType(Type type) {
+    return switch (type) {
+      case Class<?> c -> isExact(c) ? forClass(c) : DYNAMIC;
+      case ParameterizedType p -> forParameterized(p);
+      case GenericArrayType a -> array(forType(a.getGenericComponentType()));
+      case WildcardType w -> forType(w.getUpperBounds()[0]);
+      default -> DYNAMIC;
+    };
+  }
+
+  /** Resolves the writer for a concrete runtime class. */
+  public static JsonWriter<Object> forClass(Class<?> type) {
+    if (BUILDING.get().contains(type)) {
+      return (value, out) -> BY_CLASS.get(type).write(value, out);
+    }
+    return BY_CLASS.get(type);
+  }
+
+  private static JsonWriter<Object> forParameterized(ParameterizedType type) {
+    Class<?> raw = (Class<?>) type.getRawType();
+    Type[] arguments = type.getActualTypeArguments();
+    if (raw == Optional.class) {
+      return optional(forType(arguments[0]));
+    }
+    if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+      return map(forType(arguments[1]));
+    }
+    if (Iterable.class.isAssignableFrom(raw) && arguments.length == 1) {
+      return iterable(forType(arguments[0]));
+    }
+    return forType(raw);
+  }
+
+  /**
+   * Whether every value of the declared class can be written by the writer built for that class.
+   * Containers qualify because their writers accept any implementation.
+   */
+  private static boolean isExact(Class<?> type) {
+    return type.isPrimitive()
+        || type.isArray()
+        || type.isRecord()
+        || type.isEnum()
+        || Modifier.isFinal(type.getModifiers())
+        || CharSequence.class.isAssignableFrom(type)
+        || Iterable.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type);
+  }
+
+  private static JsonWriter<Object> build(Class<?> type) {
+    if (CharSequence.class.isAssignableFrom(type)) {
+      return STRING;
+    }
+    if (type == boolean.class || type == Boolean.class) {
+      return BOOLEAN;
+    }
+    if (type == char.class || type == Character.class) {
+      return CHARACTER;
+    }
+    if (type == int.class || type == Integer.class || type == long.class || type == Long.class
+        || type == short.class || type == Short.class || type == byte.class || type == Byte.class) {
+      return INTEGRAL;
+    }
+    if (type == double.class || type == Double.class) {
+      return DOUBLE;
+    }
+    if (type == float.class || type == Float.class) {
+      return FLOAT;
+    }
+    if (Number.class.isAssignableFrom(type)) {
+      return NUMBER;
+    }
+    if (Enum.class.isAssignableFrom(type)) {
+      return enumeration(type.isEnum() ? type : type.getSuperclass());
+    }
+    if (type.isRecord()) {
+      BUILDING.get().add(type);
+      try {
+        return record(type);
+      } finally {
+        BUILDING.get().remove(type);
+      }
+    }
+    if (type.isArray()) {
+      return type.getComponentType().isPrimitive()
+          ? primitiveArray(type.getComponentType())
+          : array(forType(type.getComponentType()));
+    }
+    if (Optional.class == type) {
+      return optional(DYNAMIC);
+    }
+    if (Map.class.isAssignableFrom(type)) {
+      return map(DYNAMIC);
+    }
+    if (Iterable.class.isAssignableFrom(type)) {
+      return iterable(DYNAMIC);
+    }
+    return FALLBACK;
+  }
+
+  private static JsonWriter<Object> record(Class<?> type) {
+    RecordComponent[] components = type.getRecordComponents();
+    byte[][] names = new byte[components.length][];
+    MethodHandle[] accessors = new MethodHandle[components.length];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    JsonWriter<Object>[] writers = new JsonWriter[components.length];
+    try {
+      var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      for (int i = 0; i < components.length; i++) {
+        RecordComponent component = components[i];
+        names[i] = fieldPrefix(i, component.getName());
+        accessors[i] = lookup.unreflect(component.getAccessor()).asType(ACCESSOR_TYPE);
+        writers[i] = forType(component.getGenericType());
+      }
+    } catch (IllegalAccessException e) {
+      // The record lives in a module that is not open to us; fall back to its string form.
+      return FALLBACK;
+    }
+    return new RecordWriter(names, accessors, writers);
+  }
+
+  private static byte[] fieldPrefix(int index, String name) {
+    return ((index == 0 ? "\"" : ",\"") + name + "\":").getBytes(StandardCharsets.UTF_8);
+  }
+
+  private record RecordWriter(byte[][] names, MethodHandle[] accessors, JsonWriter<Object>[] writers)
+      implements JsonWriter<Object> {
+
+    @Override
+    public void write(Object value, Utf8Output out) throws IOException {
+      out.write('{');
+      for (int i = 0; i < accessors.length; i++) {
+        out.write(names[i]);
+        writeNullable(writers[i], read(accessors[i], value), out);
+      }
+      out.write('}');
+    }
+
+    private static Object read(MethodHandle accessor, Object record) {
+      try {
+        return (Object) accessor.invokeExact(record);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new UndeclaredThrowableException(t);
+      }
+    }
+  }
+
+  private static JsonWriter<Object> enumeration(Class<?> type) {
+    Object[] constants = type.getEnumConstants();
+    byte[][] names = new byte[constants.length][];
+    for (int i = 0; i < constants.length; i++) {
+      names[i] = ("\"" + ((Enum<?>) constants[i]).name() + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+    return (value, out) -> out.write(names[((Enum<?>) value).ordinal()]);
+  }
+
+  private static JsonWriter<Object> iterable(JsonWriter<Object> element) {
+    return (value, out) -> {
+      out.write('[');
+      if (value instanceof List<?> list && value instanceof RandomAccess) {
+        for (int i = 0, size = list.size(); i < size; i++) {
+          if (i > 0) {
+            out.write(',');
+          }
+          writeNullable(element, list.get(i), out);
+        }
+      } else {
+        boolean first = true;
+        for (Object item : (Iterable<?>) value) {
+          if (!first) {
+            out.write(',');
+          }
+          first = false;
+          writeNullable(element, item, out);
+        }
+      }
+      out.write(']');
+    };
+  }
+
+  private static JsonWriter<Object> array(JsonWriter<Object> element) {
+    return (value, out) -> {
+      Object[] items = (Object[]) value;
+      out.write('[');
+      for (int i = 0; i < items.length; i++) {
+        if (i > 0) {
+          out.write(',');
+        }
+        writeNullable(element, items[i], out);
+      }
+      out.write(']');
+    };
+  }
+
+  private static JsonWriter<Object> map(JsonWriter<Object> valueWriter) {
+    return (value, out) -> {
+      out.write('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          out.write(',');
+        }
+        first = false;
+        Object key = entry.getKey();
+        out.writeJsonString(
+            key instanceof CharSequence text
+                ? text
+                : key instanceof Enum<?> constant ? constant.name() : String.valueOf(key));
+        out.write(':');
+        writeNullable(valueWriter, entry.getValue(), out);
+      }
+      out.write('}');
+    };
+  }
+
+  private static JsonWriter<Object> optional(JsonWriter<Object> valueWriter) {
+    return (value, out) -> writeNullable(valueWriter, ((Optional<?>) value).orElse(null), out);
+  }
+
+  private static JsonWriter<Object> primitiveArray(Class<?> component) {
+    if (component == byte.class) {
+      return BYTES;
+    }
+    if (component == char.class) {
+      return (value, out) -> out.writeJsonString(new String((char[]) value));
+    }
+    return (value, out) -> {
+      out.write('[');
+      switch (value) {
+        case int[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeLong(items[i]);
+          }
+        }
+        case long[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeLong(items[i]);
+          }
+        }
+        case short[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeLong(items[i]);
+          }
+        }
+        case double[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeDouble(items[i]);
+          }
+        }
+        case float[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeFloat(items[i]);
+          }
+        }
+        case boolean[] items -> {
+          for (int i = 0; i < items.length; i++) {
+            separate(i, out);
+            out.writeUtf8(items[i] ? "true" : "false");
+          }
+        }
+        default -> throw new IllegalArgumentException("Not a primitive array: " + value);
+      }
+      out.write(']');
+    };
+  }
+
+  private static void separate(int index, Utf8Output out) throws IOException {
+    if (index > 0) {
+      out.write(',');
+    }
+  }
+
+  private static void writeNullable(JsonWriter<Object> writer, Object value, Utf8Output out)
+      throws IOException {
+    if (value == null) {
+      out.writeNull();
+    } else {
+      writer.write(value, out);
+    }
+  }
+}
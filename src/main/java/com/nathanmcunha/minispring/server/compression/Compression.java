@@ -0,0 +1,150 @@
+package com.nathanmcunha.minispring.server.compression;
+
+import com.nathanmcunha.minispring.common.Pool;
+import com.nathanmcunha.minispring.server.codec.MediaTypes;
+import com.nathanmcunha.minispring.server.dispatch.protocol.AcceptEncoding;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses response bodies with the coding a client negotiated through {@code Accept-Encoding}.
+ *
+ * <p>A {@link Deflater} holds a few hundred kilobytes of native window and hash tables, so creating
+ * one per response costs more than compressing a small body. Deflaters are pooled instead, each
+ * with its output buffer and checksum, and reset between responses. There is one pool per coding,
+ * as gzip and zlib framing need differently configured deflaters.
+ *
+ * <p>Only text-like content types are compressed, only from {@link CompressionConfig#minSize()},
+ * and never when the response already has a {@code Content-Encoding}. Each compressed body is
+ * counted in its route's {@link CompressionStats}, along with the CPU time it took.
+ */
+public final class Compression {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int POOL_SIZE = 64;
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final boolean THREAD_CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+  /** A pooled deflater with the buffer it deflates into and, for gzip, the trailer checksum. */
+  static final class Deflating {
+    final ContentCoding coding;
+    final Deflater deflater;
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final CRC32 crc = new CRC32();
+
+    Deflating(ContentCoding coding, int level) {
+      this.coding = coding;
+      this.deflater = new Deflater(level, coding == ContentCoding.GZIP);
+    }
+  }
+
+  private final CompressionConfig config;
+  private final Pool<Deflating> gzip;
+  private final Pool<Deflating> deflate;
+  private final Map<RouteKey, CompressionStats> stats = new ConcurrentHashMap<>();
+
+  public Compression(CompressionConfig config) {
+    this.config = config;
+    this.gzip = new Pool<>(POOL_SIZE, () -> new Deflating(ContentCoding.GZIP, config.level()));
+    this.deflate =
+        new Pool<>(POOL_SIZE, () -> new Deflating(ContentCoding.DEFLATE, config.level()));
+  }
+
+  public static Compression defaults() {
+    return new Compression(CompressionConfig.defaults());
+  }
+
+  public CompressionConfig config() {
+    return config;
+  }
+
+  /**
+   * The coding to compress with for a client sending {@code acceptEncoding}, or null for none. The
+   * higher quality wins, and gzip wins ties since every client that knows deflate knows gzip.
+   */
+  public ContentCoding negotiate(String acceptEncoding) {
+    if (!config.enabled() || acceptEncoding == null) {
+      return null;
+    }
+    double gzipQuality = AcceptEncoding.quality(acceptEncoding, ContentCoding.GZIP.token());
+    double deflateQuality = AcceptEncoding.quality(acceptEncoding, ContentCoding.DEFLATE.token());
+    if (gzipQuality <= 0 && deflateQuality <= 0) {
+      return null;
+    }
+    return gzipQuality >= deflateQuality ? ContentCoding.GZIP : ContentCoding.DEFLATE;
+  }
+
+  /**
+   * Whether a body is worth compressing, whatever the client accepts.
+   *
+   * @param contentType The response's {@code Content-Type}, or null.
+   * @param contentEncoding The response's {@code Content-Encoding}, or null if it has none yet.
+   * @param length The body size, 0 if it is too large to have been measured, or -1 if empty.
+   */
+  public boolean appliesTo(String contentType, String contentEncoding, long length) {
+    return config.enabled()
+        && length != -1
+        && (length == 0 || length >= config.minSize())
+        && contentEncoding == null
+        && contentType != null
+        && MediaTypes.isCompressible(contentType);
+  }
+
+  /**
+   * Wraps {@code target} in a stream that compresses everything written to it. Closing the stream
+   * finishes the compressed data, closes {@code target} and returns the deflater to its pool.
+   */
+  public OutputStream open(OutputStream target, ContentCoding coding, RouteKey route) {
+    Deflating state = (coding == ContentCoding.GZIP ? gzip : deflate).acquire();
+    return new DeflatingStream(this, target, state, stats(route));
+  }
+
+  /** Compresses a whole body. */
+  public byte[] compress(
+      byte[] body, int offset, int length, ContentCoding coding, RouteKey route) {
+    var bytes = new ByteArrayOutputStream(Math.min(length, BUFFER_SIZE));
+    try (var out = open(bytes, coding, route)) {
+      out.write(body, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException("ByteArrayOutputStream does not throw", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** The statistics of {@code route}, created on its first compressed response. */
+  public CompressionStats stats(RouteKey route) {
+    return stats.computeIfAbsent(route, key -> new CompressionStats());
+  }
+
+  /** The statistics of every route that compressed a response so far. */
+  public Map<RouteKey, CompressionStats> stats() {
+    return Collections.unmodifiableMap(stats);
+  }
+
+  void release(Deflating state) {
+    state.deflater.reset();
+    state.crc.reset();
+    if (!(state.coding == ContentCoding.GZIP ? gzip : deflate).release(state)) {
+      state.deflater.end();
+    }
+  }
+
+  /**
+   * CPU time of the current thread, or wall time where the JVM cannot measure that, as on virtual
+   * threads. Deflating never blocks, so the two hardly differ across a call to the deflater.
+   */
+  static long cpuTime() {
+    long cpu = THREAD_CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+    return cpu >= 0 ? cpu : System.nanoTime();
+  }
+}
@@ -0,0 +1,34 @@
+package com.nathanmcunha.minispring.server.compression;
+
+/**
+ * Settings for on-the-fly response compression.
+ *
+ * @param enabled Whether responses are compressed at all.
+ * @param minSize The smallest body worth compressing, in bytes. Below about a kilobyte the
+ *     compressed body barely fits in fewer packets, so the CPU is spent for nothing. Bodies too
+ *     large to be buffered whole are compressed regardless.
+ * @param level The {@link java.util.zip.Deflater} level, from 1 (fastest) to 9 (smallest).
+ */
+public record CompressionConfig(boolean enabled, int minSize, int level) {
+
+  /** Compresses bodies from 1 KiB at level 6, zlib's own default balance of speed and size. */
+  public static CompressionConfig defaults() {
+    return new CompressionConfig(true, 1024, 6);
+  }
+
+  public static CompressionConfig disabled() {
+    return defaults().withEnabled(false);
+  }
+
+  public CompressionConfig withEnabled(boolean enabled) {
+    return new CompressionConfig(enabled, minSize, level);
+  }
+
+  public CompressionConfig withMinSize(int minSize) {
+    return new CompressionConfig(enabled, minSize, level);
+  }
+
+  public CompressionConfig withLevel(int level) {
+    return new CompressionConfig(enabled, minSize, level);
+  }
+}
@@ -0,0 +1,51 @@
+package com.nathanmcunha.minispring.server.compression;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** What compression did for one route: how much it saved and what it cost. */
+public final class CompressionStats {
+
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+  private final LongAdder cpuNanos = new LongAdder();
+
+  void record(long in, long out, long cpu) {
+    responses.increment();
+    bytesIn.add(in);
+    bytesOut.add(out);
+    cpuNanos.add(cpu);
+  }
+
+  public long responses() {
+    return responses.sum();
+  }
+
+  /** Body bytes before compression. */
+  public long bytesIn() {
+    return bytesIn.sum();
+  }
+
+  /** Body bytes after compression, framing included. */
+  public long bytesOut() {
+    return bytesOut.sum();
+  }
+
+  /** CPU time spent compressing, in nanoseconds, on the threads that did it. */
+  public long cpuNanos() {
+    return cpuNanos.sum();
+  }
+
+  /** How many times smaller compression made the bodies, or 1 before any were compressed. */
+  public double ratio() {
+    long out = bytesOut();
+    return out == 0 ? 1 : (double) bytesIn() / out;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d responses, %d -> %d bytes (%.2fx), %.3f ms CPU",
+        responses(), bytesIn(), bytesOut(), ratio(), cpuNanos() / 1e6);
+  }
+}
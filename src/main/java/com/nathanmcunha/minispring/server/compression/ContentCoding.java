@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.server.compression;
+
+/** The content codings the server can compress responses with. */
+public enum ContentCoding {
+  /** DEFLATE data in the gzip format, with a CRC-32 trailer (RFC 1952). */
+  GZIP("gzip"),
+  /** DEFLATE data in the zlib format (RFC 1950), which is what HTTP calls {@code deflate}. */
+  DEFLATE("deflate");
+
+  private final String token;
+
+  ContentCoding(String token) {
+    this.token = token;
+  }
+
+  /** The name used in {@code Accept-Encoding} and {@code Content-Encoding}. */
+  public String token() {
+    return token;
+  }
+}
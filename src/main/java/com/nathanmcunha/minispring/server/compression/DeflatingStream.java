@@ -0,0 +1,124 @@
+package com.nathanmcunha.minispring.server.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Deflates a response body into the stream below it, in gzip or zlib framing. The gzip header and
+ * trailer are written by hand, as {@link java.util.zip.GZIPOutputStream} would create its own
+ * deflater instead of taking a pooled one.
+ */
+final class DeflatingStream extends OutputStream {
+
+  // Magic, CM = deflate, no flags, no modification time, no extra flags, OS unknown.
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final Compression compression;
+  private final OutputStream target;
+  private final Compression.Deflating state;
+  private final CompressionStats stats;
+  private final boolean gzip;
+  private long written;
+  private long cpuNanos;
+  private boolean started;
+  private boolean closed;
+
+  DeflatingStream(
+      Compression compression,
+      OutputStream target,
+      Compression.Deflating state,
+      CompressionStats stats) {
+    this.compression = compression;
+    this.target = target;
+    this.state = state;
+    this.stats = stats;
+    this.gzip = state.coding == ContentCoding.GZIP;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return;
+    }
+    start();
+    if (gzip) {
+      state.crc.update(bytes, offset, length);
+    }
+    state.deflater.setInput(bytes, offset, length);
+    // Drain until the deflater has taken all input, as the caller reuses its array afterwards.
+    while (!state.deflater.needsInput()) {
+      deflate(Deflater.NO_FLUSH);
+    }
+  }
+
+  /** Pushes out everything written so far, at some cost in ratio, for streams read as they go. */
+  @Override
+  public void flush() throws IOException {
+    if (started && !closed) {
+      while (deflate(Deflater.SYNC_FLUSH) == state.buffer.length) {
+        // A full buffer may mean more output is pending.
+      }
+      target.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      start();
+      state.deflater.finish();
+      while (!state.deflater.finished()) {
+        deflate(Deflater.NO_FLUSH);
+      }
+      if (gzip) {
+        byte[] trailer = new byte[8];
+        writeIntLe(trailer, 0, (int) state.crc.getValue());
+        writeIntLe(trailer, 4, (int) state.deflater.getBytesRead());
+        target.write(trailer);
+        written += trailer.length;
+      }
+      stats.record(state.deflater.getBytesRead(), written, cpuNanos);
+      target.close();
+    } finally {
+      compression.release(state);
+    }
+  }
+
+  private void start() throws IOException {
+    if (!started) {
+      started = true;
+      if (gzip) {
+        target.write(GZIP_HEADER);
+        written += GZIP_HEADER.length;
+      }
+    }
+  }
+
+  private int deflate(int flush) throws IOException {
+    long before = Compression.cpuTime();
+    int count = state.deflater.deflate(state.buffer, 0, state.buffer.length, flush);
+    cpuNanos += Compression.cpuTime() - before;
+    if (count > 0) {
+      target.write(state.buffer, 0, count);
+      written += count;
+    }
+    return count;
+  }
+
+  private static void writeIntLe(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+}
@@ -0,0 +1,108 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.engine.AsyncExchange;
+import com.nathanmcunha.minispring.server.log.AsyncLog;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What the dispatcher still owes one request once its response is complete: metrics, the
+ * concurrency slot, the interceptors' {@code afterCompletion}.
+ *
+ * <p>When the handler answers in place, that moment is when the dispatcher's stack unwinds, and
+ * each layer does its part in a {@code finally}. When it returns a future or a publisher, the
+ * response is written later, on another thread, so each layer {@link #defer}s its part instead.
+ * The deferred steps run innermost first, as the {@code finally} blocks would have, once both the
+ * stack has {@link #unwound} and the response has been written, whichever happens last.
+ */
+final class Completion {
+
+  private final AtomicInteger outstanding = new AtomicInteger(2);
+  private final AsyncLog log;
+  private HttpExchange exchange;
+  private List<Runnable> steps;
+  private Throwable failure;
+
+  /** @param log Where a deferred step that throws is reported. */
+  Completion(AsyncLog log) {
+    this.log = log;
+  }
+
+  boolean detached() {
+    return exchange != null;
+  }
+
+  /** Tells the engine that the response of {@code exchange} will be written after handle. */
+  void detach(HttpExchange exchange) {
+    this.exchange = exchange;
+    this.steps = new ArrayList<>(3);
+    if (exchange instanceof AsyncExchange async) {
+      async.detach();
+    }
+  }
+
+  /**
+   * Cuts the connection of a detached exchange, unblocking a write stuck on a client that stopped
+   * reading. Engines without {@link AsyncExchange} leave it to time out.
+   */
+  void abort() {
+    if (exchange instanceof AsyncExchange async) {
+      async.abort();
+    }
+  }
+
+  /** Runs {@code step} when the response is complete, after those deferred before it. */
+  void defer(Runnable step) {
+    steps.add(step);
+  }
+
+  /** What cut the detached response short, or null; only meaningful within a deferred step. */
+  Throwable failure() {
+    return failure;
+  }
+
+  /** Called by the outermost layer of a detached request, after deferring its own step. */
+  void unwound() {
+    if (outstanding.decrementAndGet() == 0) {
+      complete();
+    }
+  }
+
+  /**
+   * Called from the thread that wrote the response, or gave up on it.
+   *
+   * @param failure What went wrong, or null.
+   */
+  void responded(Throwable failure) {
+    this.failure = failure;
+    if (outstanding.decrementAndGet() == 0) {
+      complete();
+    }
+  }
+
+  private void complete() {
+    for (Runnable step : steps) {
+      try {
+        step.run();
+      } catch (RuntimeException e) {
+        log.error("Failed to complete a request", e);
+      }
+    }
+    if (exchange instanceof AsyncExchange async) {
+      async.complete(failure);
+      return;
+    }
+    try {
+      if (exchange.getResponseCode() == -1) {
+        exchange.sendResponseHeaders(HttpStatus.INTERNAL_SERVER_ERROR.value(), -1);
+      }
+    } catch (IOException ignored) {
+      // The exchange is closed below either way.
+    }
+    exchange.close();
+  }
+}
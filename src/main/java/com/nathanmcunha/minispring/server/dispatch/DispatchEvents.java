@@ -0,0 +1,105 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the phases of a request, so a recording shows where a slow one
+ * spent its time: {@link Dispatch} spans the whole request, and {@link RouteLookup}, {@link
+ * Invocation}, {@link ResponseWrite} and {@link SocketWrite} the phases inside it.
+ *
+ * <p>Events follow the usual JFR pattern: {@code begin()}, the work, {@code end()}, then fields are
+ * filled in and committed only if {@code shouldCommit()}. With no recording running, the event
+ * classes are not instrumented. The JIT then removes the allocation and the calls, so the events
+ * can stay compiled in. Stack traces are off, as the phase name already says where the time went.
+ */
+final class DispatchEvents {
+
+  private DispatchEvents() {}
+
+  @Name("minispring.http.Dispatch")
+  @Label("HTTP Dispatch")
+  @Category({"MiniSpring", "HTTP"})
+  @Description("A request handled by the DispatcherServlet, from routing to the last byte")
+  @StackTrace(false)
+  static final class Dispatch extends Event {
+    @Label("Method")
+    String verb;
+
+    @Label("Route")
+    @Description("The matched path template, or \"unmatched\"")
+    String route;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+  }
+
+  @Name("minispring.http.RouteLookup")
+  @Label("Route Lookup")
+  @Category({"MiniSpring", "HTTP"})
+  @StackTrace(false)
+  static final class RouteLookup extends Event {
+    @Label("Method")
+    String verb;
+
+    @Label("Route")
+    String route;
+
+    @Label("Path")
+    String path;
+  }
+
+  @Name("minispring.http.Invocation")
+  @Label("Handler Invocation")
+  @Category({"MiniSpring", "HTTP"})
+  @Description("Binding the arguments and running the controller method")
+  @StackTrace(false)
+  static final class Invocation extends Event {
+    @Label("Method")
+    String verb;
+
+    @Label("Route")
+    String route;
+
+    @Label("Succeeded")
+    boolean succeeded;
+  }
+
+  @Name("minispring.http.ResponseWrite")
+  @Label("Response Write")
+  @Category({"MiniSpring", "HTTP"})
+  @Description("Encoding the body and handing it to the server engine, socket writes included")
+  @StackTrace(false)
+  static final class ResponseWrite extends Event {
+    @Label("Method")
+    String verb;
+
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+  }
+
+  @Name("minispring.http.SocketWrite")
+  @Label("Response Socket Write")
+  @Category({"MiniSpring", "HTTP"})
+  @Description("Headers or body bytes handed to the server engine's response stream")
+  @StackTrace(false)
+  static final class SocketWrite extends Event {
+    @Label("Status")
+    int status;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+  }
+}
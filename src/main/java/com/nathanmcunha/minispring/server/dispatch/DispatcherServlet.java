@@ -1,18 +1,48 @@
 package com.nathanmcunha.minispring.server.dispatch;
 
+import com.nathanmcunha.minispring.annotations.WebSocket;
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.cache.CachedResponse;
+import com.nathanmcunha.minispring.server.cache.ResponseCache;
+import com.nathanmcunha.minispring.server.codec.BodyWriter;
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.compression.ContentCoding;
+import com.nathanmcunha.minispring.server.dispatch.protocol.ETags;
 import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
 import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
-import com.nathanmcunha.minispring.server.router.RouteAction;
+import com.nathanmcunha.minispring.server.engine.Upgradable;
+import com.nathanmcunha.minispring.server.intercept.Interceptor;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.nathanmcunha.minispring.server.limit.Limiter;
+import com.nathanmcunha.minispring.server.log.AsyncLog;
+import com.nathanmcunha.minispring.server.metrics.HttpMetrics;
+import com.nathanmcunha.minispring.server.metrics.RouteMetrics;
+import com.nathanmcunha.minispring.server.ratelimit.RateLimit;
 import com.nathanmcunha.minispring.server.router.Router;
-import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinder;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.nathanmcunha.minispring.server.sse.EventStream;
+import com.nathanmcunha.minispring.server.websocket.WebSocketHandshake;
+import com.nathanmcunha.minispring.server.websocket.WebSocketListener;
+import com.nathanmcunha.minispring.server.websocket.WebSocketSession;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 
 /**
  * The primary entry point for HTTP requests, acting as the Front Controller for the framework.
@@ -21,48 +51,719 @@ import java.nio.charset.StandardCharsets;
  * consults the {@link Router} to find a matching handler, and coordinates the execution
  * of the associated controller method. It is also responsible for writing the
  * final response and handling any framework-level errors that occur during processing.</p>
+ *
+ * <p>Handlers may also return a {@link CompletionStage} or a {@link Flow.Publisher}, directly or
+ * as the body of a {@link Response}. The request thread then returns to the engine straight away,
+ * and the response is written on a virtual thread once the value, or each item, is ready; failures
+ * are mapped to a {@link FrameworkError} like any thrown exception. Metrics, the concurrency slot
+ * and interceptors see the request end when its response does (see {@link Completion}).</p>
  */
 public class DispatcherServlet implements HttpHandler {
 
+  private static final Object[] NO_ARGS = new Object[0];
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final Response<?> NOT_FOUND =
+      Response.Builder(HttpStatus.NOT_FOUND.value()).build();
+  private static final Executor CONTINUATIONS =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minispring-async-", 0).factory());
+
   private final Router router;
+  private final ResponseCache responseCache;
+  private final Compression compression;
+  private final HttpMetrics metrics;
+  private final AdmissionControl admission;
+  private final AsyncLog log;
 
   public DispatcherServlet(final Router router) {
+    this(
+        router,
+        ResponseCache.defaults(),
+        Compression.defaults(),
+        new HttpMetrics(),
+        AdmissionControl.defaults());
+  }
+
+  /** Logs errors to standard error through the shared {@link AsyncLog#standardError()}. */
+  public DispatcherServlet(
+      final Router router,
+      final ResponseCache responseCache,
+      final Compression compression,
+      final HttpMetrics metrics,
+      final AdmissionControl admission) {
+    this(router, responseCache, compression, metrics, admission, AsyncLog.standardError());
+  }
+
+  public DispatcherServlet(
+      final Router router,
+      final ResponseCache responseCache,
+      final Compression compression,
+      final HttpMetrics metrics,
+      final AdmissionControl admission,
+      final AsyncLog log) {
     this.router = router;
+    this.responseCache = responseCache;
+    this.compression = compression;
+    this.metrics = metrics;
+    this.admission = admission;
+    this.log = log;
+  }
+
+  public HttpMetrics metrics() {
+    return metrics;
+  }
+
+  public AdmissionControl admission() {
+    return admission;
+  }
+
+  public AsyncLog log() {
+    return log;
   }
 
   @Override
   public void handle(final HttpExchange exchange) throws IOException {
+    long start = System.nanoTime();
+    var dispatch = new DispatchEvents.Dispatch();
+    dispatch.begin();
     String verb = exchange.getRequestMethod();
     String path = exchange.getRequestURI().getPath();
 
     // Pipeline:
-    // 1. Find Handler (or fail with RouteNotFound)
-    // 2. Convert Handler to Action
-    // 3. Perform Action
-    Result<Response<?>, FrameworkError> result =
-        router
-            .getHandler(verb, path)
-            .map(this::createExecutionAction)
-            .flatMap(action -> action.perform(exchange));
-
-    switch (result) {
-      case Result.Success(var response) -> writeResponse(exchange, response);
-      case Result.Failure(FrameworkError.RouteNotFound error) ->
-          writeResponse(exchange, Response.Builder(HttpStatus.NOT_FOUND.value()).build());
-      case Result.Failure(var error) -> handleError(exchange, error);
-    }
-  }
-
-  private void writeResponse(HttpExchange exchange, Response<?> response) throws IOException {
-    var bodyToSend = response.body() != null ? response.body() : "";
-    byte[] responseBytes = bodyToSend.toString().getBytes(StandardCharsets.UTF_8);
-    exchange.sendResponseHeaders(response.statusCode(), responseBytes.length);
-    try (OutputStream responseBody = exchange.getResponseBody()) {
-      responseBody.write(responseBytes);
+    // 1. Match Route (or fail with RouteNotFound)
+    // 1a. Take a token from the client's bucket on @RateLimited routes, or answer 429
+    // 1b. Admit the request under the route's and the global concurrency limits, or shed it
+    //     with a 503
+    // 2. Run the route's interceptors, which may answer in place of the handler
+    // 3. Bind arguments and call its precompiled invoker
+    // 4. Stream the response through the handler's precompiled body writer, compressed if
+    //    the client accepts it, or once the future or publisher the handler returned delivers it
+    //    (@Cached routes answer from the response cache before step 3 when they can)
+    // Every request is timed and counted against its route template, or as unmatched, and each
+    // phase is a JFR event (see DispatchEvents). The access log line and any error are handed to
+    // the AsyncLog, which writes them from its own thread.
+    var lookup = new DispatchEvents.RouteLookup();
+    lookup.begin();
+    var routing = router.route(verb, path);
+    RouteMetrics routeMetrics =
+        routing instanceof Result.Success<RouteMatch, FrameworkError>(var matched)
+            ? metrics.route(matched.route().key())
+            : metrics.unmatched();
+    lookup.end();
+    if (lookup.shouldCommit()) {
+      lookup.verb = verb;
+      lookup.route = routeMetrics.key().path();
+      lookup.path = path;
+      lookup.commit();
+    }
+    var completion = new Completion(log);
+    routeMetrics.begin();
+    try {
+      switch (routing) {
+        case Result.Success<RouteMatch, FrameworkError>(var match) ->
+            throttle(exchange, match, routeMetrics, completion);
+        case Result.Failure<RouteMatch, FrameworkError>(FrameworkError.RouteNotFound error) ->
+            writeResponse(exchange, NOT_FOUND, BodyWriters.TEXT, null, routeMetrics);
+        case Result.Failure<RouteMatch, FrameworkError>(var error) ->
+            handleError(exchange, error, routeMetrics);
+      }
+    } catch (IOException | RuntimeException e) {
+      routeMetrics.error(e.getClass().getSimpleName());
+      throw e;
+    } finally {
+      if (completion.detached()) {
+        completion.defer(() -> record(exchange, routeMetrics, start, dispatch, verb, path));
+        completion.unwound();
+      } else {
+        record(exchange, routeMetrics, start, dispatch, verb, path);
+      }
+    }
+  }
+
+  private void record(
+      HttpExchange exchange,
+      RouteMetrics routeMetrics,
+      long start,
+      DispatchEvents.Dispatch dispatch,
+      String verb,
+      String path) {
+    long elapsed = System.nanoTime() - start;
+    routeMetrics.end(exchange.getResponseCode(), elapsed);
+    log.access(exchange.getRemoteAddress(), verb, path, exchange.getResponseCode(), elapsed);
+    dispatch.end();
+    if (dispatch.shouldCommit()) {
+      dispatch.verb = verb;
+      dispatch.route = routeMetrics.key().path();
+      dispatch.path = path;
+      dispatch.status = exchange.getResponseCode();
+      dispatch.commit();
+    }
+  }
+
+  /**
+   * Answers 429 with {@code Retry-After} if the client has used up its {@code @RateLimited}
+   * budget on the route, before the request takes a concurrency slot or reaches the handler.
+   */
+  private void throttle(
+      HttpExchange exchange, RouteMatch match, RouteMetrics routeMetrics, Completion completion)
+      throws IOException {
+    RateLimit rateLimit = match.route().rateLimit();
+    if (rateLimit.enabled()) {
+      long wait = rateLimit.acquire(exchange, System.nanoTime());
+      if (wait > 0) {
+        long seconds = Math.max(1, (wait + 999_999_999L) / 1_000_000_000L);
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(seconds));
+        exchange.sendResponseHeaders(HttpStatus.TOO_MANY_REQUESTS.value(), -1);
+        exchange.getResponseBody().close();
+        return;
+      }
+    }
+    admit(exchange, match, routeMetrics, completion);
+  }
+
+  /**
+   * Runs the request if {@link AdmissionControl} has a slot for it on its route and overall, and
+   * otherwise answers 503 with {@code Retry-After} straight away. Admitted requests feed their
+   * latency back into both limits, and a 503 or 504 of their own counts as a sign of overload.
+   *
+   * <p>{@link EventStream} and WebSocket routes bypass both limits: their connections stay open as
+   * long as their clients do, so neither the slots they would hold nor their latency say anything
+   * about load.
+   */
+  private void admit(
+      HttpExchange exchange, RouteMatch match, RouteMetrics routeMetrics, Completion completion)
+      throws IOException {
+    if (!admission.config().enabled() || isLongLived(match)) {
+      intercept(exchange, match, routeMetrics, completion);
+      return;
+    }
+    Limiter limiter = admission.route(match.route().key());
+    if (!admission.tryAcquire(limiter)) {
+      exchange.getResponseHeaders().set("Retry-After", admission.retryAfter());
+      exchange.sendResponseHeaders(HttpStatus.SERVICE_UNAVAILABLE.value(), -1);
+      exchange.getResponseBody().close();
+      return;
+    }
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      intercept(exchange, match, routeMetrics, completion);
+      failed = false;
+    } finally {
+      if (completion.detached()) {
+        completion.defer(
+            () -> release(exchange, limiter, start, completion.failure() != null));
+      } else {
+        release(exchange, limiter, start, failed);
+      }
+    }
+  }
+
+  private static boolean isLongLived(RouteMatch match) {
+    Class<?> type = match.handler().method().getReturnType();
+    return type == EventStream.class || WebSocketListener.class.isAssignableFrom(type);
+  }
+
+  private void release(HttpExchange exchange, Limiter limiter, long start, boolean failed) {
+    int status = exchange.getResponseCode();
+    boolean dropped =
+        failed
+            || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+            || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    admission.release(limiter, System.nanoTime() - start, dropped);
+  }
+
+  /**
+   * Runs the route's interceptors around {@link #dispatchRoute}, walking the array resolved for the
+   * route at registration time. {@code entered} counts the interceptors whose {@code before}
+   * returned, which are the ones owed an {@code afterCompletion}.
+   */
+  private void intercept(
+      HttpExchange exchange, RouteMatch match, RouteMetrics routeMetrics, Completion completion)
+      throws IOException {
+    Interceptor[] interceptors = match.route().interceptors();
+    if (interceptors.length == 0) {
+      dispatchRoute(exchange, match, routeMetrics, completion);
+      return;
+    }
+    int entered = 0;
+    Throwable failure = null;
+    try {
+      Response<?> answer = null;
+      try {
+        while (answer == null && entered < interceptors.length) {
+          answer = interceptors[entered].before(exchange, match);
+          entered++;
+        }
+      } catch (Exception e) {
+        handleError(
+            exchange,
+            new FrameworkError.RequestHandlingFailed(e, HttpStatus.INTERNAL_SERVER_ERROR.value()),
+            routeMetrics);
+        return;
+      }
+      if (answer != null) {
+        writeResponse(exchange, answer, BodyWriters.DYNAMIC, match.route(), routeMetrics);
+      } else {
+        dispatchRoute(exchange, match, routeMetrics, completion);
+      }
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      if (completion.detached()) {
+        int owed = entered;
+        completion.defer(
+            () -> afterCompletion(interceptors, owed, exchange, match, completion.failure()));
+      } else {
+        afterCompletion(interceptors, entered, exchange, match, failure);
+      }
+    }
+  }
+
+  private void afterCompletion(
+      Interceptor[] interceptors,
+      int entered,
+      HttpExchange exchange,
+      RouteMatch match,
+      Throwable failure) {
+    for (int i = entered - 1; i >= 0; i--) {
+      try {
+        interceptors[i].afterCompletion(exchange, match, failure);
+      } catch (RuntimeException e) {
+        log.error(
+            "Interceptor " + interceptors[i].getClass().getName() + " failed after completion", e);
+      }
+    }
+  }
+
+  private void dispatchRoute(
+      HttpExchange exchange, RouteMatch match, RouteMetrics routeMetrics, Completion completion)
+      throws IOException {
+    if (match.route().cache().enabled()) {
+      dispatchCached(exchange, match, routeMetrics, completion);
+      return;
+    }
+    Request request = newRequest(exchange, match);
+    try {
+      switch (execute(match, request)) {
+        case Result.Success<Response<?>, FrameworkError>(var response) ->
+            respond(exchange, response, match, routeMetrics, completion);
+        case Result.Failure<Response<?>, FrameworkError>(var error) ->
+            handleError(exchange, error, routeMetrics);
+      }
+    } finally {
+      releaseWhenDone(request, completion);
+    }
+  }
+
+  /** Releases what the binders left open on the request, after the response if it is detached. */
+  private void releaseWhenDone(Request request, Completion completion) {
+    if (request != null && completion.detached()) {
+      completion.defer(() -> request.release(log));
+    } else if (request != null) {
+      request.release(log);
+    }
+  }
+
+  /** Writes the handler's response now, or once its future or publisher delivers the body. */
+  private void respond(
+      HttpExchange exchange,
+      Response<?> response,
+      RouteMatch match,
+      RouteMetrics routeMetrics,
+      Completion completion)
+      throws IOException {
+    switch (response.body()) {
+      case CompletionStage<?> stage ->
+          respondLater(exchange, response, stage, match, routeMetrics, completion);
+      case Flow.Publisher<?> publisher ->
+          stream(exchange, response, publisher, match, routeMetrics, completion);
+      case EventStream events -> openEvents(exchange, response, events, completion);
+      case WebSocketListener listener ->
+          upgrade(exchange, listener, match, routeMetrics, completion);
+      case null, default ->
+          writeResponse(
+              exchange, response, match.handler().bodyWriter(), match.route(), routeMetrics);
+    }
+  }
+
+  /**
+   * Detaches the exchange and writes the response when {@code stage} completes, on a virtual
+   * thread rather than whichever thread completed it. A value that is itself a {@link Response}
+   * replaces {@code response}; any other becomes its body.
+   */
+  private void respondLater(
+      HttpExchange exchange,
+      Response<?> response,
+      CompletionStage<?> stage,
+      RouteMatch match,
+      RouteMetrics routeMetrics,
+      Completion completion) {
+    completion.detach(exchange);
+    stage.whenCompleteAsync(
+        (value, failure) -> {
+          Throwable error = null;
+          try {
+            switch (settle(response, value, failure)) {
+              case Result.Success<Response<?>, FrameworkError>(var settled) ->
+                  writeResponse(
+                      exchange, settled, match.handler().bodyWriter(), match.route(), routeMetrics);
+              case Result.Failure<Response<?>, FrameworkError>(var e) ->
+                  handleError(exchange, e, routeMetrics);
+            }
+          } catch (IOException | RuntimeException e) {
+            routeMetrics.error(e.getClass().getSimpleName());
+            error = e;
+          } finally {
+            completion.responded(error);
+          }
+        },
+        CONTINUATIONS);
+  }
+
+  private static Result<Response<?>, FrameworkError> settle(
+      Response<?> response, Object value, Throwable failure) {
+    if (failure != null) {
+      return Result.failure(
+          new FrameworkError.RequestHandlingFailed(
+              unwrap(failure), HttpStatus.INTERNAL_SERVER_ERROR.value()));
+    }
+    if (value instanceof Response<?> settled) {
+      return Result.success(settled);
+    }
+    return Result.success(new Response<>(response.statusCode(), value, response.headers()));
+  }
+
+  /** The exception a handler's future or publisher failed with, out of its wrappers. */
+  private static Exception unwrap(Throwable failure) {
+    Throwable cause = failure;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause instanceof Exception e ? e : new ExecutionException(cause);
+  }
+
+  /**
+   * Detaches the exchange and streams the items of {@code publisher} from a virtual thread as they
+   * arrive (see {@link #writeItems}).
+   */
+  private void stream(
+      HttpExchange exchange,
+      Response<?> response,
+      Flow.Publisher<?> publisher,
+      RouteMatch match,
+      RouteMetrics routeMetrics,
+      Completion completion) {
+    completion.detach(exchange);
+    var items = new PublishedItems();
+    try {
+      publisher.subscribe(items);
+    } catch (RuntimeException e) {
+      items.onError(e);
+    }
+    CONTINUATIONS.execute(
+        () -> {
+          Throwable error = null;
+          try {
+            writeItems(exchange, response, items, match, routeMetrics);
+          } catch (IOException | RuntimeException e) {
+            items.cancel();
+            routeMetrics.error(e.getClass().getSimpleName());
+            error = e;
+          } finally {
+            completion.responded(error);
+          }
+        });
+  }
+
+  /**
+   * Detaches the exchange and writes {@code events} from a virtual thread, as {@code
+   * text/event-stream}, until the stream is closed or the client goes away. Either is how an event
+   * stream normally ends, so neither counts as an error.
+   */
+  private void openEvents(
+      HttpExchange exchange, Response<?> response, EventStream events, Completion completion) {
+    completion.detach(exchange);
+    CONTINUATIONS.execute(
+        () -> {
+          Throwable error = null;
+          try {
+            var headers = exchange.getResponseHeaders();
+            response.headers().forEach(headers::set);
+            headers.set(CONTENT_TYPE, "text/event-stream");
+            headers.set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(response.statusCode(), 0);
+            events.writeTo(exchange.getResponseBody(), completion::abort);
+          } catch (IOException | RuntimeException e) {
+            events.close();
+            error = e;
+          } finally {
+            completion.responded(error);
+          }
+        });
+  }
+
+  /**
+   * Answers the WebSocket handshake and runs the session on a virtual thread until it closes. The
+   * exchange stays detached all along, so the engine neither reads nor times out the connection
+   * meanwhile; the session does both. Engines that cannot hand over their connection answer 501.
+   */
+  private void upgrade(
+      HttpExchange exchange,
+      WebSocketListener listener,
+      RouteMatch match,
+      RouteMetrics routeMetrics,
+      Completion completion)
+      throws IOException {
+    if (!(exchange instanceof Upgradable upgradable)) {
+      handleError(
+          exchange,
+          new FrameworkError.RequestHandlingFailed(
+              new UnsupportedOperationException("This engine cannot upgrade to WebSocket"),
+              HttpStatus.NOT_IMPLEMENTED.value()),
+          routeMetrics);
+      return;
+    }
+    switch (WebSocketHandshake.accept(exchange.getRequestHeaders())) {
+      case Result.Failure<String, FrameworkError>(var error) ->
+          handleError(exchange, error, routeMetrics);
+      case Result.Success<String, FrameworkError>(var accept) -> {
+        var headers = exchange.getResponseHeaders();
+        headers.set("Upgrade", "websocket");
+        headers.set("Sec-WebSocket-Accept", accept);
+        int maxMessageBytes =
+            match.handler().method().getAnnotation(WebSocket.class).maxMessageBytes();
+        completion.detach(exchange);
+        CONTINUATIONS.execute(
+            () -> {
+              Throwable error = null;
+              try {
+                WebSocketSession.serve(upgradable.upgrade(), listener, maxMessageBytes, log);
+              } catch (IOException | RuntimeException e) {
+                routeMetrics.error(e.getClass().getSimpleName());
+                error = e;
+              } finally {
+                completion.responded(error);
+              }
+            });
+      }
     }
   }
 
-  private void handleError(HttpExchange exchange, FrameworkError error) throws IOException {
+  /**
+   * Writes the items of a publisher with the route's writer, as one JSON array or, for text and
+   * binary items, back to back. The headers wait for the first item, so a publisher that fails
+   * straight away still gets a proper error response. After that the output is flushed whenever it
+   * has caught up with the publisher, so every item reaches the client as soon as it can without
+   * a write per item when they come in quick succession.
+   */
+  private void writeItems(
+      HttpExchange exchange,
+      Response<?> response,
+      PublishedItems items,
+      RouteMatch match,
+      RouteMetrics routeMetrics)
+      throws IOException {
+    Object item;
+    try {
+      item = items.take();
+    } catch (ExecutionException | InterruptedException e) {
+      handleError(
+          exchange,
+          new FrameworkError.RequestHandlingFailed(
+              unwrap(e), HttpStatus.INTERNAL_SERVER_ERROR.value()),
+          routeMetrics);
+      return;
+    }
+    BodyWriter writer = match.handler().bodyWriter();
+    boolean array =
+        item == null
+            ? writer != BodyWriters.TEXT && writer != BodyWriters.BINARY
+            : BodyWriters.APPLICATION_JSON.equals(writer.contentType(item));
+    var headers = exchange.getResponseHeaders();
+    response.headers().forEach(headers::set);
+    if (!headers.containsKey(CONTENT_TYPE) && (array || item != null)) {
+      headers.set(CONTENT_TYPE, array ? BodyWriters.APPLICATION_JSON : writer.contentType(item));
+    }
+    var out = new ResponseOutput(exchange, response.statusCode());
+    if (match.route().compressible() && compression.config().enabled()) {
+      out.compressWith(compression, negotiate(exchange), match.route().key());
+    }
+    try {
+      if (array) {
+        out.write('[');
+      }
+      while (item != null) {
+        writer.write(item, out);
+        item = items.poll();
+        if (item == PublishedItems.PENDING) {
+          out.flush();
+          item = items.take();
+        }
+        if (array && item != null) {
+          out.write(',');
+        }
+      }
+      if (array) {
+        out.write(']');
+      }
+    } catch (IOException | RuntimeException | ExecutionException | InterruptedException e) {
+      items.cancel();
+      if (!out.discard()) {
+        throw new IOException("Streaming the response failed", unwrap(e));
+      }
+      headers.clear();
+      handleError(
+          exchange,
+          new FrameworkError.RequestHandlingFailed(
+              unwrap(e), HttpStatus.INTERNAL_SERVER_ERROR.value()),
+          routeMetrics);
+      return;
+    }
+    out.close();
+  }
+
+  /**
+   * Streams the body through the handler's precompiled {@link BodyWriter}. Small bodies are sent
+   * with a Content-Length, larger ones chunked, and binary bodies of known size with their exact
+   * length; see {@link ResponseOutput}. A writer that fails before anything is sent, such as for a
+   * missing file, still gets a proper error response.
+   *
+   * @param route The route that produced the response, or null for the dispatcher's own responses,
+   *     which are never compressed.
+   */
+  private void writeResponse(
+      HttpExchange exchange,
+      Response<?> response,
+      BodyWriter writer,
+      Route route,
+      RouteMetrics routeMetrics)
+      throws IOException {
+    var event = new DispatchEvents.ResponseWrite();
+    event.begin();
+    var headers = exchange.getResponseHeaders();
+    response.headers().forEach(headers::set);
+    Object body = response.body();
+    var out = new ResponseOutput(exchange, response.statusCode());
+    if (route != null && route.compressible() && compression.config().enabled()) {
+      out.compressWith(compression, negotiate(exchange), route.key());
+    }
+    try {
+      if (body != null) {
+        if (!headers.containsKey(CONTENT_TYPE)) {
+          headers.set(CONTENT_TYPE, writer.contentType(body));
+        }
+        writer.write(body, out);
+      }
+    } catch (IOException | RuntimeException e) {
+      if (!out.discard()) {
+        throw e;
+      }
+      headers.clear();
+      int status =
+          e instanceof NoSuchFileException
+              ? HttpStatus.NOT_FOUND.value()
+              : HttpStatus.INTERNAL_SERVER_ERROR.value();
+      handleError(exchange, new FrameworkError.RequestHandlingFailed(e, status), routeMetrics);
+      return;
+    }
+    out.close();
+    event.end();
+    if (event.shouldCommit()) {
+      event.verb = exchange.getRequestMethod();
+      event.route = routeMetrics.key().path();
+      event.status = response.statusCode();
+      event.commit();
+    }
+  }
+
+  /**
+   * Serves a {@code @Cached} route. A fresh entry answers without binding arguments or calling the
+   * handler, with a 304 when the client's {@code If-None-Match} already names it. A miss runs the
+   * handler and, for a 200, encodes the response once into the cache before sending it.
+   *
+   * <p>Compressed and plain bodies are cached apart, keyed by the negotiated coding as well, so a
+   * hit compresses nothing and each representation has a strong ETag of its own.
+   */
+  private void dispatchCached(
+      HttpExchange exchange, RouteMatch match, RouteMetrics routeMetrics, Completion completion)
+      throws IOException {
+    Route route = match.route();
+    ContentCoding coding = route.compressible() ? negotiate(exchange) : null;
+    URI uri = exchange.getRequestURI();
+    String key =
+        uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    if (coding != null) {
+      key = key + " " + coding.token();
+    }
+    long now = System.nanoTime();
+    CachedResponse cached = responseCache.get(key, now);
+    if (cached == null) {
+      Request request = newRequest(exchange, match);
+      try {
+        BodyWriter writer = match.handler().bodyWriter();
+        switch (execute(match, request)) {
+          case Result.Success<Response<?>, FrameworkError>(var response) -> {
+            if (response.statusCode() != HttpStatus.OK.value()
+                || BodyWriters.isStreamed(response.body())
+                || response.body() instanceof CompletionStage<?>
+                || response.body() instanceof Flow.Publisher<?>) {
+              respond(exchange, response, match, routeMetrics, completion);
+              return;
+            }
+            try {
+              cached = CachedResponse.encode(response, writer, now + route.cache().ttlNanos());
+              if (route.compressible()) {
+                cached = cached.compressedWith(compression, coding, route.key());
+              }
+            } catch (IOException | RuntimeException e) {
+              handleError(
+                  exchange,
+                  new FrameworkError.RequestHandlingFailed(
+                      e, HttpStatus.INTERNAL_SERVER_ERROR.value()),
+                  routeMetrics);
+              return;
+            }
+            responseCache.put(key, cached, now);
+          }
+          case Result.Failure<Response<?>, FrameworkError>(var error) -> {
+            handleError(exchange, error, routeMetrics);
+            return;
+          }
+        }
+      } finally {
+        releaseWhenDone(request, completion);
+      }
+    }
+    writeCached(exchange, cached);
+  }
+
+  private void writeCached(HttpExchange exchange, CachedResponse cached) throws IOException {
+    var headers = exchange.getResponseHeaders();
+    cached.headers().forEach(headers::set);
+    headers.set("ETag", cached.etag());
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    if (ifNoneMatch != null && ETags.noneMatchHits(ifNoneMatch, cached.etag())) {
+      exchange.sendResponseHeaders(HttpStatus.NOT_MODIFIED.value(), -1);
+      exchange.getResponseBody().close();
+      return;
+    }
+    byte[] body = cached.body();
+    exchange.sendResponseHeaders(HttpStatus.OK.value(), body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /** The coding to compress with; an exchange without request headers gets identity. */
+  private ContentCoding negotiate(HttpExchange exchange) {
+    Headers headers = exchange.getRequestHeaders();
+    return compression.negotiate(headers == null ? null : headers.getFirst("Accept-Encoding"));
+  }
+
+  private void handleError(HttpExchange exchange, FrameworkError error, RouteMetrics routeMetrics)
+      throws IOException {
     int statusCode = HttpStatus.INTERNAL_SERVER_ERROR.value();
     String message = "Internal Server Error";
     Throwable cause = null;
@@ -71,8 +772,26 @@ public class DispatcherServlet implements HttpHandler {
       statusCode = failure.suggestedStatusCode();
       cause = failure.exception();
       message = "Error: " + cause;
+      routeMetrics.error(cause.getClass().getSimpleName());
     } else {
       message = "Error: " + error;
+      routeMetrics.error(error.getClass().getSimpleName());
+    }
+
+    // Formatting the message and the stack trace is left to the log's writer thread. A 4xx is the
+    // client's mistake and its trace says nothing, so only server errors get one.
+    String failed =
+        exchange.getRequestMethod()
+            + " "
+            + exchange.getRequestURI().getPath()
+            + " failed with "
+            + statusCode
+            + ": "
+            + (cause != null ? cause : error);
+    if (statusCode >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+      log.error(failed, cause);
+    } else {
+      log.warn(failed);
     }
 
     byte[] responseBytes = message.getBytes(StandardCharsets.UTF_8);
@@ -80,38 +799,56 @@ public class DispatcherServlet implements HttpHandler {
     try (OutputStream responseBody = exchange.getResponseBody()) {
       responseBody.write(responseBytes);
     }
-    
-    if (cause != null) {
-      System.err.println("[DispatcherServlet] Request processing failed.");
-      System.err.println("  Error Details: " + message);
-      System.err.println("  Exception Stack Trace:");
-      cause.printStackTrace(System.err);
-    } else {
-      System.err.println("[DispatcherServlet] Request failed: " + error);
+  }
+
+  /**
+   * The view the route's binders read, or null when it has none. Whatever they leave open on it,
+   * such as an upload's temporary files, is released once the response is complete.
+   */
+  private static Request newRequest(HttpExchange exchange, RouteMatch match) {
+    return match.route().binders().length == 0 ? null : new Request(exchange, match.variables());
+  }
+
+  /** Binds the arguments and runs the handler, as one {@code Invocation} event. */
+  private Result<Response<?>, FrameworkError> execute(RouteMatch match, Request request) {
+    var event = new DispatchEvents.Invocation();
+    event.begin();
+    var result = invoke(match, request);
+    event.end();
+    if (event.shouldCommit()) {
+      event.verb = match.route().key().verb();
+      event.route = match.route().key().path();
+      event.succeeded = result instanceof Result.Success;
+      event.commit();
     }
+    return result;
   }
 
-  private RouteAction createExecutionAction(MethodHandler handler) {
-    return (exchange) -> {
-      try {
-        var result = handler.method().invoke(handler.instance());
-        if (result instanceof Response<?> response) {
-          return Result.success(response);
+  /**
+   * Runs the handler through the invoker compiled for it at registration time. Controller
+   * exceptions arrive unwrapped, so there is no {@code InvocationTargetException} to unpack.
+   */
+  private Result<Response<?>, FrameworkError> invoke(RouteMatch match, Request request) {
+    ArgumentBinder[] binders = match.route().binders();
+    Object[] args = binders.length == 0 ? NO_ARGS : new Object[binders.length];
+    for (int i = 0; i < binders.length; i++) {
+      switch (binders[i].bind(request)) {
+        case Result.Success<Object, FrameworkError>(var value) -> args[i] = value;
+        case Result.Failure<Object, FrameworkError>(var error) -> {
+          return Result.failure(error);
         }
-        return Result.success(Response.Builder(HttpStatus.OK.value()).body(result));
-      } catch (InvocationTargetException e) {
-        Exception cause = (Exception) e.getCause();
-        return Result.failure(
-            new FrameworkError.RequestHandlingFailed(
-                cause, HttpStatus.INTERNAL_SERVER_ERROR.value()));
-      } catch (IllegalAccessException e) {
-        return Result.failure(
-            new FrameworkError.RequestHandlingFailed(
-                e, HttpStatus.INTERNAL_SERVER_ERROR.value()));
-      } catch (Exception e) {
-        return Result.failure(
-            new FrameworkError.RequestHandlingFailed(e, HttpStatus.INTERNAL_SERVER_ERROR.value()));
       }
-    };
+    }
+
+    try {
+      var result = match.handler().invoker().invoke(args);
+      if (result instanceof Response<?> response) {
+        return Result.success(response);
+      }
+      return Result.success(Response.Builder(HttpStatus.OK.value()).body(result));
+    } catch (Exception e) {
+      return Result.failure(
+          new FrameworkError.RequestHandlingFailed(e, HttpStatus.INTERNAL_SERVER_ERROR.value()));
+    }
   }
 }
\ No newline at end of file
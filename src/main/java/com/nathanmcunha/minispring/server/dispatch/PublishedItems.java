@@ -0,0 +1,95 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Subscribes to a handler's {@link Flow.Publisher} and hands its items to the thread writing the
+ * response.
+ *
+ * <p>Demand follows the writer: the publisher may run at most {@link #WINDOW} items ahead of what
+ * has been written, and more are requested in batches of half that as the writer catches up. So a
+ * slow client slows the publisher down instead of piling items up in memory, and the publisher's
+ * own threads never wait on the socket.
+ */
+final class PublishedItems implements Flow.Subscriber<Object> {
+
+  static final int WINDOW = 32;
+
+  /** Returned by {@link #poll} when the publisher has nothing new yet. */
+  static final Object PENDING = new Object();
+
+  private static final Object END = new Object();
+
+  private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+  private volatile Flow.Subscription subscription;
+  private volatile Throwable failure;
+  private int taken;
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(WINDOW);
+  }
+
+  @Override
+  public void onNext(Object item) {
+    signals.add(item);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    failure = throwable;
+    signals.add(END);
+  }
+
+  @Override
+  public void onComplete() {
+    signals.add(END);
+  }
+
+  /**
+   * Waits for the next item.
+   *
+   * @return The item, or null once the publisher has completed.
+   * @throws ExecutionException If the publisher failed, with its error as the cause.
+   */
+  Object take() throws InterruptedException, ExecutionException {
+    return next(signals.take());
+  }
+
+  /** Like {@link #take}, but returns {@link #PENDING} instead of waiting. */
+  Object poll() throws ExecutionException {
+    Object signal = signals.poll();
+    return signal == null ? PENDING : next(signal);
+  }
+
+  /** Stops the publisher, once the response is abandoned. */
+  void cancel() {
+    Flow.Subscription current = subscription;
+    if (current != null) {
+      current.cancel();
+    }
+  }
+
+  private Object next(Object signal) throws ExecutionException {
+    if (signal == END) {
+      signals.add(END);
+      if (failure != null) {
+        throw new ExecutionException(failure);
+      }
+      return null;
+    }
+    if (++taken == WINDOW / 2) {
+      taken = 0;
+      subscription.request(WINDOW / 2);
+    }
+    return signal;
+  }
+}
@@ -0,0 +1,229 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import com.nathanmcunha.minispring.common.Pool;
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.compression.ContentCoding;
+import com.nathanmcunha.minispring.server.engine.FileTransfer;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams a response body into an {@link HttpExchange} through a pooled buffer.
+ *
+ * <p>Headers are sent as late as possible: a body that fits in the buffer goes out with a fixed
+ * {@code Content-Length}, while a larger one switches to chunked transfer as soon as the buffer
+ * first fills up. Either way the body is never materialized as a whole.
+ *
+ * <p>Bodies whose size is known up front, such as byte arrays and files, skip the guessing: {@link
+ * #expectLength} sends the headers with that length right away. File regions bigger than the
+ * buffer, and direct buffers such as mapped files, go to the engine's {@link FileTransfer} when its
+ * response stream has one.
+ *
+ * <p>With {@link #compressWith}, the decision to compress is also taken when the headers go out,
+ * once the body's type is set and its size is known or known to be large. A body that fit in the
+ * buffer is compressed whole and still sent with a {@code Content-Length}; a larger one is
+ * compressed as it streams.
+ */
+public final class ResponseOutput extends Utf8Output {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final Pool<byte[]> BUFFERS = new Pool<>(256, () -> new byte[BUFFER_SIZE]);
+
+  private final HttpExchange exchange;
+  private final int status;
+  private OutputStream stream;
+  private Compression compression;
+  private ContentCoding coding;
+  private RouteKey route;
+  private boolean decided;
+  private boolean compressing;
+
+  public ResponseOutput(HttpExchange exchange, int status) {
+    super(BUFFERS.acquire());
+    this.exchange = exchange;
+    this.status = status;
+  }
+
+  /**
+   * Compresses the body for {@code route} if {@code compression} applies to it.
+   *
+   * @param coding The coding the client accepts, or null to only announce that the response
+   *     varies with {@code Accept-Encoding}.
+   */
+  public void compressWith(Compression compression, ContentCoding coding, RouteKey route) {
+    this.compression = compression;
+    this.coding = coding;
+    this.route = route;
+  }
+
+  @Override
+  protected void drain(byte[] bytes, int offset, int length) throws IOException {
+    commit(0);
+    send(bytes, offset, length);
+  }
+
+  @Override
+  public void expectLength(long length) throws IOException {
+    if (stream == null && position == 0) {
+      commit(length == 0 ? -1 : length);
+    }
+  }
+
+  @Override
+  public void transferFrom(FileChannel file, long from, long count) throws IOException {
+    // Small regions are cheaper to copy and send along with the headers in one write.
+    if (count <= buffer.length - position) {
+      super.transferFrom(file, from, count);
+      return;
+    }
+    commit(0);
+    drainBuffer();
+    if (stream instanceof FileTransfer transfer) {
+      var event = new DispatchEvents.SocketWrite();
+      event.begin();
+      transfer.transferFrom(file, from, count);
+      commitEvent(event, count);
+    } else {
+      super.transferFrom(file, from, count);
+    }
+  }
+
+  @Override
+  public void write(ByteBuffer source) throws IOException {
+    if (source.hasArray() || source.remaining() <= buffer.length - position) {
+      super.write(source);
+      return;
+    }
+    commit(0);
+    drainBuffer();
+    if (stream instanceof FileTransfer transfer) {
+      var event = new DispatchEvents.SocketWrite();
+      event.begin();
+      int count = source.remaining();
+      transfer.transferFrom(source);
+      commitEvent(event, count);
+    } else {
+      super.write(source);
+    }
+  }
+
+  /**
+   * Sends everything written so far, for bodies produced over time. The headers go out first if
+   * they have not yet, and then the body is chunked.
+   */
+  @Override
+  public void flush() throws IOException {
+    commit(0);
+    drainBuffer();
+    stream.flush();
+  }
+
+  /**
+   * Gives up on the response after a failed write. Nothing buffered is sent and the body stream is
+   * left unterminated, so a client can never take a cut-off body for a complete one.
+   *
+   * @return Whether the headers were still unsent, in which case the caller may answer instead.
+   */
+  public boolean discard() {
+    if (buffer != null) {
+      BUFFERS.release(buffer);
+      buffer = null;
+    }
+    return stream == null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      if (stream == null && position > 0 && compresses(position)) {
+        byte[] compressed = compression.compress(buffer, 0, position, coding, route);
+        exchange.sendResponseHeaders(status, compressed.length);
+        stream = exchange.getResponseBody();
+        send(compressed, 0, compressed.length);
+        position = 0;
+      } else if (stream == null) {
+        commit(position == 0 ? -1 : position);
+        send(buffer, 0, position);
+        position = 0;
+      } else {
+        drainBuffer();
+      }
+      // Engines may hold the last bytes until the stream closes, so closing counts as a write.
+      var event = new DispatchEvents.SocketWrite();
+      event.begin();
+      stream.close();
+      commitEvent(event, 0);
+    } finally {
+      BUFFERS.release(buffer);
+      buffer = null;
+    }
+  }
+
+  private void send(byte[] bytes, int offset, int length) throws IOException {
+    var event = new DispatchEvents.SocketWrite();
+    event.begin();
+    stream.write(bytes, offset, length);
+    commitEvent(event, length);
+  }
+
+  private void commitEvent(DispatchEvents.SocketWrite event, long bytes) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.status = status;
+      event.bytes = bytes;
+      event.commit();
+    }
+  }
+
+  /** Sends the status line and headers. A length of 0 means chunked and -1 means no body. */
+  private void commit(long length) throws IOException {
+    if (stream == null) {
+      if (compresses(length)) {
+        exchange.sendResponseHeaders(status, 0);
+        stream = compression.open(exchange.getResponseBody(), coding, route);
+      } else {
+        exchange.sendResponseHeaders(status, length);
+        stream = exchange.getResponseBody();
+      }
+    }
+  }
+
+  /**
+   * Decides, just before the headers are sent, whether to compress a body of {@code length} bytes
+   * (0 if unknown), and sets the headers that go with the decision. Only the first call decides;
+   * later ones return the same answer without touching the headers again.
+   */
+  private boolean compresses(long length) {
+    if (!decided) {
+      decided = true;
+      compressing = decideCompression(length);
+    }
+    return compressing;
+  }
+
+  private boolean decideCompression(long length) {
+    if (compression == null) {
+      return false;
+    }
+    Headers headers = exchange.getResponseHeaders();
+    if (!compression.appliesTo(
+        headers.getFirst("Content-Type"), headers.getFirst("Content-Encoding"), length)) {
+      return false;
+    }
+    headers.add("Vary", "Accept-Encoding");
+    if (coding == null) {
+      return false;
+    }
+    headers.set("Content-Encoding", coding.token());
+    return true;
+  }
+}
@@ -0,0 +1,79 @@
+package com.nathanmcunha.minispring.server.dispatch.protocol;
+
+/** Reads the {@code Accept-Encoding} request header. */
+public final class AcceptEncoding {
+
+  private AcceptEncoding() {}
+
+  /**
+   * The quality value the header gives {@code coding}: its own {@code q}, else that of a {@code *}
+   * entry, else 0. Listed codings without a {@code q} count as 1. Scans the header in place, as it
+   * is read on every response that could be compressed.
+   */
+  public static double quality(String acceptEncoding, String coding) {
+    double wildcard = 0;
+    int length = acceptEncoding.length();
+    int start = 0;
+    while (start < length) {
+      int end = acceptEncoding.indexOf(',', start);
+      if (end < 0) {
+        end = length;
+      }
+      int tokenEnd = acceptEncoding.indexOf(';', start);
+      if (tokenEnd < 0 || tokenEnd > end) {
+        tokenEnd = end;
+      }
+      int tokenStart = skipSpaces(acceptEncoding, start, tokenEnd);
+      int tokenLength = trimSpaces(acceptEncoding, tokenStart, tokenEnd) - tokenStart;
+      boolean named =
+          tokenLength == coding.length()
+              && acceptEncoding.regionMatches(true, tokenStart, coding, 0, tokenLength);
+      boolean any = tokenLength == 1 && acceptEncoding.charAt(tokenStart) == '*';
+      if (named || any) {
+        double q = quality(acceptEncoding, tokenEnd, end);
+        if (named) {
+          return q;
+        }
+        wildcard = q;
+      }
+      start = end + 1;
+    }
+    return wildcard;
+  }
+
+  /** The {@code q} parameter among the {@code ;}-separated parameters in {@code [from, to)}. */
+  private static double quality(String header, int from, int to) {
+    while (from < to) {
+      int next = header.indexOf(';', from + 1);
+      if (next < 0 || next > to) {
+        next = to;
+      }
+      int name = skipSpaces(header, from + 1, next);
+      if (name + 1 < next
+          && (header.charAt(name) == 'q' || header.charAt(name) == 'Q')
+          && header.charAt(name + 1) == '=') {
+        try {
+          return Double.parseDouble(header.substring(name + 2, next).strip());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+      from = next;
+    }
+    return 1;
+  }
+
+  private static int skipSpaces(String text, int from, int to) {
+    while (from < to && (text.charAt(from) == ' ' || text.charAt(from) == '\t')) {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimSpaces(String text, int from, int to) {
+    while (to > from && (text.charAt(to - 1) == ' ' || text.charAt(to - 1) == '\t')) {
+      to--;
+    }
+    return to;
+  }
+}
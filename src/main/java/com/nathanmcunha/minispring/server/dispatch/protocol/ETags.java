@@ -0,0 +1,25 @@
+package com.nathanmcunha.minispring.server.dispatch.protocol;
+
+/** Entity tag comparison for conditional requests. */
+public final class ETags {
+
+  private ETags() {}
+
+  /**
+   * Whether an {@code If-None-Match} header matches {@code etag}. It uses the weak comparison RFC
+   * 9110 prescribes for this header, so {@code W/"x"} matches {@code "x"}, and {@code *} matches
+   * anything.
+   */
+  public static boolean noneMatchHits(String ifNoneMatch, String etag) {
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.strip();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
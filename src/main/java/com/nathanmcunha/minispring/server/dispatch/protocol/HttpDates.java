@@ -0,0 +1,38 @@
+package com.nathanmcunha.minispring.server.dispatch.protocol;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/** Formats and parses HTTP dates, as used by {@code Date}, {@code Last-Modified} and friends. */
+public final class HttpDates {
+
+  // IMF-fixdate (RFC 9110 section 5.6.7); RFC_1123_DATE_TIME would not pad the day.
+  private static final DateTimeFormatter IMF_FIXDATE =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+          .withZone(ZoneOffset.UTC);
+
+  private HttpDates() {}
+
+  /** Formats an instant, truncated to the second, as an IMF-fixdate. */
+  public static String format(long epochMillis) {
+    return IMF_FIXDATE.format(Instant.ofEpochSecond(Math.floorDiv(epochMillis, 1000)));
+  }
+
+  /**
+   * Parses an IMF-fixdate (the lenient RFC 1123 parser also takes an unpadded day).
+   *
+   * @return The date in epoch seconds, or -1 if {@code text} is not a date.
+   */
+  public static long parseSeconds(String text) {
+    try {
+      return ZonedDateTime.parse(text.strip(), DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toEpochSecond();
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+}
@@ -1,12 +1,22 @@
 package com.nathanmcunha.minispring.server.dispatch.protocol;
 
 public enum HttpStatus {
+  SWITCHING_PROTOCOLS(101),
   OK(200),
   CREATED(201),
   NO_CONTENT(204),
+  NOT_MODIFIED(304),
   BAD_REQUEST(400),
   NOT_FOUND(404),
-  INTERNAL_SERVER_ERROR(500);
+  METHOD_NOT_ALLOWED(405),
+  CONTENT_TOO_LARGE(413),
+  UNSUPPORTED_MEDIA_TYPE(415),
+  UPGRADE_REQUIRED(426),
+  TOO_MANY_REQUESTS(429),
+  INTERNAL_SERVER_ERROR(500),
+  NOT_IMPLEMENTED(501),
+  SERVICE_UNAVAILABLE(503),
+  GATEWAY_TIMEOUT(504);
 
   private final int value;
 
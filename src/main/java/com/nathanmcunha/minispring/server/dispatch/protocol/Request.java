@@ -0,0 +1,223 @@
+package com.nathanmcunha.minispring.server.dispatch.protocol;
+
+import com.nathanmcunha.minispring.server.log.AsyncLog;
+import com.nathanmcunha.minispring.server.router.model.PathVariables;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The request a route handles, as its argument binders and handlers see it.
+ *
+ * <p>Nothing is parsed up front. The query string and the cookies are scanned the first time one
+ * of their values is asked for, and even then only the bounds of each pair are recorded; a value
+ * becomes a {@link String}, percent-decoded only if it needs to be, when it is read. Path
+ * variables are the router's own flyweight, and headers come from the engine, which on the nio
+ * engine leaves them as the raw bytes of the head until one is looked up. A route that never reads
+ * a parameter, a header or a cookie therefore pays for none of them.
+ */
+public final class Request {
+
+  private static final int[] NO_PAIRS = new int[0];
+
+  private final HttpExchange exchange;
+  private final PathVariables variables;
+  // Three offsets per pair: name start, name end ('=' or the end), end. Null until first scanned.
+  private String query;
+  private int[] queryPairs;
+  private String cookies;
+  private int[] cookiePairs;
+  private List<AutoCloseable> resources;
+
+  public Request(HttpExchange exchange, PathVariables variables) {
+    this.exchange = exchange;
+    this.variables = variables;
+  }
+
+  /** The underlying exchange, for what this view does not cover. */
+  public HttpExchange exchange() {
+    return exchange;
+  }
+
+  public String method() {
+    return exchange.getRequestMethod();
+  }
+
+  /** The decoded request path, without the query. */
+  public String path() {
+    return exchange.getRequestURI().getPath();
+  }
+
+  public PathVariables pathVariables() {
+    return variables;
+  }
+
+  /**
+   * The first value of query parameter {@code name}, percent-decoded, or null if absent. A
+   * parameter without {@code =} has the empty string as its value.
+   *
+   * @throws IllegalArgumentException If the value's percent-encoding is malformed.
+   */
+  public String param(String name) {
+    scanQuery();
+    int pair = find(query, queryPairs, 0, name, true);
+    return pair < 0 ? null : value(query, queryPairs, pair, true);
+  }
+
+  /** Every value of query parameter {@code name}, in order. */
+  public List<String> params(String name) {
+    scanQuery();
+    List<String> values = new ArrayList<>(2);
+    for (int pair = find(query, queryPairs, 0, name, true);
+        pair >= 0;
+        pair = find(query, queryPairs, pair + 3, name, true)) {
+      values.add(value(query, queryPairs, pair, true));
+    }
+    return values;
+  }
+
+  /** The first value of header {@code name}, in any case, or null. */
+  public String header(String name) {
+    return exchange.getRequestHeaders().getFirst(name);
+  }
+
+  /** Every value of header {@code name}, in any case. */
+  public List<String> headers(String name) {
+    List<String> values = exchange.getRequestHeaders().get(name);
+    return values == null ? List.of() : values;
+  }
+
+  /** The value of cookie {@code name}, without surrounding quotes, or null if absent. */
+  public String cookie(String name) {
+    if (cookiePairs == null) {
+      cookies = header("Cookie");
+      cookiePairs = cookies == null ? NO_PAIRS : scan(cookies, ';', true);
+    }
+    int pair = find(cookies, cookiePairs, 0, name, false);
+    if (pair < 0) {
+      return null;
+    }
+    String value = value(cookies, cookiePairs, pair, false);
+    return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+        ? value.substring(1, value.length() - 1)
+        : value;
+  }
+
+  public InputStream body() {
+    return exchange.getRequestBody();
+  }
+
+  /**
+   * Closes {@code resource} once the response is complete, after the handler and whatever it
+   * returned are done with it, such as the temporary files of a multipart upload.
+   */
+  public void closeOnCompletion(AutoCloseable resource) {
+    if (resources == null) {
+      resources = new ArrayList<>(1);
+    }
+    resources.add(resource);
+  }
+
+  /**
+   * Closes what was registered with {@link #closeOnCompletion}, the latest first.
+   *
+   * @param log Where a resource that fails to close is reported.
+   */
+  public void release(AsyncLog log) {
+    if (resources == null) {
+      return;
+    }
+    for (int i = resources.size() - 1; i >= 0; i--) {
+      try {
+        resources.get(i).close();
+      } catch (Exception e) {
+        log.error("Failed to release " + resources.get(i), e);
+      }
+    }
+    resources = null;
+  }
+
+  private void scanQuery() {
+    if (queryPairs == null) {
+      query = exchange.getRequestURI().getRawQuery();
+      queryPairs = query == null ? NO_PAIRS : scan(query, '&', false);
+    }
+  }
+
+  /** Records the bounds of each non-empty {@code name=value} pair in {@code text}. */
+  private static int[] scan(String text, char separator, boolean trim) {
+    int count = 1;
+    for (int i = text.indexOf(separator); i >= 0; i = text.indexOf(separator, i + 1)) {
+      count++;
+    }
+    int[] pairs = new int[3 * count];
+    int filled = 0;
+    int start = 0;
+    int length = text.length();
+    while (start <= length) {
+      int end = text.indexOf(separator, start);
+      if (end < 0) {
+        end = length;
+      }
+      int from = start;
+      int to = end;
+      if (trim) {
+        while (from < to && text.charAt(from) == ' ') {
+          from++;
+        }
+        while (to > from && text.charAt(to - 1) == ' ') {
+          to--;
+        }
+      }
+      if (from < to) {
+        int equals = text.indexOf('=', from);
+        pairs[filled++] = from;
+        pairs[filled++] = equals < 0 || equals > to ? to : equals;
+        pairs[filled++] = to;
+      }
+      start = end + 1;
+    }
+    return filled == pairs.length ? pairs : Arrays.copyOf(pairs, filled);
+  }
+
+  /** The offset of the first pair from {@code from} on named {@code name}, or -1. */
+  private static int find(String text, int[] pairs, int from, String name, boolean decode) {
+    for (int pair = from; pair < pairs.length; pair += 3) {
+      int start = pairs[pair];
+      int end = pairs[pair + 1];
+      if (end - start == name.length() && text.regionMatches(start, name, 0, name.length())) {
+        return pair;
+      }
+      if (decode && isEncoded(text, start, end) && decode(text, start, end).equals(name)) {
+        return pair;
+      }
+    }
+    return -1;
+  }
+
+  private static String value(String text, int[] pairs, int pair, boolean decode) {
+    int end = pairs[pair + 2];
+    int start = Math.min(pairs[pair + 1] + 1, end);
+    return decode && isEncoded(text, start, end)
+        ? decode(text, start, end)
+        : text.substring(start, end);
+  }
+
+  private static boolean isEncoded(String text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c == '%' || c == '+') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String decode(String text, int start, int end) {
+    return URLDecoder.decode(text.substring(start, end), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,29 @@
+package com.nathanmcunha.minispring.server.engine;
+
+/**
+ * Implemented by exchanges whose response can be completed after the handler has returned, from
+ * another thread.
+ *
+ * <p>Engines normally finish an exchange as soon as {@code handle} returns, sending a 500 if
+ * nothing was answered. A handler that waits on a future instead calls {@link #detach} before
+ * returning, which leaves the exchange, and on the NIO engine its connection, open without any
+ * thread waiting on it. Whoever writes the response later calls {@link #complete} exactly once.
+ * Handlers find it with an {@code instanceof} check on the exchange. Exchanges without it, as on
+ * the JDK engine, are complete once closed, whichever thread closes them.
+ */
+public interface AsyncExchange {
+
+  /** Keeps the exchange open past the return of {@code handle}. Call it from inside it. */
+  void detach();
+
+  /**
+   * Finishes a detached exchange, from any thread, once its response has been written.
+   *
+   * @param failure What cut the response short, or null. A response already under way is then
+   *     abandoned with its connection, so the client cannot take a partial body for a whole one.
+   */
+  void complete(Throwable failure);
+
+  /** Cuts the connection at once, failing any read or write under way on it. */
+  void abort();
+}
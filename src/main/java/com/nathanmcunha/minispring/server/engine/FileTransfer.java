@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Implemented by response body streams that can send a file region straight to the socket.
+ *
+ * <p>On the NIO engine this is {@link FileChannel#transferTo}, which the kernel turns into {@code
+ * sendfile}, or a plain socket write from a {@link MappedByteBuffer}: either way the bytes go from
+ * the page cache to the socket without ever entering the heap. Writers find it with an {@code
+ * instanceof} check on {@code HttpExchange.getResponseBody()} and copy through a buffer when it is
+ * missing, as on the JDK engine or behind a filtering stream.
+ */
+public interface FileTransfer {
+
+  /**
+   * Sends exactly {@code count} bytes of {@code file} starting at {@code position}, as part of the
+   * body, after anything already written to the stream.
+   */
+  void transferFrom(FileChannel file, long position, long count) throws IOException;
+
+  /**
+   * Sends the remaining bytes of {@code buffer}, typically a mapped file or another direct buffer,
+   * from where they are. The buffer's position is left unchanged.
+   */
+  void transferFrom(ByteBuffer buffer) throws IOException;
+}
@@ -0,0 +1,45 @@
+package com.nathanmcunha.minispring.server.engine;
+
+/**
+ * Settings for cleartext HTTP/2 (h2c), which clients reach either by prior knowledge or by
+ * upgrading an HTTP/1.1 request. Only the nio engine speaks HTTP/2.
+ *
+ * @param enabled Whether to accept HTTP/2 at all.
+ * @param maxConcurrentStreams Requests one connection may have in flight at once; further ones
+ *     are refused and the client retries them.
+ * @param initialWindowSize How many request body bytes a client may send on one stream before
+ *     the handler reads them. Together with {@code maxConcurrentStreams} it bounds what a single
+ *     connection can make the server buffer.
+ */
+public record Http2Config(boolean enabled, int maxConcurrentStreams, int initialWindowSize) {
+
+  public Http2Config {
+    if (maxConcurrentStreams < 1) {
+      throw new IllegalArgumentException("maxConcurrentStreams must be positive");
+    }
+    if (initialWindowSize < 1) {
+      throw new IllegalArgumentException("initialWindowSize must be positive");
+    }
+  }
+
+  /** 100 streams per connection, as RFC 9113 recommends at least, with 256 KiB windows. */
+  public static Http2Config defaults() {
+    return new Http2Config(true, 100, 256 * 1024);
+  }
+
+  public static Http2Config disabled() {
+    return defaults().withEnabled(false);
+  }
+
+  public Http2Config withEnabled(boolean enabled) {
+    return new Http2Config(enabled, maxConcurrentStreams, initialWindowSize);
+  }
+
+  public Http2Config withMaxConcurrentStreams(int maxConcurrentStreams) {
+    return new Http2Config(enabled, maxConcurrentStreams, initialWindowSize);
+  }
+
+  public Http2Config withInitialWindowSize(int initialWindowSize) {
+    return new Http2Config(enabled, maxConcurrentStreams, initialWindowSize);
+  }
+}
@@ -0,0 +1,60 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Settings shared by every {@link ServerEngine}. Engines ignore the ones that do not apply to
+ * them; the JDK engine, for instance, has no notion of selector threads.
+ *
+ * @param address The address to listen on.
+ * @param acceptors Threads accepting new connections.
+ * @param selectors Selector threads that connections are spread across.
+ * @param maxHeaderBytes The largest request line plus headers accepted; bigger heads get 431.
+ * @param idleTimeout How long a keep-alive connection may sit idle, and how long a request may
+ *     wait on a stalled client, before the connection is closed.
+ * @param executor Runs the handlers.
+ * @param http2 Cleartext HTTP/2, off by default.
+ */
+public record ServerConfig(
+    InetSocketAddress address,
+    int acceptors,
+    int selectors,
+    int maxHeaderBytes,
+    Duration idleTimeout,
+    Executor executor,
+    Http2Config http2) {
+
+  public static ServerConfig defaults(int port) {
+    return new ServerConfig(
+        new InetSocketAddress(port),
+        1,
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+        16 * 1024,
+        Duration.ofSeconds(30),
+        Executors.newVirtualThreadPerTaskExecutor(),
+        Http2Config.disabled());
+  }
+
+  public ServerConfig withSelectors(int selectors) {
+    return new ServerConfig(
+        address, acceptors, selectors, maxHeaderBytes, idleTimeout, executor, http2);
+  }
+
+  public ServerConfig withIdleTimeout(Duration idleTimeout) {
+    return new ServerConfig(
+        address, acceptors, selectors, maxHeaderBytes, idleTimeout, executor, http2);
+  }
+
+  public ServerConfig withExecutor(Executor executor) {
+    return new ServerConfig(
+        address, acceptors, selectors, maxHeaderBytes, idleTimeout, executor, http2);
+  }
+
+  public ServerConfig withHttp2(Http2Config http2) {
+    return new ServerConfig(
+        address, acceptors, selectors, maxHeaderBytes, idleTimeout, executor, http2);
+  }
+}
@@ -0,0 +1,45 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * The network layer that accepts connections and hands each request to a mounted {@link
+ * HttpHandler}.
+ *
+ * <p>Handlers see every engine through the same {@link HttpExchange} contract, so the {@code
+ * DispatcherServlet} and anything else mounted on the server never know which engine is running.
+ * Handlers may be mounted before or after {@link #start()}; until a path has a handler, requests
+ * to it are answered with 404.
+ */
+public interface ServerEngine extends AutoCloseable {
+
+  /** A short name for logs, such as {@code nio}. */
+  String name();
+
+  /** Binds the listening socket and starts serving. */
+  void start() throws IOException;
+
+  /** The address the engine is listening on, with the actual port when port 0 was requested. */
+  InetSocketAddress address();
+
+  /**
+   * Routes every request whose path starts with {@code contextPath} to {@code handler}. When
+   * several context paths match, the longest one wins.
+   */
+  void mount(String contextPath, HttpHandler handler);
+
+  /**
+   * Stops accepting connections, lets in-flight requests finish for up to {@code grace}, then
+   * closes everything.
+   */
+  void stop(Duration grace);
+
+  @Override
+  default void close() {
+    stop(Duration.ZERO);
+  }
+}
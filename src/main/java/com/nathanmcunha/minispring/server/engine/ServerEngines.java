@@ -0,0 +1,34 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import com.nathanmcunha.minispring.server.engine.jdk.JdkServerEngine;
+import com.nathanmcunha.minispring.server.engine.nio.NioServerEngine;
+
+/** Picks a {@link ServerEngine} by name. */
+public final class ServerEngines {
+
+  /** System property naming the engine to run: {@code nio} (the default) or {@code jdk}. */
+  public static final String ENGINE_PROPERTY = "minispring.server.engine";
+
+  /** System property that, when {@code true}, turns on cleartext HTTP/2 on the nio engine. */
+  public static final String H2C_PROPERTY = "minispring.server.h2c";
+
+  private ServerEngines() {}
+
+  public static ServerEngine create(String name, ServerConfig config) {
+    return switch (name) {
+      case "nio" -> new NioServerEngine(config);
+      case "jdk" -> new JdkServerEngine(config);
+      default ->
+          throw new IllegalArgumentException(
+              "Unknown server engine '" + name + "', expected 'nio' or 'jdk'");
+    };
+  }
+
+  /** Creates the engine named by {@value #ENGINE_PROPERTY}, with {@value #H2C_PROPERTY} applied. */
+  public static ServerEngine fromSystemProperties(ServerConfig config) {
+    if (Boolean.getBoolean(H2C_PROPERTY)) {
+      config = config.withHttp2(config.http2().withEnabled(true));
+    }
+    return create(System.getProperty(ENGINE_PROPERTY, "nio"), config);
+  }
+}
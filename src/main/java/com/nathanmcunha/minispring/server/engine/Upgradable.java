@@ -0,0 +1,18 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import java.io.IOException;
+
+/**
+ * Implemented by exchanges that can switch their connection to another protocol, such as
+ * WebSocket. Handlers find it with an {@code instanceof} check on the exchange; the JDK engine has
+ * no way to give up its connections and does not implement it.
+ */
+public interface Upgradable {
+
+  /**
+   * Answers {@code 101 Switching Protocols} with the response headers set so far, and hands the
+   * connection over. The exchange must be {@linkplain AsyncExchange#detach detached}: the
+   * connection closes once it is completed.
+   */
+  UpgradedConnection upgrade() throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The raw bytes of a connection after an {@link Upgradable#upgrade}. One thread may read while
+ * another writes.
+ */
+public interface UpgradedConnection {
+
+  /**
+   * Waits until at least {@code atLeast} received bytes are unconsumed, for as long as it takes.
+   * Nothing is held while the connection is quiet with everything consumed.
+   *
+   * @param atLeast At most a few dozen bytes, such as a frame header.
+   * @return The engine's buffer, positioned at the first unconsumed byte. Consume by advancing
+   *     its position, and do not keep it past the next call.
+   * @throws java.io.EOFException If the client closes the connection first.
+   */
+  ByteBuffer await(int atLeast) throws IOException;
+
+  /** Writes all of {@code source}, waiting for the socket to drain when it is full. */
+  void write(ByteBuffer source) throws IOException;
+
+  /** Closes the connection, failing any read or write under way. */
+  void close();
+}
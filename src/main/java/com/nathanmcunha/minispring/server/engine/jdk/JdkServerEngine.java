@@ -0,0 +1,58 @@
+package com.nathanmcunha.minispring.server.engine.jdk;
+
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** The JDK's built-in {@link HttpServer}, kept as a fallback engine. */
+public final class JdkServerEngine implements ServerEngine {
+
+  private final ServerConfig config;
+  private final Map<String, HttpHandler> pending = new LinkedHashMap<>();
+  private HttpServer server;
+
+  public JdkServerEngine(ServerConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public String name() {
+    return "jdk";
+  }
+
+  @Override
+  public synchronized void start() throws IOException {
+    server = HttpServer.create(config.address(), 0);
+    server.setExecutor(config.executor());
+    pending.forEach(server::createContext);
+    pending.clear();
+    server.start();
+  }
+
+  @Override
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  @Override
+  public synchronized void mount(String contextPath, HttpHandler handler) {
+    if (server == null) {
+      pending.put(contextPath, handler);
+    } else {
+      server.createContext(contextPath, handler);
+    }
+  }
+
+  @Override
+  public synchronized void stop(Duration grace) {
+    if (server != null) {
+      server.stop((int) Math.ceil(grace.toMillis() / 1000.0));
+    }
+  }
+}
@@ -0,0 +1,433 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One client connection, owned either by its selector loop or by a handler thread.
+ *
+ * <p>While {@link State#IDLE} the selector reads into the connection's buffer until a complete
+ * request head is there. The connection then turns {@link State#PROCESSING}, stops listening for
+ * readiness and hands itself to a handler thread, which serves that request and any pipelined ones
+ * behind it strictly in order before giving the connection back. The handler thread reads and
+ * writes the non-blocking channel directly; when the socket is not ready it registers interest
+ * and parks until the selector reports readiness, so no thread is pinned while waiting. A handler
+ * that answers asynchronously detaches its exchange instead, leaving the connection processing
+ * with no thread at all until the response completes and {@link #resume} picks it up again. A
+ * connection that turns out to speak HTTP/2 stays with its handler thread for good, which then
+ * reads frames for an {@link Http2Session}.
+ *
+ * <p>Buffers are only held while in use: an idle keep-alive connection with nothing buffered
+ * costs its socket, its key and this object.
+ */
+final class Connection {
+
+  enum State {
+    IDLE,
+    PROCESSING
+  }
+
+  private final NioServerEngine engine;
+  private final SelectorLoop loop;
+  private final SocketChannel channel;
+  private final InetSocketAddress remoteAddress;
+  private final InetSocketAddress localAddress;
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private SelectionKey key;
+
+  // Unread request bytes sit between position and limit.
+  private ByteBuffer input;
+
+  private volatile State state = State.IDLE;
+  private volatile long lastActive = System.nanoTime();
+  // A reader and a writer may wait at the same time, on an upgraded connection.
+  private volatile Thread reader;
+  private volatile Thread writer;
+  private volatile boolean readable;
+  private volatile boolean writable;
+
+  Connection(NioServerEngine engine, SelectorLoop loop, SocketChannel channel) throws IOException {
+    this.engine = engine;
+    this.loop = loop;
+    this.channel = channel;
+    this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+    this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+  }
+
+  void register(SelectionKey key) {
+    this.key = key;
+  }
+
+  InetSocketAddress remoteAddress() {
+    return remoteAddress;
+  }
+
+  InetSocketAddress localAddress() {
+    return localAddress;
+  }
+
+  NioServerEngine engine() {
+    return engine;
+  }
+
+  boolean isIdleSince(long deadline) {
+    return state == State.IDLE && lastActive - deadline < 0;
+  }
+
+  // ---- Selector thread ----
+
+  /** Called by the selector loop when the channel is ready. */
+  void onSelected() {
+    if (state == State.PROCESSING) {
+      int ready = key.readyOps();
+      key.interestOpsAnd(~ready);
+      if ((ready & SelectionKey.OP_READ) != 0) {
+        readable = true;
+        LockSupport.unpark(reader);
+      }
+      if ((ready & SelectionKey.OP_WRITE) != 0) {
+        writable = true;
+        LockSupport.unpark(writer);
+      }
+      return;
+    }
+    try {
+      if (input == null) {
+        input = engine.acquireBuffer().limit(0);
+      }
+      if (fill() < 0) {
+        close();
+        return;
+      }
+      lastActive = System.nanoTime();
+      RequestHead head = HeadParser.parse(input, engine.config().maxHeaderBytes());
+      if (head != null) {
+        dispatch(head);
+      } else if (!input.hasRemaining()) {
+        releaseInput();
+      }
+    } catch (MalformedRequestException e) {
+      reject(e);
+    } catch (IOException e) {
+      close();
+    }
+  }
+
+  private void dispatch(RequestHead head) {
+    state = State.PROCESSING;
+    key.interestOps(0);
+    engine.requestStarted();
+    try {
+      engine.config().executor().execute(() -> process(head));
+    } catch (RejectedExecutionException e) {
+      engine.requestFinished();
+      close();
+    }
+  }
+
+  /** Answers a request that never reached a handler, then closes the connection. */
+  private void reject(MalformedRequestException e) {
+    byte[] message = e.getMessage().getBytes(StandardCharsets.UTF_8);
+    String head =
+        "HTTP/1.1 "
+            + e.status()
+            + " "
+            + StatusLines.reason(e.status())
+            + "\r\nContent-Type: text/plain; charset=utf-8\r\nContent-Length: "
+            + message.length
+            + "\r\nConnection: close\r\n\r\n";
+    try {
+      ByteBuffer response =
+          ByteBuffer.allocate(head.length() + message.length)
+              .put(head.getBytes(StandardCharsets.ISO_8859_1))
+              .put(message)
+              .flip();
+      if (state == State.PROCESSING) {
+        write(response);
+      } else {
+        // Best effort from the selector thread: a rejection is tiny and the socket is fresh.
+        channel.write(response);
+      }
+    } catch (IOException ignored) {
+      // The connection is being dropped anyway.
+    }
+    closeOwned();
+  }
+
+  // ---- Handler thread ----
+
+  private void process(RequestHead first) {
+    serve(first, null);
+  }
+
+  /**
+   * Takes the connection back from an exchange that was detached, once its response is complete,
+   * and carries on with the requests behind it on an executor thread, as {@link #dispatch} does.
+   */
+  void resume(NioExchange exchange) {
+    try {
+      engine.config().executor().execute(() -> serve(null, exchange));
+    } catch (RejectedExecutionException e) {
+      engine.requestFinished();
+      close();
+    }
+  }
+
+  /**
+   * Serves {@code head} and the requests pipelined behind it, then gives the connection back to
+   * the selector. Stops early, keeping the connection as it is, when a handler detaches its
+   * exchange.
+   *
+   * @param resumed A detached exchange to finish first, in which case {@code head} is null.
+   */
+  private void serve(RequestHead head, NioExchange resumed) {
+    boolean detached = false;
+    try {
+      if (resumed != null) {
+        if (!resumed.finish()) {
+          closeOwned();
+          return;
+        }
+        head = next();
+      }
+      while (head != null) {
+        if (Http2Session.accepts(head, engine.config().http2())) {
+          // From here on each stream counts as a request, not the connection.
+          detached = true;
+          engine.requestFinished();
+          Http2Session.serve(this, head);
+          closeOwned();
+          return;
+        }
+        var exchange = new NioExchange(this, head);
+        boolean keepAlive = exchange.serve();
+        if (exchange.isDetached()) {
+          // The exchange resumes the connection once complete; until then nothing reads from it.
+          detached = true;
+          return;
+        }
+        if (!keepAlive) {
+          closeOwned();
+          return;
+        }
+        head = next();
+      }
+      if (input != null && !input.hasRemaining()) {
+        releaseInput();
+      }
+      lastActive = System.nanoTime();
+      state = State.IDLE;
+      key.interestOps(SelectionKey.OP_READ);
+      loop.wakeup();
+    } catch (MalformedRequestException e) {
+      reject(e);
+    } catch (IOException | RuntimeException e) {
+      closeOwned();
+    } finally {
+      if (!detached) {
+        engine.requestFinished();
+      }
+    }
+  }
+
+  /** The next pipelined request head already buffered, if any. */
+  private RequestHead next() throws IOException {
+    return input != null && input.hasRemaining()
+        ? HeadParser.parse(input, engine.config().maxHeaderBytes())
+        : null;
+  }
+
+  /** Bytes of the current request already buffered. */
+  ByteBuffer input() {
+    if (input == null) {
+      input = engine.acquireBuffer().limit(0);
+    }
+    return input;
+  }
+
+  /**
+   * Reads more request bytes into the input buffer, waiting for the client if none are available.
+   *
+   * @return The number of bytes read, or -1 at end of stream.
+   */
+  int readMore() throws IOException {
+    input();
+    while (true) {
+      int read = fill();
+      if (read != 0) {
+        lastActive = System.nanoTime();
+        return read;
+      }
+      await(SelectionKey.OP_READ);
+    }
+  }
+
+  /** Writes the whole buffer, waiting for the socket to drain when it is full. */
+  void write(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.write(buffer) == 0) {
+        await(SelectionKey.OP_WRITE);
+      }
+    }
+    lastActive = System.nanoTime();
+  }
+
+  /** Writes all the buffers in one gathering write, as far as the socket takes them. */
+  void write(ByteBuffer[] buffers) throws IOException {
+    int first = 0;
+    while (first < buffers.length) {
+      if (!buffers[first].hasRemaining()) {
+        first++;
+      } else if (channel.write(buffers, first, buffers.length - first) == 0) {
+        await(SelectionKey.OP_WRITE);
+      }
+    }
+    lastActive = System.nanoTime();
+  }
+
+  /** Sends a file region with {@link FileChannel#transferTo}, which becomes {@code sendfile}. */
+  void transfer(FileChannel file, long position, long count) throws IOException {
+    while (count > 0) {
+      long sent = file.transferTo(position, count, channel);
+      if (sent == 0) {
+        if (position >= file.size()) {
+          throw new EOFException("File ended " + count + " bytes early");
+        }
+        await(SelectionKey.OP_WRITE);
+      }
+      position += sent;
+      count -= sent;
+    }
+    lastActive = System.nanoTime();
+  }
+
+  /**
+   * Reads until at least {@code atLeast} unconsumed bytes are buffered, for upgraded connections.
+   * Between messages such a connection may stay quiet indefinitely, so this waits without a
+   * timeout and, once everything buffered has been consumed, without holding a buffer.
+   *
+   * @return The input buffer, to consume from and not to keep.
+   */
+  ByteBuffer awaitInput(int atLeast) throws IOException {
+    return awaitInput(atLeast, 0);
+  }
+
+  /**
+   * Like {@link #awaitInput(int)}, but gives up after {@code timeout} nanoseconds without input,
+   * unless 0.
+   *
+   * @throws SocketTimeoutException If the client stayed quiet that long.
+   */
+  ByteBuffer awaitInput(int atLeast, long timeout) throws IOException {
+    while (input == null || input.remaining() < atLeast) {
+      if (input != null && !input.hasRemaining()) {
+        releaseInput();
+      }
+      if (input == null) {
+        await(SelectionKey.OP_READ, timeout);
+      }
+      input();
+      int read = fill();
+      if (read < 0) {
+        throw new EOFException("The client closed the connection");
+      }
+      if (read > 0) {
+        lastActive = System.nanoTime();
+      } else if (input.hasRemaining()) {
+        await(SelectionKey.OP_READ, timeout);
+      }
+    }
+    return input;
+  }
+
+  private void await(int interest) throws IOException {
+    await(interest, engine.config().idleTimeout().toNanos());
+  }
+
+  /** Parks until the selector reports {@code interest}, for at most {@code timeout} unless 0. */
+  private void await(int interest, long timeout) throws IOException {
+    boolean read = interest == SelectionKey.OP_READ;
+    if (read) {
+      readable = false;
+      reader = Thread.currentThread();
+    } else {
+      writable = false;
+      writer = Thread.currentThread();
+    }
+    key.interestOpsOr(interest);
+    loop.wakeup();
+    long deadline = System.nanoTime() + timeout;
+    while (!(read ? readable : writable)) {
+      if (closed.get()) {
+        throw new ClosedChannelException();
+      }
+      if (timeout == 0) {
+        LockSupport.park(this);
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new SocketTimeoutException("Timed out waiting for the client");
+      }
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+
+  // ---- Either thread ----
+
+  private int fill() throws IOException {
+    input.compact();
+    try {
+      return channel.read(input);
+    } finally {
+      input.flip();
+    }
+  }
+
+  private void releaseInput() {
+    engine.releaseBuffer(input);
+    input = null;
+  }
+
+  /** Closes from the thread that currently owns the buffers, returning them to the pool. */
+  private void closeOwned() {
+    if (input != null) {
+      releaseInput();
+    }
+    close();
+  }
+
+  /**
+   * Closes the socket. The buffer of an idle connection belongs to the selector and goes back to
+   * the pool; one a handler thread may still be using is left to the GC.
+   */
+  void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    if (key != null) {
+      key.cancel();
+    }
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // Nothing left to do with a socket that fails to close.
+    }
+    LockSupport.unpark(reader);
+    LockSupport.unpark(writer);
+    if (state == State.IDLE && input != null) {
+      releaseInput();
+    }
+  }
+}
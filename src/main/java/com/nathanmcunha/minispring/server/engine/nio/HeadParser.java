@@ -0,0 +1,262 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.sun.net.httpserver.Headers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Parses HTTP/1.x request heads out of a connection's read buffer.
+ *
+ * <p>The parser only consumes input once a complete head (up to the empty line) is buffered, so it
+ * can simply be retried after every read. Pipelined requests are parsed one after the other from
+ * the same buffer.
+ *
+ * <p>Only the request line and the fields that frame the request are decoded here. The other
+ * header fields are validated and left in the head's bytes, as {@link RequestHeaders}, until a
+ * handler looks one up.
+ */
+final class HeadParser {
+
+  private static final String HTTP2_PREFACE = "PRI * HTTP/2.0";
+
+  private HeadParser() {}
+
+  /**
+   * Parses the head at the buffer's position.
+   *
+   * @return The head, with the buffer positioned at the first body byte, or null if the head is
+   *     not complete yet (the buffer is left untouched apart from skipped blank lines).
+   * @throws MalformedRequestException If the head is invalid or larger than {@code maxBytes}.
+   */
+  static RequestHead parse(ByteBuffer buffer, int maxBytes) throws MalformedRequestException {
+    skipBlankLines(buffer);
+    int start = buffer.position();
+    int end = findEnd(buffer, start);
+    if (end < 0) {
+      if (buffer.limit() - start >= maxBytes) {
+        throw new MalformedRequestException(431, "Request header fields too large");
+      }
+      return null;
+    }
+    if (end - start > maxBytes) {
+      throw new MalformedRequestException(431, "Request header fields too large");
+    }
+    byte[] head = new byte[end - start];
+    buffer.get(start, head);
+    buffer.position(end);
+    return parse(head);
+  }
+
+  // RFC 9112 section 2.2: ignore empty lines received before the request line.
+  private static void skipBlankLines(ByteBuffer buffer) {
+    int position = buffer.position();
+    while (position < buffer.limit()) {
+      byte b = buffer.get(position);
+      if (b != '\r' && b != '\n') {
+        break;
+      }
+      position++;
+    }
+    buffer.position(position);
+  }
+
+  /** The index just past the empty line ending the head, or -1. Bare LF line ends are accepted. */
+  private static int findEnd(ByteBuffer buffer, int start) {
+    int lineLength = 0;
+    for (int i = start, limit = buffer.limit(); i < limit; i++) {
+      byte b = buffer.get(i);
+      if (b == '\n') {
+        if (lineLength == 0) {
+          return i + 1;
+        }
+        lineLength = 0;
+      } else if (b != '\r') {
+        lineLength++;
+      }
+    }
+    return -1;
+  }
+
+  private static RequestHead parse(byte[] head) throws MalformedRequestException {
+    int lineEnd = lineEnd(head, 0);
+    String requestLine = line(head, 0, lineEnd);
+    int firstSpace = requestLine.indexOf(' ');
+    int lastSpace = requestLine.lastIndexOf(' ');
+    if (firstSpace <= 0 || lastSpace == firstSpace) {
+      throw new MalformedRequestException(400, "Malformed request line");
+    }
+    String method = requestLine.substring(0, firstSpace);
+    String target = requestLine.substring(firstSpace + 1, lastSpace);
+    String version = requestLine.substring(lastSpace + 1);
+    if (!isToken(method) || target.isEmpty() || target.indexOf(' ') >= 0) {
+      throw new MalformedRequestException(400, "Malformed request line");
+    }
+    if (requestLine.equals(HTTP2_PREFACE)) {
+      // The start of the HTTP/2 connection preface, which is shaped like a head on purpose.
+      return new RequestHead(method, target, "HTTP/2.0", new Headers(), -1, false, true, false);
+    }
+    if (!version.equals("HTTP/1.1") && !version.equals("HTTP/1.0")) {
+      throw new MalformedRequestException(505, "HTTP version not supported");
+    }
+
+    int[] fields = new int[4 * 16];
+    int count = 0;
+    long contentLength = -1;
+    boolean chunked = false;
+    String connection = null;
+    boolean expectContinue = false;
+
+    int position = next(head, lineEnd);
+    while (position < head.length) {
+      lineEnd = lineEnd(head, position);
+      if (lineEnd == position) {
+        break;
+      }
+      if (head[position] == ' ' || head[position] == '\t') {
+        throw new MalformedRequestException(400, "Obsolete header line folding");
+      }
+      int colon = position;
+      while (colon < lineEnd && head[colon] != ':') {
+        colon++;
+      }
+      if (colon == lineEnd || !isToken(head, position, colon)) {
+        throw new MalformedRequestException(400, "Malformed header line");
+      }
+      int valueStart = colon + 1;
+      int valueEnd = lineEnd;
+      while (valueStart < valueEnd && isSpace(head[valueStart])) {
+        valueStart++;
+      }
+      while (valueEnd > valueStart && isSpace(head[valueEnd - 1])) {
+        valueEnd--;
+      }
+      for (int i = valueStart; i < valueEnd; i++) {
+        if (head[i] == '\r') {
+          throw new MalformedRequestException(400, "Malformed header line");
+        }
+      }
+      if (count * 4 == fields.length) {
+        fields = Arrays.copyOf(fields, fields.length * 2);
+      }
+      fields[4 * count] = position;
+      fields[4 * count + 1] = colon;
+      fields[4 * count + 2] = valueStart;
+      fields[4 * count + 3] = valueEnd;
+      count++;
+
+      // Only the fields that frame the request are read now; the rest wait for a handler.
+      if (nameIs(head, position, colon, "content-length")) {
+        long length = parseLength(line(head, valueStart, valueEnd));
+        if (contentLength >= 0 && contentLength != length) {
+          throw new MalformedRequestException(400, "Conflicting Content-Length headers");
+        }
+        contentLength = length;
+      } else if (nameIs(head, position, colon, "transfer-encoding")) {
+        String value = line(head, valueStart, valueEnd);
+        if (!value.toLowerCase(Locale.ROOT).endsWith("chunked")) {
+          throw new MalformedRequestException(501, "Unsupported transfer coding " + value);
+        }
+        chunked = true;
+      } else if (nameIs(head, position, colon, "connection")) {
+        connection = line(head, valueStart, valueEnd).toLowerCase(Locale.ROOT);
+      } else if (nameIs(head, position, colon, "expect")) {
+        expectContinue = line(head, valueStart, valueEnd).equalsIgnoreCase("100-continue");
+      }
+      position = next(head, lineEnd);
+    }
+    Headers headers = new RequestHeaders(head, fields, count);
+
+    boolean http10 = version.equals("HTTP/1.0");
+    boolean keepAlive =
+        http10
+            ? connection != null && connection.contains("keep-alive")
+            : connection == null || !connection.contains("close");
+    if (chunked) {
+      // A chunked body overrides Content-Length (RFC 9112 section 6.3).
+      contentLength = -1;
+    }
+    return new RequestHead(
+        method, target, version, headers, contentLength, chunked, keepAlive, expectContinue);
+  }
+
+  private static long parseLength(String value) throws MalformedRequestException {
+    if (value.isEmpty() || value.length() > 18) {
+      throw new MalformedRequestException(400, "Invalid Content-Length");
+    }
+    long length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        throw new MalformedRequestException(400, "Invalid Content-Length");
+      }
+      length = length * 10 + (c - '0');
+    }
+    return length;
+  }
+
+  private static boolean isToken(String value) {
+    if (value.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (!isTokenChar(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isToken(byte[] head, int from, int to) {
+    if (from == to) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      if (!isTokenChar((char) (head[i] & 0xFF))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isTokenChar(char c) {
+    return c > ' ' && c < 127 && "\"(),/:;<=>?@[\\]{}".indexOf(c) < 0;
+  }
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  /** Whether the token in {@code [from, to)} is {@code name}, given in lower case, in any case. */
+  private static boolean nameIs(byte[] head, int from, int to, String name) {
+    if (to - from != name.length()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      // Token characters: setting 0x20 lower-cases letters and leaves '-' and digits alone.
+      if ((head[from + i] | 0x20) != name.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** The index of the line's CR (or LF), starting the search at {@code from}. */
+  private static int lineEnd(byte[] head, int from) {
+    for (int i = from; i < head.length; i++) {
+      if (head[i] == '\n') {
+        return i > from && head[i - 1] == '\r' ? i - 1 : i;
+      }
+    }
+    return head.length;
+  }
+
+  private static int next(byte[] head, int lineEnd) {
+    return lineEnd < head.length && head[lineEnd] == '\r' ? lineEnd + 2 : lineEnd + 1;
+  }
+
+  private static String line(byte[] head, int from, int to) {
+    return new String(head, from, to - from, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,23 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.IOException;
+
+/**
+ * A connection error of RFC 9113, section 5.4.1: the connection ends with a GOAWAY of {@link
+ * #code}.
+ */
+final class Http2Exception extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int code;
+
+  Http2Exception(int code, String message) {
+    super(message);
+    this.code = code;
+  }
+
+  int code() {
+    return code;
+  }
+}
@@ -0,0 +1,280 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.AsyncExchange;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One HTTP/2 stream, presented to handlers as an {@link HttpExchange} with the same semantics as
+ * {@link NioExchange}: a response length of 0 means streamed and -1 means no body.
+ *
+ * <p>It is not {@link com.nathanmcunha.minispring.server.engine.Upgradable}: HTTP/2 has no way to
+ * hand a stream over to another protocol, so WebSocket routes answer 501 over it.
+ */
+final class Http2Exchange extends HttpExchange implements AsyncExchange {
+
+  private static final System.Logger LOG = System.getLogger(NioServerEngine.class.getName());
+  private static final Set<String> CONNECTION_SPECIFIC =
+      Set.of(
+          "connection",
+          "keep-alive",
+          "proxy-connection",
+          "transfer-encoding",
+          "upgrade",
+          "content-length");
+
+  private final Http2Session session;
+  private final Http2Stream stream;
+  private final String method;
+  private final String target;
+  private final Headers requestHeaders;
+  private final Headers responseHeaders = new Headers();
+  private final Http2ResponseBody responseBody;
+  private InputStream in;
+  private OutputStream out;
+  private URI uri;
+  private MountedContext context;
+  private Map<String, Object> attributes;
+  private int responseCode = -1;
+  private volatile boolean detached;
+
+  Http2Exchange(
+      Http2Session session, Http2Stream stream, String method, String target, Headers headers) {
+    this.session = session;
+    this.stream = stream;
+    this.method = method;
+    this.target = target;
+    this.requestHeaders = headers;
+    this.responseBody = new Http2ResponseBody(session, stream);
+    this.in = stream.body;
+    this.out = responseBody;
+  }
+
+  /**
+   * Runs the mounted handler and completes the stream whatever it did, unless the handler detached
+   * the exchange to complete it later.
+   */
+  void serve() {
+    try {
+      handle();
+    } catch (IOException | RuntimeException e) {
+      responseBody.abandon();
+      session.reset(stream, Http2Session.INTERNAL_ERROR);
+    }
+    if (!detached) {
+      finish();
+    }
+  }
+
+  private void handle() throws IOException {
+    try {
+      uri = new URI(target);
+    } catch (URISyntaxException e) {
+      sendResponseHeaders(400, -1);
+      return;
+    }
+    context = session.engine().contextFor(uri.getPath());
+    if (context == null) {
+      sendResponseHeaders(404, -1);
+      return;
+    }
+    try {
+      context.getHandler().handle(this);
+    } catch (Exception | LinkageError e) {
+      LOG.log(System.Logger.Level.WARNING, "Handler failed for " + target, e);
+      if (detached) {
+        // Whoever completes the exchange owns the response now.
+        return;
+      }
+      if (responseCode == -1) {
+        responseHeaders.clear();
+        sendResponseHeaders(500, -1);
+      } else {
+        responseBody.abandon();
+        session.reset(stream, Http2Session.INTERNAL_ERROR);
+      }
+    }
+  }
+
+  /** Ends the response, answering 500 if nothing was sent, and releases the stream. */
+  private void finish() {
+    try {
+      if (responseCode == -1) {
+        sendResponseHeaders(500, -1);
+      }
+      responseBody.close();
+    } catch (IOException e) {
+      responseBody.abandon();
+      session.reset(stream, Http2Session.INTERNAL_ERROR);
+    } finally {
+      session.close(stream);
+    }
+  }
+
+  @Override
+  public void detach() {
+    detached = true;
+  }
+
+  @Override
+  public void complete(Throwable failure) {
+    if (failure != null && responseCode != -1) {
+      responseBody.abandon();
+      session.reset(stream, Http2Session.INTERNAL_ERROR);
+    }
+    finish();
+  }
+
+  /** Resets this stream only; the connection carries on with the others. */
+  @Override
+  public void abort() {
+    session.reset(stream, Http2Session.CANCEL);
+  }
+
+  @Override
+  public void sendResponseHeaders(int code, long responseLength) throws IOException {
+    if (responseCode != -1) {
+      throw new IOException("Response headers have already been sent");
+    }
+    responseCode = code;
+    boolean head = method.equals("HEAD");
+    boolean bodiless = code < 200 || code == 204 || code == 304;
+
+    List<String> fields = new ArrayList<>(2 * responseHeaders.size() + 6);
+    fields.add(":status");
+    fields.add(Integer.toString(code));
+    fields.add("date");
+    fields.add(StatusLines.date());
+    for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+      String name = header.getKey().toLowerCase(Locale.ROOT);
+      if (CONNECTION_SPECIFIC.contains(name)) {
+        continue;
+      }
+      for (String value : header.getValue()) {
+        fields.add(name);
+        fields.add(value);
+      }
+    }
+    // The end of the stream delimits the body; a length is only a hint, except for HEAD.
+    String declared = responseHeaders.getFirst("Content-Length");
+    if (responseLength > 0 && !bodiless) {
+      fields.add("content-length");
+      fields.add(Long.toString(responseLength));
+    } else if ((head || code == 304) && declared != null) {
+      fields.add("content-length");
+      fields.add(declared);
+    }
+
+    boolean noBody = bodiless || responseLength < 0 || head;
+    responseBody.begin(
+        fields.toArray(String[]::new), noBody, responseLength > 0 ? responseLength : -1, head);
+  }
+
+  @Override
+  public Headers getRequestHeaders() {
+    return requestHeaders;
+  }
+
+  @Override
+  public Headers getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  @Override
+  public URI getRequestURI() {
+    return uri;
+  }
+
+  @Override
+  public String getRequestMethod() {
+    return method;
+  }
+
+  @Override
+  public HttpContext getHttpContext() {
+    return context;
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (responseCode != -1) {
+        out.close();
+      }
+    } catch (IOException e) {
+      session.reset(stream, Http2Session.INTERNAL_ERROR);
+    }
+  }
+
+  @Override
+  public InputStream getRequestBody() {
+    return in;
+  }
+
+  @Override
+  public OutputStream getResponseBody() {
+    return out;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return session.connection().remoteAddress();
+  }
+
+  @Override
+  public int getResponseCode() {
+    return responseCode;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return session.connection().localAddress();
+  }
+
+  @Override
+  public String getProtocol() {
+    return "HTTP/2.0";
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes == null ? null : attributes.get(name);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (attributes == null) {
+      attributes = new HashMap<>();
+    }
+    attributes.put(name, value);
+  }
+
+  @Override
+  public void setStreams(InputStream i, OutputStream o) {
+    if (i != null) {
+      in = i;
+    }
+    if (o != null) {
+      out = o;
+    }
+  }
+
+  @Override
+  public HttpPrincipal getPrincipal() {
+    return null;
+  }
+}
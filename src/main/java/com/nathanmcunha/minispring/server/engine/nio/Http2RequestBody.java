@@ -0,0 +1,158 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The request body of one HTTP/2 stream: DATA payloads queued by the session's reader, read by
+ * the handler thread.
+ *
+ * <p>The stream's receive window bounds what can queue up. It is only reopened, with a
+ * WINDOW_UPDATE, as the handler reads, in steps of half the window, so a handler that does not
+ * read its body stops the client from sending more of it.
+ */
+final class Http2RequestBody extends InputStream {
+
+  private final Http2Session session;
+  private final Http2Stream stream;
+  private final int initialWindow;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition arrived = lock.newCondition();
+  private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+  // Guarded by lock.
+  private int window;
+  private int consumed;
+  private boolean ended;
+  private IOException failure;
+
+  Http2RequestBody(Http2Session session, Http2Stream stream, int initialWindow) {
+    this.session = session;
+    this.stream = stream;
+    this.initialWindow = initialWindow;
+    this.window = initialWindow;
+  }
+
+  /**
+   * Queues a DATA payload, from the session's reader.
+   *
+   * @param frameLength The whole frame payload, padding included, which is what flow control
+   *     counts; the padding is given back with the next update.
+   * @return False if the client overran the window.
+   */
+  boolean receive(byte[] payload, int offset, int length, int frameLength, boolean end) {
+    lock.lock();
+    try {
+      window -= frameLength;
+      if (window < 0) {
+        return false;
+      }
+      consumed += frameLength - length;
+      if (length > 0) {
+        chunks.add(ByteBuffer.wrap(payload, offset, length));
+      }
+      ended |= end;
+      arrived.signalAll();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Ends the body with {@code cause}, once the stream is reset or the connection lost. */
+  void fail(IOException cause) {
+    lock.lock();
+    try {
+      if (failure == null) {
+        failure = cause;
+      }
+      arrived.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Whether the client has sent the whole body, read or not. */
+  boolean isComplete() {
+    lock.lock();
+    try {
+      return ended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    int count;
+    int update = 0;
+    lock.lock();
+    try {
+      ByteBuffer chunk = await();
+      if (chunk == null) {
+        return -1;
+      }
+      count = Math.min(length, chunk.remaining());
+      chunk.get(bytes, offset, count);
+      if (!chunk.hasRemaining()) {
+        chunks.poll();
+      }
+      consumed += count;
+      if (!ended && consumed >= initialWindow / 2) {
+        update = consumed;
+        window += consumed;
+        consumed = 0;
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (update > 0) {
+      session.windowUpdate(stream, update);
+    }
+    return count;
+  }
+
+  @Override
+  public int available() {
+    lock.lock();
+    try {
+      ByteBuffer chunk = chunks.peek();
+      return chunk == null ? 0 : chunk.remaining();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Waits for the next chunk, or returns null at the end of the body. Called holding the lock. */
+  private ByteBuffer await() throws IOException {
+    long remaining = session.idleTimeoutNanos();
+    while (chunks.isEmpty() && !ended) {
+      if (failure != null) {
+        throw failure;
+      }
+      if (remaining <= 0) {
+        throw new SocketTimeoutException("Timed out waiting for the request body");
+      }
+      try {
+        remaining = arrived.awaitNanos(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted waiting for the request body", e);
+      }
+    }
+    return chunks.peek();
+  }
+}
@@ -0,0 +1,192 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.FileTransfer;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes the response of one HTTP/2 stream as DATA frames, through one pooled direct buffer.
+ *
+ * <p>The HEADERS frame waits for the first flush of the body, so a small response leaves as
+ * HEADERS and DATA in a single write, as {@link ResponseBodyStream} does for HTTP/1.1.
+ * Files cannot skip the framing as they do there, but mapped buffers still go out as they are,
+ * with only frame headers written around them.
+ */
+final class Http2ResponseBody extends OutputStream implements FileTransfer {
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private final Http2Session session;
+  private final Http2Stream stream;
+  private String[] head;
+  private ByteBuffer buffer;
+  private boolean started;
+  private boolean bodiless;
+  private boolean discard;
+  private long remaining = -1;
+  private boolean closed;
+
+  Http2ResponseBody(Http2Session session, Http2Stream stream) {
+    this.session = session;
+    this.stream = stream;
+  }
+
+  /**
+   * Starts the response. One without a body is sent straight away, ending the stream.
+   *
+   * @param fields The header fields, {@code :status} first, as name and value pairs.
+   * @param length The declared body length, or -1 if unknown.
+   * @param discard Whether to drop whatever body is written, as for HEAD requests.
+   */
+  void begin(String[] fields, boolean bodiless, long length, boolean discard) throws IOException {
+    this.started = true;
+    this.bodiless = bodiless;
+    this.discard = discard;
+    this.remaining = length;
+    if (bodiless) {
+      session.send(stream, fields, EMPTY, true);
+    } else {
+      head = fields;
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (!accept(length)) {
+      return;
+    }
+    while (length > 0) {
+      ByteBuffer out = buffer();
+      if (!out.hasRemaining()) {
+        send(false);
+        continue;
+      }
+      int count = Math.min(out.remaining(), length);
+      out.put(bytes, offset, count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  @Override
+  public void transferFrom(FileChannel file, long position, long count) throws IOException {
+    if (!accept(count)) {
+      return;
+    }
+    while (count > 0) {
+      ByteBuffer out = buffer();
+      if (!out.hasRemaining()) {
+        send(false);
+        continue;
+      }
+      int limit = out.limit();
+      out.limit(out.position() + (int) Math.min(out.remaining(), count));
+      int read = file.read(out, position);
+      out.limit(limit);
+      if (read < 0) {
+        throw new EOFException("File ended " + count + " bytes early");
+      }
+      position += read;
+      count -= read;
+    }
+  }
+
+  @Override
+  public void transferFrom(ByteBuffer source) throws IOException {
+    if (!accept(source.remaining())) {
+      return;
+    }
+    flush();
+    session.send(stream, null, source.duplicate(), false);
+  }
+
+  /** Sends the headers, if still pending, and everything buffered so far. */
+  @Override
+  public void flush() throws IOException {
+    if (!closed && !bodiless && (head != null || (buffer != null && buffer.position() > 0))) {
+      send(false);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (bodiless) {
+        return;
+      }
+      if (remaining > 0) {
+        session.reset(stream, Http2Session.INTERNAL_ERROR);
+        throw new IOException("Response body is shorter than its Content-Length");
+      }
+      send(true);
+    } finally {
+      release();
+    }
+  }
+
+  /** Drops the response after a failure mid-body; the stream must be reset afterwards. */
+  void abandon() {
+    closed = true;
+    release();
+  }
+
+  private boolean accept(long length) throws IOException {
+    if (closed) {
+      throw new IOException("Response body is closed");
+    }
+    if (!started) {
+      throw new IOException("Response headers have not been sent");
+    }
+    if (bodiless) {
+      if (discard || length == 0) {
+        return false;
+      }
+      throw new IOException("This response has no body");
+    }
+    if (remaining >= 0) {
+      if (length > remaining) {
+        throw new IOException("Response body is longer than its Content-Length");
+      }
+      remaining -= length;
+    }
+    return !discard;
+  }
+
+  private ByteBuffer buffer() {
+    if (buffer == null) {
+      buffer = session.engine().acquireBuffer();
+    }
+    return buffer;
+  }
+
+  private void send(boolean end) throws IOException {
+    ByteBuffer data = buffer == null ? EMPTY : buffer.flip();
+    try {
+      session.send(stream, head, data, end);
+      head = null;
+    } finally {
+      if (buffer != null) {
+        buffer.clear();
+      }
+    }
+  }
+
+  private void release() {
+    if (buffer != null) {
+      session.engine().releaseBuffer(buffer);
+      buffer = null;
+    }
+  }
+}
@@ -0,0 +1,960 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.Http2Config;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HeaderBlock;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HpackDecoder;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HpackEncoder;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HpackException;
+import com.sun.net.httpserver.Headers;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One cleartext HTTP/2 connection (RFC 9113), reached by prior knowledge or by upgrading an
+ * HTTP/1.1 request.
+ *
+ * <p>The connection's handler thread stays on as the reader: it parses frames, keeps the HPACK
+ * table and queues request bodies. Each stream's request is served through the mounted handler on
+ * an executor thread of its own, as an {@link Http2Exchange}, so a slow handler only holds up its
+ * own stream. Those threads write their frames themselves, one at a time under {@link #writeLock},
+ * which also keeps header blocks on the wire in the order the HPACK encoder produced them.
+ *
+ * <p>Flow control works both ways. Response DATA waits, under {@link #flowLock}, for the client's
+ * connection and stream windows. Request DATA is bounded by the stream windows announced here,
+ * which are only reopened as handlers read, and the number of concurrent streams, so a connection
+ * never makes the server buffer more than their product.
+ */
+final class Http2Session {
+
+  static final int NO_ERROR = 0x0;
+  static final int PROTOCOL_ERROR = 0x1;
+  static final int INTERNAL_ERROR = 0x2;
+  static final int FLOW_CONTROL_ERROR = 0x3;
+  static final int STREAM_CLOSED = 0x5;
+  static final int FRAME_SIZE_ERROR = 0x6;
+  static final int REFUSED_STREAM = 0x7;
+  static final int CANCEL = 0x8;
+  static final int COMPRESSION_ERROR = 0x9;
+
+  private static final int DATA = 0x0;
+  private static final int HEADERS = 0x1;
+  private static final int PRIORITY = 0x2;
+  private static final int RST_STREAM = 0x3;
+  private static final int SETTINGS = 0x4;
+  private static final int PUSH_PROMISE = 0x5;
+  private static final int PING = 0x6;
+  private static final int GOAWAY = 0x7;
+  private static final int WINDOW_UPDATE = 0x8;
+  private static final int CONTINUATION = 0x9;
+
+  private static final int FLAG_END_STREAM = 0x1;
+  private static final int FLAG_ACK = 0x1;
+  private static final int FLAG_END_HEADERS = 0x4;
+  private static final int FLAG_PADDED = 0x8;
+  private static final int FLAG_PRIORITY = 0x20;
+
+  private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+  private static final int SETTINGS_ENABLE_PUSH = 0x2;
+  private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+  private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+  private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+  private static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+  private static final int FRAME_HEADER = 9;
+  // The largest frame accepted, which is also the smallest a peer may allow: the default.
+  private static final int MAX_FRAME_SIZE = 16384;
+  private static final int MAX_WINDOW = Integer.MAX_VALUE;
+  private static final int DEFAULT_WINDOW = 65535;
+  private static final int HEADER_TABLE_SIZE = 4096;
+  // What the whole connection may have in flight from the client, across its streams.
+  private static final int CONNECTION_WINDOW = 16 * 1024 * 1024;
+
+  private static final byte[] PREFACE =
+      "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+  // What follows the request-like line and blank line that the head parser already consumed.
+  private static final int PREFACE_TAIL = 18;
+  private static final byte[] SWITCHING_PROTOCOLS =
+      "HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n"
+          .getBytes(StandardCharsets.ISO_8859_1);
+  private static final Set<String> CONNECTION_SPECIFIC =
+      Set.of("connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade");
+
+  private final Connection connection;
+  private final NioServerEngine engine;
+  private final Http2Config config;
+  private final long idleTimeout;
+  private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<>();
+
+  // Reader thread only.
+  private final HpackDecoder decoder = new HpackDecoder(HEADER_TABLE_SIZE);
+  private int lastStreamId;
+  private long receiveWindow = CONNECTION_WINDOW;
+  private int unacknowledged;
+  private boolean goingAway;
+
+  private final ReentrantLock writeLock = new ReentrantLock();
+  // Guarded by writeLock.
+  private final HpackEncoder encoder = new HpackEncoder(HEADER_TABLE_SIZE);
+  private final HeaderBlock block = new HeaderBlock();
+
+  private final ReentrantLock flowLock = new ReentrantLock();
+  private final Condition windowOpened = flowLock.newCondition();
+  // Guarded by flowLock.
+  private long sendWindow = DEFAULT_WINDOW;
+  private int peerInitialWindow = DEFAULT_WINDOW;
+  private boolean closed;
+
+  private volatile int peerMaxFrameSize = MAX_FRAME_SIZE;
+
+  private Http2Session(Connection connection) {
+    this.connection = connection;
+    this.engine = connection.engine();
+    this.config = engine.config().http2();
+    this.idleTimeout = engine.config().idleTimeout().toNanos();
+  }
+
+  /**
+   * Whether {@code head} starts HTTP/2 on its connection: it is the connection preface, or a
+   * request without a body asking to upgrade to h2c. Upgrading a request with a body would mean
+   * reading it all before switching, so such requests are simply served over HTTP/1.1.
+   *
+   * @throws MalformedRequestException If a client speaks HTTP/2 to a server that does not.
+   */
+  static boolean accepts(RequestHead head, Http2Config config) throws MalformedRequestException {
+    if (head.isHttp2Preface()) {
+      if (!config.enabled()) {
+        throw new MalformedRequestException(505, "HTTP/2 is not enabled");
+      }
+      return true;
+    }
+    return config.enabled()
+        && !head.hasBody()
+        && !head.isHttp10()
+        && hasToken(head.headers().getFirst("Upgrade"), "h2c")
+        && hasToken(head.headers().getFirst("Connection"), "upgrade")
+        && upgradeSettings(head) != null;
+  }
+
+  /**
+   * Runs the connection from {@code head} on, until either side ends it.
+   *
+   * @param head The preface, or the request that asked to upgrade, which becomes stream 1.
+   */
+  static void serve(Connection connection, RequestHead head) {
+    new Http2Session(connection).run(head.isHttp2Preface() ? null : head);
+  }
+
+  NioServerEngine engine() {
+    return engine;
+  }
+
+  Connection connection() {
+    return connection;
+  }
+
+  long idleTimeoutNanos() {
+    return idleTimeout;
+  }
+
+  // ---- Reader thread ----
+
+  private void run(RequestHead upgrade) {
+    int error = NO_ERROR;
+    String debug = "";
+    boolean goAway = true;
+    try {
+      if (upgrade != null) {
+        connection.write(ByteBuffer.wrap(SWITCHING_PROTOCOLS));
+      }
+      writeSettings();
+      if (upgrade != null) {
+        applySettings(upgradeSettings(upgrade), 0, false);
+        openUpgraded(upgrade);
+        expect(PREFACE, 0);
+      } else {
+        expect(PREFACE, PREFACE_TAIL);
+      }
+      while (true) {
+        readFrame();
+      }
+    } catch (Http2Exception e) {
+      error = e.code();
+      debug = e.getMessage();
+    } catch (HpackException e) {
+      error = COMPRESSION_ERROR;
+      debug = e.getMessage();
+    } catch (SocketTimeoutException e) {
+      // Idle for too long: say goodbye properly.
+    } catch (IOException e) {
+      goAway = false;
+    } finally {
+      if (goAway) {
+        goAway(error, debug);
+      }
+      shutdown();
+    }
+  }
+
+  private void writeSettings() throws IOException {
+    ByteBuffer settings = ByteBuffer.allocate(18);
+    settings.putShort((short) SETTINGS_MAX_CONCURRENT_STREAMS);
+    settings.putInt(config.maxConcurrentStreams());
+    settings.putShort((short) SETTINGS_INITIAL_WINDOW_SIZE);
+    settings.putInt(config.initialWindowSize());
+    settings.putShort((short) SETTINGS_MAX_HEADER_LIST_SIZE);
+    settings.putInt(engine.config().maxHeaderBytes());
+    writeFrame(SETTINGS, 0, 0, settings.array());
+    writeFrame(WINDOW_UPDATE, 0, 0, intPayload(CONNECTION_WINDOW - DEFAULT_WINDOW));
+  }
+
+  /** Checks that the client's next bytes are {@code expected}, from {@code offset} on. */
+  private void expect(byte[] expected, int offset) throws IOException {
+    ByteBuffer in = connection.awaitInput(expected.length - offset, idleTimeout);
+    for (int i = offset; i < expected.length; i++) {
+      if (in.get() != expected[i]) {
+        throw new Http2Exception(PROTOCOL_ERROR, "Invalid connection preface");
+      }
+    }
+  }
+
+  /** Turns the request that upgraded the connection into stream 1, half-closed already. */
+  private void openUpgraded(RequestHead head) {
+    var headers = new Headers();
+    for (var entry : head.headers().entrySet()) {
+      String name = entry.getKey().toLowerCase(Locale.ROOT);
+      if (!CONNECTION_SPECIFIC.contains(name) && !name.equals("http2-settings")) {
+        headers.put(name, entry.getValue());
+      }
+    }
+    lastStreamId = 1;
+    open(1, head.method(), head.target(), headers, true);
+  }
+
+  private void readFrame() throws IOException {
+    // Only time out while no request is in flight; a long response keeps the connection open.
+    ByteBuffer in = connection.awaitInput(FRAME_HEADER, streams.isEmpty() ? idleTimeout : 0);
+    int length = (in.get() & 0xFF) << 16 | (in.get() & 0xFF) << 8 | in.get() & 0xFF;
+    int type = in.get() & 0xFF;
+    int flags = in.get() & 0xFF;
+    int streamId = in.getInt() & 0x7FFFFFFF;
+    if (length > MAX_FRAME_SIZE) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "Frame of " + length + " bytes");
+    }
+    byte[] payload = readPayload(length);
+    switch (type) {
+      case DATA -> onData(streamId, flags, payload);
+      case HEADERS -> onHeaders(streamId, flags, payload);
+      case PRIORITY -> onPriority(streamId, payload);
+      case RST_STREAM -> onReset(streamId, payload);
+      case SETTINGS -> onSettings(streamId, flags, payload);
+      case PUSH_PROMISE -> throw new Http2Exception(PROTOCOL_ERROR, "Clients cannot push");
+      case PING -> onPing(streamId, flags, payload);
+      case GOAWAY -> onGoAway(streamId, payload);
+      case WINDOW_UPDATE -> onWindowUpdate(streamId, payload);
+      case CONTINUATION -> throw new Http2Exception(PROTOCOL_ERROR, "Unexpected CONTINUATION");
+      default -> {
+        // Unknown frame types are ignored.
+      }
+    }
+  }
+
+  private byte[] readPayload(int length) throws IOException {
+    byte[] payload = new byte[length];
+    int read = 0;
+    while (read < length) {
+      ByteBuffer in = connection.awaitInput(1, idleTimeout);
+      int count = Math.min(in.remaining(), length - read);
+      in.get(payload, read, count);
+      read += count;
+    }
+    return payload;
+  }
+
+  private void onData(int streamId, int flags, byte[] payload) throws IOException {
+    if (streamId == 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "DATA on stream 0");
+    }
+    int padding = padding(flags, payload);
+    int end = payload.length - padding;
+    receiveWindow -= payload.length;
+    if (receiveWindow < 0) {
+      throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection window exceeded");
+    }
+    // The connection window reopens as frames arrive; the stream windows bound what queues up.
+    unacknowledged += payload.length;
+    if (unacknowledged >= CONNECTION_WINDOW / 2) {
+      writeFrame(WINDOW_UPDATE, 0, 0, intPayload(unacknowledged));
+      receiveWindow += unacknowledged;
+      unacknowledged = 0;
+    }
+    Http2Stream stream = streams.get(streamId);
+    if (stream == null || stream.reset) {
+      checkNotIdle(streamId);
+      if (stream == null) {
+        writeReset(streamId, STREAM_CLOSED);
+      }
+      return;
+    }
+    if (stream.remoteClosed) {
+      reset(stream, STREAM_CLOSED);
+      return;
+    }
+    boolean endStream = (flags & FLAG_END_STREAM) != 0;
+    stream.remoteClosed = endStream;
+    int offset = (flags & FLAG_PADDED) != 0 ? 1 : 0;
+    if (!stream.body.receive(payload, offset, end - offset, payload.length, endStream)) {
+      reset(stream, FLOW_CONTROL_ERROR);
+    }
+  }
+
+  private void onHeaders(int streamId, int flags, byte[] payload) throws IOException {
+    if (streamId == 0 || (streamId & 1) == 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "HEADERS on stream " + streamId);
+    }
+    int padding = padding(flags, payload);
+    int offset = (flags & FLAG_PADDED) != 0 ? 1 : 0;
+    if ((flags & FLAG_PRIORITY) != 0) {
+      if (dependency(payload, offset) == streamId) {
+        throw new Http2Exception(PROTOCOL_ERROR, "Stream " + streamId + " depends on itself");
+      }
+      offset += 5;
+    }
+    if (offset > payload.length - padding) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "HEADERS too short");
+    }
+    byte[] fragment = payload;
+    int length = payload.length - padding - offset;
+    if ((flags & FLAG_END_HEADERS) == 0) {
+      fragment = readContinuations(streamId, payload, offset, length);
+      offset = 0;
+      length = fragment.length;
+    }
+    boolean endStream = (flags & FLAG_END_STREAM) != 0;
+    var fields = new RequestFields();
+    int maxListSize = engine.config().maxHeaderBytes();
+    boolean fits = decoder.decode(fragment, offset, length, maxListSize, fields);
+
+    Http2Stream stream = streams.get(streamId);
+    if (stream != null) {
+      // Trailers: the body ends here, and the fields themselves are not passed on.
+      if (stream.remoteClosed || !endStream) {
+        throw new Http2Exception(PROTOCOL_ERROR, "HEADERS in the middle of stream " + streamId);
+      }
+      stream.remoteClosed = true;
+      stream.body.receive(payload, 0, 0, 0, true);
+      return;
+    }
+    if (streamId <= lastStreamId) {
+      throw new Http2Exception(STREAM_CLOSED, "HEADERS on closed stream " + streamId);
+    }
+    lastStreamId = streamId;
+    if (goingAway || !engine.isRunning() || streams.size() >= config.maxConcurrentStreams()) {
+      writeReset(streamId, REFUSED_STREAM);
+      return;
+    }
+    if (!fits) {
+      respond(streamId, 431);
+      return;
+    }
+    if (fields.validate() != null) {
+      writeReset(streamId, PROTOCOL_ERROR);
+      return;
+    }
+    open(streamId, fields.method, fields.path, fields.headers(), endStream);
+  }
+
+  private byte[] readContinuations(int streamId, byte[] first, int offset, int length)
+      throws IOException {
+    var fragment = new ByteArrayOutputStream(length * 2);
+    fragment.write(first, offset, length);
+    int limit = engine.config().maxHeaderBytes() + MAX_FRAME_SIZE;
+    while (true) {
+      ByteBuffer in = connection.awaitInput(FRAME_HEADER, idleTimeout);
+      int size = (in.get() & 0xFF) << 16 | (in.get() & 0xFF) << 8 | in.get() & 0xFF;
+      int type = in.get() & 0xFF;
+      int flags = in.get() & 0xFF;
+      int id = in.getInt() & 0x7FFFFFFF;
+      if (type != CONTINUATION || id != streamId) {
+        throw new Http2Exception(PROTOCOL_ERROR, "Expected CONTINUATION of stream " + streamId);
+      }
+      if (size > MAX_FRAME_SIZE || fragment.size() + size > limit) {
+        // Compressed blocks this large are an attack, not a request worth a 431.
+        throw new Http2Exception(PROTOCOL_ERROR, "Header block too large");
+      }
+      fragment.write(readPayload(size), 0, size);
+      if ((flags & FLAG_END_HEADERS) != 0) {
+        return fragment.toByteArray();
+      }
+    }
+  }
+
+  private void onPriority(int streamId, byte[] payload) throws IOException {
+    if (streamId == 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "PRIORITY on stream 0");
+    }
+    if (payload.length != 5) {
+      writeReset(streamId, FRAME_SIZE_ERROR);
+      return;
+    }
+    if (dependency(payload, 0) == streamId) {
+      writeReset(streamId, PROTOCOL_ERROR);
+    }
+    // Priorities are advisory and deprecated; streams are served as they come.
+  }
+
+  private void onReset(int streamId, byte[] payload) throws IOException {
+    if (streamId == 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM on stream 0");
+    }
+    if (payload.length != 4) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "RST_STREAM of " + payload.length + " bytes");
+    }
+    checkNotIdle(streamId);
+    Http2Stream stream = streams.get(streamId);
+    if (stream != null) {
+      // The stream stays counted until its handler finishes, so resets cannot outrun handlers.
+      stream.reset = true;
+      stream.body.fail(new IOException("The client reset stream " + streamId));
+      signalWindows();
+    }
+  }
+
+  private void onSettings(int streamId, int flags, byte[] payload) throws IOException {
+    if (streamId != 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS on stream " + streamId);
+    }
+    if ((flags & FLAG_ACK) != 0) {
+      if (payload.length != 0) {
+        throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS acknowledgement with a payload");
+      }
+      return;
+    }
+    if (payload.length % 6 != 0) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS of " + payload.length + " bytes");
+    }
+    applySettings(payload, 0, true);
+  }
+
+  /** Applies the client's settings, answering with an acknowledgement if {@code ack}. */
+  private void applySettings(byte[] payload, int offset, boolean ack) throws IOException {
+    var settings = ByteBuffer.wrap(payload, offset, payload.length - offset);
+    while (settings.remaining() >= 6) {
+      int id = settings.getShort() & 0xFFFF;
+      int value = settings.getInt();
+      switch (id) {
+        case SETTINGS_HEADER_TABLE_SIZE -> {
+          writeLock.lock();
+          try {
+            encoder.setPeerTableSize(Math.min(value < 0 ? MAX_WINDOW : value, HEADER_TABLE_SIZE));
+          } finally {
+            writeLock.unlock();
+          }
+        }
+        case SETTINGS_ENABLE_PUSH -> {
+          if (value != 0 && value != 1) {
+            throw new Http2Exception(PROTOCOL_ERROR, "ENABLE_PUSH of " + value);
+          }
+        }
+        case SETTINGS_INITIAL_WINDOW_SIZE -> {
+          if (value < 0) {
+            throw new Http2Exception(FLOW_CONTROL_ERROR, "INITIAL_WINDOW_SIZE of " + value);
+          }
+          resizeWindows(value);
+        }
+        case SETTINGS_MAX_FRAME_SIZE -> {
+          if (value < MAX_FRAME_SIZE || value > 0xFFFFFF) {
+            throw new Http2Exception(PROTOCOL_ERROR, "MAX_FRAME_SIZE of " + value);
+          }
+          peerMaxFrameSize = value;
+        }
+        default -> {
+          // MAX_CONCURRENT_STREAMS does not apply without push; unknown settings are ignored.
+        }
+      }
+    }
+    if (ack) {
+      writeFrame(SETTINGS, FLAG_ACK, 0, new byte[0]);
+    }
+  }
+
+  /** Moves every stream's send window by the change in the client's initial window. */
+  private void resizeWindows(int initialWindow) throws Http2Exception {
+    flowLock.lock();
+    try {
+      int delta = initialWindow - peerInitialWindow;
+      peerInitialWindow = initialWindow;
+      for (Http2Stream stream : streams.values()) {
+        stream.sendWindow += delta;
+        if (stream.sendWindow > MAX_WINDOW) {
+          throw new Http2Exception(FLOW_CONTROL_ERROR, "Window of stream " + stream.id);
+        }
+      }
+      windowOpened.signalAll();
+    } finally {
+      flowLock.unlock();
+    }
+  }
+
+  private void onPing(int streamId, int flags, byte[] payload) throws IOException {
+    if (streamId != 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "PING on stream " + streamId);
+    }
+    if (payload.length != 8) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "PING of " + payload.length + " bytes");
+    }
+    if ((flags & FLAG_ACK) == 0) {
+      writeFrame(PING, FLAG_ACK, 0, payload);
+    }
+  }
+
+  private void onGoAway(int streamId, byte[] payload) throws Http2Exception {
+    if (streamId != 0) {
+      throw new Http2Exception(PROTOCOL_ERROR, "GOAWAY on stream " + streamId);
+    }
+    if (payload.length < 8) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "GOAWAY of " + payload.length + " bytes");
+    }
+    // Streams in flight finish; the client closes the connection once it has their responses.
+    goingAway = true;
+  }
+
+  private void onWindowUpdate(int streamId, byte[] payload) throws IOException {
+    if (payload.length != 4) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "WINDOW_UPDATE of " + payload.length + " bytes");
+    }
+    int increment = ByteBuffer.wrap(payload).getInt() & 0x7FFFFFFF;
+    if (streamId == 0) {
+      if (increment == 0) {
+        throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE of 0 on the connection");
+      }
+      flowLock.lock();
+      try {
+        sendWindow += increment;
+        if (sendWindow > MAX_WINDOW) {
+          throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection window overflow");
+        }
+        windowOpened.signalAll();
+      } finally {
+        flowLock.unlock();
+      }
+      return;
+    }
+    checkNotIdle(streamId);
+    Http2Stream stream = streams.get(streamId);
+    if (stream == null || stream.reset) {
+      return;
+    }
+    if (increment == 0) {
+      reset(stream, PROTOCOL_ERROR);
+      return;
+    }
+    boolean overflow;
+    flowLock.lock();
+    try {
+      stream.sendWindow += increment;
+      overflow = stream.sendWindow > MAX_WINDOW;
+      windowOpened.signalAll();
+    } finally {
+      flowLock.unlock();
+    }
+    if (overflow) {
+      reset(stream, FLOW_CONTROL_ERROR);
+    }
+  }
+
+  /** A frame for a stream the client never opened is a connection error. */
+  private void checkNotIdle(int streamId) throws Http2Exception {
+    if (streamId > lastStreamId) {
+      throw new Http2Exception(PROTOCOL_ERROR, "Frame on idle stream " + streamId);
+    }
+  }
+
+  private static int padding(int flags, byte[] payload) throws Http2Exception {
+    if ((flags & FLAG_PADDED) == 0) {
+      return 0;
+    }
+    if (payload.length == 0) {
+      throw new Http2Exception(FRAME_SIZE_ERROR, "Padded frame without a pad length");
+    }
+    int padding = payload[0] & 0xFF;
+    if (padding >= payload.length) {
+      throw new Http2Exception(PROTOCOL_ERROR, "Padding longer than the frame");
+    }
+    return padding;
+  }
+
+  private static int dependency(byte[] payload, int offset) {
+    return ByteBuffer.wrap(payload, offset, 4).getInt() & 0x7FFFFFFF;
+  }
+
+  /** Starts serving a new stream on an executor thread. */
+  private void open(int id, String method, String target, Headers headers, boolean endStream) {
+    Http2Stream stream;
+    flowLock.lock();
+    try {
+      stream = new Http2Stream(this, id, peerInitialWindow, config.initialWindowSize());
+    } finally {
+      flowLock.unlock();
+    }
+    if (endStream) {
+      stream.remoteClosed = true;
+      stream.body.receive(new byte[0], 0, 0, 0, true);
+    }
+    streams.put(id, stream);
+    engine.requestStarted();
+    var exchange = new Http2Exchange(this, stream, method, target, headers);
+    try {
+      engine.config().executor().execute(exchange::serve);
+    } catch (RejectedExecutionException e) {
+      streams.remove(id);
+      engine.requestFinished();
+      reset(stream, REFUSED_STREAM);
+    }
+  }
+
+  /** Answers a stream that never reaches a handler with a bare status. */
+  private void respond(int streamId, int status) throws IOException {
+    var stream = new Http2Stream(this, streamId, 0, 0);
+    send(stream, new String[] {":status", Integer.toString(status)}, ByteBuffer.allocate(0), true);
+  }
+
+  private void goAway(int error, String debug) {
+    byte[] message = debug == null ? new byte[0] : debug.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payload = ByteBuffer.allocate(8 + message.length);
+    payload.putInt(lastStreamId).putInt(error).put(message);
+    try {
+      writeFrame(GOAWAY, 0, 0, payload.array());
+    } catch (IOException ignored) {
+      // The connection is closing anyway.
+    }
+  }
+
+  /** Ends every stream still open and closes the connection. */
+  private void shutdown() {
+    flowLock.lock();
+    try {
+      closed = true;
+      windowOpened.signalAll();
+    } finally {
+      flowLock.unlock();
+    }
+    for (Http2Stream stream : streams.values()) {
+      stream.reset = true;
+      stream.body.fail(new IOException("The connection was closed"));
+    }
+    connection.close();
+  }
+
+  // ---- Any thread ----
+
+  /**
+   * Sends a response's HEADERS, if {@code head} is not null, and the whole of {@code data}, as the
+   * client's flow control windows allow.
+   *
+   * @param head The header fields, as name and value pairs.
+   * @param end Whether this ends the stream.
+   * @throws IOException If the stream was reset or the connection lost before all of it was sent.
+   */
+  void send(Http2Stream stream, String[] head, ByteBuffer data, boolean end) throws IOException {
+    while (true) {
+      // Headers are not flow controlled, so they go out first even when the window is closed.
+      int granted = data.hasRemaining() ? reserve(stream, data.remaining(), head == null) : 0;
+      boolean last = granted == data.remaining();
+      var frames = new ArrayList<ByteBuffer>(4);
+      writeLock.lock();
+      try {
+        if (stream.reset) {
+          throw new IOException("Stream " + stream.id + " was reset");
+        }
+        if (head != null) {
+          frames.add(encodeHeaders(stream.id, head, end && !data.hasRemaining()));
+        }
+        if (granted > 0 || (end && last && head == null)) {
+          addData(frames, stream.id, data, granted, end && last);
+        }
+        connection.write(frames.toArray(ByteBuffer[]::new));
+      } catch (IOException e) {
+        if (!stream.reset) {
+          connection.close();
+        }
+        throw e;
+      } finally {
+        writeLock.unlock();
+      }
+      data.position(data.position() + granted);
+      head = null;
+      if (last) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Takes up to {@code wanted} bytes out of the stream's and the connection's send windows.
+   *
+   * @param wait Whether to wait for a window to open, or else return 0.
+   */
+  private int reserve(Http2Stream stream, int wanted, boolean wait) throws IOException {
+    flowLock.lock();
+    try {
+      long remaining = idleTimeout;
+      while (true) {
+        if (stream.reset || closed) {
+          throw new IOException("Stream " + stream.id + " was reset");
+        }
+        long available = Math.min(stream.sendWindow, sendWindow);
+        if (available > 0) {
+          int granted = (int) Math.min(wanted, available);
+          stream.sendWindow -= granted;
+          sendWindow -= granted;
+          return granted;
+        }
+        if (!wait) {
+          return 0;
+        }
+        if (remaining <= 0) {
+          throw new SocketTimeoutException("Timed out waiting for the client to read");
+        }
+        remaining = windowOpened.awaitNanos(remaining);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for the client to read", e);
+    } finally {
+      flowLock.unlock();
+    }
+  }
+
+  /** Encodes a header block into a HEADERS frame and its CONTINUATIONs. Holds writeLock. */
+  private ByteBuffer encodeHeaders(int streamId, String[] fields, boolean endStream) {
+    encoder.begin(block);
+    for (int i = 0; i < fields.length; i += 2) {
+      encoder.header(fields[i], fields[i + 1], block);
+    }
+    ByteBuffer encoded = block.bytes();
+    int maxFrame = peerMaxFrameSize;
+    int count = Math.max(1, (encoded.remaining() + maxFrame - 1) / maxFrame);
+    ByteBuffer frames = ByteBuffer.allocate(encoded.remaining() + count * FRAME_HEADER);
+    int type = HEADERS;
+    int flags = endStream ? FLAG_END_STREAM : 0;
+    do {
+      int length = Math.min(maxFrame, encoded.remaining());
+      boolean lastFrame = length == encoded.remaining();
+      frameHeader(frames, length, type, flags | (lastFrame ? FLAG_END_HEADERS : 0), streamId);
+      frames.put(encoded.slice(encoded.position(), length));
+      encoded.position(encoded.position() + length);
+      type = CONTINUATION;
+      flags = 0;
+    } while (encoded.hasRemaining());
+    return frames.flip();
+  }
+
+  /** Adds DATA frames for the next {@code length} bytes of {@code data}, which stays put. */
+  private void addData(
+      List<ByteBuffer> frames, int streamId, ByteBuffer data, int length, boolean endStream) {
+    int maxFrame = peerMaxFrameSize;
+    int position = data.position();
+    int count = Math.max(1, (length + maxFrame - 1) / maxFrame);
+    ByteBuffer headers = ByteBuffer.allocate(count * FRAME_HEADER);
+    do {
+      int size = Math.min(maxFrame, length);
+      length -= size;
+      int flags = endStream && length == 0 ? FLAG_END_STREAM : 0;
+      frameHeader(headers, size, DATA, flags, streamId);
+      frames.add(headers.slice(headers.position() - FRAME_HEADER, FRAME_HEADER));
+      frames.add(data.slice(position, size));
+      position += size;
+    } while (length > 0);
+  }
+
+  /** Reopens the client's window on {@code stream} once its handler has read {@code increment}. */
+  void windowUpdate(Http2Stream stream, int increment) {
+    if (stream.reset) {
+      return;
+    }
+    try {
+      writeFrame(WINDOW_UPDATE, 0, stream.id, intPayload(increment));
+    } catch (IOException ignored) {
+      // The reader notices the lost connection and ends the stream.
+    }
+  }
+
+  /** Resets {@code stream} from this side, abandoning whatever is left of it. */
+  void reset(Http2Stream stream, int error) {
+    if (stream.reset) {
+      return;
+    }
+    stream.reset = true;
+    stream.body.fail(new IOException("Stream " + stream.id + " was reset"));
+    signalWindows();
+    writeReset(stream.id, error);
+  }
+
+  /** Called once the handler of {@code stream} is done with it. */
+  void close(Http2Stream stream) {
+    streams.remove(stream.id);
+    if (!stream.reset && !stream.body.isComplete()) {
+      // The response is complete; the rest of the request body is not wanted.
+      writeReset(stream.id, NO_ERROR);
+    }
+    stream.body.fail(new IOException("Stream " + stream.id + " is closed"));
+    engine.requestFinished();
+  }
+
+  private void signalWindows() {
+    flowLock.lock();
+    try {
+      windowOpened.signalAll();
+    } finally {
+      flowLock.unlock();
+    }
+  }
+
+  private void writeReset(int streamId, int error) {
+    try {
+      writeFrame(RST_STREAM, 0, streamId, intPayload(error));
+    } catch (IOException ignored) {
+      // The reader notices the lost connection.
+    }
+  }
+
+  private void writeFrame(int type, int flags, int streamId, byte[] payload) throws IOException {
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+    frameHeader(frame, payload.length, type, flags, streamId);
+    frame.put(payload).flip();
+    writeLock.lock();
+    try {
+      connection.write(frame);
+    } catch (IOException e) {
+      connection.close();
+      throw e;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private static void frameHeader(ByteBuffer out, int length, int type, int flags, int streamId) {
+    out.put((byte) (length >>> 16)).put((byte) (length >>> 8)).put((byte) length);
+    out.put((byte) type).put((byte) flags).putInt(streamId);
+  }
+
+  private static byte[] intPayload(int value) {
+    return ByteBuffer.allocate(4).putInt(value).array();
+  }
+
+  private static boolean hasToken(String header, String token) {
+    if (header == null) {
+      return false;
+    }
+    for (String part : header.split(",")) {
+      if (part.trim().equalsIgnoreCase(token)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The client's settings from the HTTP2-Settings header of an upgrade, or null if invalid. */
+  private static byte[] upgradeSettings(RequestHead head) {
+    String encoded = head.headers().getFirst("HTTP2-Settings");
+    if (encoded == null) {
+      return null;
+    }
+    try {
+      byte[] settings = Base64.getUrlDecoder().decode(encoded.trim());
+      return settings.length % 6 == 0 ? settings : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** Collects the fields of a request header block, checking them as RFC 9113, 8.2 asks. */
+  private static final class RequestFields implements HpackDecoder.Sink {
+
+    private final Headers headers = new Headers();
+    private String method;
+    private String scheme;
+    private String path;
+    private String authority;
+    private StringBuilder cookies;
+    private String problem;
+    private boolean regular;
+
+    @Override
+    public void header(String name, String value) {
+      if (problem != null) {
+        return;
+      }
+      if (name.startsWith(":")) {
+        if (regular) {
+          problem = "Pseudo-header after a regular field";
+          return;
+        }
+        switch (name) {
+          case ":method" -> method = once(method, value);
+          case ":scheme" -> scheme = once(scheme, value);
+          case ":path" -> path = once(path, value);
+          case ":authority" -> authority = once(authority, value);
+          default -> problem = "Unknown pseudo-header " + name;
+        }
+        return;
+      }
+      regular = true;
+      if (!name.equals(name.toLowerCase(Locale.ROOT))) {
+        problem = "Uppercase field name " + name;
+      } else if (CONNECTION_SPECIFIC.contains(name)
+          || name.equals("te") && !value.equals("trailers")) {
+        problem = "Connection-specific field " + name;
+      } else if (name.equals("cookie")) {
+        // Split cookies are joined back for handlers that expect HTTP/1.1's single field.
+        cookies = cookies == null ? new StringBuilder(value) : cookies.append("; ").append(value);
+      } else {
+        headers.add(name, value);
+      }
+    }
+
+    private String once(String current, String value) {
+      if (current != null) {
+        problem = "Repeated pseudo-header";
+      }
+      return value;
+    }
+
+    /** Why the request is malformed, or null. */
+    String validate() {
+      if (problem != null) {
+        return problem;
+      }
+      if (method == null || scheme == null || path == null || path.isEmpty()) {
+        return "Missing pseudo-header";
+      }
+      if (method.equals("CONNECT")) {
+        return "CONNECT is not supported";
+      }
+      return null;
+    }
+
+    Headers headers() {
+      if (cookies != null) {
+        headers.add("cookie", cookies.toString());
+      }
+      if (authority != null && !headers.containsKey("host")) {
+        headers.add("host", authority);
+      }
+      return headers;
+    }
+  }
+}
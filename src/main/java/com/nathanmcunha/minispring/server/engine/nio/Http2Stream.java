@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+/** What the session tracks of one request stream between its HEADERS and its end. */
+final class Http2Stream {
+
+  final int id;
+  final Http2RequestBody body;
+  // How much response data the client still accepts on this stream; guarded by the flow lock.
+  long sendWindow;
+  // Set once either side has reset the stream; nothing more is sent on it then.
+  volatile boolean reset;
+  // Whether the client has ended its side, read and written by the session's reader only.
+  boolean remoteClosed;
+
+  Http2Stream(Http2Session session, int id, long sendWindow, int receiveWindow) {
+    this.id = id;
+    this.sendWindow = sendWindow;
+    this.body = new Http2RequestBody(session, this, receiveWindow);
+  }
+}
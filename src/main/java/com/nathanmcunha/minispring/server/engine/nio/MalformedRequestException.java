@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.IOException;
+
+/** A request the engine refuses before it reaches a handler, answered with {@code status}. */
+final class MalformedRequestException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+
+  MalformedRequestException(int status, String message) {
+    super(message);
+    this.status = status;
+  }
+
+  int status() {
+    return status;
+  }
+}
@@ -0,0 +1,69 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** A handler mounted on the NIO engine under a context path. */
+final class MountedContext extends HttpContext {
+
+  private final String path;
+  private volatile HttpHandler handler;
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final List<Filter> filters = new CopyOnWriteArrayList<>();
+  private volatile Authenticator authenticator;
+
+  MountedContext(String path, HttpHandler handler) {
+    this.path = path;
+    this.handler = handler;
+  }
+
+  @Override
+  public HttpHandler getHandler() {
+    return handler;
+  }
+
+  @Override
+  public void setHandler(HttpHandler handler) {
+    this.handler = handler;
+  }
+
+  @Override
+  public String getPath() {
+    return path;
+  }
+
+  /** This context does not belong to a JDK {@link HttpServer}. */
+  @Override
+  public HttpServer getServer() {
+    return null;
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public List<Filter> getFilters() {
+    return filters;
+  }
+
+  @Override
+  public Authenticator setAuthenticator(Authenticator authenticator) {
+    Authenticator previous = this.authenticator;
+    this.authenticator = authenticator;
+    return previous;
+  }
+
+  @Override
+  public Authenticator getAuthenticator() {
+    return authenticator;
+  }
+}
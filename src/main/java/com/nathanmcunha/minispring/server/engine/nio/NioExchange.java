@@ -0,0 +1,331 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.AsyncExchange;
+import com.nathanmcunha.minispring.server.engine.Upgradable;
+import com.nathanmcunha.minispring.server.engine.UpgradedConnection;
+import com.nathanmcunha.minispring.server.engine.nio.ResponseBodyStream.Framing;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One request/response on a NIO {@link Connection}, presented to handlers as an {@link
+ * HttpExchange} with the JDK server's semantics: a response length of 0 means chunked and -1 means
+ * no body.
+ *
+ * <p>A handler may {@link #detach} the exchange to answer after returning; the connection then
+ * waits, without a thread, until {@link #complete} hands it back through {@link Connection#resume}.
+ * A detached exchange may also {@link #upgrade} its connection, which then closes on completion.
+ */
+final class NioExchange extends HttpExchange implements AsyncExchange, Upgradable {
+
+  private static final System.Logger LOG = System.getLogger(NioServerEngine.class.getName());
+  private static final byte[] CONTINUE =
+      "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+  // Unread request bytes worth discarding to keep the connection; beyond this it is closed.
+  private static final long MAX_DRAIN = 64 * 1024;
+
+  private final Connection connection;
+  private final RequestHead head;
+  private final Headers responseHeaders = new Headers();
+  private final RequestBodyStream requestBody;
+  private final ResponseBodyStream responseBody;
+  private InputStream in;
+  private OutputStream out;
+  private URI uri;
+  private MountedContext context;
+  private Map<String, Object> attributes;
+  private int responseCode = -1;
+  private boolean keepAlive;
+  private boolean continueSent;
+  private boolean detached;
+
+  NioExchange(Connection connection, RequestHead head) {
+    this.connection = connection;
+    this.head = head;
+    this.requestBody = new RequestBodyStream(connection, this, head);
+    this.responseBody = new ResponseBodyStream(connection);
+    this.in = requestBody;
+    this.out = responseBody;
+    this.keepAlive = head.keepAlive() && connection.engine().isRunning();
+  }
+
+  /**
+   * Runs the mounted handler and completes the response whatever it did, unless the handler
+   * detached the exchange to complete it later.
+   *
+   * @return Whether the connection can serve another request, if not {@link #isDetached}.
+   */
+  boolean serve() throws IOException {
+    try {
+      uri = new URI(head.target());
+    } catch (URISyntaxException e) {
+      throw new MalformedRequestException(400, "Malformed request target");
+    }
+    context = connection.engine().contextFor(uri.getPath());
+    if (context == null) {
+      sendResponseHeaders(404, -1);
+    } else {
+      try {
+        context.getHandler().handle(this);
+      } catch (Exception | LinkageError e) {
+        LOG.log(System.Logger.Level.WARNING, "Handler failed for " + head.target(), e);
+        if (detached) {
+          // Whoever completes the exchange owns the response now.
+          return false;
+        }
+        if (responseCode == -1) {
+          responseHeaders.clear();
+          sendResponseHeaders(500, -1);
+        } else {
+          keepAlive = false;
+          responseBody.abandon();
+        }
+      }
+    }
+    return !detached && finish();
+  }
+
+  /** Ends the response, answering 500 if nothing was sent, and readies the connection. */
+  boolean finish() {
+    try {
+      if (responseCode == -1) {
+        sendResponseHeaders(500, -1);
+      }
+      responseBody.close();
+      if (keepAlive && head.hasBody()) {
+        // A client waiting for 100 Continue never sends the body we would have to skip.
+        keepAlive = (!head.expectContinue() || continueSent) && requestBody.drain(MAX_DRAIN);
+      }
+      return keepAlive;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  boolean isDetached() {
+    return detached;
+  }
+
+  @Override
+  public void detach() {
+    detached = true;
+  }
+
+  @Override
+  public void complete(Throwable failure) {
+    if (failure != null && responseCode != -1) {
+      keepAlive = false;
+      responseBody.abandon();
+    }
+    connection.resume(this);
+  }
+
+  @Override
+  public void abort() {
+    connection.close();
+  }
+
+  @Override
+  public UpgradedConnection upgrade() throws IOException {
+    if (responseCode != -1) {
+      throw new IOException("Response headers have already been sent");
+    }
+    responseCode = 101;
+    keepAlive = false;
+    StringBuilder text = new StringBuilder(256).append("HTTP/1.1 101 Switching Protocols\r\n");
+    for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+      String name = header.getKey();
+      if (name.equalsIgnoreCase("Content-Length")
+          || name.equalsIgnoreCase("Transfer-Encoding")
+          || name.equalsIgnoreCase("Connection")) {
+        continue;
+      }
+      for (String value : header.getValue()) {
+        text.append(name).append(": ").append(value).append("\r\n");
+      }
+    }
+    text.append("Connection: Upgrade\r\n\r\n");
+    // The response stream is never used: the connection now carries the new protocol.
+    responseBody.abandon();
+    connection.write(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.ISO_8859_1)));
+    return new UpgradedSocket(connection);
+  }
+
+  /** Sends {@code 100 Continue} before the body is first read, if the client asked for it. */
+  void continueIfExpected() throws IOException {
+    if (head.expectContinue() && !continueSent && responseCode == -1) {
+      continueSent = true;
+      connection.write(ByteBuffer.wrap(CONTINUE));
+    }
+  }
+
+  @Override
+  public void sendResponseHeaders(int code, long responseLength) throws IOException {
+    if (responseCode != -1) {
+      throw new IOException("Response headers have already been sent");
+    }
+    responseCode = code;
+    boolean bodiless = code < 200 || code == 204 || code == 304;
+
+    Framing framing;
+    if (head.isHead() || bodiless || responseLength < 0) {
+      framing = Framing.NONE;
+    } else if (responseLength == 0) {
+      framing = head.isHttp10() ? Framing.UNTIL_CLOSE : Framing.CHUNKED;
+    } else {
+      framing = Framing.FIXED;
+    }
+    if (framing == Framing.UNTIL_CLOSE
+        || "close".equalsIgnoreCase(responseHeaders.getFirst("Connection"))) {
+      keepAlive = false;
+    }
+
+    StringBuilder text = new StringBuilder(256);
+    text.append("HTTP/1.1 ").append(code).append(' ').append(StatusLines.reason(code));
+    text.append("\r\n");
+    text.append("Date: ").append(StatusLines.date()).append("\r\n");
+    for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+      String name = header.getKey();
+      if (name.equalsIgnoreCase("Content-Length")
+          || name.equalsIgnoreCase("Transfer-Encoding")
+          || name.equalsIgnoreCase("Connection")) {
+        continue;
+      }
+      for (String value : header.getValue()) {
+        text.append(name).append(": ").append(value).append("\r\n");
+      }
+    }
+    switch (framing) {
+      case FIXED -> text.append("Content-Length: ").append(responseLength).append("\r\n");
+      case CHUNKED -> text.append("Transfer-Encoding: chunked\r\n");
+      case NONE -> {
+        // As with the JDK server, HEAD and 304 responses may declare the length themselves.
+        String declared = responseHeaders.getFirst("Content-Length");
+        if (head.isHead() && responseLength > 0) {
+          text.append("Content-Length: ").append(responseLength).append("\r\n");
+        } else if ((head.isHead() || code == 304) && declared != null) {
+          text.append("Content-Length: ").append(declared).append("\r\n");
+        } else if (!bodiless) {
+          text.append("Content-Length: 0\r\n");
+        }
+      }
+      case UNTIL_CLOSE -> {}
+    }
+    if (!keepAlive) {
+      text.append("Connection: close\r\n");
+    } else if (head.isHttp10()) {
+      text.append("Connection: keep-alive\r\n");
+    }
+    text.append("\r\n");
+
+    responseBody.writeHead(text);
+    responseBody.begin(framing, responseLength, head.isHead());
+  }
+
+  @Override
+  public Headers getRequestHeaders() {
+    return head.headers();
+  }
+
+  @Override
+  public Headers getResponseHeaders() {
+    return responseHeaders;
+  }
+
+  @Override
+  public URI getRequestURI() {
+    return uri;
+  }
+
+  @Override
+  public String getRequestMethod() {
+    return head.method();
+  }
+
+  @Override
+  public HttpContext getHttpContext() {
+    return context;
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (responseCode != -1) {
+        out.close();
+      }
+    } catch (IOException e) {
+      keepAlive = false;
+    }
+  }
+
+  @Override
+  public InputStream getRequestBody() {
+    return in;
+  }
+
+  @Override
+  public OutputStream getResponseBody() {
+    return out;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return connection.remoteAddress();
+  }
+
+  @Override
+  public int getResponseCode() {
+    return responseCode;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return connection.localAddress();
+  }
+
+  @Override
+  public String getProtocol() {
+    return head.version();
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes == null ? null : attributes.get(name);
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (attributes == null) {
+      attributes = new HashMap<>();
+    }
+    attributes.put(name, value);
+  }
+
+  @Override
+  public void setStreams(InputStream i, OutputStream o) {
+    if (i != null) {
+      in = i;
+    }
+    if (o != null) {
+      out = o;
+    }
+  }
+
+  @Override
+  public HttpPrincipal getPrincipal() {
+    return null;
+  }
+}
@@ -0,0 +1,172 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.common.Pool;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An HTTP/1.1 engine built on {@code java.nio} selectors.
+ *
+ * <p>Acceptor threads hand new connections round-robin to a fixed set of {@link SelectorLoop}s.
+ * Each loop parses request heads for its idle connections and dispatches complete requests to the
+ * configured executor (virtual threads by default), which also writes the response. Connections
+ * are kept alive and pipelined requests are served one after the other, in order. Reads and writes
+ * go through pooled direct buffers.
+ */
+public final class NioServerEngine implements ServerEngine {
+
+  private static final System.Logger LOG = System.getLogger(NioServerEngine.class.getName());
+  private static final int BACKLOG = 1024;
+  private static final int POOLED_BUFFERS = 1024;
+
+  private final ServerConfig config;
+  private final Pool<ByteBuffer> buffers;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger nextLoop = new AtomicInteger();
+  private volatile MountedContext[] contexts = new MountedContext[0];
+  private volatile boolean running;
+  private ServerSocketChannel server;
+  private SelectorLoop[] loops;
+  private Thread[] acceptors;
+
+  public NioServerEngine(ServerConfig config) {
+    this.config = config;
+    this.buffers =
+        new Pool<>(POOLED_BUFFERS, () -> ByteBuffer.allocateDirect(config.maxHeaderBytes()));
+  }
+
+  @Override
+  public String name() {
+    return "nio";
+  }
+
+  @Override
+  public synchronized void start() throws IOException {
+    server = ServerSocketChannel.open();
+    server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+    server.bind(config.address(), BACKLOG);
+    running = true;
+
+    loops = new SelectorLoop[config.selectors()];
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new SelectorLoop(this, i);
+      loops[i].start();
+    }
+    acceptors = new Thread[config.acceptors()];
+    for (int i = 0; i < acceptors.length; i++) {
+      acceptors[i] = Thread.ofPlatform().name("minispring-acceptor-" + i).start(this::accept);
+    }
+  }
+
+  @Override
+  public InetSocketAddress address() {
+    try {
+      return (InetSocketAddress) server.getLocalAddress();
+    } catch (IOException e) {
+      return config.address();
+    }
+  }
+
+  @Override
+  public synchronized void mount(String contextPath, HttpHandler handler) {
+    MountedContext[] next =
+        Arrays.stream(contexts)
+            .filter(context -> !context.getPath().equals(contextPath))
+            .toArray(size -> new MountedContext[size + 1]);
+    next[next.length - 1] = new MountedContext(contextPath, handler);
+    // Longest first, so the first prefix that matches is the most specific one.
+    Arrays.sort(
+        next, Comparator.comparingInt((MountedContext c) -> c.getPath().length()).reversed());
+    contexts = next;
+  }
+
+  @Override
+  public synchronized void stop(Duration grace) {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      server.close();
+      long deadline = System.nanoTime() + grace.toNanos();
+      while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+        Thread.sleep(10);
+      }
+      for (SelectorLoop loop : loops) {
+        loop.shutdown();
+      }
+      for (Thread acceptor : acceptors) {
+        acceptor.join(1000);
+      }
+    } catch (IOException e) {
+      LOG.log(System.Logger.Level.WARNING, "Failed to close the server socket", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void accept() {
+    while (running) {
+      try {
+        SocketChannel channel = server.accept();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].accept(channel);
+      } catch (ClosedChannelException e) {
+        return;
+      } catch (IOException e) {
+        if (running) {
+          LOG.log(System.Logger.Level.WARNING, "Failed to accept a connection", e);
+        }
+      }
+    }
+  }
+
+  ServerConfig config() {
+    return config;
+  }
+
+  boolean isRunning() {
+    return running;
+  }
+
+  MountedContext contextFor(String path) {
+    if (path == null) {
+      return null;
+    }
+    for (MountedContext context : contexts) {
+      if (path.startsWith(context.getPath())) {
+        return context;
+      }
+    }
+    return null;
+  }
+
+  ByteBuffer acquireBuffer() {
+    return buffers.acquire().clear();
+  }
+
+  void releaseBuffer(ByteBuffer buffer) {
+    buffers.release(buffer);
+  }
+
+  void requestStarted() {
+    inFlight.incrementAndGet();
+  }
+
+  void requestFinished() {
+    inFlight.decrementAndGet();
+  }
+}
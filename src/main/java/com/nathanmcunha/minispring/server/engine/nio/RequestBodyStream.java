@@ -0,0 +1,153 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a request body, fixed-length or chunked, straight out of the connection's read buffer.
+ *
+ * <p>The stream never reads past the end of its body, so bytes of a pipelined request that follow
+ * it stay buffered for the next head.
+ */
+final class RequestBodyStream extends InputStream {
+
+  private static final int MAX_CHUNK_LINE = 4096;
+
+  private final Connection connection;
+  private final NioExchange exchange;
+  private final boolean chunked;
+  // Bytes left in the body, or in the current chunk when chunked.
+  private long remaining;
+  private boolean inChunk;
+  private boolean finished;
+
+  RequestBodyStream(Connection connection, NioExchange exchange, RequestHead head) {
+    this.connection = connection;
+    this.exchange = exchange;
+    this.chunked = head.chunked();
+    this.remaining = chunked ? 0 : Math.max(0, head.contentLength());
+    this.finished = !head.hasBody();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (!advance()) {
+      return -1;
+    }
+    ByteBuffer input = buffered();
+    int count = (int) Math.min(Math.min(length, remaining), input.remaining());
+    input.get(bytes, offset, count);
+    remaining -= count;
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && advance()) {
+      ByteBuffer input = buffered();
+      int count = (int) Math.min(Math.min(n - skipped, remaining), input.remaining());
+      input.position(input.position() + count);
+      remaining -= count;
+      skipped += count;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    if (finished || remaining == 0) {
+      return 0;
+    }
+    return (int) Math.min(remaining, connection.input().remaining());
+  }
+
+  /**
+   * Discards what the handler left unread so the next pipelined request can be parsed.
+   *
+   * @return Whether the body ended within {@code limit} bytes; if not, the connection cannot be
+   *     reused.
+   */
+  boolean drain(long limit) throws IOException {
+    long skipped = skip(limit);
+    return skipped < limit || !advance();
+  }
+
+  /** Whether body bytes are left, reading the next chunk header when a chunk is used up. */
+  private boolean advance() throws IOException {
+    if (finished) {
+      return false;
+    }
+    exchange.continueIfExpected();
+    if (remaining > 0) {
+      return true;
+    }
+    if (!chunked) {
+      finished = true;
+      return false;
+    }
+    if (inChunk && !readLine().isEmpty()) {
+      throw new MalformedRequestException(400, "Malformed chunk");
+    }
+    long size = chunkSize(readLine());
+    if (size == 0) {
+      // Trailer fields are read and dropped.
+      while (!readLine().isEmpty()) {}
+      finished = true;
+      return false;
+    }
+    remaining = size;
+    inChunk = true;
+    return true;
+  }
+
+  private ByteBuffer buffered() throws IOException {
+    ByteBuffer input = connection.input();
+    if (!input.hasRemaining() && connection.readMore() < 0) {
+      throw new EOFException("Request body ended early");
+    }
+    return input;
+  }
+
+  private String readLine() throws IOException {
+    StringBuilder line = new StringBuilder();
+    while (true) {
+      byte b = buffered().get();
+      if (b == '\n') {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+          line.setLength(end - 1);
+        }
+        return line.toString();
+      }
+      if (line.length() == MAX_CHUNK_LINE) {
+        throw new MalformedRequestException(400, "Chunk header too long");
+      }
+      line.append((char) b);
+    }
+  }
+
+  private static long chunkSize(String line) throws MalformedRequestException {
+    int end = line.indexOf(';');
+    String hex = (end < 0 ? line : line.substring(0, end)).strip();
+    if (hex.isEmpty() || hex.length() > 15) {
+      throw new MalformedRequestException(400, "Malformed chunk size");
+    }
+    try {
+      return Long.parseLong(hex, 16);
+    } catch (NumberFormatException e) {
+      throw new MalformedRequestException(400, "Malformed chunk size");
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.sun.net.httpserver.Headers;
+
+/**
+ * A parsed request line and header block.
+ *
+ * @param contentLength The declared body length, or -1 when there is none or it is chunked.
+ * @param keepAlive Whether the client allows the connection to be reused after this request.
+ */
+record RequestHead(
+    String method,
+    String target,
+    String version,
+    Headers headers,
+    long contentLength,
+    boolean chunked,
+    boolean keepAlive,
+    boolean expectContinue) {
+
+  boolean isHead() {
+    return method.equals("HEAD");
+  }
+
+  boolean isHttp10() {
+    return version.equals("HTTP/1.0");
+  }
+
+  /** Whether this is the start of an HTTP/2 connection preface rather than a request. */
+  boolean isHttp2Preface() {
+    return version.equals("HTTP/2.0");
+  }
+
+  boolean hasBody() {
+    return chunked || contentLength > 0;
+  }
+}
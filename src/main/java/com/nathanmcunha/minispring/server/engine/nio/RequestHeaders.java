@@ -0,0 +1,203 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.sun.net.httpserver.Headers;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Request headers kept as the raw bytes of the head, with the bounds of each field, until they are
+ * needed as a map.
+ *
+ * <p>Looking up one header by name, as handlers, interceptors and the dispatcher almost always do,
+ * scans the fields and decodes only the matching value. Anything that needs the whole map, such as
+ * iterating or changing it, parses every field into it once, and from then on this behaves exactly
+ * like {@link Headers}. A request whose headers nobody reads never turns them into strings at all.
+ */
+final class RequestHeaders extends Headers {
+
+  // Null once the fields have been parsed into the map.
+  private byte[] head;
+  // Four offsets per field: name start, name end, value start, value end.
+  private int[] fields;
+  private int count;
+
+  RequestHeaders(byte[] head, int[] fields, int count) {
+    this.head = head;
+    this.fields = fields;
+    this.count = count;
+  }
+
+  @Override
+  public String getFirst(String key) {
+    if (head == null) {
+      return super.getFirst(key);
+    }
+    int field = find(key);
+    return field < 0 ? null : value(field);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (head == null || !(key instanceof String name)) {
+      return super.containsKey(key);
+    }
+    return find(name) >= 0;
+  }
+
+  @Override
+  public List<String> get(Object key) {
+    parse();
+    return super.get(key);
+  }
+
+  @Override
+  public int size() {
+    parse();
+    return super.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return head == null ? super.isEmpty() : count == 0;
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    parse();
+    return super.containsValue(value);
+  }
+
+  @Override
+  public List<String> put(String key, List<String> value) {
+    parse();
+    return super.put(key, value);
+  }
+
+  @Override
+  public void add(String key, String value) {
+    parse();
+    super.add(key, value);
+  }
+
+  @Override
+  public void set(String key, String value) {
+    parse();
+    super.set(key, value);
+  }
+
+  @Override
+  public List<String> remove(Object key) {
+    parse();
+    return super.remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ? extends List<String>> t) {
+    parse();
+    super.putAll(t);
+  }
+
+  @Override
+  public void clear() {
+    parse();
+    super.clear();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    parse();
+    return super.keySet();
+  }
+
+  @Override
+  public Collection<List<String>> values() {
+    parse();
+    return super.values();
+  }
+
+  @Override
+  public Set<Map.Entry<String, List<String>>> entrySet() {
+    parse();
+    return super.entrySet();
+  }
+
+  @Override
+  public void replaceAll(
+      BiFunction<? super String, ? super List<String>, ? extends List<String>> function) {
+    parse();
+    super.replaceAll(function);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    parse();
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    parse();
+    return super.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    parse();
+    return super.toString();
+  }
+
+  /** Moves every field into the map, once. */
+  private void parse() {
+    if (head == null) {
+      return;
+    }
+    byte[] raw = head;
+    head = null;
+    for (int field = 0; field < count; field++) {
+      int offset = 4 * field;
+      super.add(
+          string(raw, fields[offset], fields[offset + 1]),
+          string(raw, fields[offset + 2], fields[offset + 3]));
+    }
+    fields = null;
+  }
+
+  /** The index of the first field named {@code name} in any case, or -1. */
+  private int find(String name) {
+    int length = name.length();
+    for (int field = 0; field < count; field++) {
+      int start = fields[4 * field];
+      if (fields[4 * field + 1] - start != length) {
+        continue;
+      }
+      int i = 0;
+      while (i < length && equalsIgnoreCase(head[start + i], name.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        return field;
+      }
+    }
+    return -1;
+  }
+
+  private String value(int field) {
+    return string(head, fields[4 * field + 2], fields[4 * field + 3]);
+  }
+
+  private static boolean equalsIgnoreCase(byte b, char c) {
+    if (b == c) {
+      return true;
+    }
+    int lower = b | 0x20;
+    return lower >= 'a' && lower <= 'z' && lower == (c | 0x20);
+  }
+
+  private static String string(byte[] bytes, int from, int to) {
+    return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+  }
+}
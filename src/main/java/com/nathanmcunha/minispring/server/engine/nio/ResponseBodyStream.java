@@ -0,0 +1,268 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.FileTransfer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes a response head and body through one pooled direct buffer.
+ *
+ * <p>The head is buffered together with the start of the body, so a small response leaves in a
+ * single write. Chunked bodies reserve a fixed-width chunk header in front of each buffer's worth
+ * of data and fill in the size (zero-padded hex, which RFC 9112 allows) when the buffer is sent,
+ * so chunk framing costs no extra copy or write.
+ *
+ * <p>File regions bypass the buffer: whatever is buffered is sent first, then the region goes out
+ * with {@code sendfile}, as a chunk of its own when chunked.
+ */
+final class ResponseBodyStream extends OutputStream implements FileTransfer {
+
+  enum Framing {
+    /** No body follows the head, as for HEAD requests and 204/304 responses. */
+    NONE,
+    /** The body length was declared with Content-Length. */
+    FIXED,
+    CHUNKED,
+    /** An HTTP/1.0 client with an unknown length: the body ends when the connection closes. */
+    UNTIL_CLOSE
+  }
+
+  // "%08x\r\n"
+  private static final int CHUNK_HEADER = 10;
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+  private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes();
+
+  private final Connection connection;
+  private ByteBuffer buffer;
+  private Framing framing;
+  private long remaining;
+  private boolean discard;
+  private int chunkStart = -1;
+  private boolean closed;
+
+  ResponseBodyStream(Connection connection) {
+    this.connection = connection;
+  }
+
+  /** Buffers the status line and headers, which must be plain ASCII. */
+  void writeHead(CharSequence head) throws IOException {
+    ByteBuffer out = buffer();
+    for (int i = 0; i < head.length(); i++) {
+      if (!out.hasRemaining()) {
+        send();
+      }
+      out.put((byte) head.charAt(i));
+    }
+  }
+
+  /**
+   * Starts the body.
+   *
+   * @param length The declared length for {@link Framing#FIXED}.
+   * @param discard Whether to drop the body, as for HEAD requests.
+   */
+  void begin(Framing framing, long length, boolean discard) {
+    this.framing = framing;
+    this.remaining = length;
+    this.discard = discard;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (!accept(length)) {
+      return;
+    }
+    while (length > 0) {
+      int room = room();
+      if (room == 0) {
+        send();
+        continue;
+      }
+      int count = Math.min(room, length);
+      buffer.put(bytes, offset, count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  @Override
+  public void transferFrom(FileChannel file, long position, long count) throws IOException {
+    if (beginRegion(count)) {
+      connection.transfer(file, position, count);
+      endRegion();
+    }
+  }
+
+  @Override
+  public void transferFrom(ByteBuffer source) throws IOException {
+    if (beginRegion(source.remaining())) {
+      connection.write(source.duplicate());
+      endRegion();
+    }
+  }
+
+  /** Sends everything buffered so far, including a partial chunk. */
+  @Override
+  public void flush() throws IOException {
+    if (!closed && buffer != null && buffer.position() > 0) {
+      send();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (framing == Framing.CHUNKED && !discard) {
+        sealChunk();
+        if (buffer.remaining() < LAST_CHUNK.length) {
+          send();
+        }
+        buffer.put(LAST_CHUNK);
+      }
+      if (buffer != null && buffer.position() > 0) {
+        send();
+      }
+      if (framing == Framing.FIXED && remaining > 0) {
+        throw new IOException("Response body is shorter than its Content-Length");
+      }
+    } finally {
+      if (buffer != null) {
+        connection.engine().releaseBuffer(buffer);
+        buffer = null;
+      }
+    }
+  }
+
+  /**
+   * Drops the response after a failure mid-body, without sending what is buffered or the last
+   * chunk. The connection must be closed afterwards so the client sees the body cut off.
+   */
+  void abandon() {
+    closed = true;
+    if (buffer != null) {
+      connection.engine().releaseBuffer(buffer);
+      buffer = null;
+    }
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Checks {@code length} more body bytes against the framing.
+   *
+   * @return Whether the bytes should be sent rather than dropped.
+   */
+  private boolean accept(long length) throws IOException {
+    if (closed) {
+      throw new IOException("Response body is closed");
+    }
+    if (framing == null) {
+      throw new IOException("Response headers have not been sent");
+    }
+    if (framing == Framing.NONE) {
+      if (discard || length == 0) {
+        return false;
+      }
+      throw new IOException("This response has no body");
+    }
+    if (framing == Framing.FIXED) {
+      if (length > remaining) {
+        throw new IOException("Response body is longer than its Content-Length");
+      }
+      remaining -= length;
+    }
+    return !discard;
+  }
+
+  /**
+   * Prepares to send {@code count} bytes around the buffer: sends what is buffered and, when
+   * chunked, the header of a chunk holding just the region.
+   *
+   * @return Whether the region should be sent at all.
+   */
+  private boolean beginRegion(long count) throws IOException {
+    if (!accept(count) || count == 0) {
+      return false;
+    }
+    if (buffer().position() > 0) {
+      send();
+    }
+    if (framing == Framing.CHUNKED) {
+      writeHead(Long.toHexString(count));
+      writeHead("\r\n");
+      send();
+    }
+    return true;
+  }
+
+  /** Ends a region's chunk; the CRLF waits in the buffer for whatever is sent next. */
+  private void endRegion() throws IOException {
+    if (framing == Framing.CHUNKED) {
+      writeHead("\r\n");
+    }
+  }
+
+  private ByteBuffer buffer() {
+    if (buffer == null) {
+      buffer = connection.engine().acquireBuffer();
+    }
+    return buffer;
+  }
+
+  /** Room left for body bytes, opening a new chunk first when chunked. */
+  private int room() {
+    ByteBuffer out = buffer();
+    if (framing != Framing.CHUNKED) {
+      return out.remaining();
+    }
+    if (chunkStart < 0) {
+      if (out.remaining() <= CHUNK_HEADER + 2) {
+        return 0;
+      }
+      chunkStart = out.position();
+      out.position(chunkStart + CHUNK_HEADER);
+    }
+    // Keep two bytes for the CRLF that ends the chunk.
+    return Math.max(0, out.remaining() - 2);
+  }
+
+  private void sealChunk() {
+    if (chunkStart < 0) {
+      return;
+    }
+    int size = buffer.position() - chunkStart - CHUNK_HEADER;
+    if (size == 0) {
+      buffer.position(chunkStart);
+    } else {
+      for (int i = 0; i < 8; i++) {
+        buffer.put(chunkStart + i, HEX[(size >>> (28 - 4 * i)) & 0xF]);
+      }
+      buffer.put(chunkStart + 8, (byte) '\r').put(chunkStart + 9, (byte) '\n');
+      buffer.put((byte) '\r').put((byte) '\n');
+    }
+    chunkStart = -1;
+  }
+
+  private void send() throws IOException {
+    sealChunk();
+    buffer.flip();
+    try {
+      connection.write(buffer);
+    } finally {
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A selector thread watching its share of the connections. It reads request heads for idle
+ * connections, wakes handler threads waiting on a socket, and closes connections that stay idle
+ * past the configured timeout.
+ */
+final class SelectorLoop {
+
+  private static final System.Logger LOG = System.getLogger(NioServerEngine.class.getName());
+  private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+  private final NioServerEngine engine;
+  private final Selector selector;
+  private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  SelectorLoop(NioServerEngine engine, int index) throws IOException {
+    this.engine = engine;
+    this.selector = Selector.open();
+    // Selecting blocks the carrier, so selectors get platform threads; handlers do not.
+    this.thread = Thread.ofPlatform().name("minispring-selector-" + index).unstarted(this::run);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /** Hands over a freshly accepted, non-blocking channel. Called from acceptor threads. */
+  void accept(SocketChannel channel) {
+    accepted.add(channel);
+    selector.wakeup();
+  }
+
+  void wakeup() {
+    selector.wakeup();
+  }
+
+  /** Stops the loop, closing every connection it owns. */
+  void shutdown() throws InterruptedException {
+    running = false;
+    selector.wakeup();
+    thread.join(SWEEP_INTERVAL_MILLIS);
+  }
+
+  private void run() {
+    long nextSweep = System.nanoTime();
+    try {
+      while (running) {
+        selector.select(SelectorLoop::onSelected, SWEEP_INTERVAL_MILLIS);
+        registerAccepted();
+        long now = System.nanoTime();
+        if (now - nextSweep >= 0) {
+          closeIdle(now - engine.config().idleTimeout().toNanos());
+          nextSweep = now + SWEEP_INTERVAL_MILLIS * 1_000_000;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.log(System.Logger.Level.ERROR, "Selector loop failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        ((Connection) key.attachment()).close();
+      }
+      SocketChannel channel;
+      while ((channel = accepted.poll()) != null) {
+        closeQuietly(channel);
+      }
+      try {
+        selector.close();
+      } catch (IOException ignored) {
+        // Shutting down anyway.
+      }
+    }
+  }
+
+  private static void onSelected(SelectionKey key) {
+    ((Connection) key.attachment()).onSelected();
+  }
+
+  private void registerAccepted() {
+    SocketChannel channel;
+    while ((channel = accepted.poll()) != null) {
+      try {
+        Connection connection = new Connection(engine, this, channel);
+        connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+      } catch (IOException e) {
+        closeQuietly(channel);
+      }
+    }
+  }
+
+  private void closeIdle(long idleSince) {
+    for (SelectionKey key : selector.keys()) {
+      Connection connection = (Connection) key.attachment();
+      if (connection.isIdleSince(idleSince)) {
+        connection.close();
+      }
+    }
+  }
+
+  private static void closeQuietly(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+      // Nothing left to do with it.
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpDates;
+
+/** Reason phrases and the {@code Date} header, which only changes once a second. */
+final class StatusLines {
+
+  private record CachedDate(long second, String value) {}
+
+  private static volatile CachedDate date = new CachedDate(-1, "");
+
+  private StatusLines() {}
+
+  static String reason(int status) {
+    return switch (status) {
+      case 100 -> "Continue";
+      case 101 -> "Switching Protocols";
+      case 200 -> "OK";
+      case 201 -> "Created";
+      case 202 -> "Accepted";
+      case 204 -> "No Content";
+      case 206 -> "Partial Content";
+      case 301 -> "Moved Permanently";
+      case 302 -> "Found";
+      case 303 -> "See Other";
+      case 304 -> "Not Modified";
+      case 307 -> "Temporary Redirect";
+      case 308 -> "Permanent Redirect";
+      case 400 -> "Bad Request";
+      case 401 -> "Unauthorized";
+      case 403 -> "Forbidden";
+      case 404 -> "Not Found";
+      case 405 -> "Method Not Allowed";
+      case 408 -> "Request Timeout";
+      case 409 -> "Conflict";
+      case 411 -> "Length Required";
+      case 413 -> "Content Too Large";
+      case 415 -> "Unsupported Media Type";
+      case 429 -> "Too Many Requests";
+      case 431 -> "Request Header Fields Too Large";
+      case 500 -> "Internal Server Error";
+      case 501 -> "Not Implemented";
+      case 502 -> "Bad Gateway";
+      case 503 -> "Service Unavailable";
+      case 504 -> "Gateway Timeout";
+      case 505 -> "HTTP Version Not Supported";
+      default -> "";
+    };
+  }
+
+  /** The current time as an HTTP date, formatted at most once per second. */
+  static String date() {
+    long second = System.currentTimeMillis() / 1000;
+    CachedDate cached = date;
+    if (cached.second() != second) {
+      cached = new CachedDate(second, HttpDates.format(second * 1000));
+      date = cached;
+    }
+    return cached.value();
+  }
+}
@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import com.nathanmcunha.minispring.server.engine.UpgradedConnection;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** A {@link Connection} after the 101 response, read and written as it is. */
+final class UpgradedSocket implements UpgradedConnection {
+
+  private final Connection connection;
+
+  UpgradedSocket(Connection connection) {
+    this.connection = connection;
+  }
+
+  @Override
+  public ByteBuffer await(int atLeast) throws IOException {
+    return connection.awaitInput(atLeast);
+  }
+
+  @Override
+  public void write(ByteBuffer source) throws IOException {
+    connection.write(source);
+  }
+
+  @Override
+  public void close() {
+    connection.close();
+  }
+}
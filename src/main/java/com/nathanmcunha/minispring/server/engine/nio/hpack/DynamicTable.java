@@ -0,0 +1,111 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+/**
+ * The dynamic table of RFC 7541, section 2.3.2: a FIFO of recent fields, bounded by the sum of
+ * their sizes, held in a ring buffer. Index 1 is the newest entry.
+ */
+final class DynamicTable {
+
+  // RFC 7541 section 4.1: each entry costs 32 bytes on top of its name and value.
+  private static final int ENTRY_OVERHEAD = 32;
+
+  private String[] names = new String[16];
+  private String[] values = new String[16];
+  private int head;
+  private int length;
+  private int size;
+  private int maxSize;
+
+  DynamicTable(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  int length() {
+    return length;
+  }
+
+  int maxSize() {
+    return maxSize;
+  }
+
+  String name(int index) {
+    return names[slot(index)];
+  }
+
+  String value(int index) {
+    return values[slot(index)];
+  }
+
+  void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    evict(0);
+  }
+
+  /** Adds a field, evicting the oldest first; one larger than the table just empties it. */
+  void add(String name, String value) {
+    int entrySize = sizeOf(name, value);
+    evict(entrySize);
+    if (entrySize > maxSize) {
+      return;
+    }
+    if (length == names.length) {
+      grow();
+    }
+    head = (head + names.length - 1) % names.length;
+    names[head] = name;
+    values[head] = value;
+    length++;
+    size += entrySize;
+  }
+
+  /** The index of {@code name} with {@code value}, or 0. */
+  int indexOf(String name, String value) {
+    for (int i = 1; i <= length; i++) {
+      int slot = slot(i);
+      if (names[slot].equals(name) && values[slot].equals(value)) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
+  /** The index of some entry named {@code name}, or 0. */
+  int indexOf(String name) {
+    for (int i = 1; i <= length; i++) {
+      if (names[slot(i)].equals(name)) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
+  private static int sizeOf(String name, String value) {
+    return name.length() + value.length() + ENTRY_OVERHEAD;
+  }
+
+  private void evict(int room) {
+    while (length > 0 && size + room > maxSize) {
+      int oldest = slot(length);
+      size -= sizeOf(names[oldest], values[oldest]);
+      names[oldest] = null;
+      values[oldest] = null;
+      length--;
+    }
+  }
+
+  private int slot(int index) {
+    return (head + index - 1) % names.length;
+  }
+
+  private void grow() {
+    String[] newNames = new String[names.length * 2];
+    String[] newValues = new String[names.length * 2];
+    for (int i = 1; i <= length; i++) {
+      newNames[i - 1] = names[slot(i)];
+      newValues[i - 1] = values[slot(i)];
+    }
+    names = newNames;
+    values = newValues;
+    head = 0;
+  }
+}
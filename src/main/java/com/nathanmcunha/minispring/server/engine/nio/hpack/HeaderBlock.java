@@ -0,0 +1,61 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** A growable buffer that an {@link HpackEncoder} writes one header block into. */
+public final class HeaderBlock {
+
+  private byte[] bytes = new byte[256];
+  private int size;
+
+  public int size() {
+    return size;
+  }
+
+  /** The encoded block, valid until the next one is started. */
+  public ByteBuffer bytes() {
+    return ByteBuffer.wrap(bytes, 0, size);
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  void put(int b) {
+    if (size == bytes.length) {
+      bytes = Arrays.copyOf(bytes, size * 2);
+    }
+    bytes[size++] = (byte) b;
+  }
+
+  /** Writes {@code value} with an {@code prefix}-bit prefix, under the bits of {@code first}. */
+  void putInteger(int first, int prefix, int value) {
+    int max = (1 << prefix) - 1;
+    if (value < max) {
+      put(first | value);
+      return;
+    }
+    put(first | max);
+    value -= max;
+    while (value >= 0x80) {
+      put(value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    put(value);
+  }
+
+  /** Writes a string literal, Huffman-encoded when that is shorter. */
+  void putString(String value) {
+    int huffman = Huffman.encodedLength(value);
+    if (huffman < value.length()) {
+      putInteger(0x80, 7, huffman);
+      Huffman.encode(value, this);
+      return;
+    }
+    putInteger(0, 7, value.length());
+    for (int i = 0, n = value.length(); i < n; i++) {
+      put(value.charAt(i));
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the header blocks of one HTTP/2 connection, in the order they arrive, keeping the
+ * dynamic table that the peer's encoder indexes into.
+ */
+public final class HpackDecoder {
+
+  /** Receives the fields of a header block, in order. */
+  @FunctionalInterface
+  public interface Sink {
+    void header(String name, String value);
+  }
+
+  private final DynamicTable table;
+  private final int maxTableSize;
+
+  // The block being decoded.
+  private byte[] block;
+  private int position;
+  private int end;
+
+  /**
+   * @param maxTableSize The {@code SETTINGS_HEADER_TABLE_SIZE} announced to the peer; the peer may
+   *     shrink its table below this, never grow it beyond.
+   */
+  public HpackDecoder(int maxTableSize) {
+    this.maxTableSize = maxTableSize;
+    this.table = new DynamicTable(maxTableSize);
+  }
+
+  /**
+   * Decodes a complete header block, including its continuations. Fields beyond {@code
+   * maxListSize} (counted as in {@code SETTINGS_MAX_HEADER_LIST_SIZE}) are still decoded, so the
+   * table stays in step with the peer's, but no longer handed to {@code sink}.
+   *
+   * @return Whether every field fit within {@code maxListSize}.
+   * @throws HpackException If the block is malformed; the connection cannot go on after that.
+   */
+  public boolean decode(byte[] block, int offset, int length, int maxListSize, Sink sink)
+      throws HpackException {
+    this.block = block;
+    this.position = offset;
+    this.end = offset + length;
+    long listSize = 0;
+    boolean fieldsSeen = false;
+    while (position < end) {
+      int first = block[position] & 0xFF;
+      String name;
+      String value;
+      if ((first & 0x80) != 0) {
+        int index = readInteger(7);
+        name = name(index);
+        value =
+            index <= StaticTable.SIZE
+                ? StaticTable.value(index)
+                : table.value(index - StaticTable.SIZE);
+      } else if ((first & 0x40) != 0) {
+        int index = readInteger(6);
+        name = index == 0 ? readString() : name(index);
+        value = readString();
+        table.add(name, value);
+      } else if ((first & 0x20) != 0) {
+        if (fieldsSeen) {
+          throw new HpackException("Table size update after a header field");
+        }
+        int size = readInteger(5);
+        if (size > maxTableSize) {
+          throw new HpackException("Table size " + size + " exceeds the announced limit");
+        }
+        table.setMaxSize(size);
+        continue;
+      } else {
+        // Literal without indexing (0000) or never indexed (0001): same layout.
+        int index = readInteger(4);
+        name = index == 0 ? readString() : name(index);
+        value = readString();
+      }
+      fieldsSeen = true;
+      listSize += name.length() + value.length() + 32;
+      if (listSize <= maxListSize) {
+        sink.header(name, value);
+      }
+    }
+    this.block = null;
+    return listSize <= maxListSize;
+  }
+
+  private String name(int index) throws HpackException {
+    if (index == 0 || index > StaticTable.SIZE + table.length()) {
+      throw new HpackException("Invalid table index " + index);
+    }
+    return index <= StaticTable.SIZE
+        ? StaticTable.name(index)
+        : table.name(index - StaticTable.SIZE);
+  }
+
+  /** RFC 7541 section 5.1, with the prefix in the low {@code prefix} bits of the current byte. */
+  private int readInteger(int prefix) throws HpackException {
+    int max = (1 << prefix) - 1;
+    long value = block[position++] & max;
+    if (value < max) {
+      return (int) value;
+    }
+    for (int shift = 0; shift <= 28; shift += 7) {
+      if (position == end) {
+        throw new HpackException("Truncated integer");
+      }
+      int b = block[position++] & 0xFF;
+      value += (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (value > Integer.MAX_VALUE) {
+          break;
+        }
+        return (int) value;
+      }
+    }
+    throw new HpackException("Integer overflow");
+  }
+
+  private String readString() throws HpackException {
+    if (position == end) {
+      throw new HpackException("Truncated string");
+    }
+    boolean huffman = (block[position] & 0x80) != 0;
+    int length = readInteger(7);
+    if (length > end - position) {
+      throw new HpackException("String longer than its block");
+    }
+    String value =
+        huffman
+            ? Huffman.decode(block, position, length)
+            : new String(block, position, length, StandardCharsets.ISO_8859_1);
+    position += length;
+    return value;
+  }
+}
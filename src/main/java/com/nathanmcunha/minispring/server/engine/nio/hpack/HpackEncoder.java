@@ -0,0 +1,81 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import java.util.Set;
+
+/**
+ * Encodes the header blocks of one HTTP/2 connection. Blocks must be written to the connection
+ * in the order they were encoded, since each may add to the dynamic table the next ones refer to.
+ *
+ * <p>Fields that recur from response to response, such as a content type or a cache policy, are
+ * added to the dynamic table and cost a byte or two from then on. Those that rarely repeat, such
+ * as the date or an ETag, are sent as literals so they do not push the useful entries out, and
+ * cookies are marked never to be indexed.
+ */
+public final class HpackEncoder {
+
+  private static final Set<String> NOT_INDEXED =
+      Set.of("content-length", "date", "etag", "last-modified", "expires", "location", "age");
+  private static final Set<String> NEVER_INDEXED =
+      Set.of("set-cookie", "authorization", "proxy-authorization");
+
+  private final DynamicTable table;
+  private final int maxTableSize;
+  private int pendingSizeUpdate = -1;
+
+  /** @param maxTableSize The largest table this encoder will use, at most 4096 to begin with. */
+  public HpackEncoder(int maxTableSize) {
+    this.maxTableSize = maxTableSize;
+    this.table = new DynamicTable(Math.min(maxTableSize, 4096));
+  }
+
+  /**
+   * Adapts to the peer's {@code SETTINGS_HEADER_TABLE_SIZE}; the change is announced at the start
+   * of the next block.
+   */
+  public void setPeerTableSize(int size) {
+    int next = Math.min(size, maxTableSize);
+    if (next != table.maxSize()) {
+      table.setMaxSize(next);
+      pendingSizeUpdate = next;
+    }
+  }
+
+  /** Starts a new block in {@code out}, discarding what it held. */
+  public void begin(HeaderBlock out) {
+    out.clear();
+    if (pendingSizeUpdate >= 0) {
+      out.putInteger(0x20, 5, pendingSizeUpdate);
+      pendingSizeUpdate = -1;
+    }
+  }
+
+  /** Appends a field to the block; {@code name} must be in lower case. */
+  public void header(String name, String value, HeaderBlock out) {
+    int exact = StaticTable.indexOf(name, value);
+    if (exact == 0) {
+      int dynamic = table.indexOf(name, value);
+      exact = dynamic == 0 ? 0 : dynamic + StaticTable.SIZE;
+    }
+    if (exact > 0) {
+      out.putInteger(0x80, 7, exact);
+      return;
+    }
+    int nameIndex = StaticTable.indexOf(name);
+    if (nameIndex == 0) {
+      int dynamic = table.indexOf(name);
+      nameIndex = dynamic == 0 ? 0 : dynamic + StaticTable.SIZE;
+    }
+    if (NEVER_INDEXED.contains(name)) {
+      out.putInteger(0x10, 4, nameIndex);
+    } else if (NOT_INDEXED.contains(name)) {
+      out.putInteger(0x00, 4, nameIndex);
+    } else {
+      out.putInteger(0x40, 6, nameIndex);
+      table.add(name, value);
+    }
+    if (nameIndex == 0) {
+      out.putString(name);
+    }
+    out.putString(value);
+  }
+}
@@ -0,0 +1,13 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import java.io.IOException;
+
+/** A header block that cannot be decoded, which HTTP/2 treats as a connection error. */
+public final class HpackException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  public HpackException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,115 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** The static table of RFC 7541, Appendix A, indexed from 1. */
+final class StaticTable {
+
+  static final int SIZE = 61;
+
+  private static final String[][] ENTRIES = {
+    {":authority", ""},
+    {":method", "GET"},
+    {":method", "POST"},
+    {":path", "/"},
+    {":path", "/index.html"},
+    {":scheme", "http"},
+    {":scheme", "https"},
+    {":status", "200"},
+    {":status", "204"},
+    {":status", "206"},
+    {":status", "304"},
+    {":status", "400"},
+    {":status", "404"},
+    {":status", "500"},
+    {"accept-charset", ""},
+    {"accept-encoding", "gzip, deflate"},
+    {"accept-language", ""},
+    {"accept-ranges", ""},
+    {"accept", ""},
+    {"access-control-allow-origin", ""},
+    {"age", ""},
+    {"allow", ""},
+    {"authorization", ""},
+    {"cache-control", ""},
+    {"content-disposition", ""},
+    {"content-encoding", ""},
+    {"content-language", ""},
+    {"content-length", ""},
+    {"content-location", ""},
+    {"content-range", ""},
+    {"content-type", ""},
+    {"cookie", ""},
+    {"date", ""},
+    {"etag", ""},
+    {"expect", ""},
+    {"expires", ""},
+    {"from", ""},
+    {"host", ""},
+    {"if-match", ""},
+    {"if-modified-since", ""},
+    {"if-none-match", ""},
+    {"if-range", ""},
+    {"if-unmodified-since", ""},
+    {"last-modified", ""},
+    {"link", ""},
+    {"location", ""},
+    {"max-forwards", ""},
+    {"proxy-authenticate", ""},
+    {"proxy-authorization", ""},
+    {"range", ""},
+    {"referer", ""},
+    {"refresh", ""},
+    {"retry-after", ""},
+    {"server", ""},
+    {"set-cookie", ""},
+    {"strict-transport-security", ""},
+    {"transfer-encoding", ""},
+    {"user-agent", ""},
+    {"vary", ""},
+    {"via", ""},
+    {"www-authenticate", ""},
+  };
+
+  // Only entries up to this one have values.
+  private static final int LAST_WITH_VALUE = 16;
+
+  // The first index of each name.
+  private static final Map<String, Integer> NAMES = new HashMap<>();
+
+  static {
+    for (int i = ENTRIES.length; i > 0; i--) {
+      NAMES.put(ENTRIES[i - 1][0], i);
+    }
+  }
+
+  private StaticTable() {}
+
+  static String name(int index) {
+    return ENTRIES[index - 1][0];
+  }
+
+  static String value(int index) {
+    return ENTRIES[index - 1][1];
+  }
+
+  /** The index of {@code name}, or 0. */
+  static int indexOf(String name) {
+    return NAMES.getOrDefault(name, 0);
+  }
+
+  /** The index of {@code name} with {@code value}, or 0. */
+  static int indexOf(String name, String value) {
+    int index = indexOf(name);
+    if (index == 0) {
+      return 0;
+    }
+    for (; index <= LAST_WITH_VALUE && ENTRIES[index - 1][0].equals(name); index++) {
+      if (ENTRIES[index - 1][1].equals(value)) {
+        return index;
+      }
+    }
+    return 0;
+  }
+}
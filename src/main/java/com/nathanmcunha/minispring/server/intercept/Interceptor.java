@@ -0,0 +1,36 @@
+package com.nathanmcunha.minispring.server.intercept;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Cross-cutting work around the routes selected by {@link
+ * com.nathanmcunha.minispring.annotations.Intercepts}, such as authentication, tracing or common
+ * headers.
+ *
+ * <p>For each request the dispatcher calls {@link #before} on the route's interceptors in order,
+ * then the handler, then {@link #afterCompletion} in reverse order. Headers set on the exchange in
+ * {@code before} are kept in the response, whether the handler or the response cache produces it.
+ */
+public interface Interceptor {
+
+  /**
+   * Runs before the handler.
+   *
+   * @return null to let the request through, or a response to send instead of calling the later
+   *     interceptors and the handler.
+   * @throws Exception to fail the request with a 500.
+   */
+  default Response<?> before(HttpExchange exchange, RouteMatch match) throws Exception {
+    return null;
+  }
+
+  /**
+   * Runs once the response is sent or has failed, for every interceptor whose {@link #before}
+   * returned, whatever it returned. The status is {@code exchange.getResponseCode()}.
+   *
+   * @param failure What the dispatcher is about to rethrow, or null.
+   */
+  default void afterCompletion(HttpExchange exchange, RouteMatch match, Throwable failure) {}
+}
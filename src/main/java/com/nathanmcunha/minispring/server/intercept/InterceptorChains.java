@@ -0,0 +1,95 @@
+package com.nathanmcunha.minispring.server.intercept;
+
+import com.nathanmcunha.minispring.annotations.Intercepts;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.registry.BeanFactory;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@link Intercepts} beans of an application, sorted once, from which each route gets the
+ * array of interceptors that apply to it.
+ *
+ * <p>Patterns are only evaluated here, while routes are registered. Dispatch then walks the
+ * route's array by index, so a request costs no pattern matching, chain object or iterator.
+ */
+public final class InterceptorChains {
+
+  public static final Interceptor[] NONE = new Interceptor[0];
+
+  private record Registration(
+      Interceptor interceptor, List<PathPattern> includes, List<PathPattern> excludes) {
+
+    boolean appliesTo(String template) {
+      return includes.stream().anyMatch(pattern -> pattern.matches(template))
+          && excludes.stream().noneMatch(pattern -> pattern.matches(template));
+    }
+  }
+
+  private final List<Registration> registrations;
+
+  private InterceptorChains(List<Registration> registrations) {
+    this.registrations = registrations;
+  }
+
+  /** Finds the {@link Intercepts} beans, which must implement {@link Interceptor}. */
+  public static Result<InterceptorChains, FrameworkError> discover(BeanFactory factory) {
+    List<Class<?>> classes = new ArrayList<>(factory.getBeansWithAnnotation(Intercepts.class));
+    classes.sort(
+        Comparator.<Class<?>>comparingInt(clazz -> clazz.getAnnotation(Intercepts.class).order())
+            .thenComparing(Class::getName));
+
+    List<Registration> registrations = new ArrayList<>(classes.size());
+    for (Class<?> clazz : classes) {
+      var bean = factory.getBean(clazz);
+      if (bean.isEmpty()) {
+        return Result.failure(new FrameworkError.ControllerBeanNotFound(clazz));
+      }
+      if (!(bean.get() instanceof Interceptor interceptor)) {
+        return Result.failure(
+            new FrameworkError.InvalidRouteDefinition(
+                clazz.getName() + " is annotated with @Intercepts but is not an Interceptor"));
+      }
+      Intercepts intercepts = clazz.getAnnotation(Intercepts.class);
+      var registration =
+          parseAll(intercepts.value())
+              .flatMap(
+                  includes ->
+                      parseAll(intercepts.exclude())
+                          .map(excludes -> new Registration(interceptor, includes, excludes)));
+      switch (registration) {
+        case Result.Success<Registration, FrameworkError>(var added) -> registrations.add(added);
+        case Result.Failure<Registration, FrameworkError>(var error) -> {
+          return Result.failure(error);
+        }
+      }
+    }
+    return Result.success(new InterceptorChains(List.copyOf(registrations)));
+  }
+
+  /** The interceptors for the route at {@code template}, in the order they run. */
+  public Interceptor[] forTemplate(String template) {
+    List<Interceptor> chain = new ArrayList<>();
+    for (Registration registration : registrations) {
+      if (registration.appliesTo(template)) {
+        chain.add(registration.interceptor());
+      }
+    }
+    return chain.isEmpty() ? NONE : chain.toArray(Interceptor[]::new);
+  }
+
+  private static Result<List<PathPattern>, FrameworkError> parseAll(String[] sources) {
+    List<PathPattern> patterns = new ArrayList<>(sources.length);
+    for (String source : sources) {
+      switch (PathPattern.parse(source)) {
+        case Result.Success<PathPattern, FrameworkError>(var pattern) -> patterns.add(pattern);
+        case Result.Failure<PathPattern, FrameworkError>(var error) -> {
+          return Result.failure(error);
+        }
+      }
+    }
+    return Result.success(List.copyOf(patterns));
+  }
+}
@@ -0,0 +1,67 @@
+package com.nathanmcunha.minispring.server.intercept;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pattern such as {@code /api/**} or {@code /users/*}, matched against route templates when
+ * routes are registered, never against request paths.
+ *
+ * <p>A literal segment matches the same text, {@code *} any one segment and {@code **} any number
+ * of segments, none included. A template's variable segment is only matched by {@code *}, {@code
+ * **} or its own text, since which values it will capture is not known in advance.
+ */
+public record PathPattern(String source, List<String> segments) {
+
+  private static final String ANY = "*";
+  private static final String ANY_DEPTH = "**";
+
+  public static Result<PathPattern, FrameworkError> parse(String source) {
+    if (!source.startsWith("/")) {
+      return invalid(source, "it must start with '/'");
+    }
+    List<String> segments = split(source);
+    for (String segment : segments) {
+      if (segment.indexOf('*') >= 0 && !segment.equals(ANY) && !segment.equals(ANY_DEPTH)) {
+        return invalid(source, "'*' and '**' must span a whole segment");
+      }
+    }
+    return Result.success(new PathPattern(source, segments));
+  }
+
+  public boolean matches(String template) {
+    return matches(split(template), 0, 0);
+  }
+
+  private boolean matches(List<String> path, int p, int s) {
+    while (s < segments.size()) {
+      String segment = segments.get(s);
+      if (segment.equals(ANY_DEPTH)) {
+        for (int rest = p; rest <= path.size(); rest++) {
+          if (matches(path, rest, s + 1)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      if (p == path.size() || !(segment.equals(ANY) || segment.equals(path.get(p)))) {
+        return false;
+      }
+      p++;
+      s++;
+    }
+    return p == path.size();
+  }
+
+  private static List<String> split(String path) {
+    return Arrays.stream(path.split("/")).filter(part -> !part.isEmpty()).toList();
+  }
+
+  private static Result<PathPattern, FrameworkError> invalid(String source, String reason) {
+    return Result.failure(
+        new FrameworkError.InvalidRouteDefinition(
+            "Invalid interceptor pattern '" + source + "': " + reason));
+  }
+}
@@ -0,0 +1,49 @@
+package com.nathanmcunha.minispring.server.limit;
+
+import java.time.Duration;
+
+/**
+ * Settings for admission control in the dispatcher.
+ *
+ * @param enabled Whether requests are limited at all.
+ * @param global The limit on requests in flight across all routes.
+ * @param route The limit on requests in flight on each route, kept separately for every route so
+ *     that one slow route cannot take every slot.
+ * @param retryAfter What rejected clients are told to wait, sent as {@code Retry-After} in whole
+ *     seconds.
+ */
+public record AdmissionConfig(
+    boolean enabled, LimitConfig global, LimitConfig route, Duration retryAfter) {
+
+  /**
+   * Starts at 500 requests in flight overall (between 20 and 5,000) and 100 per route (between 4
+   * and 1,000), and asks rejected clients to retry after a second.
+   */
+  public static AdmissionConfig defaults() {
+    return new AdmissionConfig(
+        true,
+        new LimitConfig(500, 20, 5_000),
+        new LimitConfig(100, 4, 1_000),
+        Duration.ofSeconds(1));
+  }
+
+  public static AdmissionConfig disabled() {
+    return defaults().withEnabled(false);
+  }
+
+  public AdmissionConfig withEnabled(boolean enabled) {
+    return new AdmissionConfig(enabled, global, route, retryAfter);
+  }
+
+  public AdmissionConfig withGlobal(LimitConfig global) {
+    return new AdmissionConfig(enabled, global, route, retryAfter);
+  }
+
+  public AdmissionConfig withRoute(LimitConfig route) {
+    return new AdmissionConfig(enabled, global, route, retryAfter);
+  }
+
+  public AdmissionConfig withRetryAfter(Duration retryAfter) {
+    return new AdmissionConfig(enabled, global, route, retryAfter);
+  }
+}
@@ -0,0 +1,91 @@
+package com.nathanmcunha.minispring.server.limit;
+
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether the dispatcher takes on a request, against a global limit and one per route.
+ *
+ * <p>Both limits adapt to the latency observed under them (see {@link GradientLimit}), so they
+ * settle near the concurrency the application and its downstreams can actually sustain, rather
+ * than a number picked up front. A request that would exceed either is refused at once, for the
+ * dispatcher to answer with a 503 and {@code Retry-After}. Queueing it would only add its wait to
+ * the latency of everything behind it, while the virtual thread per request means nothing else
+ * bounds how many run at once.
+ */
+public final class AdmissionControl {
+
+  /** The key the global limiter is reported under. */
+  public static final RouteKey GLOBAL = new RouteKey("*", "global");
+
+  private final AdmissionConfig config;
+  private final Limiter global;
+  private final Map<RouteKey, Limiter> limiters = new ConcurrentHashMap<>();
+  private final String retryAfter;
+
+  public AdmissionControl(AdmissionConfig config) {
+    this.config = config;
+    this.global = new Limiter(GLOBAL, config.global());
+    this.retryAfter = Long.toString(Math.max(1, config.retryAfter().toSeconds()));
+    limiters.put(GLOBAL, global);
+  }
+
+  public static AdmissionControl defaults() {
+    return new AdmissionControl(AdmissionConfig.defaults());
+  }
+
+  public static AdmissionControl disabled() {
+    return new AdmissionControl(AdmissionConfig.disabled());
+  }
+
+  public AdmissionConfig config() {
+    return config;
+  }
+
+  /** The limiter of {@code route}, created on its first request. */
+  public Limiter route(RouteKey route) {
+    return limiters.computeIfAbsent(route, key -> new Limiter(key, config.route()));
+  }
+
+  /**
+   * Takes a slot on {@code route} and a global one.
+   *
+   * @return False, with the rejection counted by the limiter that refused, if either is full.
+   */
+  public boolean tryAcquire(Limiter route) {
+    if (!route.tryAcquire()) {
+      return false;
+    }
+    if (!global.tryAcquire()) {
+      route.cancel();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gives back the slots of a request admitted by {@link #tryAcquire}.
+   *
+   * @param nanos How long the request took.
+   * @param dropped Whether it failed in a way that suggests overload, such as a 503 from
+   *     downstream.
+   */
+  public void release(Limiter route, long nanos, boolean dropped) {
+    long now = System.nanoTime();
+    route.release(nanos, dropped, now);
+    global.release(nanos, dropped, now);
+  }
+
+  /** The {@code Retry-After} value for rejected requests, in seconds. */
+  public String retryAfter() {
+    return retryAfter;
+  }
+
+  /** Every route's limiter and the global one. */
+  public Collection<Limiter> limiters() {
+    return Collections.unmodifiableCollection(limiters.values());
+  }
+}
@@ -0,0 +1,110 @@
+package com.nathanmcunha.minispring.server.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that follows latency, in the manner of TCP Vegas and Netflix's gradient
+ * limiter.
+ *
+ * <p>Completions are pooled into windows of at least {@link #WINDOW_NANOS} and {@link #MIN_SAMPLES}
+ * samples. At the end of each, the window's mean latency is compared with a slow moving average of
+ * past windows. While the two agree, the limit grows toward itself plus its square root, the queue
+ * it is allowed to build. Once latency rises above the average, it shrinks in proportion to the
+ * rise. Moves are smoothed over a few windows, except that timeouts and overload responses cut it
+ * by a tenth straight away. A window in which fewer than half of the slots were used says nothing
+ * about capacity and leaves the limit alone, so an idle service does not inflate its limit.
+ *
+ * <p>Recording a sample costs a few adder updates. The window is closed by whichever completion
+ * first finds it over, so there is no timer thread and no lock on the request path.
+ */
+final class GradientLimit {
+
+  static final long WINDOW_NANOS = 100_000_000L;
+  static final int MIN_SAMPLES = 10;
+
+  // Past windows weigh in the long-term average for about this many windows.
+  private static final double LONG_WINDOWS = 20;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF = 0.9;
+
+  private final LimitConfig config;
+  private final LongAdder samples = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAdder drops = new LongAdder();
+  private final LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0);
+  private final AtomicLong windowEnd;
+  private volatile int limit;
+  // Guarded by this, and only touched when a window closes.
+  private double estimate;
+  private double longNanos;
+
+  GradientLimit(LimitConfig config, long now) {
+    this.config = config;
+    this.estimate = config.initialLimit();
+    this.limit = config.initialLimit();
+    this.windowEnd = new AtomicLong(now + WINDOW_NANOS);
+  }
+
+  int limit() {
+    return limit;
+  }
+
+  /**
+   * Records a completed request.
+   *
+   * @param nanos How long the request took.
+   * @param inFlight Requests in flight when it completed, itself included.
+   * @param dropped Whether it timed out or was refused downstream, a sign of overload.
+   * @param now {@link System#nanoTime()}.
+   */
+  void record(long nanos, int inFlight, boolean dropped, long now) {
+    samples.increment();
+    totalNanos.add(nanos);
+    peakInFlight.accumulate(inFlight);
+    if (dropped) {
+      drops.increment();
+    }
+    long end = windowEnd.get();
+    if (now - end >= 0
+        && samples.sum() >= MIN_SAMPLES
+        && windowEnd.compareAndSet(end, now + WINDOW_NANOS)) {
+      closeWindow();
+    }
+  }
+
+  /**
+   * Samples recorded while the adders are being reset may land in either window, which only
+   * blurs a mean over dozens of them.
+   */
+  private synchronized void closeWindow() {
+    long count = samples.sumThenReset();
+    double meanNanos = (double) totalNanos.sumThenReset() / Math.max(1, count);
+    long dropped = drops.sumThenReset();
+    long peak = peakInFlight.getThenReset();
+
+    if (longNanos == 0) {
+      longNanos = meanNanos;
+    } else {
+      longNanos += (meanNanos - longNanos) / LONG_WINDOWS;
+      // After a long overload the average is high and would hide the next one; let it recover.
+      if (longNanos > 2 * meanNanos) {
+        longNanos *= 0.95;
+      }
+    }
+
+    double next;
+    if (dropped > 0) {
+      next = estimate * BACKOFF;
+    } else if (peak < estimate / 2) {
+      return;
+    } else {
+      double gradient = Math.clamp(longNanos / meanNanos, 0.5, 1.0);
+      double target = estimate * gradient + Math.sqrt(estimate);
+      next = estimate * (1 - SMOOTHING) + target * SMOOTHING;
+    }
+    estimate = Math.clamp(next, config.minLimit(), config.maxLimit());
+    limit = (int) estimate;
+  }
+}
@@ -0,0 +1,31 @@
+package com.nathanmcunha.minispring.server.limit;
+
+/**
+ * Bounds for one adaptive concurrency limit.
+ *
+ * @param initialLimit The limit before any latency has been observed.
+ * @param minLimit The limit never goes below this, however slow requests get, so a struggling
+ *     route still serves some traffic and keeps producing the samples it needs to recover.
+ * @param maxLimit The limit never grows beyond this, however fast requests are.
+ */
+public record LimitConfig(int initialLimit, int minLimit, int maxLimit) {
+
+  public LimitConfig {
+    if (minLimit < 1 || minLimit > maxLimit) {
+      throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+    }
+    initialLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+  }
+
+  public LimitConfig withInitialLimit(int initialLimit) {
+    return new LimitConfig(initialLimit, minLimit, maxLimit);
+  }
+
+  public LimitConfig withMinLimit(int minLimit) {
+    return new LimitConfig(initialLimit, minLimit, maxLimit);
+  }
+
+  public LimitConfig withMaxLimit(int maxLimit) {
+    return new LimitConfig(initialLimit, minLimit, maxLimit);
+  }
+}
@@ -0,0 +1,64 @@
+package com.nathanmcunha.minispring.server.limit;
+
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests in flight against an adaptive {@link GradientLimit}, for one route or for
+ * the whole dispatcher. A request over the limit is refused on the spot rather than queued.
+ */
+public final class Limiter {
+
+  private final RouteKey key;
+  private final GradientLimit limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  Limiter(RouteKey key, LimitConfig config) {
+    this.key = key;
+    this.limit = new GradientLimit(config, System.nanoTime());
+  }
+
+  public RouteKey key() {
+    return key;
+  }
+
+  public int limit() {
+    return limit.limit();
+  }
+
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  /** Requests refused because this limit was reached. */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /** Takes a slot, or counts a rejection and returns false if none is free. */
+  boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.limit()) {
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** Gives the slot back and feeds the request's latency to the limit. */
+  void release(long nanos, boolean dropped, long now) {
+    int current = inFlight.getAndDecrement();
+    limit.record(nanos, current, dropped, now);
+  }
+
+  /** Gives back a slot whose request never ran, without it counting as a sample. */
+  void cancel() {
+    inFlight.decrementAndGet();
+  }
+}
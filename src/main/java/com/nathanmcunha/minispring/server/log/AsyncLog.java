@@ -0,0 +1,362 @@
+package com.nathanmcunha.minispring.server.log;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access and error logging that keeps the request path free of I/O and locks.
+ *
+ * <p>A request only builds a small record and {@linkplain RingBuffer#offer offers} it to a
+ * lock-free ring; if the ring is full the record is dropped and counted, so a storm of errors
+ * slows nothing down. One background thread drains the ring, formats the records, stack traces
+ * included, and appends them in batches through one {@link FileChannel} write per buffer, rolling
+ * the file over when it grows too large. A stack trace already written within the duplicate
+ * window, for the same exception type thrown from the same place, is replaced by one line, and the
+ * number left out is reported with the next full trace.
+ */
+public final class AsyncLog implements AutoCloseable {
+
+  private static final int BATCH = 256;
+  private static final int BUFFER_BYTES = 64 * 1024;
+  private static final int MAX_TRACKED_TRACES = 1024;
+
+  private final LogConfig config;
+  private final RingBuffer<Object> ring;
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong suppressed = new AtomicLong();
+  private final Thread writer;
+  private final Thread shutdownHook;
+  private volatile boolean running = true;
+
+  // Only touched by the writer thread.
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  private final StringBuilder line = new StringBuilder(256);
+  private final Map<String, Trace> traces = new HashMap<>();
+  private FileChannel channel;
+  private long fileBytes;
+  private long droppedReported;
+
+  private record Access(
+      long epochMillis,
+      InetSocketAddress remote,
+      String verb,
+      String path,
+      int status,
+      long nanos) {}
+
+  private record Failure(long epochMillis, String message, Throwable cause) {}
+
+  private record Warning(long epochMillis, String message) {}
+
+  /** When a stack trace was last written in full, and how many were left out since. */
+  private static final class Trace {
+    long writtenAt;
+    long suppressed;
+  }
+
+  private AsyncLog(LogConfig config, FileChannel channel, long fileBytes) {
+    this.config = config;
+    this.ring = new RingBuffer<>(config.capacity());
+    this.channel = channel;
+    this.fileBytes = fileBytes;
+    this.writer = Thread.ofPlatform().name("minispring-log").daemon().unstarted(this::run);
+    this.shutdownHook = Thread.ofPlatform().unstarted(this::close);
+  }
+
+  /**
+   * Opens the log file, or standard error, and starts the writer. The log is closed, and what it
+   * still holds written, when the JVM shuts down.
+   */
+  public static AsyncLog start(LogConfig config) throws IOException {
+    var log = unstarted(config);
+    log.startWriter();
+    return log;
+  }
+
+  /** Opens the log without starting the writer, so that records only queue up until it starts. */
+  static AsyncLog unstarted(LogConfig config) throws IOException {
+    FileChannel channel;
+    long size = 0;
+    if (config.file() == null) {
+      channel = new FileOutputStream(FileDescriptor.err).getChannel();
+    } else {
+      Path parent = config.file().toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      channel = open(config.file());
+      size = channel.size();
+    }
+    return new AsyncLog(config, channel, size);
+  }
+
+  void startWriter() {
+    writer.start();
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /** The log shared by dispatchers that were not given one: errors only, to standard error. */
+  public static AsyncLog standardError() {
+    return StandardError.LOG;
+  }
+
+  private static final class StandardError {
+    static final AsyncLog LOG;
+
+    static {
+      try {
+        LOG = start(LogConfig.defaults());
+      } catch (IOException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+  }
+
+  public LogConfig config() {
+    return config;
+  }
+
+  /** Records dropped because the ring was full. */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  /** Stack traces left out as duplicates. */
+  public long suppressed() {
+    return suppressed.get();
+  }
+
+  /** Logs a finished request, if the access log is on. */
+  public void access(
+      InetSocketAddress remote, String verb, String path, int status, long nanos) {
+    if (config.accessLog()) {
+      offer(new Access(System.currentTimeMillis(), remote, verb, path, status, nanos));
+    }
+  }
+
+  /**
+   * Logs an error, with the stack trace of {@code cause} unless the same one was written within
+   * the duplicate window.
+   *
+   * @param cause What was thrown, or null.
+   */
+  public void error(String message, Throwable cause) {
+    offer(new Failure(System.currentTimeMillis(), message, cause));
+  }
+
+  /** Logs something worth noticing that needs no stack trace, such as a client error. */
+  public void warn(String message) {
+    offer(new Warning(System.currentTimeMillis(), message));
+  }
+
+  private void offer(Object record) {
+    if (!running || !ring.offer(record)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /** Stops taking records, writes those still queued and closes the file. */
+  @Override
+  public void close() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (Thread.currentThread() != shutdownHook) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        // Already shutting down.
+      }
+    }
+  }
+
+  private void run() {
+    long parkNanos = config.flushInterval().toNanos();
+    while (true) {
+      boolean stopping = !running;
+      int drained = ring.drain(this::append, BATCH);
+      if (drained == BATCH) {
+        continue;
+      }
+      reportDropped();
+      flush();
+      if (stopping && drained == 0) {
+        break;
+      }
+      if (drained == 0) {
+        LockSupport.parkNanos(this, parkNanos);
+      }
+    }
+    if (config.file() != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Nothing left to write.
+      }
+    }
+  }
+
+  private void append(Object record) {
+    line.setLength(0);
+    switch (record) {
+      case Access access -> {
+        line.append(Instant.ofEpochMilli(access.epochMillis())).append(' ');
+        line.append(access.remote() == null ? "-" : access.remote().getHostString());
+        line.append(" \"").append(access.verb()).append(' ').append(access.path()).append("\" ");
+        line.append(access.status()).append(' ');
+        line.append(access.nanos() / 1_000).append("us\n");
+      }
+      case Failure failure -> {
+        line.append(Instant.ofEpochMilli(failure.epochMillis())).append(" ERROR ");
+        line.append(failure.message()).append('\n');
+        if (failure.cause() != null) {
+          appendTrace(failure.cause(), failure.epochMillis());
+        }
+      }
+      case Warning warning -> {
+        line.append(Instant.ofEpochMilli(warning.epochMillis())).append(" WARN ");
+        line.append(warning.message()).append('\n');
+      }
+      default -> throw new IllegalArgumentException("Unknown log record " + record);
+    }
+    write(line.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** The stack trace of {@code cause}, or one line if it is a duplicate within the window. */
+  private void appendTrace(Throwable cause, long now) {
+    StackTraceElement[] frames = cause.getStackTrace();
+    String key = cause.getClass().getName() + (frames.length == 0 ? "" : " at " + frames[0]);
+    Trace trace = traces.get(key);
+    if (trace != null && now - trace.writtenAt < config.duplicateWindow().toMillis()) {
+      trace.suppressed++;
+      suppressed.incrementAndGet();
+      line.append("  ").append(cause).append(" (stack trace as logged before)\n");
+      return;
+    }
+    if (trace == null) {
+      if (traces.size() == MAX_TRACKED_TRACES) {
+        traces.clear();
+      }
+      trace = new Trace();
+      traces.put(key, trace);
+    }
+    var text = new StringWriter();
+    cause.printStackTrace(new PrintWriter(text));
+    line.append(text);
+    if (trace.suppressed > 0) {
+      line.append("  (").append(trace.suppressed).append(" similar stack traces left out)\n");
+    }
+    trace.writtenAt = now;
+    trace.suppressed = 0;
+  }
+
+  private void reportDropped() {
+    long total = dropped.get();
+    if (total != droppedReported) {
+      line.setLength(0);
+      line.append(Instant.now()).append(" WARN ").append(total - droppedReported);
+      line.append(" log records dropped, the log could not keep up\n");
+      droppedReported = total;
+      write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /** Buffers one formatted record, rolling the file over first if it would not fit. */
+  private void write(byte[] bytes) {
+    long pending = fileBytes + buffer.position();
+    if (config.file() != null && pending > 0 && pending + bytes.length > config.maxFileBytes()) {
+      flush();
+      try {
+        roll();
+      } catch (IOException e) {
+        failed();
+      }
+    }
+    if (bytes.length > buffer.remaining()) {
+      flush();
+    }
+    if (bytes.length > buffer.capacity()) {
+      writeOut(ByteBuffer.wrap(bytes));
+    } else {
+      buffer.put(bytes);
+    }
+  }
+
+  private void flush() {
+    if (buffer.position() == 0) {
+      return;
+    }
+    buffer.flip();
+    writeOut(buffer);
+    buffer.clear();
+  }
+
+  private void writeOut(ByteBuffer bytes) {
+    try {
+      while (bytes.hasRemaining()) {
+        fileBytes += channel.write(bytes);
+      }
+    } catch (IOException e) {
+      failed();
+    }
+  }
+
+  /** Counts a batch lost to a failed write, without reporting it to the channel that failed. */
+  private void failed() {
+    dropped.incrementAndGet();
+    droppedReported++;
+  }
+
+  /** Renames {@code file.n} to {@code file.n+1}, the oldest falling off, and starts a new file. */
+  private void roll() throws IOException {
+    channel.close();
+    Path file = config.file();
+    if (config.maxFiles() == 0) {
+      Files.deleteIfExists(file);
+    } else {
+      Files.deleteIfExists(rolled(file, config.maxFiles()));
+      for (int i = config.maxFiles() - 1; i >= 1; i--) {
+        Path from = rolled(file, i);
+        if (Files.exists(from)) {
+          Files.move(from, rolled(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      Files.move(file, rolled(file, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+    channel = open(file);
+    fileBytes = 0;
+  }
+
+  private static Path rolled(Path file, int generation) {
+    return file.resolveSibling(file.getFileName() + "." + generation);
+  }
+
+  private static FileChannel open(Path file) throws IOException {
+    return FileChannel.open(
+        file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+}
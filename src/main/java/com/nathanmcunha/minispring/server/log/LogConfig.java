@@ -0,0 +1,92 @@
+package com.nathanmcunha.minispring.server.log;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Where an {@link AsyncLog} writes, and how much it buffers on the way.
+ *
+ * @param file The log file, rolled over at {@code maxFileBytes}; null to write to standard error,
+ *     which is never rolled.
+ * @param accessLog Whether a line is written for every request, not only for errors.
+ * @param maxFileBytes How large the file may grow before it is renamed to {@code file.1}, the
+ *     previous {@code file.1} to {@code file.2}, and so on.
+ * @param maxFiles How many rolled files are kept besides the current one.
+ * @param capacity Records waiting for the writer, rounded up to a power of two. Requests that find
+ *     it full drop their record and count it rather than wait.
+ * @param flushInterval How long the writer sleeps when there is nothing to write, which bounds how
+ *     late a record reaches the file.
+ * @param duplicateWindow For how long after a stack trace is written the same failure, thrown from
+ *     the same place, is logged as one line with the trace left out.
+ */
+public record LogConfig(
+    Path file,
+    boolean accessLog,
+    long maxFileBytes,
+    int maxFiles,
+    int capacity,
+    Duration flushInterval,
+    Duration duplicateWindow) {
+
+  public LogConfig {
+    if (maxFileBytes < 1 || maxFiles < 0 || capacity < 2) {
+      throw new IllegalArgumentException(
+          "maxFileBytes must be positive, maxFiles not negative and capacity at least 2");
+    }
+    if (flushInterval.isNegative() || flushInterval.isZero()) {
+      throw new IllegalArgumentException("The flush interval must be positive");
+    }
+  }
+
+  /** Errors only, to standard error. */
+  public static LogConfig defaults() {
+    return new LogConfig(
+        null,
+        false,
+        64 * 1024 * 1024,
+        5,
+        8192,
+        Duration.ofMillis(20),
+        Duration.ofSeconds(60));
+  }
+
+  /** Errors and an access log line per request, to {@code file}. */
+  public static LogConfig toFile(Path file) {
+    return defaults().withFile(file).withAccessLog(true);
+  }
+
+  public LogConfig withFile(Path file) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withAccessLog(boolean accessLog) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withMaxFileBytes(long maxFileBytes) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withMaxFiles(int maxFiles) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withCapacity(int capacity) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withFlushInterval(Duration flushInterval) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+
+  public LogConfig withDuplicateWindow(Duration duplicateWindow) {
+    return new LogConfig(
+        file, accessLog, maxFileBytes, maxFiles, capacity, flushInterval, duplicateWindow);
+  }
+}
@@ -0,0 +1,86 @@
+package com.nathanmcunha.minispring.server.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded queue for many producers and one consumer, without locks.
+ *
+ * <p>Each slot carries a sequence number that says whose turn it is: a producer claims the next
+ * position with one compare-and-set on the tail, fills the slot and publishes it by advancing the
+ * slot's sequence; the consumer takes it and advances the sequence again, a lap ahead, to hand the
+ * slot back. A producer that finds the slot of its position still a lap behind knows the queue is
+ * full and gives up at once, so {@link #offer} never waits.
+ *
+ * @param <T> The type of the queued items.
+ */
+final class RingBuffer<T> {
+
+  private final AtomicReferenceArray<T> slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // Only touched by the consumer.
+  private long head;
+
+  RingBuffer(int capacity) {
+    int size = Integer.highestOneBit(capacity - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    this.mask = size - 1;
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  /** Queues {@code item}, unless the queue is full. */
+  boolean offer(T item) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long lag = sequences.get(index) - position;
+      if (lag == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots.set(index, item);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (lag < 0) {
+        return false;
+      } else {
+        // Another producer took this position; try the current tail.
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Hands up to {@code max} items to {@code consumer}, oldest first, stopping at the first slot not
+   * yet published. Only one thread may drain.
+   *
+   * @return How many were handed over.
+   */
+  int drain(Consumer<? super T> consumer, int max) {
+    int drained = 0;
+    while (drained < max) {
+      int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      T item = slots.get(index);
+      slots.set(index, null);
+      sequences.set(index, head + mask + 1);
+      head++;
+      drained++;
+      consumer.accept(item);
+    }
+    return drained;
+  }
+}
@@ -0,0 +1,122 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of non-negative values with log-linear buckets, as in HdrHistogram.
+ *
+ * <p>Each power of two is split into 32 equal buckets. Every recorded value therefore sits within
+ * about 3% of its bucket's bounds, at any magnitude. Values below 32 get exact buckets, and values
+ * of 2<sup>36</sup> or more are counted in the last bucket. For latencies in microseconds that
+ * covers one microsecond to about 19 hours in 1,024 buckets.
+ *
+ * <p>Writers are striped by thread, so threads recording at the same time mostly update different
+ * arrays with plain atomic increments. A stripe is allocated when a thread first lands on it.
+ * {@link #snapshot()} adds the stripes up without stopping writers. A snapshot taken during
+ * recording may therefore count a value in its bucket but not yet in the sum.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int MAX_EXPONENT = 36;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+  private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+  // The sum of recorded values sits after the buckets in each stripe.
+  private static final int SUM = BUCKETS;
+  private static final int STRIPES =
+      Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+  private final AtomicReferenceArray<AtomicLongArray> stripes =
+      new AtomicReferenceArray<>(STRIPES);
+
+  public void record(long value) {
+    long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+    AtomicLongArray stripe = stripe();
+    stripe.getAndIncrement(index(clamped));
+    stripe.getAndAdd(SUM, clamped);
+  }
+
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    long sum = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      AtomicLongArray stripe = stripes.get(s);
+      if (stripe != null) {
+        for (int i = 0; i < BUCKETS; i++) {
+          counts[i] += stripe.get(i);
+        }
+        sum += stripe.get(SUM);
+      }
+    }
+    long count = 0;
+    for (long bucket : counts) {
+      count += bucket;
+    }
+    return new Snapshot(counts, count, sum);
+  }
+
+  private AtomicLongArray stripe() {
+    int index = (int) (Thread.currentThread().threadId() & (STRIPES - 1));
+    AtomicLongArray stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS + 1));
+      stripe = stripes.get(index);
+    }
+    return stripe;
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /** The largest value that lands in bucket {@code index}. */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * Bucket counts at one moment.
+   *
+   * @param counts How many values landed in each bucket.
+   * @param count How many values were recorded.
+   * @param sum The total of the recorded values.
+   */
+  public record Snapshot(long[] counts, long count, long sum) {
+
+    /** How many recorded values were at most {@code value}, to within a bucket. */
+    public long countAtOrBelow(long value) {
+      long total = 0;
+      for (int i = 0; i < counts.length && highestValue(i) <= value; i++) {
+        total += counts[i];
+      }
+      return total;
+    }
+
+    /**
+     * The value below which a fraction {@code quantile} of the recorded values fall, reported as
+     * the highest value of its bucket, or 0 if nothing was recorded.
+     */
+    public long valueAtQuantile(double quantile) {
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return highestValue(i);
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link RouteMetrics} of every route, keyed by verb and path template rather than by request
+ * path, so their number stays bounded by the routes the application declares. Requests no route
+ * matched share a single entry, {@link #UNMATCHED}.
+ */
+public final class HttpMetrics {
+
+  public static final RouteKey UNMATCHED = new RouteKey("*", "unmatched");
+
+  private final Map<RouteKey, RouteMetrics> routes = new ConcurrentHashMap<>();
+  private final RouteMetrics unmatched = new RouteMetrics(UNMATCHED);
+
+  public HttpMetrics() {
+    routes.put(UNMATCHED, unmatched);
+  }
+
+  /** The metrics of {@code route}, created on its first request. */
+  public RouteMetrics route(RouteKey route) {
+    return routes.computeIfAbsent(route, RouteMetrics::new);
+  }
+
+  public RouteMetrics unmatched() {
+    return unmatched;
+  }
+
+  public Collection<RouteMetrics> routes() {
+    return Collections.unmodifiableCollection(routes.values());
+  }
+}
@@ -0,0 +1,62 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.dispatch.ResponseOutput;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+
+/**
+ * Serves {@link HttpMetrics} in the Prometheus text format, mounted on a server engine next to the
+ * {@code DispatcherServlet}, for instance at {@code /metrics}. It answers that exact path only, and
+ * 404 to anything below or beside it.
+ *
+ * <p>A scrape only reads counters. Request threads never wait for it and it never waits for them,
+ * and the text is streamed out rather than built whole.
+ */
+public final class MetricsHandler implements HttpHandler {
+
+  private final HttpMetrics metrics;
+  private final Compression compression;
+  private final AdmissionControl admission;
+
+  /**
+   * @param compression Whose per-route statistics to export as well, or null.
+   */
+  public MetricsHandler(HttpMetrics metrics, Compression compression) {
+    this(metrics, compression, null);
+  }
+
+  /**
+   * @param compression Whose per-route statistics to export as well, or null.
+   * @param admission Whose concurrency limits and rejections to export as well, or null.
+   */
+  public MetricsHandler(
+      HttpMetrics metrics, Compression compression, AdmissionControl admission) {
+    this.metrics = metrics;
+    this.compression = compression;
+    this.admission = admission;
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    // Engines match context paths as plain prefixes, so "/metrics" would also take "/metrics-foo".
+    if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+      exchange.sendResponseHeaders(HttpStatus.NOT_FOUND.value(), -1);
+      exchange.getResponseBody().close();
+      return;
+    }
+    if (!exchange.getRequestMethod().equals("GET")) {
+      exchange.getResponseHeaders().set("Allow", "GET");
+      exchange.sendResponseHeaders(HttpStatus.METHOD_NOT_ALLOWED.value(), -1);
+      exchange.getResponseBody().close();
+      return;
+    }
+    exchange.getResponseHeaders().set("Content-Type", PrometheusFormat.CONTENT_TYPE);
+    try (var out = new ResponseOutput(exchange, HttpStatus.OK.value())) {
+      PrometheusFormat.write(metrics, compression, admission, out);
+    }
+  }
+}
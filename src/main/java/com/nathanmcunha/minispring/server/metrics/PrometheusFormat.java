@@ -0,0 +1,211 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.compression.CompressionStats;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.nathanmcunha.minispring.server.limit.Limiter;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes metrics in the Prometheus text exposition format, version 0.0.4.
+ *
+ * <p>Latency histograms are exported with fixed {@code le} bounds from 100µs to 10s. Each bound
+ * counts the log-linear buckets that end at or below it, so histograms can be aggregated across
+ * instances. The full resolution stays available in process through {@link Histogram.Snapshot}.
+ */
+public final class PrometheusFormat {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final String PREFIX = "minispring_http_";
+  private static final double[] BOUNDS_SECONDS = {
+    0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+  };
+  private static final Comparator<RouteKey> BY_ROUTE =
+      Comparator.comparing(RouteKey::path).thenComparing(RouteKey::verb);
+
+  private PrometheusFormat() {}
+
+  /**
+   * Writes every route of {@code metrics} and, unless it is null, the per-route statistics of
+   * {@code compression}.
+   */
+  public static void write(HttpMetrics metrics, Compression compression, Utf8Output out)
+      throws IOException {
+    write(metrics, compression, null, out);
+  }
+
+  /**
+   * Writes every route of {@code metrics} and, for those that are not null, the per-route
+   * statistics of {@code compression} and the limits of {@code admission}, the global one under
+   * the route {@code global}.
+   */
+  public static void write(
+      HttpMetrics metrics, Compression compression, AdmissionControl admission, Utf8Output out)
+      throws IOException {
+    List<RouteMetrics> routes = new ArrayList<>(metrics.routes());
+    routes.sort(Comparator.comparing(RouteMetrics::key, BY_ROUTE));
+
+    family(out, "requests_total", "counter", "Requests answered, by route and status.");
+    for (RouteMetrics route : routes) {
+      for (Map.Entry<Integer, Long> status : route.statuses().entrySet()) {
+        sample(out, "requests_total", route.key(), "status", status.getKey().toString());
+        value(out, status.getValue());
+      }
+    }
+
+    family(out, "request_errors_total", "counter", "Failed requests, by route and error type.");
+    for (RouteMetrics route : routes) {
+      for (Map.Entry<String, Long> error : route.errors().entrySet()) {
+        sample(out, "request_errors_total", route.key(), "type", error.getKey());
+        value(out, error.getValue());
+      }
+    }
+
+    family(out, "requests_in_flight", "gauge", "Requests being answered right now.");
+    for (RouteMetrics route : routes) {
+      sample(out, "requests_in_flight", route.key(), null, null);
+      value(out, route.inFlight());
+    }
+
+    family(out, "request_duration_seconds", "histogram", "Time taken to answer requests.");
+    for (RouteMetrics route : routes) {
+      Histogram.Snapshot latency = route.latency().snapshot();
+      for (double bound : BOUNDS_SECONDS) {
+        sample(out, "request_duration_seconds_bucket", route.key(), "le", Double.toString(bound));
+        value(out, latency.countAtOrBelow((long) (bound * 1_000_000)));
+      }
+      sample(out, "request_duration_seconds_bucket", route.key(), "le", "+Inf");
+      value(out, latency.count());
+      sample(out, "request_duration_seconds_sum", route.key(), null, null);
+      value(out, latency.sum() / 1e6);
+      sample(out, "request_duration_seconds_count", route.key(), null, null);
+      value(out, latency.count());
+    }
+
+    if (compression != null) {
+      List<Map.Entry<RouteKey, CompressionStats>> stats =
+          new ArrayList<>(compression.stats().entrySet());
+      stats.sort(Map.Entry.comparingByKey(BY_ROUTE));
+      counters(
+          out,
+          stats,
+          "compressed_responses_total",
+          "Responses sent compressed.",
+          CompressionStats::responses);
+      counters(
+          out,
+          stats,
+          "compression_input_bytes_total",
+          "Body bytes before compression.",
+          CompressionStats::bytesIn);
+      counters(
+          out,
+          stats,
+          "compression_output_bytes_total",
+          "Body bytes after compression.",
+          CompressionStats::bytesOut);
+      family(out, "compression_cpu_seconds_total", "counter", "CPU time spent compressing.");
+      for (Map.Entry<RouteKey, CompressionStats> route : stats) {
+        sample(out, "compression_cpu_seconds_total", route.getKey(), null, null);
+        value(out, route.getValue().cpuNanos() / 1e9);
+      }
+    }
+
+    if (admission != null) {
+      List<Limiter> limiters = new ArrayList<>(admission.limiters());
+      limiters.sort(Comparator.comparing(Limiter::key, BY_ROUTE));
+      family(out, "concurrency_limit", "gauge", "Current adaptive concurrency limit.");
+      for (Limiter limiter : limiters) {
+        sample(out, "concurrency_limit", limiter.key(), null, null);
+        value(out, limiter.limit());
+      }
+      family(
+          out, "rejected_requests_total", "counter", "Requests shed with a 503 at the limit.");
+      for (Limiter limiter : limiters) {
+        sample(out, "rejected_requests_total", limiter.key(), null, null);
+        value(out, limiter.rejected());
+      }
+    }
+  }
+
+  private static void counters(
+      Utf8Output out,
+      List<Map.Entry<RouteKey, CompressionStats>> stats,
+      String name,
+      String help,
+      ToLongFunction<CompressionStats> counter)
+      throws IOException {
+    family(out, name, "counter", help);
+    for (Map.Entry<RouteKey, CompressionStats> route : stats) {
+      sample(out, name, route.getKey(), null, null);
+      value(out, counter.applyAsLong(route.getValue()));
+    }
+  }
+
+  private static void family(Utf8Output out, String name, String type, String help)
+      throws IOException {
+    out.writeUtf8("# HELP ");
+    out.writeUtf8(PREFIX);
+    out.writeUtf8(name);
+    out.write(' ');
+    out.writeUtf8(help);
+    out.writeUtf8("\n# TYPE ");
+    out.writeUtf8(PREFIX);
+    out.writeUtf8(name);
+    out.write(' ');
+    out.writeUtf8(type);
+    out.write('\n');
+  }
+
+  /** Writes a sample's name and labels, up to its value. */
+  private static void sample(
+      Utf8Output out, String name, RouteKey route, String label, String labelValue)
+      throws IOException {
+    out.writeUtf8(PREFIX);
+    out.writeUtf8(name);
+    out.writeUtf8("{method=\"");
+    writeLabelValue(out, route.verb());
+    out.writeUtf8("\",route=\"");
+    writeLabelValue(out, route.path());
+    if (label != null) {
+      out.writeUtf8("\",");
+      out.writeUtf8(label);
+      out.writeUtf8("=\"");
+      writeLabelValue(out, labelValue);
+    }
+    out.writeUtf8("\"} ");
+  }
+
+  private static void value(Utf8Output out, long value) throws IOException {
+    out.writeLong(value);
+    out.write('\n');
+  }
+
+  private static void value(Utf8Output out, double value) throws IOException {
+    out.writeUtf8(Double.toString(value));
+    out.write('\n');
+  }
+
+  /** Escapes backslashes, quotes and line feeds, as the format requires in label values. */
+  private static void writeLabelValue(Utf8Output out, String value) throws IOException {
+    int start = 0;
+    for (int i = 0, length = value.length(); i < length; i++) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"' || c == '\n') {
+        out.writeUtf8(value.substring(start, i));
+        out.write('\\');
+        out.write(c == '\n' ? 'n' : c);
+        start = i + 1;
+      }
+    }
+    out.writeUtf8(start == 0 ? value : value.substring(start));
+  }
+}
@@ -0,0 +1,92 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What one route has been doing: its latency distribution, responses by status, errors by type
+ * and the requests it is serving right now. Every update is a lock-free counter increment.
+ */
+public final class RouteMetrics {
+
+  private static final int STATUSES = 600;
+
+  private final RouteKey key;
+  private final Histogram latency = new Histogram();
+  private final LongAdder inFlight = new LongAdder();
+  // One counter per status code, created on first use.
+  private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(STATUSES);
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+  RouteMetrics(RouteKey key) {
+    this.key = key;
+  }
+
+  public RouteKey key() {
+    return key;
+  }
+
+  /** Counts a request as in flight until its {@link #end}. */
+  public void begin() {
+    inFlight.increment();
+  }
+
+  /**
+   * Records a finished request.
+   *
+   * @param status The status sent, or -1 if the request failed before any was.
+   * @param nanos How long it took.
+   */
+  public void end(int status, long nanos) {
+    inFlight.decrement();
+    latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    int index = status >= 0 && status < STATUSES ? status : 0;
+    LongAdder counter = statuses.get(index);
+    if (counter == null) {
+      statuses.compareAndSet(index, null, new LongAdder());
+      counter = statuses.get(index);
+    }
+    counter.increment();
+  }
+
+  /** Counts an error, by the name of the error or exception type. */
+  public void error(String type) {
+    errors.computeIfAbsent(type, name -> new LongAdder()).increment();
+  }
+
+  /** Request latencies in microseconds. */
+  public Histogram latency() {
+    return latency;
+  }
+
+  public long inFlight() {
+    return inFlight.sum();
+  }
+
+  /**
+   * Responses by status code. Requests that failed without a response are counted under status
+   * 0.
+   */
+  public Map<Integer, Long> statuses() {
+    Map<Integer, Long> counts = new TreeMap<>();
+    for (int status = 0; status < STATUSES; status++) {
+      LongAdder counter = statuses.get(status);
+      if (counter != null) {
+        counts.put(status, counter.sum());
+      }
+    }
+    return Collections.unmodifiableMap(counts);
+  }
+
+  public Map<String, Long> errors() {
+    Map<String, Long> counts = new TreeMap<>();
+    errors.forEach((type, counter) -> counts.put(type, counter.sum()));
+    return Collections.unmodifiableMap(counts);
+  }
+}
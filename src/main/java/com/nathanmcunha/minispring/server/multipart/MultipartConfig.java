@@ -0,0 +1,60 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import java.nio.file.Path;
+
+/**
+ * How much of a {@code multipart/form-data} body is kept in memory, and how big it may be.
+ *
+ * <p>At most {@code maxParts × memoryThreshold} bytes of one request are ever held on the heap,
+ * whatever its size; the rest goes to disk as it arrives.
+ *
+ * @param memoryThreshold Parts up to this size stay in memory; a part that grows past it is moved
+ *     to a temporary file and streamed there from then on.
+ * @param maxPartBytes The largest part accepted.
+ * @param maxRequestBytes The largest body accepted. A declared {@code Content-Length} over it is
+ *     rejected before any of the body is read, and a chunked body is cut off once it passes it.
+ * @param maxParts The most parts accepted in one body.
+ * @param directory Where the temporary files of spilled parts are created.
+ */
+public record MultipartConfig(
+    long memoryThreshold, long maxPartBytes, long maxRequestBytes, int maxParts, Path directory) {
+
+  public MultipartConfig {
+    if (memoryThreshold < 0) {
+      throw new IllegalArgumentException("memoryThreshold cannot be negative");
+    }
+    if (maxPartBytes < 1 || maxRequestBytes < 1 || maxParts < 1) {
+      throw new IllegalArgumentException(
+          "maxPartBytes, maxRequestBytes and maxParts must be positive");
+    }
+  }
+
+  public static MultipartConfig defaults() {
+    return new MultipartConfig(
+        64 * 1024,
+        1024 * 1024 * 1024,
+        1024 * 1024 * 1024,
+        64,
+        Path.of(System.getProperty("java.io.tmpdir")));
+  }
+
+  public MultipartConfig withMemoryThreshold(long memoryThreshold) {
+    return new MultipartConfig(memoryThreshold, maxPartBytes, maxRequestBytes, maxParts, directory);
+  }
+
+  public MultipartConfig withMaxPartBytes(long maxPartBytes) {
+    return new MultipartConfig(memoryThreshold, maxPartBytes, maxRequestBytes, maxParts, directory);
+  }
+
+  public MultipartConfig withMaxRequestBytes(long maxRequestBytes) {
+    return new MultipartConfig(memoryThreshold, maxPartBytes, maxRequestBytes, maxParts, directory);
+  }
+
+  public MultipartConfig withMaxParts(int maxParts) {
+    return new MultipartConfig(memoryThreshold, maxPartBytes, maxRequestBytes, maxParts, directory);
+  }
+
+  public MultipartConfig withDirectory(Path directory) {
+    return new MultipartConfig(memoryThreshold, maxPartBytes, maxRequestBytes, maxParts, directory);
+  }
+}
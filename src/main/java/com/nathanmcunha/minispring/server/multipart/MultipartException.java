@@ -0,0 +1,23 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import java.io.IOException;
+
+/**
+ * A {@code multipart/form-data} body that cannot be read: malformed, truncated, of another media
+ * type, or over one of the {@link MultipartConfig} limits. {@link #status()} is what to answer.
+ */
+public class MultipartException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int status;
+
+  public MultipartException(String message, int status) {
+    super(message);
+    this.status = status;
+  }
+
+  public int status() {
+    return status;
+  }
+}
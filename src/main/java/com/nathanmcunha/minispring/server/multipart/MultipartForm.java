@@ -0,0 +1,102 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The parts of a {@code multipart/form-data} request body, in the order they were sent.
+ *
+ * <p>The body is parsed as it streams in (see {@link MultipartParser}), within the limits of a
+ * {@link MultipartConfig}, so an upload of any size costs one buffer plus the small parts kept in
+ * memory. Large parts are in temporary files until the form is closed; a handler that wants to
+ * keep one {@linkplain Part#moveTo moves} it. Forms bound to a handler parameter are closed by the
+ * dispatcher once the response is complete.
+ */
+public final class MultipartForm implements AutoCloseable {
+
+  private final List<Part> parts;
+
+  private MultipartForm(List<Part> parts) {
+    this.parts = parts;
+  }
+
+  /**
+   * Parses {@code body}, failing before reading any of it if {@code contentLength} is already over
+   * the limit.
+   *
+   * @param contentType The request's {@code Content-Type}, which carries the boundary.
+   * @param contentLength The declared body length, or -1 if it is not known.
+   * @throws MultipartException If the body is not a valid {@code multipart/form-data} body within
+   *     the limits of {@code config}.
+   */
+  public static MultipartForm read(
+      InputStream body, String contentType, long contentLength, MultipartConfig config)
+      throws IOException {
+    String boundary = boundary(contentType);
+    if (contentLength > config.maxRequestBytes()) {
+      throw new MultipartException(
+          "Body of " + contentLength + " bytes is over " + config.maxRequestBytes(),
+          HttpStatus.CONTENT_TOO_LARGE.value());
+    }
+    return new MultipartForm(List.copyOf(new MultipartParser(body, boundary, config).parse()));
+  }
+
+  public List<Part> parts() {
+    return parts;
+  }
+
+  /** The first part named {@code name}, or null. */
+  public Part part(String name) {
+    for (Part part : parts) {
+      if (part.name().equals(name)) {
+        return part;
+      }
+    }
+    return null;
+  }
+
+  /** Every part named {@code name}, such as the files of a multiple file input. */
+  public List<Part> parts(String name) {
+    List<Part> named = new ArrayList<>(2);
+    for (Part part : parts) {
+      if (part.name().equals(name)) {
+        named.add(part);
+      }
+    }
+    return named;
+  }
+
+  /** The text of the first part named {@code name}, or null. */
+  public String field(String name) throws IOException {
+    Part part = part(name);
+    return part == null ? null : part.text();
+  }
+
+  /** Deletes the temporary files of the parts that have not been moved. */
+  @Override
+  public void close() {
+    for (Part part : parts) {
+      MultipartParser.delete(part.spilled());
+    }
+  }
+
+  /** The boundary parameter of a {@code multipart/form-data} content type. */
+  private static String boundary(String contentType) throws MultipartException {
+    String lower = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+    if (!lower.startsWith("multipart/form-data")) {
+      throw new MultipartException(
+          "Expected multipart/form-data, got " + contentType,
+          HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+    }
+    String boundary = MultipartParser.parameter(contentType, "boundary");
+    if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+      throw new MultipartException(
+          "Missing or invalid multipart boundary", HttpStatus.BAD_REQUEST.value());
+    }
+    return boundary;
+  }
+}
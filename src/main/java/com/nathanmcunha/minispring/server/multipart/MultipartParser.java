@@ -0,0 +1,335 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a {@code multipart/form-data} body through one fixed buffer, as it arrives.
+ *
+ * <p>Each delimiter is found with Boyer-Moore-Horspool, which mostly looks at one byte in every
+ * delimiter length, and the content before it is handed to the part being read. Only the last
+ * {@code delimiter - 1} bytes of the buffer, which may be the start of a delimiter split across
+ * reads, are ever held back, so a part of any size passes through the buffer without it growing.
+ * A part stays on the heap until it outgrows the memory threshold, and from then on goes to a
+ * temporary file through a {@link FileChannel}.
+ */
+final class MultipartParser {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_HEADER_BYTES = 16 * 1024;
+  private static final int INITIAL_PART_BYTES = 1024;
+
+  private final InputStream in;
+  private final MultipartConfig config;
+  private final int memoryThreshold;
+  // "\r\n--" and the boundary; the body's first delimiter gets its line break from the buffer.
+  private final byte[] delimiter;
+  private final int[] skip = new int[256];
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int start;
+  private int end;
+  private long received;
+
+  MultipartParser(InputStream in, String boundary, MultipartConfig config) {
+    this.in = in;
+    this.config = config;
+    this.memoryThreshold = (int) Math.min(config.memoryThreshold(), Integer.MAX_VALUE - 8);
+    this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+    int last = delimiter.length - 1;
+    Arrays.fill(skip, delimiter.length);
+    for (int i = 0; i < last; i++) {
+      skip[delimiter[i] & 0xff] = last - i;
+    }
+    buffer[0] = '\r';
+    buffer[1] = '\n';
+    end = 2;
+  }
+
+  /** Reads every part, deleting the temporary files of those read so far if it fails. */
+  List<Part> parse() throws IOException {
+    List<Part> parts = new ArrayList<>();
+    try {
+      // Anything before the first delimiter is a preamble, to be ignored.
+      while (true) {
+        int at = find();
+        if (at >= 0) {
+          start = at + delimiter.length;
+          break;
+        }
+        start = Math.max(start, end - delimiter.length + 1);
+        fill();
+      }
+      while (!lastDelimiter()) {
+        if (parts.size() == config.maxParts()) {
+          throw tooLarge("More than " + config.maxParts() + " parts");
+        }
+        parts.add(readPart());
+      }
+      return parts;
+    } catch (IOException | RuntimeException e) {
+      for (Part part : parts) {
+        delete(part.spilled());
+      }
+      throw e;
+    }
+  }
+
+  /** Reads the rest of a delimiter line, and whether it closed the body. */
+  private boolean lastDelimiter() throws IOException {
+    ensure(2);
+    if (buffer[start] == '-' && buffer[start + 1] == '-') {
+      // The epilogue, if any, is left for the engine to drain.
+      return true;
+    }
+    while (buffer[start] == ' ' || buffer[start] == '\t') {
+      start++;
+      ensure(2);
+    }
+    if (buffer[start] != '\r' || buffer[start + 1] != '\n') {
+      throw malformed("Expected a line break after the boundary");
+    }
+    start += 2;
+    return false;
+  }
+
+  private Part readPart() throws IOException {
+    String disposition = null;
+    String contentType = "text/plain";
+    int headersEnd = headersEnd();
+    for (int line = start; line < headersEnd; ) {
+      int lineEnd = line;
+      while (buffer[lineEnd] != '\r' || buffer[lineEnd + 1] != '\n') {
+        lineEnd++;
+      }
+      String field = new String(buffer, line, lineEnd - line, StandardCharsets.UTF_8);
+      int colon = field.indexOf(':');
+      if (colon <= 0) {
+        throw malformed("Malformed part header");
+      }
+      String name = field.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+      String value = field.substring(colon + 1).trim();
+      if (name.equals("content-disposition")) {
+        disposition = value;
+      } else if (name.equals("content-type")) {
+        contentType = value;
+      }
+      line = lineEnd + 2;
+    }
+    start = headersEnd + 2;
+
+    if (disposition == null || !isFormData(disposition)) {
+      throw malformed("Part without a form-data Content-Disposition");
+    }
+    String name = parameter(disposition, "name");
+    if (name == null) {
+      throw malformed("Part without a name");
+    }
+    return readContent(name, parameter(disposition, "filename"), contentType);
+  }
+
+  private static boolean isFormData(String disposition) {
+    int semicolon = disposition.indexOf(';');
+    String type = semicolon < 0 ? disposition : disposition.substring(0, semicolon);
+    return type.trim().equalsIgnoreCase("form-data");
+  }
+
+  /** The offset of the empty line that ends the part's headers, reading until it arrives. */
+  private int headersEnd() throws IOException {
+    int scanned = 0;
+    while (true) {
+      for (int i = start + scanned; i < end - 1; i++) {
+        if (buffer[i] == '\r'
+            && buffer[i + 1] == '\n'
+            && (i == start
+                || (i >= start + 2 && buffer[i - 2] == '\r' && buffer[i - 1] == '\n'))) {
+          return i;
+        }
+      }
+      scanned = Math.max(0, end - 1 - start);
+      if (scanned > MAX_HEADER_BYTES) {
+        throw malformed("Part headers over " + MAX_HEADER_BYTES + " bytes");
+      }
+      fill();
+    }
+  }
+
+  /** Streams the content up to the next delimiter into memory or, past the threshold, a file. */
+  private Part readContent(String name, String filename, String contentType) throws IOException {
+    byte[] memory = new byte[Math.min(INITIAL_PART_BYTES, memoryThreshold)];
+    long size = 0;
+    Path file = null;
+    FileChannel channel = null;
+    try {
+      while (true) {
+        int at = find();
+        int to = at >= 0 ? at : Math.max(start, end - delimiter.length + 1);
+        int length = to - start;
+        if (length > 0) {
+          size += length;
+          if (size > config.maxPartBytes()) {
+            throw tooLarge("Part '" + name + "' over " + config.maxPartBytes() + " bytes");
+          }
+          if (channel == null && size <= memoryThreshold) {
+            if (size > memory.length) {
+              memory = Arrays.copyOf(memory, (int) Math.min(memoryThreshold, 2 * size));
+            }
+            System.arraycopy(buffer, start, memory, (int) (size - length), length);
+          } else {
+            if (channel == null) {
+              file = Files.createTempFile(config.directory(), "minispring-", ".part");
+              channel = FileChannel.open(file, StandardOpenOption.WRITE);
+              write(channel, memory, 0, (int) (size - length));
+              memory = null;
+            }
+            write(channel, buffer, start, length);
+          }
+        }
+        if (at >= 0) {
+          start = at + delimiter.length;
+          break;
+        }
+        start = to;
+        fill();
+      }
+      if (channel == null) {
+        return new Part(
+            name, filename, contentType, size, Arrays.copyOf(memory, (int) size), null);
+      }
+      channel.close();
+      return new Part(name, filename, contentType, size, null, file);
+    } catch (IOException | RuntimeException e) {
+      if (channel != null) {
+        channel.close();
+      }
+      delete(file);
+      throw e;
+    }
+  }
+
+  /** The offset of the next delimiter in the buffer, or -1. */
+  private int find() {
+    int last = delimiter.length - 1;
+    byte tail = delimiter[last];
+    int i = start;
+    while (i + last < end) {
+      byte b = buffer[i + last];
+      if (b == tail) {
+        int j = last - 1;
+        while (j >= 0 && buffer[i + j] == delimiter[j]) {
+          j--;
+        }
+        if (j < 0) {
+          return i;
+        }
+      }
+      i += skip[b & 0xff];
+    }
+    return -1;
+  }
+
+  private void ensure(int bytes) throws IOException {
+    while (end - start < bytes) {
+      fill();
+    }
+  }
+
+  /**
+   * Moves the unread bytes to the front and reads more after them, counting everything read
+   * against the body limit.
+   *
+   * @throws MultipartException If the body ends first, or has passed the limit.
+   */
+  private void fill() throws IOException {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, end - start);
+      end -= start;
+      start = 0;
+    }
+    int read = in.read(buffer, end, buffer.length - end);
+    if (read < 0) {
+      throw malformed("The body ended before the closing boundary");
+    }
+    received += read;
+    if (received > config.maxRequestBytes()) {
+      throw tooLarge("Body over " + config.maxRequestBytes() + " bytes");
+    }
+    end += read;
+  }
+
+  private static void write(FileChannel channel, byte[] bytes, int offset, int length)
+      throws IOException {
+    ByteBuffer content = ByteBuffer.wrap(bytes, offset, length);
+    while (content.hasRemaining()) {
+      channel.write(content);
+    }
+  }
+
+  /**
+   * The value of parameter {@code name} of a {@code Content-Disposition}, unquoted, or null. The
+   * quoted strings browsers send may contain {@code ;} and backslash escapes.
+   */
+  static String parameter(String header, String name) {
+    int i = header.indexOf(';');
+    while (i >= 0 && i < header.length()) {
+      i++;
+      while (i < header.length() && header.charAt(i) == ' ') {
+        i++;
+      }
+      int equals = header.indexOf('=', i);
+      if (equals < 0) {
+        return null;
+      }
+      String key = header.substring(i, equals).trim();
+      StringBuilder value = new StringBuilder();
+      i = equals + 1;
+      if (i < header.length() && header.charAt(i) == '"') {
+        for (i++; i < header.length() && header.charAt(i) != '"'; i++) {
+          char c = header.charAt(i);
+          if (c == '\\' && i + 1 < header.length()) {
+            c = header.charAt(++i);
+          }
+          value.append(c);
+        }
+        i = header.indexOf(';', i);
+      } else {
+        int next = header.indexOf(';', i);
+        value.append(header.substring(i, next < 0 ? header.length() : next).trim());
+        i = next;
+      }
+      if (key.equalsIgnoreCase(name)) {
+        return value.toString();
+      }
+    }
+    return null;
+  }
+
+  static void delete(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // Left for whatever cleans the temporary directory.
+    }
+  }
+
+  private static MultipartException malformed(String message) {
+    return new MultipartException(message, HttpStatus.BAD_REQUEST.value());
+  }
+
+  private static MultipartException tooLarge(String message) {
+    return new MultipartException(message, HttpStatus.CONTENT_TOO_LARGE.value());
+  }
+}
@@ -0,0 +1,151 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.CopyOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * One part of a {@link MultipartForm}: a form field, or an uploaded file if it has a {@link
+ * #filename()}.
+ *
+ * <p>Its content is either held in memory or, past the form's memory threshold, in a temporary
+ * file the form owns and deletes when it is closed. Either way it can be read as a stream, sent to
+ * a channel, or moved to where it belongs; moving a spilled part renames its file rather than
+ * copying it, and hands the file over to the caller.
+ */
+public final class Part {
+
+  private final String name;
+  private final String filename;
+  private final String contentType;
+  private final long size;
+  private final byte[] bytes;
+  private Path file;
+  private boolean owned;
+
+  Part(String name, String filename, String contentType, long size, byte[] bytes, Path file) {
+    this.name = name;
+    this.filename = filename;
+    this.contentType = contentType;
+    this.size = size;
+    this.bytes = bytes;
+    this.file = file;
+    this.owned = file != null;
+  }
+
+  /** The name of the form field. */
+  public String name() {
+    return name;
+  }
+
+  /** The name of the uploaded file as the client gave it, or null for a plain field. */
+  public String filename() {
+    return filename;
+  }
+
+  /** The part's media type, {@code text/plain} if it declared none. */
+  public String contentType() {
+    return contentType;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  /** Whether the content is on the heap rather than in a temporary file. */
+  public boolean inMemory() {
+    return bytes != null;
+  }
+
+  /**
+   * Reads the content from the start. A spilled part is read from its file, so this works for
+   * content of any size.
+   */
+  public InputStream openStream() throws IOException {
+    return bytes != null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+  }
+
+  /**
+   * Writes the whole content to {@code target}. A spilled part goes through {@link
+   * FileChannel#transferTo}, which the OS can carry out without copying it through the heap.
+   */
+  public void transferTo(WritableByteChannel target) throws IOException {
+    if (bytes != null) {
+      ByteBuffer content = ByteBuffer.wrap(bytes);
+      while (content.hasRemaining()) {
+        target.write(content);
+      }
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file)) {
+      long position = 0;
+      while (position < size) {
+        position += channel.transferTo(position, size - position, target);
+      }
+    }
+  }
+
+  /**
+   * Moves the content to {@code target}, as {@link Files#move} does for a spilled part, which is
+   * a rename when both are on the same file system. The file then belongs to the caller, and the
+   * form no longer deletes it; the part keeps reading from its new place.
+   *
+   * @return {@code target}.
+   */
+  public Path moveTo(Path target, CopyOption... options) throws IOException {
+    if (bytes != null) {
+      Files.write(target, bytes);
+      return target;
+    }
+    file = Files.move(file, target, options);
+    owned = false;
+    return file;
+  }
+
+  /**
+   * The content decoded with the charset of its content type, UTF-8 if it names none. Meant for
+   * form fields; reading a large upload this way puts all of it on the heap.
+   */
+  public String text() throws IOException {
+    Charset charset = charset();
+    if (bytes != null) {
+      return new String(bytes, charset);
+    }
+    try (InputStream in = openStream()) {
+      return new String(in.readAllBytes(), charset);
+    }
+  }
+
+  /** The temporary file still owned by the form, or null. */
+  Path spilled() {
+    return owned ? file : null;
+  }
+
+  private Charset charset() {
+    int at = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+    if (at < 0) {
+      return StandardCharsets.UTF_8;
+    }
+    int end = contentType.indexOf(';', at);
+    String name = contentType.substring(at + 8, end < 0 ? contentType.length() : end).trim();
+    if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+      name = name.substring(1, name.length() - 1);
+    }
+    try {
+      return Charset.forName(name);
+    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+      return StandardCharsets.UTF_8;
+    }
+  }
+}
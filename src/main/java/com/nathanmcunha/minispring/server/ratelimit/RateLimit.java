@@ -0,0 +1,101 @@
+package com.nathanmcunha.minispring.server.ratelimit;
+
+import com.nathanmcunha.minispring.annotations.RateLimited;
+import com.sun.net.httpserver.HttpExchange;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * The {@link RateLimited} limit of one route, with the buckets of every client it has seen.
+ *
+ * <p>Built once per route at registration. At request time it hashes the client key, without
+ * building strings for addresses, and takes a token from that client's bucket.
+ */
+public final class RateLimit {
+
+  /** No limit. */
+  public static final RateLimit NONE = new RateLimit(null, null);
+
+  /** Clients tracked per route at most, before the fullest buckets are forgotten. */
+  static final int MAX_KEYS = 1 << 20;
+
+  private static final int STRIPES =
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1;
+
+  private final TokenBuckets buckets;
+  private final String header;
+
+  private RateLimit(TokenBuckets buckets, String header) {
+    this.buckets = buckets;
+    this.header = header;
+  }
+
+  /**
+   * @param interval Nanoseconds between two requests of one client, on average.
+   * @param burst How many requests a client may send at once after a quiet spell.
+   * @param header The header naming the client, or null to go by remote address only.
+   */
+  public static RateLimit of(long interval, long burst, String header) {
+    return new RateLimit(new TokenBuckets(interval, burst, MAX_KEYS, STRIPES), header);
+  }
+
+  public boolean enabled() {
+    return buckets != null;
+  }
+
+  /**
+   * Takes a token for the client of {@code exchange}.
+   *
+   * @param now {@link System#nanoTime()}.
+   * @return 0 if the request may go ahead, or else how many nanoseconds until it could.
+   */
+  public long acquire(HttpExchange exchange, long now) {
+    return buckets.acquire(clientKey(exchange), now);
+  }
+
+  /** Clients tracked right now. */
+  public int clients() {
+    return buckets.size();
+  }
+
+  private long clientKey(HttpExchange exchange) {
+    if (header != null) {
+      String value = exchange.getRequestHeaders().getFirst(header);
+      if (value != null) {
+        return hash(value);
+      }
+    }
+    InetSocketAddress remote = exchange.getRemoteAddress();
+    InetAddress address = remote == null ? null : remote.getAddress();
+    if (address instanceof Inet4Address) {
+      // An IPv4 address is its own hash code, and mix is a bijection, so no two share a bucket.
+      return mix(address.hashCode() & 0xFFFFFFFFL | 1L << 32);
+    }
+    if (address != null) {
+      long hash = 1;
+      for (byte b : address.getAddress()) {
+        hash = hash * 31 + b;
+      }
+      return mix(hash ^ 1L << 33);
+    }
+    return 0;
+  }
+
+  private static long hash(String value) {
+    long hash = 1125899906842597L;
+    for (int i = 0, length = value.length(); i < length; i++) {
+      hash = 31 * hash + value.charAt(i);
+    }
+    return mix(hash);
+  }
+
+  /** The murmur3 finalizer, so that similar keys land in different stripes and slots. */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb33fe1a85b4dL;
+    return hash ^ hash >>> 33;
+  }
+}
@@ -0,0 +1,220 @@
+package com.nathanmcunha.minispring.server.ratelimit;
+
+import java.util.Arrays;
+
+/**
+ * One token bucket per client key, for a fixed rate and burst, in bounded memory.
+ *
+ * <p>Buckets are kept as in the generic cell rate algorithm: instead of a token count and a refill
+ * time, each key stores the single instant its bucket will be full again. A request is allowed if
+ * taking its token would not push that instant more than a whole burst into the future. A bucket
+ * whose instant has passed is full, exactly like one never seen, so it can be forgotten without
+ * changing any decision. That makes idle keys free to evict.
+ *
+ * <p>Keys are 64-bit hashes of the client key, spread across independently locked stripes. Each
+ * stripe is an open-addressing table of two {@code long}s per key, without entry objects or
+ * retained strings. A full stripe first drops its idle buckets. If that is not enough it grows,
+ * up to its share of {@code maxKeys}, and beyond that forgets the buckets with the most tokens
+ * left, which a fresh bucket treats almost the same, until it is five eighths full; the rebuild is
+ * paid once for many new keys, so a flood of them costs each request little. It never forgets a
+ * bucket that is out of tokens, so a flood of new keys cannot lift the limit of a client being held
+ * back; while a stripe is full of such buckets, new keys there are let through without being
+ * tracked, as a fresh bucket would let them through anyway.
+ */
+final class TokenBuckets {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int STRIDE = 0x9E3779B9;
+
+  private final long interval;
+  private final long tolerance;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+
+  /**
+   * @param interval Nanoseconds between two tokens.
+   * @param burst The bucket size.
+   * @param maxKeys About how many clients to track at most.
+   * @param stripes How many independently locked tables to spread keys over, a power of two.
+   */
+  TokenBuckets(long interval, long burst, int maxKeys, int stripes) {
+    this.interval = interval;
+    this.tolerance = interval * burst;
+    this.stripes = new Stripe[stripes];
+    this.stripeMask = stripes - 1;
+    int perStripe = Math.max(INITIAL_CAPACITY, maxKeys / stripes);
+    // The smallest power of two that holds perStripe keys at three quarters full.
+    int maxCapacity = Integer.highestOneBit(perStripe * 4 / 3 - 1) << 1;
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new Stripe(maxCapacity);
+    }
+  }
+
+  /**
+   * Takes a token from the bucket of {@code key}.
+   *
+   * @param now {@link System#nanoTime()}.
+   * @return 0 if the request may go ahead, or else how many nanoseconds until it could.
+   */
+  long acquire(long key, long now) {
+    if (key == 0) {
+      key = 1; // 0 marks a free slot.
+    }
+    Stripe stripe = stripes[(int) (key >>> 40) & stripeMask];
+    synchronized (stripe) {
+      return stripe.acquire(key, now);
+    }
+  }
+
+  /** Keys currently tracked. */
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size;
+      }
+    }
+    return size;
+  }
+
+  private final class Stripe {
+    private final int maxCapacity;
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] full = new long[INITIAL_CAPACITY];
+    private int size;
+    // Set when eviction fell short; until retryAt no bucket can be forgotten, so none is tried.
+    private boolean saturated;
+    private long retryAt;
+
+    Stripe(int maxCapacity) {
+      this.maxCapacity = maxCapacity;
+    }
+
+    long acquire(long key, long now) {
+      int mask = keys.length - 1;
+      int slot = (int) key & mask;
+      while (keys[slot] != 0 && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      boolean known = keys[slot] != 0;
+      long fullAt = known && full[slot] - now > 0 ? full[slot] : now;
+      long next = fullAt + interval;
+      if (next - now > tolerance) {
+        return next - now - tolerance;
+      }
+      if (known) {
+        full[slot] = next;
+      } else if (size + 1 > keys.length / 4 * 3) {
+        if (makeRoom(now)) {
+          insert(key, next);
+        }
+      } else {
+        keys[slot] = key;
+        full[slot] = next;
+        size++;
+      }
+      return 0;
+    }
+
+    /**
+     * Makes room for one more key: drops idle buckets, grows if the table is still over half full,
+     * and at its largest forgets buckets down to five eighths full, so that one rebuild pays for
+     * many new keys.
+     *
+     * @return Whether there is room, which there is not when too many buckets are out of tokens.
+     */
+    private boolean makeRoom(long now) {
+      if (saturated && now - retryAt < 0) {
+        return false;
+      }
+      saturated = false;
+      rehash(keys.length, now);
+      if (size + 1 > keys.length / 2 && keys.length < maxCapacity) {
+        rehash(keys.length * 2, Long.MIN_VALUE);
+        return true;
+      }
+      int lowWater = keys.length / 8 * 5;
+      if (size > lowWater) {
+        evict(size - lowWater, now);
+      }
+      return size + 1 <= keys.length / 4 * 3;
+    }
+
+    /**
+     * Forgets the {@code count} buckets with the most tokens left, the ones full soonest, leaving
+     * out any bucket that would turn its next request away. If there are not that many, it forgets
+     * those there are and does not try again until the first of the others could go.
+     */
+    private void evict(int count, long now) {
+      long throttledAfter = now + tolerance - interval;
+      long[] untilFull = new long[size];
+      int candidates = 0;
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != 0 && full[i] - throttledAfter <= 0) {
+          untilFull[candidates++] = full[i] - now;
+        }
+      }
+      saturated = candidates < count;
+      long threshold = Long.MAX_VALUE;
+      int ties = 0;
+      if (!saturated) {
+        Arrays.sort(untilFull, 0, candidates);
+        threshold = untilFull[count - 1];
+        // Everything below the threshold goes, and as many at it as make up the count.
+        ties = count;
+        for (int i = 0; i < count; i++) {
+          if (untilFull[i] < threshold) {
+            ties--;
+          }
+        }
+      }
+      long[] oldKeys = keys;
+      long[] oldFull = full;
+      keys = new long[oldKeys.length];
+      full = new long[oldKeys.length];
+      size = 0;
+      boolean first = true;
+      // Slots are visited in a scattered order, an odd stride around the table, so that the ties
+      // dropped are spread over it rather than emptying one end and packing the other for probes.
+      int mask = oldKeys.length - 1;
+      for (int visited = 0, i = 0; visited < oldKeys.length; visited++, i = (i + STRIDE) & mask) {
+        if (oldKeys[i] == 0 || oldFull[i] - throttledAfter <= 0
+            && (oldFull[i] - now < threshold || oldFull[i] - now == threshold && ties-- > 0)) {
+          continue;
+        }
+        insert(oldKeys[i], oldFull[i]);
+        // Only tokens coming back make a kept bucket evictable, the first at this instant.
+        long evictableAt = oldFull[i] - (tolerance - interval);
+        if (first || evictableAt - retryAt < 0) {
+          retryAt = evictableAt;
+          first = false;
+        }
+      }
+    }
+
+    /** Rebuilds the table at {@code capacity}, keeping only buckets full after {@code after}. */
+    private void rehash(int capacity, long after) {
+      long[] oldKeys = keys;
+      long[] oldFull = full;
+      keys = new long[capacity];
+      full = new long[capacity];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0 && (after == Long.MIN_VALUE || oldFull[i] - after > 0)) {
+          insert(oldKeys[i], oldFull[i]);
+        }
+      }
+    }
+
+    private void insert(long key, long fullAt) {
+      int mask = keys.length - 1;
+      int slot = (int) key & mask;
+      while (keys[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      full[slot] = fullAt;
+      size++;
+    }
+  }
+}
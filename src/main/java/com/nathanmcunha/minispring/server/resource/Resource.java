@@ -0,0 +1,44 @@
+package com.nathanmcunha.minispring.server.resource;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A file ready to be served, captured the first time it was requested so later requests need
+ * neither a read nor a stat.
+ *
+ * @param file The file on disk, after resolving a directory to its index.
+ * @param contentType The type of the original file, also announced for its precompressed variants.
+ * @param content The bytes: a heap buffer for small files, a mapped buffer for the others.
+ * @param onHeap Whether {@code content} lives on the heap and counts against the cache budget.
+ * @param etag A strong entity tag derived from the size and modification time.
+ * @param lastModified The modification time in epoch milliseconds.
+ * @param lastModifiedText {@code lastModified} as an HTTP date.
+ * @param encoding The {@code Content-Encoding} of a precompressed variant, or null for the original.
+ * @param variants Precompressed siblings of the original, most preferred first.
+ */
+record Resource(
+    Path file,
+    String contentType,
+    ByteBuffer content,
+    boolean onHeap,
+    String etag,
+    long lastModified,
+    String lastModifiedText,
+    String encoding,
+    List<Resource> variants) {
+
+  long length() {
+    return content.remaining();
+  }
+
+  /** Heap taken by this resource and its variants. */
+  long heapBytes() {
+    long bytes = onHeap ? length() : 0;
+    for (Resource variant : variants) {
+      bytes += variant.heapBytes();
+    }
+    return bytes;
+  }
+}
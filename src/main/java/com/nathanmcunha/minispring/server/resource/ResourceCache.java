@@ -0,0 +1,290 @@
+package com.nathanmcunha.minispring.server.resource;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.nathanmcunha.minispring.server.codec.MediaTypes;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpDates;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The files under a root directory, loaded on first request and kept until they change.
+ *
+ * <p>Files up to {@link StaticResourceConfig#maxCachedFileBytes()} are read onto the heap, within
+ * a total budget enforced by evicting the least recently used ones; bigger files are mapped once
+ * and served from the page cache. Either way a cached file costs no syscall to serve.
+ *
+ * <p>Freshness comes from a {@link WatchService} on every directory under the root instead of a
+ * stat per request: any change to a file, its precompressed siblings or a parent directory drops
+ * the affected entries. A generation counter bumped by every change keeps a load that raced with
+ * one from caching what it read. Deploy by replacing files (write then rename) rather than
+ * rewriting them in place, as a mapped file that shrinks under a reader fails it.
+ */
+final class ResourceCache implements AutoCloseable {
+
+  private static final System.Logger LOG = System.getLogger(ResourceCache.class.getName());
+  private static final String INDEX = "index.html";
+  // Precompressed siblings, most preferred first: {Content-Encoding, file suffix}.
+  private static final String[][] ENCODINGS = {{"br", ".br"}, {"gzip", ".gz"}};
+
+  private static final class Entry {
+    final Resource resource;
+    volatile long lastUsed = System.nanoTime();
+
+    Entry(Resource resource) {
+      this.resource = resource;
+    }
+  }
+
+  private final StaticResourceConfig config;
+  private final Path root;
+  private final Path realRoot;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong heapBytes = new AtomicLong();
+  private final AtomicLong generation = new AtomicLong();
+  private final WatchService watcher;
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+  // Cleared if a directory cannot be watched, after which nothing is cached any more.
+  private volatile boolean watching = true;
+
+  ResourceCache(StaticResourceConfig config) throws IOException {
+    this.config = config;
+    this.root = config.root().toAbsolutePath().normalize();
+    this.realRoot = root.toRealPath();
+    this.watcher = root.getFileSystem().newWatchService();
+    watchTree(root);
+    Thread.ofPlatform().daemon().name("static-resources-watcher").start(this::watch);
+  }
+
+  /**
+   * Finds the file at {@code relative} (slash-separated, without a leading slash), loading it on a
+   * miss. A directory stands for its {@code index.html}.
+   *
+   * @return The resource, or null if there is no such regular file inside the root.
+   */
+  Resource lookup(String relative) throws IOException {
+    Entry entry = entries.get(relative);
+    if (entry != null) {
+      entry.lastUsed = System.nanoTime();
+      return entry.resource;
+    }
+    long seen = generation.get();
+    Resource resource = load(relative);
+    if (resource != null && watching && generation.get() == seen) {
+      Entry added = new Entry(resource);
+      if (entries.putIfAbsent(relative, added) == null) {
+        heapBytes.addAndGet(resource.heapBytes());
+        // A change that landed meanwhile may have missed the new entry; drop it to be safe.
+        if (generation.get() != seen) {
+          evict(relative, added);
+        } else if (heapBytes.get() > config.cacheBytes()) {
+          trim();
+        }
+      }
+    }
+    return resource;
+  }
+
+  long heapBytes() {
+    return heapBytes.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    watcher.close();
+    entries.forEach(this::evict);
+  }
+
+  private Resource load(String relative) throws IOException {
+    Path file = root.resolve(relative).normalize();
+    BasicFileAttributes attributes = attributes(file);
+    if (attributes != null && attributes.isDirectory()) {
+      file = file.resolve(INDEX);
+      attributes = attributes(file);
+    }
+    if (attributes == null || !attributes.isRegularFile() || !inRoot(file)) {
+      return null;
+    }
+    String contentType = MediaTypes.forFileName(file.getFileName().toString());
+    List<Resource> variants = new ArrayList<>(ENCODINGS.length);
+    for (String[] encoding : ENCODINGS) {
+      Path sibling = file.resolveSibling(file.getFileName() + encoding[1]);
+      BasicFileAttributes siblingAttributes = attributes(sibling);
+      if (siblingAttributes != null && siblingAttributes.isRegularFile()) {
+        variants.add(read(sibling, siblingAttributes, contentType, encoding[0], List.of()));
+      }
+    }
+    return read(file, attributes, contentType, null, List.copyOf(variants));
+  }
+
+  private Resource read(
+      Path file,
+      BasicFileAttributes attributes,
+      String contentType,
+      String encoding,
+      List<Resource> variants)
+      throws IOException {
+    long modified = attributes.lastModifiedTime().toMillis();
+    ByteBuffer content;
+    boolean onHeap = attributes.size() <= config.maxCachedFileBytes();
+    if (onHeap) {
+      content = ByteBuffer.wrap(Files.readAllBytes(file));
+    } else {
+      try (var channel = FileChannel.open(file)) {
+        content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    }
+    String etag =
+        "\""
+            + Long.toHexString(content.remaining())
+            + "-"
+            + Long.toHexString(modified)
+            + (encoding == null ? "" : "-" + encoding)
+            + "\"";
+    return new Resource(
+        file,
+        contentType,
+        content,
+        onHeap,
+        etag,
+        modified,
+        HttpDates.format(modified),
+        encoding,
+        variants);
+  }
+
+  /** The file's attributes, or null if it is missing, unreadable or under a plain file. */
+  private static BasicFileAttributes attributes(Path file) throws IOException {
+    try {
+      return Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (FileSystemException e) {
+      return null;
+    }
+  }
+
+  /** Rejects files that only look like they are inside the root, through a symbolic link. */
+  private boolean inRoot(Path file) throws IOException {
+    return file.startsWith(root) && file.toRealPath().startsWith(realRoot);
+  }
+
+  /** Evicts least recently used heap entries until the cache is back to three quarters full. */
+  private synchronized void trim() {
+    long target = config.cacheBytes() / 4 * 3;
+    if (heapBytes.get() <= config.cacheBytes()) {
+      return;
+    }
+    List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+    for (var candidate : entries.entrySet()) {
+      if (candidate.getValue().resource.heapBytes() > 0) {
+        candidates.add(candidate);
+      }
+    }
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastUsed));
+    for (var candidate : candidates) {
+      if (heapBytes.get() <= target) {
+        return;
+      }
+      evict(candidate.getKey(), candidate.getValue());
+    }
+  }
+
+  private void evict(String relative, Entry entry) {
+    if (entries.remove(relative, entry)) {
+      heapBytes.addAndGet(-entry.resource.heapBytes());
+    }
+  }
+
+  // ---- Watcher thread ----
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watcher.take();
+        Path directory = directories.get(key);
+        generation.incrementAndGet();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW || directory == null) {
+            entries.forEach(this::evict);
+            continue;
+          }
+          Path changed = directory.resolve((Path) event.context());
+          invalidate(changed);
+          if (event.kind() == ENTRY_CREATE
+              && Files.isDirectory(changed, LinkOption.NOFOLLOW_LINKS)) {
+            watchNewDirectory(changed);
+          }
+        }
+        if (!key.reset()) {
+          directories.remove(key);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Closed.
+    }
+  }
+
+  private void watchNewDirectory(Path directory) {
+    try {
+      watchTree(directory);
+    } catch (NoSuchFileException e) {
+      // Already gone again.
+    } catch (IOException e) {
+      LOG.log(System.Logger.Level.WARNING, "Cannot watch " + directory + ", caching is off", e);
+      watching = false;
+      generation.incrementAndGet();
+      entries.forEach(this::evict);
+    }
+  }
+
+  /** Drops every entry served from {@code changed}, from below it, or from its base file. */
+  private void invalidate(Path changed) {
+    String name = changed.getFileName().toString();
+    Path base = changed;
+    for (String[] encoding : ENCODINGS) {
+      if (name.endsWith(encoding[1])) {
+        base = changed.resolveSibling(name.substring(0, name.length() - encoding[1].length()));
+      }
+    }
+    for (var entry : entries.entrySet()) {
+      Path file = entry.getValue().resource.file();
+      if (file.startsWith(changed) || file.equals(base)) {
+        evict(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void watchTree(Path start) throws IOException {
+    Files.walkFileTree(
+        start,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes)
+              throws IOException {
+            directories.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+}
@@ -0,0 +1,35 @@
+package com.nathanmcunha.minispring.server.resource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for a {@link StaticResourceHandler}.
+ *
+ * @param root The directory whose files are served.
+ * @param cacheBytes How many bytes of file contents may be held on the heap in total. Files that
+ *     do not fit, or are bigger than {@code maxCachedFileBytes}, are memory-mapped instead.
+ * @param maxCachedFileBytes The largest file kept on the heap.
+ * @param maxAge How long clients may reuse a response without asking again, sent as {@code
+ *     Cache-Control: max-age}. Zero sends {@code no-cache}, so clients revalidate every time and
+ *     get a 304 when nothing changed.
+ */
+public record StaticResourceConfig(
+    Path root, long cacheBytes, int maxCachedFileBytes, Duration maxAge) {
+
+  public static StaticResourceConfig defaults(Path root) {
+    return new StaticResourceConfig(root, 32 * 1024 * 1024, 256 * 1024, Duration.ZERO);
+  }
+
+  public StaticResourceConfig withCacheBytes(long cacheBytes) {
+    return new StaticResourceConfig(root, cacheBytes, maxCachedFileBytes, maxAge);
+  }
+
+  public StaticResourceConfig withMaxCachedFileBytes(int maxCachedFileBytes) {
+    return new StaticResourceConfig(root, cacheBytes, maxCachedFileBytes, maxAge);
+  }
+
+  public StaticResourceConfig withMaxAge(Duration maxAge) {
+    return new StaticResourceConfig(root, cacheBytes, maxCachedFileBytes, maxAge);
+  }
+}
@@ -0,0 +1,160 @@
+package com.nathanmcunha.minispring.server.resource;
+
+import com.nathanmcunha.minispring.server.dispatch.ResponseOutput;
+import com.nathanmcunha.minispring.server.dispatch.protocol.AcceptEncoding;
+import com.nathanmcunha.minispring.server.dispatch.protocol.ETags;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpDates;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+
+/**
+ * Serves the files under a directory, mounted on a server engine next to the {@code
+ * DispatcherServlet}, for instance at {@code /static}.
+ *
+ * <p>Requests never reach the router or a controller. Files come from a {@link ResourceCache} that
+ * keeps small files on the heap and large ones memory-mapped, and that watches the directory
+ * instead of checking the disk on every request. A precompressed {@code .br} or {@code .gz}
+ * sibling is served in place of the file when the client accepts that encoding. Responses carry a
+ * strong {@code ETag} and a {@code Last-Modified} date, and conditional requests that match get a
+ * 304 without a body.
+ *
+ * <p>Only GET and HEAD are allowed. Paths with {@code .} or {@code ..} segments, or naming hidden
+ * (dot) files, get a 404, as do files reached through a symbolic link out of the directory.
+ */
+public final class StaticResourceHandler implements HttpHandler, AutoCloseable {
+
+  private final ResourceCache cache;
+  private final String cacheControl;
+
+  private StaticResourceHandler(StaticResourceConfig config) throws IOException {
+    this.cache = new ResourceCache(config);
+    long maxAge = config.maxAge().toSeconds();
+    this.cacheControl = maxAge > 0 ? "public, max-age=" + maxAge : "no-cache";
+  }
+
+  /** Starts watching {@code config.root()}, which must be an existing directory. */
+  public static StaticResourceHandler create(StaticResourceConfig config) throws IOException {
+    return new StaticResourceHandler(config);
+  }
+
+  @Override
+  public void handle(HttpExchange exchange) throws IOException {
+    String method = exchange.getRequestMethod();
+    boolean head = method.equals("HEAD");
+    if (!head && !method.equals("GET")) {
+      exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+      sendEmpty(exchange, 405);
+      return;
+    }
+
+    String relative = relativePath(exchange);
+    Resource resource = relative == null ? null : cache.lookup(relative);
+    if (resource == null) {
+      sendEmpty(exchange, HttpStatus.NOT_FOUND.value());
+      return;
+    }
+
+    Headers request = exchange.getRequestHeaders();
+    Resource selected = negotiate(resource, request.getFirst("Accept-Encoding"));
+    Headers headers = exchange.getResponseHeaders();
+    headers.set("ETag", selected.etag());
+    headers.set("Last-Modified", selected.lastModifiedText());
+    headers.set("Cache-Control", cacheControl);
+    if (!resource.variants().isEmpty()) {
+      headers.set("Vary", "Accept-Encoding");
+    }
+    if (isNotModified(request, selected)) {
+      sendEmpty(exchange, HttpStatus.NOT_MODIFIED.value());
+      return;
+    }
+
+    headers.set("Content-Type", selected.contentType());
+    if (selected.encoding() != null) {
+      headers.set("Content-Encoding", selected.encoding());
+    }
+    if (head) {
+      // Both engines take the length of a HEAD response from the header, not the argument.
+      headers.set("Content-Length", Long.toString(selected.length()));
+      sendEmpty(exchange, HttpStatus.OK.value());
+      return;
+    }
+    try (var out = new ResponseOutput(exchange, HttpStatus.OK.value())) {
+      out.expectLength(selected.length());
+      out.write(selected.content());
+    }
+  }
+
+  /** Stops watching the directory and drops the cache. */
+  @Override
+  public void close() throws IOException {
+    cache.close();
+  }
+
+  /**
+   * The request path below the mount point, or null if it has segments that are not plain names.
+   */
+  private static String relativePath(HttpExchange exchange) {
+    String path = exchange.getRequestURI().getPath();
+    String context = exchange.getHttpContext().getPath();
+    if (path == null || !path.startsWith(context)) {
+      return null;
+    }
+    int start = context.length();
+    // Engines match context paths as plain prefixes, so "/static" would also take "/statics".
+    if (start < path.length() && !context.endsWith("/") && path.charAt(start) != '/') {
+      return null;
+    }
+    while (start < path.length() && path.charAt(start) == '/') {
+      start++;
+    }
+    String relative = path.substring(start);
+    for (int i = 0; i < relative.length(); i++) {
+      char c = relative.charAt(i);
+      if (c == '\\' || c == '\0') {
+        return null;
+      }
+      // A segment starting with a dot covers ".", ".." and hidden files alike.
+      if (c == '.' && (i == 0 || relative.charAt(i - 1) == '/')) {
+        return null;
+      }
+    }
+    return relative;
+  }
+
+  /** Picks the most preferred precompressed variant the client accepts. */
+  private static Resource negotiate(Resource resource, String acceptEncoding) {
+    if (acceptEncoding != null) {
+      for (Resource variant : resource.variants()) {
+        if (AcceptEncoding.quality(acceptEncoding, variant.encoding()) > 0) {
+          return variant;
+        }
+      }
+    }
+    return resource;
+  }
+
+  /**
+   * Evaluates {@code If-None-Match} (weak comparison, as RFC 9110 asks for GET) or, only when that
+   * is absent, {@code If-Modified-Since} at one second resolution.
+   */
+  private static boolean isNotModified(Headers request, Resource resource) {
+    String ifNoneMatch = request.getFirst("If-None-Match");
+    if (ifNoneMatch != null) {
+      return ETags.noneMatchHits(ifNoneMatch, resource.etag());
+    }
+    String ifModifiedSince = request.getFirst("If-Modified-Since");
+    if (ifModifiedSince != null) {
+      long since = HttpDates.parseSeconds(ifModifiedSince);
+      return since >= 0 && resource.lastModified() / 1000 <= since;
+    }
+    return false;
+  }
+
+  private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+    exchange.sendResponseHeaders(status, -1);
+    exchange.getResponseBody().close();
+  }
+}
@@ -2,16 +2,16 @@ package com.nathanmcunha.minispring.server.router;
 
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
 import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
-import com.sun.net.httpserver.HttpExchange;
 
 @FunctionalInterface
 public interface RouteAction {
 
   /**
-   * Performs the action (e.g., executing a handler or sending a 404
+   * Performs the action (e.g., executing a handler or sending a 404)
    *
-   * @param exchange the http to act
+   * @param request the request to act on
    */
-  Result<Response<?>, FrameworkError> perform(HttpExchange exchange);
+  Result<Response<?>, FrameworkError> perform(Request request);
 }
\ No newline at end of file
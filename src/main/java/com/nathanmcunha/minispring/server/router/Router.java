@@ -3,11 +3,21 @@ package com.nathanmcunha.minispring.server.router;
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.error.FrameworkError;
 import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
 
 /**
  * Strategy interface for resolving HTTP requests to specific method handlers.
  */
 public interface Router {
+  /**
+   * Matches a request against the registered routes, capturing any path variables.
+   *
+   * @param verb The HTTP method (e.g., GET, POST).
+   * @param path The request URI path.
+   * @return A Result containing the {@link RouteMatch} if found, or a {@link FrameworkError}.
+   */
+  Result<RouteMatch, FrameworkError> route(String verb, String path);
+
   /**
    * Finds the appropriate handler for a given HTTP verb and path.
    *
@@ -15,5 +25,7 @@ public interface Router {
    * @param path The request URI path.
    * @return A Result containing the {@link MethodHandler} if found, or a {@link FrameworkError}.
    */
-  Result<MethodHandler, FrameworkError> getHandler(String verb, String path);
-}
\ No newline at end of file
+  default Result<MethodHandler, FrameworkError> getHandler(String verb, String path) {
+    return route(verb, path).map(RouteMatch::handler);
+  }
+}
@@ -1,31 +1,55 @@
 package com.nathanmcunha.minispring.server.router;
 
+import com.nathanmcunha.minispring.annotations.Cached;
 import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Header;
 import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.RateLimited;
 import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.annotations.Uncompressed;
+import com.nathanmcunha.minispring.annotations.WebSocket;
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.container.registry.BeanFactory;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.cache.CachePolicy;
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
+import com.nathanmcunha.minispring.server.intercept.Interceptor;
+import com.nathanmcunha.minispring.server.intercept.InterceptorChains;
+import com.nathanmcunha.minispring.server.ratelimit.RateLimit;
+import com.nathanmcunha.minispring.server.router.invoke.InvokerCompiler;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinder;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinders;
 import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.model.Route;
 import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.nathanmcunha.minispring.server.router.tree.RouteTemplate;
+import com.nathanmcunha.minispring.server.router.tree.RouteTree;
+import com.nathanmcunha.minispring.server.websocket.WebSocketListener;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.function.Function;
 
 /**
  * An immutable registry that maps {@link RouteKey}s to {@link MethodHandler}s.
  *
  * <p>The registry is built by scanning beans annotated with {@code @Rest} 
- * and identifying methods annotated with {@code @Get} or {@code @Post}.</p>
+ * and identifying methods annotated with {@code @Get} or {@code @Post}, or with
+ * {@code @WebSocket}, which are GET routes that upgrade the connection.
+ * Each verb gets its own {@link RouteTree}, so paths may be templates such as
+ * {@code /users/{id}/orders/{orderId}} and lookups stay proportional to the path length
+ * no matter how many routes are registered. Beans annotated with {@code @Intercepts} are
+ * resolved into each route's interceptors here too, once.</p>
  */
 public class RouterRegistry implements Router {
 
-  private final Map<RouteKey, MethodHandler> routes;
+  private final Map<String, RouteTree> routes;
 
-  private RouterRegistry(final Map<RouteKey, MethodHandler> routes) {
+  private RouterRegistry(final Map<String, RouteTree> routes) {
     this.routes = routes;
   }
 
@@ -40,17 +64,24 @@ public class RouterRegistry implements Router {
   }
 
   @Override
-  public Result<MethodHandler, FrameworkError> getHandler(final String verb, final String path) {
-    final RouteKey key = new RouteKey(verb, path);
-    return Optional.ofNullable(routes.get(key))
-        .map(Result::<MethodHandler, FrameworkError>success)
-        .orElse(Result.failure(new FrameworkError.RouteNotFound(verb, path)));
+  public Result<RouteMatch, FrameworkError> route(final String verb, final String path) {
+    final RouteTree tree = routes.get(verb);
+    if (tree == null) {
+      return Result.failure(new FrameworkError.RouteNotFound(verb, path));
+    }
+    return tree.find(path);
   }
 
-  private static Result<Map<RouteKey, MethodHandler>, FrameworkError> buildRouteRegistry(
+  private static Result<Map<String, RouteTree>, FrameworkError> buildRouteRegistry(
       final BeanFactory factory) {
+    return InterceptorChains.discover(factory)
+        .flatMap(interceptors -> buildRouteRegistry(factory, interceptors));
+  }
+
+  private static Result<Map<String, RouteTree>, FrameworkError> buildRouteRegistry(
+      final BeanFactory factory, final InterceptorChains interceptors) {
 
-    final Map<RouteKey, MethodHandler> registry = new HashMap<>();
+    final Map<String, RouteTree> registry = new HashMap<>();
     var beans = factory.getBeansWithAnnotation(Rest.class);
 
     for (Class<?> clazz : beans) {
@@ -65,13 +96,31 @@ public class RouterRegistry implements Router {
       // 2. Scan methods for that bean instance
       for (Method method : clazz.getDeclaredMethods()) {
         // Try to register GET
-        var error = registerRoute(registry, instance, method, Get.class, "GET", Get::value);
+        var error =
+            registerRoute(
+                registry, interceptors, instance, method, Get.class, "GET", Get::value);
         if (error != null) {
           return Result.failure(error);
         }
 
         // Try to register POST
-        error = registerRoute(registry, instance, method, Post.class, "POST", Post::value);
+        error =
+            registerRoute(
+                registry, interceptors, instance, method, Post.class, "POST", Post::value);
+        if (error != null) {
+          return Result.failure(error);
+        }
+
+        // Try to register a WebSocket endpoint, whose handshake is a GET
+        error =
+            registerRoute(
+                registry,
+                interceptors,
+                instance,
+                method,
+                WebSocket.class,
+                "GET",
+                WebSocket::value);
         if (error != null) {
           return Result.failure(error);
         }
@@ -83,10 +132,12 @@ public class RouterRegistry implements Router {
 
   /**
    * Helper to check for an annotation and register the route. Returns generic FrameworkError if
-   * collision occurs, null if success/ignored.
+   * the template is invalid, its parameters cannot be bound or it collides with an existing
+   * template, null if success/ignored.
    */
   private static <A extends Annotation> FrameworkError registerRoute(
-      Map<RouteKey, MethodHandler> registry,
+      Map<String, RouteTree> registry,
+      InterceptorChains interceptors,
       Object bean,
       Method method,
       Class<A> annotationType,
@@ -98,15 +149,182 @@ public class RouterRegistry implements Router {
     }
 
     String path = pathExtractor.apply(method.getAnnotation(annotationType));
-    RouteKey key = new RouteKey(verb, path);
+    Result<Route, FrameworkError> registration =
+        RouteTemplate.parse(path)
+            .flatMap(
+                template ->
+                    buildRoute(bean, method, verb, path, template, interceptors)
+                        .flatMap(route -> insert(registry, template, route)));
+
+    return registration instanceof Result.Failure<Route, FrameworkError>(var error) ? error : null;
+  }
+
+  /** Resolves everything the route needs at request time, failing on the first problem. */
+  private static Result<Route, FrameworkError> buildRoute(
+      Object bean,
+      Method method,
+      String verb,
+      String path,
+      RouteTemplate template,
+      InterceptorChains interceptors) {
+    FrameworkError webSocket = checkWebSocket(method);
+    if (webSocket != null) {
+      return Result.failure(webSocket);
+    }
+    return ArgumentBinders.compile(method, template, acceptsBody(verb))
+        .flatMap(
+            binders ->
+                cachePolicy(method, verb)
+                    .flatMap(
+                        cache ->
+                            rateLimit(method)
+                                .map(
+                                    rateLimit ->
+                                        newRoute(
+                                            bean,
+                                            method,
+                                            verb,
+                                            path,
+                                            binders,
+                                            cache,
+                                            rateLimit,
+                                            interceptors.forTemplate(path)))));
+  }
+
+  /**
+   * Compiles the invoker and the body writer once here, so dispatch never goes through {@code
+   * Method.invoke} or inspects the body type. The interceptors arrive already filtered and sorted
+   * for this template.
+   */
+  private static Route newRoute(
+      Object bean,
+      Method method,
+      String verb,
+      String path,
+      ArgumentBinder[] binders,
+      CachePolicy cache,
+      RateLimit rateLimit,
+      Interceptor[] interceptors) {
+    var handler =
+        new MethodHandler(
+            bean, method, InvokerCompiler.compile(bean, method), BodyWriters.forMethod(method));
+    boolean compressible = !method.isAnnotationPresent(Uncompressed.class);
+    return new Route(
+        new RouteKey(verb, path), handler, binders, cache, compressible, rateLimit, interceptors);
+  }
 
-    if (registry.containsKey(key)) {
-      MethodHandler existing = registry.get(key);
-      return new FrameworkError.RouteCollision(
-          verb, path, existing.method().getName(), method.getName());
+  /** Reads {@code @Cached}, which only makes sense on GET routes with a body that can be stored. */
+  private static Result<CachePolicy, FrameworkError> cachePolicy(Method method, String verb) {
+    Cached cached = method.getAnnotation(Cached.class);
+    if (cached == null) {
+      return Result.success(CachePolicy.NONE);
     }
+    String problem = null;
+    if (!"GET".equals(verb)) {
+      problem = "only GET responses can be cached";
+    } else if (cached.ttl() <= 0) {
+      problem = "the ttl must be positive";
+    } else if (BodyWriters.streamsBody(method)) {
+      problem = "streamed bodies cannot be cached";
+    } else if (BodyWriters.completesLater(method)) {
+      problem = "asynchronous bodies cannot be cached";
+    } else if (readsHeaders(method)) {
+      problem = "responses that depend on request headers cannot be cached";
+    }
+    if (problem != null) {
+      return Result.failure(
+          new FrameworkError.InvalidRouteDefinition(
+              "Cannot cache "
+                  + method.getDeclaringClass().getName()
+                  + "#"
+                  + method.getName()
+                  + ": "
+                  + problem));
+    }
+    return Result.success(new CachePolicy(cached.unit().toNanos(cached.ttl())));
+  }
+
+  /**
+   * Whether a method binds a {@code @Header} or the whole {@link Request}, either of which makes its
+   * response vary with headers the cache key does not include.
+   */
+  private static boolean readsHeaders(Method method) {
+    for (Parameter parameter : method.getParameters()) {
+      if (parameter.isAnnotationPresent(Header.class) || parameter.getType() == Request.class) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks that {@code @WebSocket} methods, and only they, return a {@link WebSocketListener}, and
+   * that their message limit is positive. Null if the method is fine.
+   */
+  private static FrameworkError checkWebSocket(Method method) {
+    WebSocket webSocket = method.getAnnotation(WebSocket.class);
+    boolean listens = WebSocketListener.class.isAssignableFrom(method.getReturnType());
+    String problem = null;
+    if (webSocket == null) {
+      problem = listens ? "listeners can only be returned from @WebSocket methods" : null;
+    } else if (!listens) {
+      problem = "@WebSocket methods must return a WebSocketListener";
+    } else if (webSocket.maxMessageBytes() <= 0) {
+      problem = "maxMessageBytes must be positive";
+    } else if (method.isAnnotationPresent(Get.class)) {
+      problem = "a method cannot be both @Get and @WebSocket";
+    }
+    if (problem == null) {
+      return null;
+    }
+    return new FrameworkError.InvalidRouteDefinition(
+        "Cannot route to "
+            + method.getDeclaringClass().getName()
+            + "#"
+            + method.getName()
+            + ": "
+            + problem);
+  }
+
+  /** Reads {@code @RateLimited}, whose rate and burst must be positive. */
+  private static Result<RateLimit, FrameworkError> rateLimit(Method method) {
+    RateLimited limited = method.getAnnotation(RateLimited.class);
+    if (limited == null) {
+      return Result.success(RateLimit.NONE);
+    }
+    long period = limited.unit().toNanos(limited.period());
+    long interval = limited.requests() > 0 ? period / limited.requests() : 0;
+    long burst = limited.burst() == 0 ? limited.requests() : limited.burst();
+    if (interval <= 0 || burst <= 0) {
+      return Result.failure(
+          new FrameworkError.InvalidRouteDefinition(
+              "Cannot rate limit "
+                  + method.getDeclaringClass().getName()
+                  + "#"
+                  + method.getName()
+                  + ": the rate and the burst must be positive"));
+    }
+    String header = limited.header().isEmpty() ? null : limited.header();
+    return Result.success(RateLimit.of(interval, burst, header));
+  }
+
+  private static boolean acceptsBody(String verb) {
+    return "POST".equals(verb);
+  }
 
-    registry.put(key, new MethodHandler(bean, method));
-    return null;
+  private static Result<Route, FrameworkError> insert(
+      Map<String, RouteTree> registry, RouteTemplate template, Route route) {
+    RouteKey key = route.key();
+    RouteTree tree = registry.computeIfAbsent(key.verb(), RouteTree::new);
+    return tree.insert(template, route)
+        .map(
+            existing ->
+                Result.<Route, FrameworkError>failure(
+                    new FrameworkError.RouteCollision(
+                        key.verb(),
+                        key.path(),
+                        existing.handler().method().getName(),
+                        route.handler().method().getName())))
+        .orElseGet(() -> Result.success(route));
   }
 }
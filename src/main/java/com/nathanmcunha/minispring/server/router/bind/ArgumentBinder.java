@@ -0,0 +1,17 @@
+package com.nathanmcunha.minispring.server.router.bind;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
+
+/**
+ * Produces the value of one handler parameter for a request.
+ *
+ * <p>Binders are resolved once per route by {@link ArgumentBinders}; at request time the dispatcher
+ * only walks the precompiled array.
+ */
+@FunctionalInterface
+public interface ArgumentBinder {
+
+  Result<Object, FrameworkError> bind(Request request);
+}
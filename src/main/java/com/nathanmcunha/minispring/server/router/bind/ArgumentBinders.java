@@ -0,0 +1,262 @@
+package com.nathanmcunha.minispring.server.router.bind;
+
+import com.nathanmcunha.minispring.annotations.Header;
+import com.nathanmcunha.minispring.annotations.Multipart;
+import com.nathanmcunha.minispring.annotations.Param;
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.codec.json.JsonDecoder;
+import com.nathanmcunha.minispring.server.codec.json.JsonDecoders;
+import com.nathanmcunha.minispring.server.codec.json.JsonReader;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
+import com.nathanmcunha.minispring.server.multipart.MultipartConfig;
+import com.nathanmcunha.minispring.server.multipart.MultipartException;
+import com.nathanmcunha.minispring.server.multipart.MultipartForm;
+import com.nathanmcunha.minispring.server.router.model.PathVariables;
+import com.nathanmcunha.minispring.server.router.tree.RouteTemplate;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves, once per route, how each parameter of a handler method gets its value.
+ *
+ * <p>A parameter is bound to a path variable when its name matches one declared in the template
+ * (the build compiles with {@code -parameters}), and a {@link PathVariables} parameter receives all
+ * of them. The variable's position in the template is fixed at this point, so binding a request
+ * never searches by name.
+ *
+ * <p>{@link Param} and {@link Header} parameters read one value from the query or the headers, by
+ * a name fixed here, through the same converters as path variables. A {@link Request} parameter
+ * receives the request itself.
+ *
+ * <p>On routes that accept a body, the one remaining parameter is read from the request body:
+ * {@link CharSequence} parameters as plain text, anything else through a {@link JsonDecoder} built
+ * here for its declared type. The decoder streams from the request, so the body is never buffered
+ * as a whole; malformed or mistyped JSON fails the request with 400. A {@link MultipartForm}
+ * parameter receives a {@code multipart/form-data} body, parsed within the limits of the method's
+ * {@link Multipart} annotation, and its temporary files are deleted once the response is complete.
+ */
+public final class ArgumentBinders {
+
+  private ArgumentBinders() {}
+
+  public static Result<ArgumentBinder[], FrameworkError> compile(
+      Method method, RouteTemplate template, boolean acceptsBody) {
+    List<String> variables = Arrays.asList(template.variableNames());
+    Parameter[] parameters = method.getParameters();
+    ArgumentBinder[] binders = new ArgumentBinder[parameters.length];
+    boolean bodyBound = false;
+    for (int i = 0; i < parameters.length; i++) {
+      Parameter parameter = parameters[i];
+      Result<ArgumentBinder, FrameworkError> binder;
+      if (parameter.isAnnotationPresent(Param.class)
+          || parameter.isAnnotationPresent(Header.class)
+          || parameter.getType() == Request.class) {
+        binder = requestBinderFor(method, parameter);
+      } else if (parameter.getType() == PathVariables.class
+          || variables.contains(parameter.getName())
+          || !acceptsBody) {
+        binder = binderFor(method, parameter, variables);
+      } else if (!bodyBound) {
+        bodyBound = true;
+        binder = bodyBinderFor(method, parameter);
+      } else {
+        binder = unbindable(method, parameter, "only one parameter can be bound to the body");
+      }
+      switch (binder) {
+        case Result.Success<ArgumentBinder, FrameworkError>(var value) -> binders[i] = value;
+        case Result.Failure<ArgumentBinder, FrameworkError>(var error) -> {
+          return Result.failure(error);
+        }
+      }
+    }
+    return Result.success(binders);
+  }
+
+  private static Result<ArgumentBinder, FrameworkError> binderFor(
+      Method method, Parameter parameter, List<String> variables) {
+    if (parameter.getType() == PathVariables.class) {
+      return Result.success(request -> Result.success(request.pathVariables()));
+    }
+
+    int index = variables.indexOf(parameter.getName());
+    if (index < 0) {
+      return unbindable(method, parameter, "no path variable with that name");
+    }
+
+    return ValueConverters.forType(parameter.getType())
+        .map(converter -> Result.<ArgumentBinder, FrameworkError>success(bind(index, converter)))
+        .orElseGet(() -> unbindable(method, parameter, "unsupported type " + parameter.getType()));
+  }
+
+  private static Result<ArgumentBinder, FrameworkError> requestBinderFor(
+      Method method, Parameter parameter) {
+    if (parameter.getType() == Request.class) {
+      return Result.success(Result::success);
+    }
+    Param param = parameter.getAnnotation(Param.class);
+    Header header = parameter.getAnnotation(Header.class);
+    if (param != null && header != null) {
+      return unbindable(method, parameter, "both @Param and @Header");
+    }
+    boolean required = param != null ? param.required() : header.required();
+    if (!required && parameter.getType().isPrimitive()) {
+      return unbindable(method, parameter, "an optional value cannot be primitive");
+    }
+    var converter = ValueConverters.forType(parameter.getType());
+    if (converter.isEmpty()) {
+      return unbindable(method, parameter, "unsupported type " + parameter.getType());
+    }
+    if (param != null) {
+      String name = param.value().isEmpty() ? parameter.getName() : param.value();
+      return Result.success(
+          lookup(
+              "query parameter '" + name + "'",
+              request -> request.param(name),
+              required,
+              converter.get()));
+    }
+    String name = header.value();
+    return Result.success(
+        lookup(
+            "header '" + name + "'", request -> request.header(name), required, converter.get()));
+  }
+
+  private static Result<ArgumentBinder, FrameworkError> bodyBinderFor(
+      Method method, Parameter parameter) {
+    Class<?> type = parameter.getType();
+    if (type == String.class || type == CharSequence.class) {
+      return Result.success(ArgumentBinders::readText);
+    }
+    if (type == MultipartForm.class) {
+      return multipartConfig(method)
+          .map(config -> Result.<ArgumentBinder, FrameworkError>success(readMultipart(config)))
+          .orElseGet(() -> unbindable(method, parameter, "@Multipart limits must be positive"));
+    }
+    return JsonDecoders.forType(parameter.getParameterizedType())
+        .map(decoder -> Result.<ArgumentBinder, FrameworkError>success(readJson(decoder)))
+        .orElseGet(
+            () ->
+                unbindable(
+                    method,
+                    parameter,
+                    "unsupported body type " + parameter.getParameterizedType().getTypeName()));
+  }
+
+  private static Result<Object, FrameworkError> readText(Request request) {
+    try {
+      return Result.success(new String(request.body().readAllBytes(), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      return Result.failure(
+          new FrameworkError.RequestHandlingFailed(e, HttpStatus.BAD_REQUEST.value()));
+    }
+  }
+
+  private static Optional<MultipartConfig> multipartConfig(Method method) {
+    Multipart multipart = method.getAnnotation(Multipart.class);
+    if (multipart == null) {
+      return Optional.of(MultipartConfig.defaults());
+    }
+    try {
+      return Optional.of(
+          MultipartConfig.defaults()
+              .withMemoryThreshold(multipart.memoryThreshold())
+              .withMaxPartBytes(multipart.maxPartBytes())
+              .withMaxRequestBytes(multipart.maxRequestBytes())
+              .withMaxParts(multipart.maxParts()));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static ArgumentBinder readMultipart(MultipartConfig config) {
+    return request -> {
+      String length = request.header("Content-Length");
+      try {
+        MultipartForm form =
+            MultipartForm.read(
+                request.body(),
+                request.header("Content-Type"),
+                length == null ? -1 : Long.parseLong(length.trim()),
+                config);
+        request.closeOnCompletion(form);
+        return Result.success(form);
+      } catch (MultipartException e) {
+        return Result.failure(new FrameworkError.RequestHandlingFailed(e, e.status()));
+      } catch (IOException | RuntimeException e) {
+        return Result.failure(
+            new FrameworkError.RequestHandlingFailed(e, HttpStatus.BAD_REQUEST.value()));
+      }
+    };
+  }
+
+  private static ArgumentBinder readJson(JsonDecoder<Object> decoder) {
+    return request -> {
+      try (JsonReader reader = new JsonReader(request.body())) {
+        Object value = decoder.read(reader);
+        reader.endDocument();
+        return Result.success(value);
+      } catch (IOException | RuntimeException e) {
+        return Result.failure(
+            new FrameworkError.RequestHandlingFailed(e, HttpStatus.BAD_REQUEST.value()));
+      }
+    };
+  }
+
+  private static ArgumentBinder bind(int index, Function<String, Object> converter) {
+    return request -> {
+      try {
+        return Result.success(converter.apply(request.pathVariables().value(index)));
+      } catch (RuntimeException e) {
+        return Result.failure(
+            new FrameworkError.RequestHandlingFailed(e, HttpStatus.BAD_REQUEST.value()));
+      }
+    };
+  }
+
+  /** Binds the value {@code source} finds, failing with 400 when it is missing or malformed. */
+  private static ArgumentBinder lookup(
+      String description,
+      Function<Request, String> source,
+      boolean required,
+      Function<String, Object> converter) {
+    return request -> {
+      try {
+        String value = source.apply(request);
+        if (value == null) {
+          return required
+              ? Result.failure(
+                  new FrameworkError.RequestHandlingFailed(
+                      new IllegalArgumentException("Missing " + description),
+                      HttpStatus.BAD_REQUEST.value()))
+              : Result.success(null);
+        }
+        return Result.success(converter.apply(value));
+      } catch (RuntimeException e) {
+        return Result.failure(
+            new FrameworkError.RequestHandlingFailed(e, HttpStatus.BAD_REQUEST.value()));
+      }
+    };
+  }
+
+  private static Result<ArgumentBinder, FrameworkError> unbindable(
+      Method method, Parameter parameter, String reason) {
+    return Result.failure(
+        new FrameworkError.InvalidRouteDefinition(
+            "Cannot bind parameter '"
+                + parameter.getName()
+                + "' of "
+                + method.getDeclaringClass().getName()
+                + "#"
+                + method.getName()
+                + ": "
+                + reason));
+  }
+}
@@ -0,0 +1,43 @@
+package com.nathanmcunha.minispring.server.router.bind;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/** Conversions from raw request text (path segments, query values...) to handler parameter types. */
+public final class ValueConverters {
+
+  private static final Map<Class<?>, Function<String, Object>> CONVERTERS =
+      Map.ofEntries(
+          Map.entry(String.class, value -> value),
+          Map.entry(CharSequence.class, value -> value),
+          Map.entry(int.class, Integer::valueOf),
+          Map.entry(Integer.class, Integer::valueOf),
+          Map.entry(long.class, Long::valueOf),
+          Map.entry(Long.class, Long::valueOf),
+          Map.entry(double.class, Double::valueOf),
+          Map.entry(Double.class, Double::valueOf),
+          Map.entry(boolean.class, Boolean::valueOf),
+          Map.entry(Boolean.class, Boolean::valueOf),
+          Map.entry(UUID.class, UUID::fromString));
+
+  private ValueConverters() {}
+
+  /**
+   * Finds the converter for a parameter type.
+   *
+   * @return The converter, or empty if the type cannot be built from a single string.
+   */
+  public static Optional<Function<String, Object>> forType(Class<?> type) {
+    if (type.isEnum()) {
+      return Optional.of(value -> enumValue(type, value));
+    }
+    return Optional.ofNullable(CONVERTERS.get(type));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object enumValue(Class<?> type, String value) {
+    return Enum.valueOf((Class<? extends Enum>) type, value);
+  }
+}
@@ -0,0 +1,21 @@
+package com.nathanmcunha.minispring.server.router.invoke;
+
+/**
+ * A precompiled call site for a controller method.
+ *
+ * <p>Invokers are built once by {@link InvokerCompiler} when a route is registered, so the request
+ * path never touches {@link java.lang.reflect.Method#invoke}. Exceptions thrown by the controller
+ * are propagated as-is instead of being wrapped in an {@code InvocationTargetException}.
+ */
+@FunctionalInterface
+public interface HandlerInvoker {
+
+  /**
+   * Calls the underlying controller method.
+   *
+   * @param args The already resolved method arguments, in declaration order.
+   * @return The value returned by the controller, or {@code null} for {@code void} methods.
+   * @throws Exception Whatever the controller method throws.
+   */
+  Object invoke(Object[] args) throws Exception;
+}
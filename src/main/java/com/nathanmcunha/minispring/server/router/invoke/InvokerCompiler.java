@@ -0,0 +1,54 @@
+package com.nathanmcunha.minispring.server.router.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Turns a controller {@link Method} into a {@link HandlerInvoker} at registration time.
+ *
+ * <p>The method is unreflected once, bound to its bean, spread over an {@code Object[]} and
+ * adapted to return {@code Object} (boxing primitives and mapping {@code void} to {@code null}).
+ * Only public methods are compiled; anything else yields an invoker that fails on every call with
+ * an {@link IllegalAccessException}, matching what reflective dispatch used to do.
+ */
+public final class InvokerCompiler {
+
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  private InvokerCompiler() {}
+
+  /**
+   * Compiles a direct invoker for the given controller method.
+   *
+   * @param instance The bean that owns the method (ignored for static methods).
+   * @param method The controller method to call.
+   * @return The compiled invoker. Never null.
+   */
+  public static HandlerInvoker compile(Object instance, Method method) {
+    try {
+      MethodHandle target = unreflect(method).asFixedArity();
+      if (!Modifier.isStatic(method.getModifiers())) {
+        target = target.bindTo(instance);
+      }
+      return new MethodHandleInvoker(
+          target.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE));
+    } catch (IllegalAccessException e) {
+      return args -> {
+        throw e;
+      };
+    }
+  }
+
+  private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+    if (!Modifier.isPublic(method.getModifiers())) {
+      throw new IllegalAccessException("Handler method must be public: " + method);
+    }
+    // Controllers are frequently package-private (or local) classes with public methods,
+    // so we look them up from inside their own class rather than from the framework.
+    var lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+    return lookup.unreflect(method);
+  }
+}
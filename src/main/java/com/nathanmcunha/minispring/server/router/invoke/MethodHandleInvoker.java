@@ -0,0 +1,24 @@
+package com.nathanmcunha.minispring.server.router.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * {@link HandlerInvoker} backed by a {@link MethodHandle} already bound to the controller instance
+ * and adapted to the {@code (Object[])Object} shape.
+ *
+ * <p>Each route owns its own handle, so the JIT customizes and inlines the call once it gets hot.
+ */
+record MethodHandleInvoker(MethodHandle target) implements HandlerInvoker {
+
+  @Override
+  public Object invoke(Object[] args) throws Exception {
+    try {
+      return (Object) target.invokeExact(args);
+    } catch (Exception | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new UndeclaredThrowableException(t);
+    }
+  }
+}
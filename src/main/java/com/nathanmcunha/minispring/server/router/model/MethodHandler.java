@@ -1,7 +1,23 @@
 package com.nathanmcunha.minispring.server.router.model;
 
+import com.nathanmcunha.minispring.server.codec.BodyWriter;
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.router.invoke.HandlerInvoker;
+import com.nathanmcunha.minispring.server.router.invoke.InvokerCompiler;
 import java.lang.reflect.Method;
 
-public record MethodHandler(Object instance, Method method) {
+/**
+ * A controller method together with everything compiled for it up front: the invoker that calls it
+ * and the writer that encodes whatever it returns.
+ */
+public record MethodHandler(
+    Object instance, Method method, HandlerInvoker invoker, BodyWriter bodyWriter) {
+
+  public MethodHandler(Object instance, Method method) {
+    this(
+        instance,
+        method,
+        InvokerCompiler.compile(instance, method),
+        BodyWriters.forMethod(method));
+  }
 }
- 
@@ -0,0 +1,66 @@
+package com.nathanmcunha.minispring.server.router.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Variables captured while matching a request path against a route template.
+ *
+ * <p>This is a flyweight over the original path: the router only records where each value starts
+ * and ends, and the {@link String} for a value is cut out the first time someone asks for it.
+ * Routes whose handlers never look at their variables therefore pay nothing for them.
+ */
+public final class PathVariables {
+
+  public static final PathVariables EMPTY = new PathVariables("", new String[0], new int[0]);
+
+  private final String path;
+  private final String[] names;
+  private final int[] bounds;
+
+  /**
+   * @param path The request path the values were captured from.
+   * @param names The variable names, in template order.
+   * @param bounds Start (inclusive) and end (exclusive) offsets into {@code path}, two per name.
+   */
+  public PathVariables(String path, String[] names, int[] bounds) {
+    this.path = path;
+    this.names = names;
+    this.bounds = bounds;
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public String name(int index) {
+    return names[index];
+  }
+
+  public String value(int index) {
+    return path.substring(bounds[2 * index], bounds[2 * index + 1]);
+  }
+
+  public Optional<String> get(String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return Optional.of(value(i));
+      }
+    }
+    return Optional.empty();
+  }
+
+  public Map<String, String> asMap() {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      values.put(names[i], value(i));
+    }
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return asMap().toString();
+  }
+}
@@ -0,0 +1,33 @@
+package com.nathanmcunha.minispring.server.router.model;
+
+import com.nathanmcunha.minispring.server.cache.CachePolicy;
+import com.nathanmcunha.minispring.server.intercept.Interceptor;
+import com.nathanmcunha.minispring.server.intercept.InterceptorChains;
+import com.nathanmcunha.minispring.server.ratelimit.RateLimit;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinder;
+
+/**
+ * A registered route: the verb and template it answers to, the handler behind it, the binders
+ * that produce the handler's arguments, how its responses are cached, whether they may be
+ * compressed, how often each client may call it and the interceptors around it, all resolved once
+ * at registration time.
+ */
+public record Route(
+    RouteKey key,
+    MethodHandler handler,
+    ArgumentBinder[] binders,
+    CachePolicy cache,
+    boolean compressible,
+    RateLimit rateLimit,
+    Interceptor[] interceptors) {
+
+  private static final ArgumentBinder[] NO_BINDERS = new ArgumentBinder[0];
+
+  public Route(RouteKey key, MethodHandler handler) {
+    this(key, handler, NO_BINDERS);
+  }
+
+  public Route(RouteKey key, MethodHandler handler, ArgumentBinder[] binders) {
+    this(key, handler, binders, CachePolicy.NONE, true, RateLimit.NONE, InterceptorChains.NONE);
+  }
+}
@@ -1,4 +1,7 @@
 package com.nathanmcunha.minispring.server.router.model;
 
+/**
+ * Identifies a route by its HTTP verb and its path template (e.g. {@code /users/{id}}).
+ */
 public record RouteKey(String verb, String path) {
 }
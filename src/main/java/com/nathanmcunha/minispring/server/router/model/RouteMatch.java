@@ -0,0 +1,9 @@
+package com.nathanmcunha.minispring.server.router.model;
+
+/** The outcome of a successful lookup: the matched route and the variables captured from the path. */
+public record RouteMatch(Route route, PathVariables variables) {
+
+  public MethodHandler handler() {
+    return route.handler();
+  }
+}
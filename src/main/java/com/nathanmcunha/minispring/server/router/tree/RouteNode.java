@@ -0,0 +1,75 @@
+package com.nathanmcunha.minispring.server.router.tree;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import java.util.Arrays;
+
+/**
+ * One edge of the radix tree. Static children are kept sorted by their first character so a lookup
+ * is a binary search over a {@code char[]}; variable and catch-all children are single slots.
+ */
+final class RouteNode {
+
+  private static final char[] NO_INDICES = new char[0];
+  private static final RouteNode[] NO_CHILDREN = new RouteNode[0];
+
+  String prefix;
+  char[] indices = NO_INDICES;
+  RouteNode[] children = NO_CHILDREN;
+  RouteNode variable;
+  RouteNode catchAll;
+
+  Route route;
+  String[] variableNames;
+  // Precomputed lookup result for routes without variables, so static hits allocate nothing.
+  Result<RouteMatch, FrameworkError> staticHit;
+
+  RouteNode(String prefix) {
+    this.prefix = prefix;
+  }
+
+  RouteNode staticChild(char first) {
+    int index = Arrays.binarySearch(indices, first);
+    return index >= 0 ? children[index] : null;
+  }
+
+  void addStaticChild(RouteNode child) {
+    char first = child.prefix.charAt(0);
+    int insertAt = -(Arrays.binarySearch(indices, first) + 1);
+
+    char[] newIndices = new char[indices.length + 1];
+    RouteNode[] newChildren = new RouteNode[children.length + 1];
+    System.arraycopy(indices, 0, newIndices, 0, insertAt);
+    System.arraycopy(children, 0, newChildren, 0, insertAt);
+    newIndices[insertAt] = first;
+    newChildren[insertAt] = child;
+    System.arraycopy(indices, insertAt, newIndices, insertAt + 1, indices.length - insertAt);
+    System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+    indices = newIndices;
+    children = newChildren;
+  }
+
+  /** Splits this node at {@code length}, pushing everything after it down into a new child. */
+  void split(int length) {
+    RouteNode tail = new RouteNode(prefix.substring(length));
+    tail.indices = indices;
+    tail.children = children;
+    tail.variable = variable;
+    tail.catchAll = catchAll;
+    tail.route = route;
+    tail.variableNames = variableNames;
+    tail.staticHit = staticHit;
+
+    prefix = prefix.substring(0, length);
+    indices = new char[] {tail.prefix.charAt(0)};
+    children = new RouteNode[] {tail};
+    variable = null;
+    catchAll = null;
+    route = null;
+    variableNames = null;
+    staticHit = null;
+  }
+}
@@ -0,0 +1,115 @@
+package com.nathanmcunha.minispring.server.router.tree;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed route path such as {@code /users/{id}/orders/{orderId}} or {@code /assets/*}.
+ *
+ * <p>Supported syntax:
+ *
+ * <ul>
+ *   <li>{@code {name}} captures exactly one, non-empty path segment.
+ *   <li>{@code {*name}} captures the rest of the path and must be the last segment.
+ *   <li>{@code *} as the last segment is an anonymous catch-all, exposed under the name {@code *}.
+ * </ul>
+ *
+ * <p>Variables always span whole segments, so {@code /files/{name}.json} is rejected.
+ */
+public record RouteTemplate(String source, List<Part> parts) {
+
+  public sealed interface Part {}
+
+  public record Literal(String text) implements Part {}
+
+  public record Variable(String name) implements Part {}
+
+  public record CatchAll(String name) implements Part {}
+
+  public static Result<RouteTemplate, FrameworkError> parse(String source) {
+    List<Part> parts = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < source.length()) {
+      char c = source.charAt(i);
+      boolean segmentStart = i == 0 || source.charAt(i - 1) == '/';
+
+      if (c == '*' && segmentStart && i == source.length() - 1) {
+        flush(literal, parts);
+        parts.add(new CatchAll("*"));
+        i++;
+        continue;
+      }
+
+      if (c != '{') {
+        if (c == '}') {
+          return invalid(source, "unexpected '}'");
+        }
+        literal.append(c);
+        i++;
+        continue;
+      }
+
+      int close = source.indexOf('}', i);
+      if (close < 0) {
+        return invalid(source, "unclosed '{'");
+      }
+      if (!segmentStart || (close + 1 < source.length() && source.charAt(close + 1) != '/')) {
+        return invalid(source, "variables must span a whole path segment");
+      }
+
+      String name = source.substring(i + 1, close);
+      boolean catchAll = name.startsWith("*");
+      if (catchAll) {
+        name = name.substring(1);
+      }
+      if (name.isEmpty() || name.indexOf('{') >= 0 || name.indexOf('/') >= 0) {
+        return invalid(source, "invalid variable name '" + name + "'");
+      }
+      if (!names.add(name)) {
+        return invalid(source, "duplicate variable '" + name + "'");
+      }
+      if (catchAll && close != source.length() - 1) {
+        return invalid(source, "catch-all '{*" + name + "}' must be the last segment");
+      }
+
+      flush(literal, parts);
+      parts.add(catchAll ? new CatchAll(name) : new Variable(name));
+      i = close + 1;
+    }
+    flush(literal, parts);
+    return Result.success(new RouteTemplate(source, List.copyOf(parts)));
+  }
+
+  /** The names of all captured variables, in the order they appear in the template. */
+  public String[] variableNames() {
+    return parts.stream()
+        .<String>mapMulti(
+            (part, names) -> {
+              switch (part) {
+                case Variable(var name) -> names.accept(name);
+                case CatchAll(var name) -> names.accept(name);
+                case Literal l -> {}
+              }
+            })
+        .toArray(String[]::new);
+  }
+
+  private static void flush(StringBuilder literal, List<Part> parts) {
+    if (!literal.isEmpty()) {
+      parts.add(new Literal(literal.toString()));
+      literal.setLength(0);
+    }
+  }
+
+  private static Result<RouteTemplate, FrameworkError> invalid(String source, String reason) {
+    return Result.failure(
+        new FrameworkError.InvalidRouteDefinition(
+            "Invalid route template '" + source + "': " + reason));
+  }
+}
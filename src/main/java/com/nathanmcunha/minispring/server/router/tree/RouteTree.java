@@ -0,0 +1,180 @@
+package com.nathanmcunha.minispring.server.router.tree;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.model.PathVariables;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import java.util.Optional;
+
+/**
+ * A radix (compressed prefix) tree holding every route of a single HTTP verb.
+ *
+ * <p>Lookups walk the request path character by character and compare it against edge labels in
+ * place, so no substrings are created while matching. Static edges win over {@code {variable}}
+ * edges, which win over catch-alls; the search backtracks when a more specific branch dead-ends.
+ *
+ * <p>A path that matches a route without variables resolves to a result computed at registration
+ * time and allocates nothing. Paths that capture variables only record their offsets.
+ *
+ * <p>The tree is built once during startup and is read-only afterwards, so lookups need no locking.
+ */
+public final class RouteTree {
+
+  private final String verb;
+  private final RouteNode root = new RouteNode("");
+  private int maxVariables;
+
+  public RouteTree(String verb) {
+    this.verb = verb;
+  }
+
+  /**
+   * Adds a route under the given template.
+   *
+   * <p>Templates collide when they have the same shape, whatever their variables are called: {@code
+   * /users/{id}} and {@code /users/{name}} would both match every request the other one matches.
+   *
+   * @return The route already registered for that shape, or empty if the new route was added.
+   */
+  public Optional<Route> insert(RouteTemplate template, Route route) {
+    RouteNode node = root;
+    for (RouteTemplate.Part part : template.parts()) {
+      node =
+          switch (part) {
+            case RouteTemplate.Literal(var text) -> insertLiteral(node, text);
+            case RouteTemplate.Variable v -> {
+              if (node.variable == null) {
+                node.variable = new RouteNode("");
+              }
+              yield node.variable;
+            }
+            case RouteTemplate.CatchAll c -> {
+              if (node.catchAll == null) {
+                node.catchAll = new RouteNode("");
+              }
+              yield node.catchAll;
+            }
+          };
+    }
+
+    if (node.route != null) {
+      return Optional.of(node.route);
+    }
+
+    String[] names = template.variableNames();
+    node.route = route;
+    node.variableNames = names;
+    if (names.length == 0) {
+      node.staticHit = Result.success(new RouteMatch(route, PathVariables.EMPTY));
+    }
+    maxVariables = Math.max(maxVariables, names.length);
+    return Optional.empty();
+  }
+
+  /**
+   * Resolves a request path.
+   *
+   * @return The matched route with its captured variables, or {@link FrameworkError.RouteNotFound}.
+   */
+  public Result<RouteMatch, FrameworkError> find(String path) {
+    RouteNode hit = findStatic(path);
+    if (hit != null) {
+      return hit.staticHit;
+    }
+
+    if (maxVariables > 0) {
+      int[] bounds = new int[2 * maxVariables];
+      RouteNode node = find(root, path, 0, bounds, 0);
+      if (node != null) {
+        var variables = new PathVariables(path, node.variableNames, bounds);
+        return Result.success(new RouteMatch(node.route, variables));
+      }
+    }
+    return Result.failure(new FrameworkError.RouteNotFound(verb, path));
+  }
+
+  /** Fast path: follow static edges only. Needs no captures and therefore no allocation. */
+  private RouteNode findStatic(String path) {
+    RouteNode node = root;
+    int pos = 0;
+    while (pos < path.length()) {
+      node = node.staticChild(path.charAt(pos));
+      if (node == null || !path.regionMatches(pos, node.prefix, 0, node.prefix.length())) {
+        return null;
+      }
+      pos += node.prefix.length();
+    }
+    return node.staticHit != null ? node : null;
+  }
+
+  /**
+   * Full search. {@code node}'s own prefix has already been consumed up to {@code pos}; {@code
+   * depth} is the number of variables captured so far, which is also where the next one goes.
+   */
+  private static RouteNode find(RouteNode node, String path, int pos, int[] bounds, int depth) {
+    int length = path.length();
+    if (pos == length && node.route != null) {
+      return node;
+    }
+
+    if (pos < length) {
+      RouteNode child = node.staticChild(path.charAt(pos));
+      if (child != null && path.regionMatches(pos, child.prefix, 0, child.prefix.length())) {
+        RouteNode found = find(child, path, pos + child.prefix.length(), bounds, depth);
+        if (found != null) {
+          return found;
+        }
+      }
+
+      if (node.variable != null) {
+        int end = path.indexOf('/', pos);
+        end = end < 0 ? length : end;
+        if (end > pos) {
+          bounds[2 * depth] = pos;
+          bounds[2 * depth + 1] = end;
+          RouteNode found = find(node.variable, path, end, bounds, depth + 1);
+          if (found != null) {
+            return found;
+          }
+        }
+      }
+    }
+
+    if (node.catchAll != null && node.catchAll.route != null) {
+      bounds[2 * depth] = pos;
+      bounds[2 * depth + 1] = length;
+      return node.catchAll;
+    }
+    return null;
+  }
+
+  private static RouteNode insertLiteral(RouteNode node, String text) {
+    int i = 0;
+    while (i < text.length()) {
+      RouteNode child = node.staticChild(text.charAt(i));
+      if (child == null) {
+        child = new RouteNode(text.substring(i));
+        node.addStaticChild(child);
+        return child;
+      }
+
+      int common = commonPrefix(child.prefix, text, i);
+      if (common < child.prefix.length()) {
+        child.split(common);
+      }
+      i += common;
+      node = child;
+    }
+    return node;
+  }
+
+  private static int commonPrefix(String prefix, String text, int offset) {
+    int max = Math.min(prefix.length(), text.length() - offset);
+    int i = 0;
+    while (i < max && prefix.charAt(i) == text.charAt(offset + i)) {
+      i++;
+    }
+    return i;
+  }
+}
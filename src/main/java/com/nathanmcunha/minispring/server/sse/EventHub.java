@@ -0,0 +1,82 @@
+package com.nathanmcunha.minispring.server.sse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans events out to every stream subscribed to it.
+ *
+ * <p>Each event is encoded once, and the same frame is queued on every stream, so publishing to
+ * thousands of clients costs one encoding and a queue insert per client; the streams' own threads
+ * do the writing. Declare a hub as a bean by extending it:
+ *
+ * <pre>{@code
+ * @Component
+ * public class PriceEvents extends EventHub {}
+ * }</pre>
+ *
+ * and have handlers return {@code hub.subscribe()}.
+ */
+public class EventHub {
+
+  private final SseConfig config;
+  private final Set<EventStream> streams = ConcurrentHashMap.newKeySet();
+  private final LongAdder dropped = new LongAdder();
+
+  public EventHub() {
+    this(SseConfig.defaults());
+  }
+
+  public EventHub(SseConfig config) {
+    this.config = config;
+  }
+
+  /** A new stream that receives every event published from now on, until it is closed. */
+  public EventStream subscribe() {
+    var stream = new EventStream(config, this);
+    streams.add(stream);
+    return stream;
+  }
+
+  /**
+   * Queues {@code event} on every open stream.
+   *
+   * @return How many streams took it. Streams too far behind to take it are dropped.
+   */
+  public int publish(ServerSentEvent event) {
+    byte[] frame = event.encode();
+    int delivered = 0;
+    for (EventStream stream : streams) {
+      if (stream.offer(frame)) {
+        delivered++;
+      }
+    }
+    return delivered;
+  }
+
+  /** Streams currently subscribed. */
+  public int subscribers() {
+    return streams.size();
+  }
+
+  /** Streams dropped so far for falling behind. */
+  public long droppedSubscribers() {
+    return dropped.sum();
+  }
+
+  /** Closes every stream. */
+  public void closeAll() {
+    for (EventStream stream : streams) {
+      stream.close();
+    }
+  }
+
+  void remove(EventStream stream) {
+    streams.remove(stream);
+  }
+
+  void dropped() {
+    dropped.increment();
+  }
+}
@@ -0,0 +1,144 @@
+package com.nathanmcunha.minispring.server.sse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stream of events to one client. Returning it from a {@code @Get} handler answers with
+ * {@code text/event-stream} and keeps the response open until either side closes it.
+ *
+ * <p>Events are queued as encoded frames and written by the response's own virtual thread, so
+ * whoever sends them, typically an {@link EventHub} publishing to thousands of streams, never
+ * waits on a socket. The thread batches whatever is queued into one flush and sends a comment
+ * line as a heartbeat when the stream has been quiet for {@link SseConfig#heartbeat}. A client
+ * whose queue fills up is not keeping up: it is dropped, its queue freed and its connection
+ * closed, and it may reconnect.
+ */
+public final class EventStream {
+
+  private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] CLOSE = new byte[0];
+
+  private final BlockingQueue<byte[]> pending;
+  private final long heartbeatNanos;
+  private final EventHub hub;
+  private volatile boolean open = true;
+  private volatile boolean dropped;
+  private volatile Runnable abort;
+
+  EventStream(SseConfig config, EventHub hub) {
+    this.pending = new ArrayBlockingQueue<>(config.maxPendingEvents());
+    this.heartbeatNanos = config.heartbeat().toNanos();
+    this.hub = hub;
+  }
+
+  /** A stream of its own, fed by the handler through {@link #send}. */
+  public static EventStream create() {
+    return create(SseConfig.defaults());
+  }
+
+  public static EventStream create(SseConfig config) {
+    return new EventStream(config, null);
+  }
+
+  /**
+   * Queues {@code event} for this client.
+   *
+   * @return False if the stream is closed, or the client was too slow and has just been dropped.
+   */
+  public boolean send(ServerSentEvent event) {
+    return offer(event.encode());
+  }
+
+  public boolean isOpen() {
+    return open;
+  }
+
+  /** Whether the stream was closed because its client could not keep up. */
+  public boolean isDropped() {
+    return dropped;
+  }
+
+  /** Ends the stream once the events already queued are written. */
+  public void close() {
+    if (open) {
+      open = false;
+      pending.offer(CLOSE);
+      if (hub != null) {
+        hub.remove(this);
+      }
+    }
+  }
+
+  /** Queues a frame that may be shared with other streams. */
+  boolean offer(byte[] frame) {
+    if (!open) {
+      return false;
+    }
+    if (!pending.offer(frame)) {
+      drop();
+      return false;
+    }
+    return true;
+  }
+
+  private void drop() {
+    dropped = true;
+    close();
+    pending.clear();
+    pending.offer(CLOSE);
+    if (hub != null) {
+      hub.dropped();
+    }
+    Runnable current = abort;
+    if (current != null) {
+      current.run();
+    }
+  }
+
+  /**
+   * Writes queued events to {@code out} until the stream is closed. Called by the dispatcher on the
+   * response's virtual thread, with the headers already sent.
+   *
+   * @param abort Cuts the connection, for when the client is dropped while a write to it is stuck.
+   * @throws IOException Once the client has gone away, or was dropped.
+   */
+  public void writeTo(OutputStream out, Runnable abort) throws IOException {
+    this.abort = abort;
+    try {
+      out.flush();
+      while (true) {
+        byte[] frame = pending.poll(heartbeatNanos, TimeUnit.NANOSECONDS);
+        if (dropped) {
+          throw new IOException("Dropped a client that fell behind");
+        }
+        if (frame == CLOSE || (frame == null && !open)) {
+          // A close that found the queue full left no marker, only the flag.
+          return;
+        }
+        out.write(frame == null ? HEARTBEAT : frame);
+        // Everything else already queued goes out with the same flush.
+        while ((frame = pending.poll()) != null && frame != CLOSE) {
+          out.write(frame);
+        }
+        out.flush();
+        if (frame == CLOSE || (!open && pending.isEmpty())) {
+          if (dropped) {
+            throw new IOException("Dropped a client that fell behind");
+          }
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while streaming events", e);
+    } finally {
+      this.abort = null;
+      close();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.nathanmcunha.minispring.server.sse;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import com.nathanmcunha.minispring.server.codec.json.JsonWriters;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One event of a {@code text/event-stream}.
+ *
+ * @param event The event type, or null for the default {@code message}.
+ * @param id The id the client sends back as {@code Last-Event-ID} when it reconnects, or null.
+ * @param data The payload. Line breaks are allowed and become several {@code data} lines.
+ */
+public record ServerSentEvent(String event, String id, String data) {
+
+  public ServerSentEvent {
+    if (data == null) {
+      throw new IllegalArgumentException("An event needs data");
+    }
+    if (!isSingleLine(event) || !isSingleLine(id)) {
+      throw new IllegalArgumentException("Event types and ids cannot contain line breaks");
+    }
+  }
+
+  public static ServerSentEvent of(String data) {
+    return new ServerSentEvent(null, null, data);
+  }
+
+  /** An event whose data is {@code value} encoded as JSON, which always fits on one line. */
+  public static ServerSentEvent json(Object value) {
+    var bytes = new ByteArrayOutputStream(128);
+    var out = Utf8Output.of(bytes, 512);
+    try {
+      JsonWriters.DYNAMIC.write(value, out);
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return of(bytes.toString(StandardCharsets.UTF_8));
+  }
+
+  public ServerSentEvent withEvent(String event) {
+    return new ServerSentEvent(event, id, data);
+  }
+
+  public ServerSentEvent withId(String id) {
+    return new ServerSentEvent(event, id, data);
+  }
+
+  /** The event in wire format, ready to be written as it is to any number of streams. */
+  public byte[] encode() {
+    var text = new StringBuilder(data.length() + 32);
+    if (event != null) {
+      text.append("event: ").append(event).append('\n');
+    }
+    if (id != null) {
+      text.append("id: ").append(id).append('\n');
+    }
+    int start = 0;
+    for (int i = 0; i <= data.length(); i++) {
+      char c = i < data.length() ? data.charAt(i) : '\n';
+      if (c == '\n' || c == '\r') {
+        text.append("data: ").append(data, start, i).append('\n');
+        if (c == '\r' && i + 1 < data.length() && data.charAt(i + 1) == '\n') {
+          i++;
+        }
+        start = i + 1;
+      }
+    }
+    return text.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static boolean isSingleLine(String value) {
+    return value == null || (value.indexOf('\n') < 0 && value.indexOf('\r') < 0);
+  }
+}
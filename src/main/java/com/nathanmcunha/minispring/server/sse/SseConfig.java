@@ -0,0 +1,36 @@
+package com.nathanmcunha.minispring.server.sse;
+
+import java.time.Duration;
+
+/**
+ * How event streams are kept alive and how far behind a client may fall.
+ *
+ * @param heartbeat How long a stream may stay quiet before a comment line is sent, so proxies and
+ *     load balancers do not time the connection out and a client that went away is noticed.
+ * @param maxPendingEvents Events queued for one client, not yet written to its socket, beyond
+ *     which the client counts as too slow and is dropped. It can reconnect, and the memory it held
+ *     is freed at once.
+ */
+public record SseConfig(Duration heartbeat, int maxPendingEvents) {
+
+  public SseConfig {
+    if (heartbeat.isNegative() || heartbeat.isZero()) {
+      throw new IllegalArgumentException("The heartbeat must be positive");
+    }
+    if (maxPendingEvents < 1) {
+      throw new IllegalArgumentException("maxPendingEvents must be positive");
+    }
+  }
+
+  public static SseConfig defaults() {
+    return new SseConfig(Duration.ofSeconds(15), 256);
+  }
+
+  public SseConfig withHeartbeat(Duration heartbeat) {
+    return new SseConfig(heartbeat, maxPendingEvents);
+  }
+
+  public SseConfig withMaxPendingEvents(int maxPendingEvents) {
+    return new SseConfig(heartbeat, maxPendingEvents);
+  }
+}
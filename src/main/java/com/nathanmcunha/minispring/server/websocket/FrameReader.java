@@ -0,0 +1,83 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import com.nathanmcunha.minispring.server.engine.UpgradedConnection;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads client frames straight out of the engine's input buffer. Payloads are copied out in bulk
+ * and unmasked in place in the destination, with no intermediate buffer.
+ */
+final class FrameReader {
+
+  private final UpgradedConnection connection;
+  private boolean fin;
+  private int opcode;
+  private long length;
+  private final byte[] mask = new byte[4];
+
+  FrameReader(UpgradedConnection connection) {
+    this.connection = connection;
+  }
+
+  /** Reads the next frame header, leaving the connection at its payload. */
+  void next() throws IOException {
+    ByteBuffer in = connection.await(2);
+    int first = in.get() & 0xFF;
+    int second = in.get() & 0xFF;
+    if ((first & 0x70) != 0) {
+      throw new ProtocolViolation(1002, "Reserved bits set without an extension");
+    }
+    if ((second & 0x80) == 0) {
+      throw new ProtocolViolation(1002, "Client frames must be masked");
+    }
+    fin = (first & 0x80) != 0;
+    opcode = first & 0x0F;
+    length = second & 0x7F;
+    if (length == 126) {
+      length = connection.await(2).getShort() & 0xFFFF;
+    } else if (length == 127) {
+      length = connection.await(8).getLong();
+      if (length < 0) {
+        throw new ProtocolViolation(1002, "Negative frame length");
+      }
+    }
+    connection.await(4).get(mask);
+    switch (opcode) {
+      case WebSocketMessage.CONTINUATION, WebSocketMessage.TEXT, WebSocketMessage.BINARY -> {}
+      case WebSocketMessage.CLOSE, WebSocketMessage.PING, WebSocketMessage.PONG -> {
+        if (!fin || length > 125) {
+          throw new ProtocolViolation(1002, "Control frames must be whole and at most 125 bytes");
+        }
+      }
+      default -> throw new ProtocolViolation(1002, "Unknown opcode " + opcode);
+    }
+  }
+
+  boolean fin() {
+    return fin;
+  }
+
+  int opcode() {
+    return opcode;
+  }
+
+  long length() {
+    return length;
+  }
+
+  /** Reads the payload of the current frame into {@code target} at {@code offset}, unmasked. */
+  void payload(byte[] target, int offset) throws IOException {
+    int total = (int) length;
+    int done = 0;
+    while (done < total) {
+      ByteBuffer in = connection.await(1);
+      int count = Math.min(in.remaining(), total - done);
+      in.get(target, offset + done, count);
+      for (int i = 0; i < count; i++) {
+        target[offset + done + i] ^= mask[(done + i) & 3];
+      }
+      done += count;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import java.io.IOException;
+
+/** A client broke the WebSocket protocol; the session closes with {@link #code}. */
+final class ProtocolViolation extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int code;
+
+  ProtocolViolation(int code, String message) {
+    super(message);
+    this.code = code;
+  }
+
+  int code() {
+    return code;
+  }
+}
@@ -0,0 +1,71 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.sun.net.httpserver.Headers;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/** Checks the opening handshake of RFC 6455 and computes the server's answer to it. */
+public final class WebSocketHandshake {
+
+  private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  private WebSocketHandshake() {}
+
+  /**
+   * @return The {@code Sec-WebSocket-Accept} value for a valid handshake, or a 400, or a 426 for a
+   *     protocol version other than 13.
+   */
+  public static Result<String, FrameworkError> accept(Headers request) {
+    if (!hasToken(request.getFirst("Upgrade"), "websocket")
+        || !hasToken(request.getFirst("Connection"), "upgrade")) {
+      return reject("Not a WebSocket upgrade", HttpStatus.BAD_REQUEST.value());
+    }
+    if (!"13".equals(request.getFirst("Sec-WebSocket-Version"))) {
+      return reject("Only WebSocket version 13 is supported", HttpStatus.UPGRADE_REQUIRED.value());
+    }
+    String key = request.getFirst("Sec-WebSocket-Key");
+    if (key == null || !isNonce(key.strip())) {
+      return reject("Sec-WebSocket-Key must be 16 bytes in base64", HttpStatus.BAD_REQUEST.value());
+    }
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-1")
+              .digest((key.strip() + GUID).getBytes(StandardCharsets.US_ASCII));
+      return Result.success(Base64.getEncoder().encodeToString(digest));
+    } catch (NoSuchAlgorithmException e) {
+      return Result.failure(
+          new FrameworkError.RequestHandlingFailed(e, HttpStatus.INTERNAL_SERVER_ERROR.value()));
+    }
+  }
+
+  private static boolean isNonce(String key) {
+    try {
+      return Base64.getDecoder().decode(key).length == 16;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /** Whether the comma-separated header {@code value} lists {@code token}, in any case. */
+  private static boolean hasToken(String value, String token) {
+    if (value == null) {
+      return false;
+    }
+    for (String part : value.split(",")) {
+      if (part.strip().equalsIgnoreCase(token)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Result<String, FrameworkError> reject(String message, int status) {
+    return Result.failure(
+        new FrameworkError.RequestHandlingFailed(new IllegalArgumentException(message), status));
+  }
+}
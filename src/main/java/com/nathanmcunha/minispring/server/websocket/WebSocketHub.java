@@ -0,0 +1,58 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A group of sessions that messages are broadcast to.
+ *
+ * <p>A broadcast encodes its message into one frame and queues that same frame on every session,
+ * whose writer threads do the sending, so one slow client delays nobody else. Sessions leave the
+ * hub when they close. Declare a hub as a bean by extending it:
+ *
+ * <pre>{@code
+ * @Component
+ * public class ChatRoom extends WebSocketHub {}
+ * }</pre>
+ *
+ * and {@link #join} sessions from {@link WebSocketListener#onOpen}.
+ */
+public class WebSocketHub {
+
+  private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+
+  public void join(WebSocketSession session) {
+    if (session.isOpen()) {
+      sessions.add(session);
+      session.onClosed(this);
+    }
+  }
+
+  public void leave(WebSocketSession session) {
+    sessions.remove(session);
+  }
+
+  public int broadcast(String text) {
+    return broadcast(WebSocketMessage.text(text));
+  }
+
+  /**
+   * Queues {@code message} on every session.
+   *
+   * @return How many sessions took it. Sessions too far behind to take it are dropped.
+   */
+  public int broadcast(WebSocketMessage message) {
+    int delivered = 0;
+    for (WebSocketSession session : sessions) {
+      if (session.send(message)) {
+        delivered++;
+      }
+    }
+    return delivered;
+  }
+
+  /** Sessions currently in the hub. */
+  public int sessions() {
+    return sessions.size();
+  }
+}
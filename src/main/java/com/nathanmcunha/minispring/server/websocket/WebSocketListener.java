@@ -0,0 +1,26 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the events of one WebSocket session, all on the session's own virtual thread and in
+ * order. An exception from a callback closes the session with 1011.
+ */
+public interface WebSocketListener {
+
+  default void onOpen(WebSocketSession session) throws Exception {}
+
+  default void onText(WebSocketSession session, String text) throws Exception {}
+
+  /**
+   * @param data The message, in a pooled buffer that is only valid until this returns.
+   */
+  default void onBinary(WebSocketSession session, ByteBuffer data) throws Exception {}
+
+  /**
+   * Called once the session is over, whichever side ended it.
+   *
+   * @param code The close code the client sent, or 1006 if the connection was lost without one.
+   */
+  default void onClose(WebSocketSession session, int code, String reason) {}
+}
@@ -0,0 +1,62 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message encoded once as a complete server frame, so it can be sent to any number of sessions
+ * without encoding it again.
+ */
+public final class WebSocketMessage {
+
+  static final int CONTINUATION = 0x0;
+  static final int TEXT = 0x1;
+  static final int BINARY = 0x2;
+  static final int CLOSE = 0x8;
+  static final int PING = 0x9;
+  static final int PONG = 0xA;
+
+  private final byte[] frame;
+
+  private WebSocketMessage(byte[] frame) {
+    this.frame = frame;
+  }
+
+  public static WebSocketMessage text(String text) {
+    return new WebSocketMessage(frame(TEXT, text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  public static WebSocketMessage binary(byte[] data) {
+    return new WebSocketMessage(frame(BINARY, data));
+  }
+
+  static WebSocketMessage control(int opcode, byte[] payload) {
+    return new WebSocketMessage(frame(opcode, payload));
+  }
+
+  /** The frame as it goes on the wire; shared, never to be modified. */
+  byte[] frame() {
+    return frame;
+  }
+
+  /** A single, final and unmasked frame, as servers send them. */
+  private static byte[] frame(int opcode, byte[] payload) {
+    int length = payload.length;
+    int header = length <= 125 ? 2 : length <= 0xFFFF ? 4 : 10;
+    byte[] frame = new byte[header + length];
+    frame[0] = (byte) (0x80 | opcode);
+    if (header == 2) {
+      frame[1] = (byte) length;
+    } else if (header == 4) {
+      frame[1] = 126;
+      frame[2] = (byte) (length >>> 8);
+      frame[3] = (byte) length;
+    } else {
+      frame[1] = 127;
+      for (int i = 0; i < 8; i++) {
+        frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+      }
+    }
+    System.arraycopy(payload, 0, frame, header, length);
+    return frame;
+  }
+}
@@ -0,0 +1,310 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import com.nathanmcunha.minispring.common.Pool;
+import com.nathanmcunha.minispring.server.engine.UpgradedConnection;
+import com.nathanmcunha.minispring.server.log.AsyncLog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One WebSocket connection, after the handshake.
+ *
+ * <p>The session's virtual thread reads frames and calls the {@link WebSocketListener}. While the
+ * client is quiet that thread is parked and the engine holds no buffer for it, so an idle session
+ * costs little more than its socket, this object and a parked virtual thread. Messages are read
+ * into buffers from a shared pool, reassembling fragments, and the buffer goes back to the pool
+ * once the listener has seen the message.
+ *
+ * <p>Sending never blocks the sender: frames are queued and written by a virtual thread started
+ * only while there is something to write. A session that lets more than {@link
+ * #MAX_PENDING_FRAMES} frames pile up is not reading fast enough, and its connection is cut.
+ */
+public final class WebSocketSession {
+
+  /** Frames queued on one session beyond which it is dropped. */
+  public static final int MAX_PENDING_FRAMES = 1024;
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final Pool<byte[]> BUFFERS = new Pool<>(256, () -> new byte[BUFFER_SIZE]);
+  private static final Executor WRITERS =
+      Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("minispring-websocket-", 0).factory());
+  private static final WebSocketHub[] NO_HUBS = new WebSocketHub[0];
+
+  private final UpgradedConnection connection;
+  private final int maxMessageBytes;
+  private final AsyncLog log;
+  private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicBoolean draining = new AtomicBoolean();
+  private final AtomicBoolean closeSent = new AtomicBoolean();
+  // A lock rather than synchronized, since writes park the virtual thread.
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile boolean open = true;
+  private WebSocketHub[] hubs = NO_HUBS;
+  private int closeCode = 1006;
+  private String closeReason = "";
+
+  private WebSocketSession(UpgradedConnection connection, int maxMessageBytes, AsyncLog log) {
+    this.connection = connection;
+    this.maxMessageBytes = maxMessageBytes;
+    this.log = log;
+  }
+
+  /**
+   * Runs a session on the calling thread until it closes. Called by the dispatcher once it has
+   * answered the handshake.
+   *
+   * @param log Where a listener that throws on close is reported.
+   */
+  public static void serve(
+      UpgradedConnection connection,
+      WebSocketListener listener,
+      int maxMessageBytes,
+      AsyncLog log) {
+    new WebSocketSession(connection, maxMessageBytes, log).run(listener);
+  }
+
+  public boolean isOpen() {
+    return open && !closeSent.get();
+  }
+
+  public boolean send(String text) {
+    return send(WebSocketMessage.text(text));
+  }
+
+  public boolean send(byte[] data) {
+    return send(WebSocketMessage.binary(data));
+  }
+
+  /**
+   * Queues {@code message}, which may be shared with other sessions.
+   *
+   * @return False if the session is closing, or was too far behind and has just been dropped.
+   */
+  public boolean send(WebSocketMessage message) {
+    return isOpen() && enqueue(message.frame(), true);
+  }
+
+  /** Starts the closing handshake; the session ends when the client answers it. */
+  public void close(int code, String reason) {
+    if (closeSent.compareAndSet(false, true)) {
+      byte[] text = reason.getBytes(StandardCharsets.UTF_8);
+      byte[] payload = new byte[2 + Math.min(text.length, 123)];
+      payload[0] = (byte) (code >>> 8);
+      payload[1] = (byte) code;
+      System.arraycopy(text, 0, payload, 2, payload.length - 2);
+      enqueue(WebSocketMessage.control(WebSocketMessage.CLOSE, payload).frame(), false);
+    }
+  }
+
+  private void run(WebSocketListener listener) {
+    try {
+      listener.onOpen(this);
+      read(listener);
+    } catch (ProtocolViolation e) {
+      close(e.code(), e.getMessage());
+    } catch (IOException e) {
+      // The connection was lost, or cut for falling behind: 1006.
+    } catch (Exception e) {
+      close(1011, "Internal error");
+    } finally {
+      open = false;
+      flush();
+      connection.close();
+      leaveHubs();
+      try {
+        listener.onClose(this, closeCode, closeReason);
+      } catch (RuntimeException e) {
+        log.error("WebSocket listener " + listener.getClass().getName() + " failed on close", e);
+      }
+    }
+  }
+
+  /** Reads messages until the client's close frame. */
+  private void read(WebSocketListener listener) throws Exception {
+    var frames = new FrameReader(connection);
+    int type = -1;
+    byte[] message = null;
+    int size = 0;
+    try {
+      while (true) {
+        frames.next();
+        int opcode = frames.opcode();
+        if (opcode >= WebSocketMessage.CLOSE) {
+          if (control(frames)) {
+            return;
+          }
+          continue;
+        }
+        if (opcode == WebSocketMessage.CONTINUATION ? type < 0 : type >= 0) {
+          throw new ProtocolViolation(1002, "Fragments out of order");
+        }
+        if (opcode != WebSocketMessage.CONTINUATION) {
+          type = opcode;
+        }
+        long total = size + frames.length();
+        if (total > maxMessageBytes) {
+          throw new ProtocolViolation(1009, "Messages are limited to " + maxMessageBytes);
+        }
+        if (message == null) {
+          message = total <= BUFFER_SIZE ? BUFFERS.acquire() : new byte[(int) total];
+        } else if (total > message.length) {
+          byte[] grown =
+              Arrays.copyOf(message, (int) Math.min(maxMessageBytes, Math.max(total, 2L * size)));
+          release(message);
+          message = grown;
+        }
+        frames.payload(message, size);
+        size = (int) total;
+        if (frames.fin()) {
+          deliver(listener, type, message, size);
+          release(message);
+          message = null;
+          type = -1;
+          size = 0;
+        }
+      }
+    } finally {
+      if (message != null) {
+        release(message);
+      }
+    }
+  }
+
+  private void deliver(WebSocketListener listener, int type, byte[] message, int size)
+      throws Exception {
+    if (type == WebSocketMessage.TEXT) {
+      var bytes = ByteBuffer.wrap(message, 0, size);
+      String text;
+      try {
+        text = StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+      } catch (CharacterCodingException e) {
+        throw new ProtocolViolation(1007, "Text messages must be UTF-8");
+      }
+      listener.onText(this, text);
+    } else {
+      listener.onBinary(this, ByteBuffer.wrap(message, 0, size).asReadOnlyBuffer());
+    }
+  }
+
+  /**
+   * Answers a ping, ignores a pong and completes the closing handshake.
+   *
+   * @return Whether the frame was the client's close.
+   */
+  private boolean control(FrameReader frames) throws IOException {
+    byte[] payload = new byte[(int) frames.length()];
+    frames.payload(payload, 0);
+    switch (frames.opcode()) {
+      case WebSocketMessage.PING ->
+          enqueue(WebSocketMessage.control(WebSocketMessage.PONG, payload).frame(), false);
+      case WebSocketMessage.CLOSE -> {
+        if (payload.length == 1) {
+          throw new ProtocolViolation(1002, "Truncated close code");
+        }
+        closeCode = payload.length == 0 ? 1005 : (payload[0] & 0xFF) << 8 | (payload[1] & 0xFF);
+        closeReason =
+            payload.length > 2
+                ? new String(payload, 2, payload.length - 2, StandardCharsets.UTF_8)
+                : "";
+        if (closeSent.compareAndSet(false, true)) {
+          byte[] echo = payload.length == 0 ? payload : Arrays.copyOf(payload, 2);
+          enqueue(WebSocketMessage.control(WebSocketMessage.CLOSE, echo).frame(), false);
+        }
+        return true;
+      }
+      default -> {}
+    }
+    return false;
+  }
+
+  private boolean enqueue(byte[] frame, boolean bounded) {
+    if (queued.incrementAndGet() > MAX_PENDING_FRAMES && bounded) {
+      queued.decrementAndGet();
+      open = false;
+      connection.close();
+      return false;
+    }
+    outbox.add(frame);
+    if (draining.compareAndSet(false, true)) {
+      WRITERS.execute(this::drain);
+    }
+    return true;
+  }
+
+  private void drain() {
+    writeLock.lock();
+    try {
+      while (true) {
+        writeQueued();
+        draining.set(false);
+        if (outbox.isEmpty() || !draining.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      outbox.clear();
+      connection.close();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Writes what is still queued, such as the close frame, before the connection goes. */
+  private void flush() {
+    writeLock.lock();
+    try {
+      writeQueued();
+    } catch (IOException ignored) {
+      // The connection is closing anyway.
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private void writeQueued() throws IOException {
+    byte[] frame;
+    while ((frame = outbox.poll()) != null) {
+      queued.decrementAndGet();
+      connection.write(ByteBuffer.wrap(frame));
+    }
+  }
+
+  /** Remembers a hub to leave once the session is over, or leaves it now if it already is. */
+  synchronized void onClosed(WebSocketHub hub) {
+    if (!open) {
+      hub.leave(this);
+      return;
+    }
+    hubs = Arrays.copyOf(hubs, hubs.length + 1);
+    hubs[hubs.length - 1] = hub;
+  }
+
+  private void leaveHubs() {
+    WebSocketHub[] joined;
+    synchronized (this) {
+      joined = hubs;
+      hubs = NO_HUBS;
+    }
+    for (WebSocketHub hub : joined) {
+      hub.leave(this);
+    }
+  }
+
+  private static void release(byte[] buffer) {
+    if (buffer.length == BUFFER_SIZE) {
+      BUFFERS.release(buffer);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.container.test_components.slow;
+
+import com.nathanmcunha.minispring.annotations.Component;
+
+@Component
+public class SlowA {
+  private final boolean overlapped;
+
+  public SlowA() throws InterruptedException {
+    overlapped = SlowAggregate.meetTheOthers();
+  }
+
+  public boolean overlapped() {
+    return overlapped;
+  }
+}
@@ -0,0 +1,41 @@
+package com.nathanmcunha.minispring.container.test_components.slow;
+
+import com.nathanmcunha.minispring.annotations.Component;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Depends on four beans that do not depend on each other, and whose constructors each wait for the
+ * other three to start: built one after another, all but the last give up waiting.
+ */
+@Component
+public class SlowAggregate {
+  private static final CountDownLatch STARTED = new CountDownLatch(4);
+
+  private final SlowA a;
+  private final SlowB b;
+  private final SlowC c;
+  private final SlowD d;
+
+  public SlowAggregate(SlowA a, SlowB b, SlowC c, SlowD d) {
+    this.a = a;
+    this.b = b;
+    this.c = c;
+    this.d = d;
+  }
+
+  public SlowA a() {
+    return a;
+  }
+
+  public List<Boolean> overlapped() {
+    return List.of(a.overlapped(), b.overlapped(), c.overlapped(), d.overlapped());
+  }
+
+  /** Whether all four constructors were running at once, within two seconds of each other. */
+  static boolean meetTheOthers() throws InterruptedException {
+    STARTED.countDown();
+    return STARTED.await(2, TimeUnit.SECONDS);
+  }
+}
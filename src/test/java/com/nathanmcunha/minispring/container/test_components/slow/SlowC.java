@@ -0,0 +1,16 @@
+package com.nathanmcunha.minispring.container.test_components.slow;
+
+import com.nathanmcunha.minispring.annotations.Component;
+
+@Component
+public class SlowC {
+  private final boolean overlapped;
+
+  public SlowC() throws InterruptedException {
+    overlapped = SlowAggregate.meetTheOthers();
+  }
+
+  public boolean overlapped() {
+    return overlapped;
+  }
+}
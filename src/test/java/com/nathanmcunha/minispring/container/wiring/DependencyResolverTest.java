@@ -1,5 +1,7 @@
 package com.nathanmcunha.minispring.container.wiring;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
@@ -12,12 +14,23 @@ import com.nathanmcunha.minispring.container.test_components.deep.ServiceB;
 import com.nathanmcunha.minispring.container.test_components.deep.ServiceC;
 import com.nathanmcunha.minispring.container.test_components.deep.ServiceD;
 import com.nathanmcunha.minispring.container.test_components.simple.MyTestComponent;
+import com.nathanmcunha.minispring.container.test_components.slow.SlowA;
+import com.nathanmcunha.minispring.container.test_components.slow.SlowAggregate;
+import com.nathanmcunha.minispring.container.test_components.slow.SlowB;
+import com.nathanmcunha.minispring.container.test_components.slow.SlowC;
+import com.nathanmcunha.minispring.container.test_components.slow.SlowD;
 import com.nathanmcunha.minispring.container.test_components.wiring.AmbiguousDependencyTest;
 import com.nathanmcunha.minispring.container.test_components.wiring.BeanDependingOnMissingDependency;
 import com.nathanmcunha.minispring.container.test_components.wiring.BeanWithPrivateConstructor;
 import com.nathanmcunha.minispring.container.test_components.wiring.MissingDependencyTest;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -46,6 +59,15 @@ class DependencyResolverTest {
     }
   }
 
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("graphProvider")
+  void shouldResolveVariousGraphsConcurrently(
+      String description, Set<BeanDefinition> definitions, boolean shouldSucceed) {
+    var result = DependencyResolver.concurrent(ForkJoinPool.commonPool()).resolve(definitions);
+
+    assertEquals(shouldSucceed, result instanceof Result.Success, description);
+  }
+
   static Stream<Arguments> graphProvider() {
     return Stream.of(
         arguments("Simple single bean resolution", Set.of(def(MyTestComponent.class)), true),
@@ -100,4 +122,73 @@ class DependencyResolverTest {
     var error = ((Result.Failure<?, FrameworkError>) result).error();
     assertTrue(error instanceof FrameworkError.MissingDependency);
   }
+
+  @Test
+  void shouldReportEveryBeanOnACycle() {
+    var result =
+        new DependencyResolver().resolve(Set.of(def(CircularA.class), def(CircularB.class)));
+
+    var error = ((Result.Failure<?, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.CircularDependencyDetected);
+    String message = ((FrameworkError.CircularDependencyDetected) error).message();
+    String a = CircularA.class.getName();
+    String b = CircularB.class.getName();
+    assertTrue(
+        message.equals("Circular Dependency: " + a + " -> " + b + " -> " + a)
+            || message.equals("Circular Dependency: " + b + " -> " + a + " -> " + b),
+        message);
+  }
+
+  @Test
+  void shouldBuildIndependentBeansConcurrently() {
+    var definitions =
+        Set.of(
+            def(SlowA.class),
+            def(SlowB.class),
+            def(SlowC.class),
+            def(SlowD.class),
+            def(SlowAggregate.class));
+
+    Result<Map<Class<?>, Object>, FrameworkError> result;
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      result = DependencyResolver.concurrent(executor).resolve(definitions);
+    }
+
+    var beans = ((Result.Success<Map<Class<?>, Object>, FrameworkError>) result).value();
+    assertEquals(5, beans.size());
+    var aggregate = (SlowAggregate) beans.get(SlowAggregate.class);
+    assertSame(beans.get(SlowA.class), aggregate.a());
+    // Each constructor waits for the other three to start, which only happens side by side.
+    assertEquals(List.of(true, true, true, true), aggregate.overlapped());
+  }
+
+  @Test
+  void shouldNotNestBuildsOnAnExecutorThatRunsTasksInPlace() {
+    var nesting = new AtomicInteger();
+    var deepest = new AtomicInteger();
+    Executor inPlace =
+        task -> {
+          deepest.accumulateAndGet(nesting.incrementAndGet(), Math::max);
+          try {
+            task.run();
+          } finally {
+            nesting.decrementAndGet();
+          }
+        };
+
+    var result =
+        DependencyResolver.concurrent(inPlace)
+            .resolve(
+                Set.of(
+                    def(ServiceA.class),
+                    def(ServiceB.class),
+                    def(ServiceC.class),
+                    def(ServiceD.class)));
+
+    var beans = ((Result.Success<Map<Class<?>, Object>, FrameworkError>) result).value();
+    assertEquals(4, beans.size());
+    // Each build hands the executor a task for its dependent, which returns at once and leaves the
+    // dependent to the running loop, so the nesting stays at two however long the chain is.
+    assertEquals(2, deepest.get());
+  }
 }
@@ -0,0 +1,121 @@
+package com.nathanmcunha.minispring.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.test_components.rest.SimpleConfigRest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LoadGeneratorTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void shouldKeepToTheScheduleAndCountQueueingWhenTheServerFallsBehind() throws Exception {
+    // A server that takes 20 ms per request, one at a time, sent 100 requests a second: a closed
+    // loop would slow down to its pace, and never see the queue that builds up.
+    var lock = new ReentrantLock();
+    LoadGenerator.Transport slowServer =
+        target -> {
+          lock.lock();
+          try {
+            Thread.sleep(20);
+            return 200;
+          } finally {
+            lock.unlock();
+          }
+        };
+    var config =
+        LoadConfig.defaults(100).withDuration(Duration.ofMillis(500)).withWarmup(Duration.ZERO);
+
+    LoadReport report;
+    try (var generator = new LoadGenerator(slowServer, config)) {
+      report = generator.run(List.of(LoadTarget.get("/slow")));
+    }
+
+    var route = report.routes().get(0);
+    assertEquals(50, report.scheduled());
+    assertEquals(50, route.requests());
+    assertEquals(50, route.responses());
+    assertEquals(Map.of("200", 50L), route.statuses());
+    // Request n is due at 10n ms and done at about 20(n + 1) ms: half of them waited over 250 ms.
+    assertTrue(route.latency().p50() >= 200_000, route.latency().toString());
+    assertTrue(route.latency().max() >= 450_000, route.latency().toString());
+  }
+
+  @Test
+  void shouldReportLatencyStatusesAndErrorsPerRouteInProcess() throws Exception {
+    var targets =
+        List.of(
+            LoadTarget.get("/getTest"),
+            LoadTarget.get("/missing"),
+            LoadTarget.get("/echo/a").withName("GET /echo/{word}"),
+            LoadTarget.get("/echo/b").withName("GET /echo/{word}"));
+    var config =
+        LoadConfig.defaults(200)
+            .withDuration(Duration.ofMillis(500))
+            .withWarmup(Duration.ofMillis(200));
+
+    var report =
+        ((Result.Success<LoadReport, FrameworkError>)
+                LoadTest.inProcess(SimpleConfigRest.class, targets, config))
+            .value();
+
+    assertEquals(100, report.scheduled());
+    assertEquals(3, report.routes().size());
+    var ok = report.routes().get(0);
+    assertEquals("GET /getTest", ok.name());
+    assertEquals(25, ok.requests());
+    assertEquals(Map.of("200", 25L), ok.statuses());
+    assertTrue(ok.errors().isEmpty(), ok.errors().toString());
+    assertTrue(ok.latency().p50() > 0 && ok.latency().p50() <= ok.latency().p9999());
+    var missing = report.routes().get(1);
+    assertEquals(Map.of("HTTP 404", 25L), missing.errors());
+    var echo = report.routes().get(2);
+    assertEquals("GET /echo/{word}", echo.name());
+    assertEquals(50, echo.requests());
+
+    Path results = directory.resolve("reports/results.json");
+    report.writeJson(results);
+    String json = Files.readString(results);
+    assertTrue(json.startsWith("{\"rate\":200,\"seconds\":0.5,"), json);
+    assertTrue(json.contains("\"name\":\"GET /missing\""), json);
+    assertTrue(json.contains("\"errors\":{\"HTTP 404\":25}"), json);
+    assertTrue(json.contains("\"p9999\":"), json);
+    assertTrue(report.format().contains("GET /echo/{word}"), report.format());
+  }
+
+  @Test
+  void shouldNotSendMoreThanTheInFlightLimit() throws IOException, InterruptedException {
+    LoadGenerator.Transport stuck =
+        target -> {
+          Thread.sleep(300);
+          return 200;
+        };
+    var config =
+        LoadConfig.defaults(100)
+            .withDuration(Duration.ofMillis(200))
+            .withWarmup(Duration.ZERO)
+            .withMaxInFlight(5);
+
+    LoadReport report;
+    try (var generator = new LoadGenerator(stuck, config)) {
+      report = generator.run(List.of(LoadTarget.get("/stuck")));
+    }
+
+    var route = report.routes().get(0);
+    assertEquals(20, route.requests());
+    assertEquals(5, route.responses());
+    assertEquals(Map.of("not sent, 5 in flight", 15L), route.errors());
+  }
+}
@@ -1,25 +1,40 @@
 package com.nathanmcunha.minispring.server;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
 import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.cache.CachePolicy;
 import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.intercept.InterceptorChains;
+import com.nathanmcunha.minispring.server.ratelimit.RateLimit;
 import com.nathanmcunha.minispring.server.router.Router;
 import com.nathanmcunha.minispring.server.router.RouterRegistry;
+import com.nathanmcunha.minispring.server.router.bind.ArgumentBinder;
 import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.model.PathVariables;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
 import com.nathanmcunha.minispring.server.test_components.rest.SimpleConfigRest;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -35,6 +50,9 @@ public class DispatcherServerTest {
 
   @BeforeEach
   void setupContextAndRequest() {
+    lenient().when(exchange.getResponseHeaders()).thenReturn(new Headers());
+    lenient().when(exchange.getRequestHeaders()).thenReturn(new Headers());
+
     Result<MiniApplicationContext, FrameworkError> contextResult =
         MiniApplicationContext.boot(SimpleConfigRest.class);
 
@@ -75,6 +93,81 @@ public class DispatcherServerTest {
     verify(exchange).sendResponseHeaders(eq(200), anyLong());
   }
 
+  @Test
+  void shouldBindPathVariablesToHandlerParameters() throws IOException {
+    when(exchange.getRequestURI()).thenReturn(URI.create("/echo/mini"));
+    when(exchange.getRequestMethod()).thenReturn("GET");
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    when(exchange.getResponseBody()).thenReturn(responseBody);
+
+    servlet.handle(exchange);
+
+    assertEquals("mini", responseBody.toString());
+  }
+
+  @Test
+  void dispatchWhenPathVariableCannotBeConverted_Returns400() throws IOException {
+    when(exchange.getRequestURI()).thenReturn(URI.create("/square/abc"));
+    when(exchange.getRequestMethod()).thenReturn("GET");
+    when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+    servlet.handle(exchange);
+
+    verify(exchange).sendResponseHeaders(eq(400), anyLong());
+  }
+
+  @Test
+  void shouldWriteRecordBodiesAsJson() throws IOException {
+    Headers responseHeaders = new Headers();
+    when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+    when(exchange.getRequestURI()).thenReturn(URI.create("/greeting"));
+    when(exchange.getRequestMethod()).thenReturn("GET");
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    when(exchange.getResponseBody()).thenReturn(responseBody);
+
+    servlet.handle(exchange);
+
+    assertEquals(
+        "{\"message\":\"Hello \\\"Mini\\\"\",\"tags\":[\"a\",\"b\"],\"count\":2}",
+        responseBody.toString());
+    assertEquals("application/json", responseHeaders.getFirst("Content-Type"));
+    verify(exchange).sendResponseHeaders(200, responseBody.size());
+  }
+
+  @Test
+  void shouldBindJsonRequestBodyToRecordParameter() throws IOException {
+    Headers responseHeaders = new Headers();
+    when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+    when(exchange.getRequestURI()).thenReturn(URI.create("/greeting"));
+    when(exchange.getRequestMethod()).thenReturn("POST");
+    when(exchange.getRequestBody())
+        .thenReturn(
+            new ByteArrayInputStream(
+                "{\"message\":\"Hi\",\"unknown\":{\"x\":[1]},\"tags\":[\"x\",\"y\",\"z\"]}"
+                    .getBytes(StandardCharsets.UTF_8)));
+    ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+    when(exchange.getResponseBody()).thenReturn(responseBody);
+
+    servlet.handle(exchange);
+
+    assertEquals(
+        "{\"message\":\"Hi\",\"tags\":[\"x\",\"y\",\"z\"],\"count\":3}", responseBody.toString());
+    verify(exchange).sendResponseHeaders(201, responseBody.size());
+  }
+
+  @Test
+  void shouldReturn400WhenRequestBodyIsMalformed() throws IOException {
+    when(exchange.getRequestURI()).thenReturn(URI.create("/greeting"));
+    when(exchange.getRequestMethod()).thenReturn("POST");
+    when(exchange.getRequestBody())
+        .thenReturn(new ByteArrayInputStream("{\"message\":".getBytes(StandardCharsets.UTF_8)));
+    when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+    servlet.handle(exchange);
+
+    verify(exchange).sendResponseHeaders(eq(400), anyLong());
+  }
+
   @Test
   void Dispatchwhenroutenotfound_Return404() throws IOException {
     servlet = new DispatcherServlet(router);
@@ -85,9 +178,9 @@ public class DispatcherServerTest {
     ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
     when(exchange.getResponseBody()).thenReturn(responseBody);
 
-    when(router.getHandler("GET", "/unknown"))
+    when(router.route("GET", "/unknown"))
         .thenReturn(
-            Result.<MethodHandler, FrameworkError>failure(
+            Result.<RouteMatch, FrameworkError>failure(
                 new FrameworkError.RouteNotFound("GET", "/unknown")));
 
     servlet.handle(exchange);
@@ -113,7 +206,7 @@ public class DispatcherServerTest {
 
     when(exchange.getResponseBody()).thenReturn(responseBody);
 
-    when(router.getHandler("GET", "/error")).thenReturn(Result.success(handler));
+    when(router.route("GET", "/error")).thenReturn(Result.success(matchOf("/error", handler)));
 
     servlet.handle(exchange);
 
@@ -134,7 +227,7 @@ public class DispatcherServerTest {
 
     ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
     when(exchange.getResponseBody()).thenReturn(responseBody);
-    when(router.getHandler("GET", "/private")).thenReturn(Result.success(handler));
+    when(router.route("GET", "/private")).thenReturn(Result.success(matchOf("/private", handler)));
 
     servlet.handle(exchange);
 
@@ -179,13 +272,53 @@ public class DispatcherServerTest {
 
     ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
     when(exchange.getResponseBody()).thenReturn(responseBody);
-    when(router.getHandler("GET", "/nested")).thenReturn(Result.success(handler));
+    when(router.route("GET", "/nested")).thenReturn(Result.success(matchOf("/nested", handler)));
 
     servlet.handle(exchange);
 
     verify(exchange).sendResponseHeaders(eq(500), anyLong());
   }
 
+  @Test
+  void shouldReleaseTheRequestOnACacheMiss() throws NoSuchMethodException, IOException {
+    servlet = new DispatcherServlet(router);
+
+    when(exchange.getRequestURI()).thenReturn(URI.create("/cached"));
+    when(exchange.getRequestMethod()).thenReturn("GET");
+    when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+
+    var released = new AtomicBoolean();
+    ArgumentBinder binder =
+        request -> {
+          request.closeOnCompletion(() -> released.set(true));
+          return Result.success("hi");
+        };
+    var route =
+        new Route(
+            new RouteKey("GET", "/cached"),
+            new MethodHandler(this, this.getClass().getMethod("echo", String.class)),
+            new ArgumentBinder[] {binder},
+            new CachePolicy(TimeUnit.MINUTES.toNanos(1)),
+            true,
+            RateLimit.NONE,
+            InterceptorChains.NONE);
+    when(router.route("GET", "/cached"))
+        .thenReturn(Result.success(new RouteMatch(route, PathVariables.EMPTY)));
+
+    servlet.handle(exchange);
+
+    verify(exchange).sendResponseHeaders(eq(200), anyLong());
+    assertTrue(released.get());
+  }
+
+  private static RouteMatch matchOf(String path, MethodHandler handler) {
+    return new RouteMatch(new Route(new RouteKey("GET", path), handler), PathVariables.EMPTY);
+  }
+
+  public String echo(String value) {
+    return value;
+  }
+
   /** Method used to simulate a controller failure */
   public void failingMethod() {
 
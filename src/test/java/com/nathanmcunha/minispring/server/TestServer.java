@@ -0,0 +1,69 @@
+package com.nathanmcunha.minispring.server;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.container.boot.MiniApplicationContext;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import com.nathanmcunha.minispring.server.test_components.rest.SimpleConfigRest;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * The test application of {@link SimpleConfigRest}, booted and served on a free port of a real
+ * engine, for tests that talk HTTP to it.
+ */
+public final class TestServer implements AutoCloseable {
+
+  private final MiniApplicationContext context;
+  private final ServerEngine engine;
+
+  private TestServer(MiniApplicationContext context, ServerEngine engine) {
+    this.context = context;
+    this.engine = engine;
+  }
+
+  /** Serves the application's routes through a {@link DispatcherServlet} with its defaults. */
+  public static TestServer start(String engine, ServerConfig config) throws IOException {
+    return start(
+        engine,
+        config,
+        (context, server) -> server.mount("/", new DispatcherServlet(context.getRouterRegistry())));
+  }
+
+  /** Serves whatever {@code mounts} mounts on the engine, given the booted application. */
+  public static TestServer start(
+      String engine, ServerConfig config, BiConsumer<MiniApplicationContext, ServerEngine> mounts)
+      throws IOException {
+    var context =
+        ((Result.Success<MiniApplicationContext, FrameworkError>)
+                MiniApplicationContext.boot(SimpleConfigRest.class))
+            .value();
+    var server = ServerEngines.create(engine, config);
+    mounts.accept(context, server);
+    server.start();
+    return new TestServer(context, server);
+  }
+
+  public MiniApplicationContext context() {
+    return context;
+  }
+
+  public <T> T bean(Class<T> type) {
+    return context.getBean(type).orElseThrow();
+  }
+
+  /** {@code path} on this server, over plain HTTP. */
+  public URI uri(String path) {
+    return URI.create("http://localhost:" + engine.address().getPort() + path);
+  }
+
+  @Override
+  public void close() {
+    engine.stop(Duration.ofSeconds(1));
+  }
+}
@@ -0,0 +1,74 @@
+package com.nathanmcunha.minispring.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachedRouteTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  @BeforeEach
+  void start() throws Exception {
+    server = TestServer.start("nio", ServerConfig.defaults(0).withSelectors(1));
+  }
+
+  @AfterEach
+  void stop() {
+    server.close();
+  }
+
+  @Test
+  void shouldAnswerRepeatedRequestsWithoutCallingTheHandler() throws Exception {
+    var first = get("/cached/a", null);
+    var second = get("/cached/a", null);
+    var otherQuery = get("/cached/a?page=2", null);
+
+    assertEquals(200, first.statusCode());
+    assertEquals(first.body(), second.body());
+    assertEquals(first.headers().firstValue("etag"), second.headers().firstValue("etag"));
+    assertEquals("text/plain; charset=utf-8", second.headers().firstValue("content-type").get());
+    assertNotEquals(first.body(), otherQuery.body());
+  }
+
+  @Test
+  void shouldAnswerMatchingRevalidationsWith304() throws Exception {
+    String etag = get("/cached/b", null).headers().firstValue("etag").orElseThrow();
+
+    var matching = get("/cached/b", etag);
+    var stale = get("/cached/b", "\"something-else\"");
+
+    assertEquals(304, matching.statusCode());
+    assertEquals("", matching.body());
+    assertEquals(etag, matching.headers().firstValue("etag").orElse(null));
+    assertEquals(200, stale.statusCode());
+  }
+
+  @Test
+  void shouldNotCacheErrorResponses() throws Exception {
+    get("/cached/c", null);
+    var first = get("/cached-missing", null);
+    get("/cached/d", null);
+    var second = get("/cached-missing", null);
+
+    assertEquals(404, first.statusCode());
+    assertNotEquals(first.body(), second.body());
+  }
+
+  private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+    var request = HttpRequest.newBuilder(server.uri(path));
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
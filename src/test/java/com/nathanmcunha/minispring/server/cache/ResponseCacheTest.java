@@ -0,0 +1,99 @@
+package com.nathanmcunha.minispring.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.codec.BodyWriters;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+  private static final long TTL = 1_000_000_000L;
+
+  @Test
+  void shouldServeEntriesUntilTheyExpire() {
+    var cache = new ResponseCache(10, 1024 * 1024);
+    var response = response("a", 0);
+
+    cache.put("/a", response, 0);
+
+    assertSame(response, cache.get("/a", TTL - 1));
+    assertNull(cache.get("/a", TTL));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.bytes());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedEntriesWhenOneOffKeysFlood() {
+    var cache = new ResponseCache(4, 1024 * 1024);
+    String[] hot = {"/hot1", "/hot2", "/hot3", "/hot4"};
+    for (String key : hot) {
+      for (int i = 0; i < 5; i++) {
+        cache.get(key, 0);
+      }
+      cache.put(key, response(key, 0), 0);
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      String key = "/users/" + i;
+      if (cache.get(key, 0) == null) {
+        cache.put(key, response(key, 0), 0);
+      }
+      assertNotNull(cache.get(hot[i % hot.length], 0), "evicted " + hot[i % hot.length]);
+    }
+  }
+
+  @Test
+  void shouldMakeRoomForNewcomersAsUsedAsTheOldest() {
+    var cache = new ResponseCache(2, 1024 * 1024);
+    cache.get("/a", 0);
+    cache.put("/a", response("a", 0), 0);
+    cache.get("/b", 0);
+    cache.put("/b", response("b", 0), 0);
+
+    cache.get("/c", 0);
+    cache.put("/c", response("c", 0), 0);
+
+    assertNull(cache.get("/a", 0));
+    assertNotNull(cache.get("/c", 0));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void shouldStayWithinItsByteBudget() {
+    var cache = new ResponseCache(1000, 8 * 1024);
+    for (int i = 0; i < 100; i++) {
+      cache.get("/" + i, 0);
+      cache.put("/" + i, response("x".repeat(1000), 0), 0);
+      assertTrue(cache.bytes() <= 8 * 1024);
+    }
+    assertTrue(cache.size() > 0);
+  }
+
+  @Test
+  void shouldTagIdenticalBodiesIdentically() throws Exception {
+    var first = response("same", 0);
+    var second = response("same", TTL);
+    var other = response("different", 0);
+
+    assertEquals(first.etag(), second.etag());
+    assertTrue(!first.etag().equals(other.etag()));
+    assertEquals("text/plain; charset=utf-8", first.headers().get("Content-Type"));
+    assertEquals("same", new String(first.body(), StandardCharsets.UTF_8));
+  }
+
+  private static CachedResponse response(String body, long now) {
+    try {
+      return CachedResponse.encode(
+          new Response<>(200, body, Map.of()), BodyWriters.TEXT, now + TTL);
+    } catch (java.io.IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class JsonDecodersTest {
+
+  enum Status {
+    ACTIVE,
+    BLOCKED
+  }
+
+  record Address(String city, Optional<String> zip) {}
+
+  record User(long id, String name, Status status, Address address, List<String> roles) {}
+
+  record Node(String name, List<Node> children) {}
+
+  record Counter(int count, boolean enabled) {}
+
+  public void handler(List<User> users, Map<String, List<Integer>> groups) {}
+
+  private static Type parameterType(int index) throws NoSuchMethodException {
+    return JsonDecodersTest.class
+        .getMethod("handler", List.class, Map.class)
+        .getGenericParameterTypes()[index];
+  }
+
+  /** Hands the reader one byte per read, so every token crosses a buffer refill. */
+  private static InputStream trickle(String json) {
+    var bytes = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    return new InputStream() {
+      @Override
+      public int read() {
+        return bytes.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        return bytes.read(b, off, Math.min(len, 1));
+      }
+    };
+  }
+
+  private static Object read(Type type, String json) throws IOException {
+    try (var reader = new JsonReader(trickle(json))) {
+      Object value = JsonDecoders.forType(type).orElseThrow().read(reader);
+      reader.endDocument();
+      return value;
+    }
+  }
+
+  @Test
+  void shouldReadNestedRecords() throws IOException {
+    var json =
+        """
+        {"id": 7, "name": "Ana", "status": "ACTIVE",
+         "address": {"city": "Recife", "zip": null}, "roles": ["admin", "dev"]}
+        """;
+
+    assertEquals(
+        new User(
+            7, "Ana", Status.ACTIVE, new Address("Recife", Optional.empty()), List.of("admin", "dev")),
+        read(User.class, json));
+  }
+
+  @Test
+  void shouldSkipUnknownFieldsAndDefaultMissingOnes() throws IOException {
+    var json = "{\"extra\": {\"deep\": [1, {\"x\": \"}\"}]}, \"enabled\": true}";
+
+    assertEquals(new Counter(0, true), read(Counter.class, json));
+  }
+
+  @Test
+  void shouldUseDeclaredElementTypesOfGenericParameters() throws Exception {
+    var users = read(parameterType(0), "[{\"id\": 1, \"name\": \"a\"}, null]");
+    var groups = read(parameterType(1), "{\"odd\": [1, 3], \"even\": []}");
+
+    assertEquals(List.of(new User(1, "a", null, null, null)), ((List<?>) users).subList(0, 1));
+    assertNull(((List<?>) users).get(1));
+    assertEquals(Map.of("odd", List.of(1, 3), "even", List.of()), groups);
+  }
+
+  @Test
+  void shouldReadSelfReferencingRecords() throws IOException {
+    var json = "{\"name\": \"root\", \"children\": [{\"name\": \"leaf\", \"children\": []}]}";
+
+    assertEquals(
+        new Node("root", List.of(new Node("leaf", List.of()))), read(Node.class, json));
+  }
+
+  @Test
+  void shouldUnescapeStrings() throws IOException {
+    assertEquals(
+        "quote \" slash \\ tab \t é 😀 ü",
+        read(String.class, "\"quote \\\" slash \\\\ tab \\t \\u00e9 \\ud83d\\ude00 ü\""));
+  }
+
+  @Test
+  void shouldReadNumbersAndArrays() throws IOException {
+    assertEquals(-9223372036854775808L, read(long.class, "-9223372036854775808"));
+    assertEquals(1.5e3, read(double.class, "1.5e3"));
+    assertArrayEquals(new int[] {1, 2, 3}, (int[]) read(int[].class, "[1, 2, 3]"));
+    assertArrayEquals(new String[] {"a", null}, (String[]) read(String[].class, "[\"a\", null]"));
+  }
+
+  @Test
+  void shouldDecodeObjectAsPlainCollections() throws IOException {
+    assertEquals(
+        Map.of("a", List.of(1L, 2.5, true, "x"), "b", Map.of()),
+        read(Object.class, "{\"a\": [1, 2.5, true, \"x\"], \"b\": {}}"));
+  }
+
+  @Test
+  void shouldRejectMalformedOrMistypedInput() {
+    assertThrows(JsonParseException.class, () -> read(Counter.class, "{\"count\": 1,}"));
+    assertThrows(JsonParseException.class, () -> read(Counter.class, "{\"count\": \"1\"}"));
+    assertThrows(JsonParseException.class, () -> read(Counter.class, "{\"count\": 1} trailing"));
+    assertThrows(JsonParseException.class, () -> read(int.class, "3000000000"));
+    assertThrows(JsonParseException.class, () -> read(int.class, "null"));
+    assertThrows(JsonParseException.class, () -> read(Status.class, "\"UNKNOWN\""));
+    assertThrows(JsonParseException.class, () -> read(Object.class, "[".repeat(1000)));
+  }
+
+  @Test
+  void shouldStreamLargeDocuments() throws IOException {
+    var json = new StringBuilder("[");
+    for (int i = 0; i < 50_000; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"count\":").append(i).append(",\"enabled\":true}");
+    }
+    json.append(']');
+
+    try (var reader = new JsonReader(new ByteArrayInputStream(json.toString().getBytes()))) {
+      var decoder = JsonDecoders.forType(Counter[].class).orElseThrow();
+      var counters = (Counter[]) decoder.read(reader);
+      assertEquals(50_000, counters.length);
+      assertEquals(new Counter(49_999, true), counters[49_999]);
+    }
+  }
+
+  @Test
+  void shouldHaveNoDecoderForArbitraryClasses() {
+    assertTrue(JsonDecoders.forType(Thread.class).isEmpty());
+  }
+}
@@ -0,0 +1,111 @@
+package com.nathanmcunha.minispring.server.codec.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.nathanmcunha.minispring.server.codec.Utf8Output;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class JsonWritersTest {
+
+  enum Status {
+    ACTIVE,
+    BLOCKED
+  }
+
+  record Address(String city, Optional<String> zip) {}
+
+  record User(long id, String name, Status status, Address address, List<String> roles) {}
+
+  record Node(String name, List<Node> children) {}
+
+  record Empty() {}
+
+  public List<User> users() {
+    return null;
+  }
+
+  private static String write(Type type, Object value) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    // A tiny buffer forces the writer through several drains.
+    try (var out = Utf8Output.of(bytes, 16)) {
+      JsonWriters.forType(type).write(value, out);
+    }
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void shouldWriteNestedRecords() throws IOException {
+    var user =
+        new User(7, "Ana", Status.ACTIVE, new Address("Lisbon", Optional.empty()), List.of("admin"));
+
+    assertEquals(
+        "{\"id\":7,\"name\":\"Ana\",\"status\":\"ACTIVE\","
+            + "\"address\":{\"city\":\"Lisbon\",\"zip\":null},\"roles\":[\"admin\"]}",
+        write(User.class, user));
+  }
+
+  @Test
+  void shouldUseDeclaredElementTypeOfGenericCollections() throws Exception {
+    Type type = getClass().getMethod("users").getGenericReturnType();
+    var user = new User(1, null, Status.BLOCKED, null, List.of());
+
+    assertEquals(
+        "[{\"id\":1,\"name\":null,\"status\":\"BLOCKED\",\"address\":null,\"roles\":[]}]",
+        write(type, List.of(user)));
+  }
+
+  @Test
+  void shouldWriteSelfReferencingRecords() throws IOException {
+    var tree = new Node("root", List.of(new Node("leaf", List.of())));
+
+    assertEquals(
+        "{\"name\":\"root\",\"children\":[{\"name\":\"leaf\",\"children\":[]}]}",
+        write(Node.class, tree));
+  }
+
+  @Test
+  void shouldEscapeStringsAndEncodeUtf8() throws IOException {
+    assertEquals(
+        "\"quote\\\" slash\\\\ tab\\t nul\\u0000 é 😀\"",
+        write(String.class, "quote\" slash\\ tab\t nul\u0000 é 😀"));
+  }
+
+  @Test
+  void shouldWriteNumbersWithoutLosingPrecision() throws IOException {
+    assertEquals("-9223372036854775808", write(long.class, Long.MIN_VALUE));
+    assertEquals("1234567890123", write(Long.class, 1234567890123L));
+    assertEquals("0.5", write(double.class, 0.5));
+    assertEquals("null", write(double.class, Double.NaN));
+    assertEquals("[1,2,3]", write(int[].class, new int[] {1, 2, 3}));
+  }
+
+  @Test
+  void shouldWriteFloatsWithTheirOwnDigits() throws IOException {
+    assertEquals("0.1", write(float.class, 0.1f));
+    assertEquals("0.1", write(Float.class, 0.1f));
+    assertEquals("2", write(float.class, 2f));
+    assertEquals("null", write(float.class, Float.NaN));
+    assertEquals("[0.1,-3.25]", write(float[].class, new float[] {0.1f, -3.25f}));
+    assertEquals("[0.1]", write(Object.class, List.of(0.1f)));
+  }
+
+  @Test
+  void shouldPickWritersFromRuntimeClassForObjectValues() throws IOException {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("flag", true);
+    map.put("tags", Set.of("x"));
+    map.put("empty", new Empty());
+
+    assertEquals(
+        "{\"flag\":true,\"tags\":[\"x\"],\"empty\":{}}", write(Object.class, map));
+  }
+}
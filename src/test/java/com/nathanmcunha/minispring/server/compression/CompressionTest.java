@@ -0,0 +1,177 @@
+package com.nathanmcunha.minispring.server.compression;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.cache.ResponseCache;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.dispatch.protocol.AcceptEncoding;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.nathanmcunha.minispring.server.metrics.HttpMetrics;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.nathanmcunha.minispring.server.test_components.rest.BinaryRestComponent;
+import com.nathanmcunha.minispring.server.test_components.rest.TextRestComponent;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CompressionTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final Compression compression = Compression.defaults();
+  private TestServer server;
+
+  private URI start(String name) throws IOException {
+    server =
+        TestServer.start(
+            name,
+            ServerConfig.defaults(0).withSelectors(1),
+            (context, engine) ->
+                engine.mount(
+                    "/",
+                    new DispatcherServlet(
+                        context.getRouterRegistry(),
+                        ResponseCache.defaults(),
+                        compression,
+                        new HttpMetrics(),
+                        AdmissionControl.defaults())));
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldReadQualityValues() {
+    assertEquals(1, AcceptEncoding.quality("gzip, deflate, br", "gzip"));
+    assertEquals(1, AcceptEncoding.quality("GZip", "gzip"));
+    assertEquals(0.5, AcceptEncoding.quality("br;q=1, gzip ; q=0.5", "gzip"));
+    assertEquals(0, AcceptEncoding.quality("gzip;q=0", "gzip"));
+    assertEquals(0, AcceptEncoding.quality("br, gzipx", "gzip"));
+    assertEquals(0.3, AcceptEncoding.quality("br, *;q=0.3", "gzip"));
+    assertEquals(0, AcceptEncoding.quality("*, gzip;q=0", "gzip"));
+    assertEquals(0, AcceptEncoding.quality("gzip;q=oops", "gzip"));
+
+    assertEquals(ContentCoding.GZIP, compression.negotiate("deflate, gzip"));
+    assertEquals(ContentCoding.DEFLATE, compression.negotiate("deflate, gzip;q=0.5"));
+    assertNull(compression.negotiate("br, identity"));
+    assertNull(compression.negotiate(null));
+    assertNull(new Compression(CompressionConfig.disabled()).negotiate("gzip"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldCompressBodiesTheClientAccepts(String name) throws Exception {
+    URI base = start(name);
+
+    // 60 lines fit in the output buffer and are compressed whole; 2,000 are streamed.
+    for (int lines : new int[] {60, 2000}) {
+      var gzip = get(base.resolve("/text/" + lines), "gzip");
+      var deflate = get(base.resolve("/text/" + lines), "deflate;q=1, gzip;q=0.8");
+
+      String expected = TextRestComponent.lines(lines);
+      assertEquals("gzip", gzip.headers().firstValue("content-encoding").orElse(null));
+      assertEquals("Accept-Encoding", gzip.headers().firstValue("vary").orElse(null));
+      assertEquals(expected, gunzip(gzip.body()));
+      assertTrue(gzip.body().length < expected.length() / 4, "compressed " + gzip.body().length);
+      assertEquals("deflate", deflate.headers().firstValue("content-encoding").orElse(null));
+      assertEquals(expected, inflate(deflate.body()));
+    }
+    var whole = get(base.resolve("/text/60"), "gzip");
+    assertEquals(
+        String.valueOf(whole.body().length),
+        whole.headers().firstValue("content-length").orElse(null));
+
+    CompressionStats stats = compression.stats().get(new RouteKey("GET", "/text/{n}"));
+    assertEquals(5, stats.responses());
+    assertTrue(stats.ratio() > 4, stats.toString());
+    assertTrue(stats.cpuNanos() > 0, stats.toString());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldSendSomeBodiesAsTheyAre(String name) throws Exception {
+    URI base = start(name);
+    String body = TextRestComponent.lines(60);
+
+    var small = get(base.resolve("/text/10"), "gzip");
+    var notAccepted = get(base.resolve("/text/60"), null);
+    var optedOut = get(base.resolve("/text-uncompressed/60"), "gzip");
+    var binary = get(base.resolve("/binary/bytes/20000"), "gzip");
+
+    assertFalse(small.headers().firstValue("content-encoding").isPresent());
+    assertEquals(TextRestComponent.lines(10), new String(small.body(), StandardCharsets.UTF_8));
+    assertFalse(notAccepted.headers().firstValue("content-encoding").isPresent());
+    assertEquals(List.of("Accept-Encoding"), notAccepted.headers().allValues("vary"));
+    assertEquals(body, new String(notAccepted.body(), StandardCharsets.UTF_8));
+    assertFalse(optedOut.headers().firstValue("content-encoding").isPresent());
+    assertFalse(optedOut.headers().firstValue("vary").isPresent());
+    assertFalse(binary.headers().firstValue("content-encoding").isPresent());
+    assertArrayEquals(BinaryRestComponent.pattern(20000), binary.body());
+  }
+
+  @Test
+  void shouldCacheEachRepresentationWithATagOfItsOwn() throws Exception {
+    URI base = start("nio");
+    URI uri = base.resolve("/cached-text/200");
+
+    var plain = get(uri, null);
+    var gzip = get(uri, "gzip");
+    var gzipAgain = get(uri, "gzip");
+
+    String expected = TextRestComponent.lines(200);
+    assertEquals(expected, new String(plain.body(), StandardCharsets.UTF_8));
+    assertEquals(expected, gunzip(gzip.body()));
+    assertArrayEquals(gzip.body(), gzipAgain.body());
+    assertEquals("gzip", gzipAgain.headers().firstValue("content-encoding").orElse(null));
+    assertEquals(List.of("Accept-Encoding"), plain.headers().allValues("vary"));
+    String etag = gzip.headers().firstValue("etag").orElseThrow();
+    assertNotEquals(plain.headers().firstValue("etag").orElseThrow(), etag);
+    assertEquals(
+        1, compression.stats().get(new RouteKey("GET", "/cached-text/{n}")).responses());
+  }
+
+  private HttpResponse<byte[]> get(URI uri, String acceptEncoding) throws Exception {
+    var request = HttpRequest.newBuilder(uri);
+    if (acceptEncoding != null) {
+      request.header("Accept-Encoding", acceptEncoding);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private static String gunzip(byte[] body) throws IOException {
+    return read(new GZIPInputStream(new ByteArrayInputStream(body)));
+  }
+
+  private static String inflate(byte[] body) throws IOException {
+    return read(new InflaterInputStream(new ByteArrayInputStream(body)));
+  }
+
+  private static String read(InputStream in) throws IOException {
+    try (in) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class AsyncHandlerTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+  private DispatcherServlet dispatcher;
+
+  private URI start(String name) throws IOException {
+    server =
+        TestServer.start(
+            name,
+            ServerConfig.defaults(0).withSelectors(1),
+            (context, engine) -> {
+              dispatcher = new DispatcherServlet(context.getRouterRegistry());
+              engine.mount("/", dispatcher);
+            });
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldAnswerWhenTheFutureCompletes(String name) throws Exception {
+    URI base = start(name);
+
+    List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      pending.add(
+          client.sendAsync(
+              HttpRequest.newBuilder(base.resolve("/async/n" + i)).build(),
+              HttpResponse.BodyHandlers.ofString()));
+    }
+    for (int i = 0; i < 20; i++) {
+      var response = pending.get(i).get();
+      assertEquals(200, response.statusCode());
+      assertEquals("async n" + i, response.body());
+    }
+    var created =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/async-created/ada"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    assertEquals(201, created.statusCode());
+    assertEquals("ada", created.headers().firstValue("x-name").orElse(null));
+    assertEquals("[\"ada\"]", created.body());
+    // The route's metrics see the request end with its response, not when the handler returned.
+    var metrics = dispatcher.metrics().route(new RouteKey("GET", "/async/{name}"));
+    for (int i = 0; i < 100 && metrics.latency().snapshot().count() < 20; i++) {
+      Thread.sleep(5);
+    }
+    var latency = metrics.latency().snapshot();
+    assertEquals(20, latency.count());
+    assertTrue(latency.sum() >= 20 * 50_000L, "total latency in micros " + latency.sum());
+    assertEquals(0, metrics.inFlight());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldMapAFailedFutureTo500(String name) throws Exception {
+    URI base = start(name);
+
+    var failed = get(base.resolve("/async-fail"));
+    var next = get(base.resolve("/echo/after"));
+
+    assertEquals(500, failed.statusCode());
+    assertTrue(failed.body().contains("async boom"), failed.body());
+    assertEquals(200, next.statusCode());
+    assertEquals("after", next.body());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldStreamAPublisher(String name) throws Exception {
+    URI base = start(name);
+
+    var numbers = get(base.resolve("/publish/100"));
+    var empty = get(base.resolve("/publish/0"));
+    var text = get(base.resolve("/publish-text"));
+
+    var expected = new StringJoiner(",", "[", "]");
+    for (int i = 0; i < 100; i++) {
+      expected.add(Integer.toString(i));
+    }
+    assertEquals(200, numbers.statusCode());
+    assertEquals("application/json", numbers.headers().firstValue("content-type").orElse(null));
+    assertEquals(expected.toString(), numbers.body());
+    assertEquals("[]", empty.body());
+    assertEquals("line 0\nline 1\nline 2\n", text.body());
+    assertTrue(text.headers().firstValue("content-type").orElse("").startsWith("text/plain"));
+  }
+
+  private HttpResponse<String> get(URI uri) throws Exception {
+    return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,80 @@
+package com.nathanmcunha.minispring.server.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+class DispatchEventsTest {
+
+  private static final List<String> EVENTS =
+      List.of(
+          "minispring.boot.Phase",
+          "minispring.http.Dispatch",
+          "minispring.http.RouteLookup",
+          "minispring.http.Invocation",
+          "minispring.http.ResponseWrite",
+          "minispring.http.SocketWrite");
+
+  @Test
+  void shouldRecordBootAndDispatchPhases() throws Exception {
+    Map<String, List<RecordedEvent>> recorded = new ConcurrentHashMap<>();
+    var dispatched = new CountDownLatch(1);
+    try (var stream = new RecordingStream()) {
+      for (String name : EVENTS) {
+        stream.enable(name);
+        stream.onEvent(
+            name,
+            event -> {
+              recorded.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(event);
+              if (name.equals("minispring.http.Dispatch")) {
+                dispatched.countDown();
+              }
+            });
+      }
+      stream.startAsync();
+
+      try (var server = TestServer.start("nio", ServerConfig.defaults(0).withSelectors(1))) {
+        var response =
+            HttpClient.newHttpClient()
+                .send(
+                    HttpRequest.newBuilder(server.uri("/echo/hi")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+        assertEquals("hi", response.body());
+
+        assertTrue(dispatched.await(10, TimeUnit.SECONDS), "no dispatch event within 10s");
+      }
+    }
+
+    List<String> phases =
+        recorded.get("minispring.boot.Phase").stream().map(e -> e.getString("phase")).toList();
+    assertTrue(phases.containsAll(List.of("scan", "resolve", "register", "routes", "boot")));
+
+    RecordedEvent dispatch = recorded.get("minispring.http.Dispatch").get(0);
+    assertEquals("GET", dispatch.getString("verb"));
+    assertEquals("/echo/{word}", dispatch.getString("route"));
+    assertEquals("/echo/hi", dispatch.getString("path"));
+    assertEquals(200, dispatch.getInt("status"));
+    assertEquals(
+        "/echo/{word}", recorded.get("minispring.http.RouteLookup").get(0).getString("route"));
+    assertTrue(recorded.get("minispring.http.Invocation").get(0).getBoolean("succeeded"));
+    assertEquals(200, recorded.get("minispring.http.ResponseWrite").get(0).getInt("status"));
+    assertTrue(
+        recorded.get("minispring.http.SocketWrite").stream()
+            .anyMatch(e -> e.getLong("bytes") == 2),
+        "the body write");
+  }
+}
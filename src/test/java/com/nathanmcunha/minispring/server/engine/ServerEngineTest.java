@@ -0,0 +1,397 @@
+package com.nathanmcunha.minispring.server.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.test_components.rest.BinaryRestComponent;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ServerEngineTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  record RawResponse(int status, Map<String, String> headers, String body) {}
+
+  private URI start(String name) throws IOException {
+    server =
+        TestServer.start(
+            name,
+            ServerConfig.defaults(0).withSelectors(2),
+            (context, engine) -> {
+              engine.mount("/", new DispatcherServlet(context.getRouterRegistry()));
+              engine.mount(
+                  "/big",
+                  exchange -> {
+                    exchange.sendResponseHeaders(200, 0);
+                    try (var out = exchange.getResponseBody()) {
+                      for (int i = 0; i < 10_000; i++) {
+                        out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                      }
+                    }
+                  });
+              engine.mount(
+                  "/upload",
+                  exchange -> {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    byte[] size = String.valueOf(body.length).getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, size.length);
+                    try (var out = exchange.getResponseBody()) {
+                      out.write(size);
+                    }
+                  });
+              engine.mount(
+                  "/regions",
+                  exchange -> {
+                    Path file = Path.of(exchange.getRequestURI().getQuery());
+                    exchange.sendResponseHeaders(200, 0);
+                    try (var out = exchange.getResponseBody();
+                        var channel = FileChannel.open(file)) {
+                      out.write('<');
+                      ((FileTransfer) out).transferFrom(channel, 0, channel.size());
+                      out.write('|');
+                      ((FileTransfer) out).transferFrom(channel, 1, 2);
+                      out.write('>');
+                    }
+                  });
+            });
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldServeDispatcherRoutes(String name) throws Exception {
+    URI base = start(name);
+
+    var get = client.send(HttpRequest.newBuilder(base.resolve("/echo/hi")).build(), ofString());
+    var post =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/greeting"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Hi\",\"tags\":[\"a\"]}"))
+                .build(),
+            ofString());
+    var missing = client.send(HttpRequest.newBuilder(base.resolve("/nope")).build(), ofString());
+
+    assertEquals(200, get.statusCode());
+    assertEquals("hi", get.body());
+    assertEquals(201, post.statusCode());
+    assertEquals("{\"message\":\"Hi\",\"tags\":[\"a\"],\"count\":1}", post.body());
+    assertEquals(404, missing.statusCode());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldBindQueryParametersHeadersAndCookies(String name) throws Exception {
+    URI base = start(name);
+
+    var full =
+        client.send(
+            HttpRequest.newBuilder(
+                    base.resolve("/search/books?q=caf%C3%A9+au+lait&tag=a&page=2&tag=b&flag"))
+                .header("x-client", "cli")
+                .header("Cookie", "theme=dark; session=\"s-1\"")
+                .build(),
+            ofString());
+    var minimal =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/search/films?q=x"))
+                .header("X-Client", "cli")
+                .build(),
+            ofString());
+    var missing =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/search/films?page=1"))
+                .header("X-Client", "cli")
+                .build(),
+            ofString());
+    var malformed =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/search/films?q=x&page=two"))
+                .header("X-Client", "cli")
+                .build(),
+            ofString());
+
+    assertEquals(200, full.statusCode());
+    assertEquals("books|café au lait|2|cli|[a, b]|s-1", full.body());
+    assertEquals("films|x|null|cli|[]|null", minimal.body());
+    assertEquals(400, missing.statusCode());
+    assertEquals(400, malformed.statusCode());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldStreamMultipartUploadsThroughTemporaryFiles(String name) throws Exception {
+    URI base = start(name);
+    byte[] upload = new byte[3 * 1024 * 1024];
+    for (int i = 0; i < upload.length; i++) {
+      upload[i] = (byte) (i * 7 + i / 4096);
+    }
+    var crc = new CRC32();
+    crc.update(upload);
+    var body = new ByteArrayOutputStream();
+    body.writeBytes(
+        ("--xyz\r\nContent-Disposition: form-data; name=\"title\"\r\n\r\nQ3 report\r\n"
+                + "--xyz\r\nContent-Disposition: form-data; name=\"file\"; filename=\"q3.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+    body.writeBytes(upload);
+    body.writeBytes("\r\n--xyz--\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    var uploaded =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/attachments"))
+                .header("Content-Type", "multipart/form-data; boundary=xyz")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build(),
+            ofString());
+    var notMultipart =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/attachments"))
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString("hello"))
+                .build(),
+            ofString());
+
+    assertEquals(200, uploaded.statusCode());
+    assertEquals(
+        "Q3 report|q3.bin|" + upload.length + "|false|" + Long.toHexString(crc.getValue()),
+        uploaded.body());
+    assertEquals(415, notMultipart.statusCode());
+  }
+
+  @Test
+  void shouldRejectAnOversizedUploadBeforeReadingIt() throws Exception {
+    URI base = start("nio");
+
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket
+          .getOutputStream()
+          .write(
+              ("POST /attachments HTTP/1.1\r\nHost: x\r\nExpect: 100-continue\r\n"
+                      + "Content-Type: multipart/form-data; boundary=xyz\r\n"
+                      + "Content-Length: 9000000\r\n\r\n")
+                  .getBytes(StandardCharsets.US_ASCII));
+      var response = readResponse(new BufferedInputStream(socket.getInputStream()));
+
+      assertEquals(413, response.status());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldStreamLargeBodiesBothWays(String name) throws Exception {
+    URI base = start(name);
+    byte[] upload = new byte[3 * 1024 * 1024];
+
+    var big = client.send(HttpRequest.newBuilder(base.resolve("/big")).build(), ofString());
+    // An InputStream publisher has no known length, so the upload is sent chunked.
+    var uploaded =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/upload"))
+                .POST(
+                    HttpRequest.BodyPublishers.ofInputStream(
+                        () -> new ByteArrayInputStream(upload)))
+                .build(),
+            ofString());
+
+    assertEquals(200, big.statusCode());
+    assertTrue(big.body().startsWith("line 0\nline 1\n"));
+    assertTrue(big.body().endsWith("line 9999\n"));
+    assertEquals(String.valueOf(upload.length), uploaded.body());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldSendBinaryBodies(String name) throws Exception {
+    URI base = start(name);
+
+    for (String kind : new String[] {"bytes", "buffer", "stream", "file"}) {
+      for (int size : new int[] {0, 100, 3 * 1024 * 1024}) {
+        var response =
+            client.send(
+                HttpRequest.newBuilder(base.resolve("/binary/" + kind + "/" + size)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        var headers = response.headers();
+        String route = kind + "/" + size;
+
+        assertEquals(200, response.statusCode(), route);
+        assertArrayEquals(BinaryRestComponent.pattern(size), response.body(), route);
+        assertEquals(
+            "application/octet-stream", headers.firstValue("content-type").orElse(null), route);
+        if (kind.equals("stream") && size > 8 * 1024) {
+          // Streams have no known length, so once they outgrow the buffer they go chunked.
+          assertFalse(headers.firstValue("content-length").isPresent(), route);
+        } else if (size > 0) {
+          assertEquals(String.valueOf(size), headers.firstValue("content-length").get(), route);
+        }
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldAnswer404WhenAFileBodyIsMissing(String name) throws Exception {
+    URI base = start(name);
+
+    var missing =
+        client.send(HttpRequest.newBuilder(base.resolve("/binary/missing")).build(), ofString());
+    var after = client.send(HttpRequest.newBuilder(base.resolve("/getTest")).build(), ofString());
+
+    assertEquals(404, missing.statusCode());
+    assertEquals("ALO", after.body());
+  }
+
+  @Test
+  void nioShouldSendFileRegionsAsChunksOfTheirOwn(@TempDir Path dir) throws Exception {
+    URI base = start("nio");
+    Path file = Files.writeString(dir.resolve("region.txt"), "abcd".repeat(5_000));
+
+    var response =
+        client.send(HttpRequest.newBuilder(base.resolve("/regions?" + file)).build(), ofString());
+
+    assertEquals(200, response.statusCode());
+    assertEquals("<" + "abcd".repeat(5_000) + "|bc>", response.body());
+  }
+
+  @Test
+  void nioShouldAnswerPipelinedRequestsInOrderOnOneConnection() throws Exception {
+    URI base = start("nio");
+
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket
+          .getOutputStream()
+          .write(
+              ("GET /echo/one HTTP/1.1\r\nHost: x\r\n\r\n"
+                      + "POST /upload HTTP/1.1\r\nHost: x\r\nContent-Length: 5\r\n\r\nhello"
+                      + "GET /echo/three HTTP/1.1\r\nHost: x\r\n\r\n")
+                  .getBytes(StandardCharsets.US_ASCII));
+      var in = new BufferedInputStream(socket.getInputStream());
+
+      assertEquals("one", readResponse(in).body());
+      assertEquals("5", readResponse(in).body());
+      assertEquals("three", readResponse(in).body());
+    }
+  }
+
+  @Test
+  void nioShouldKeepConnectionsAliveUntilTheClientClosesThem() throws Exception {
+    URI base = start("nio");
+
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      var in = new BufferedInputStream(socket.getInputStream());
+      var out = socket.getOutputStream();
+
+      out.write("GET /getTest HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+      var first = readResponse(in);
+      out.write(
+          "HEAD /big HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n"
+              .getBytes(StandardCharsets.US_ASCII));
+      var second = readHead(in);
+
+      assertEquals("ALO", first.body());
+      assertNull(first.headers().get("connection"));
+      assertEquals(200, second.status());
+      assertEquals("close", second.headers().get("connection"));
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void nioShouldRejectMalformedRequestsAndClose() throws Exception {
+    URI base = start("nio");
+
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket.getOutputStream().write("NOT A REQUEST\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+      var in = new BufferedInputStream(socket.getInputStream());
+
+      assertEquals(505, readResponse(in).status());
+      assertEquals(-1, in.read());
+    }
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket
+          .getOutputStream()
+          .write(
+              ("GET / HTTP/1.1\r\nX: " + "a".repeat(20_000) + "\r\n\r\n")
+                  .getBytes(StandardCharsets.US_ASCII));
+
+      assertEquals(431, readResponse(new BufferedInputStream(socket.getInputStream())).status());
+    }
+  }
+
+  private static HttpResponse.BodyHandler<String> ofString() {
+    return HttpResponse.BodyHandlers.ofString();
+  }
+
+  private static RawResponse readResponse(InputStream in) throws IOException {
+    RawResponse head = readHead(in);
+    var body = new ByteArrayOutputStream();
+    if ("chunked".equals(head.headers().get("transfer-encoding"))) {
+      int size;
+      while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+        body.write(in.readNBytes(size));
+        readLine(in);
+      }
+      readLine(in);
+    } else {
+      int length = Integer.parseInt(head.headers().getOrDefault("content-length", "0"));
+      body.write(in.readNBytes(length));
+    }
+    return new RawResponse(head.status(), head.headers(), body.toString(StandardCharsets.UTF_8));
+  }
+
+  private static RawResponse readHead(InputStream in) throws IOException {
+    int status = Integer.parseInt(readLine(in).split(" ")[1]);
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+      int colon = line.indexOf(':');
+      headers.put(line.substring(0, colon).toLowerCase(), line.substring(colon + 1).strip());
+    }
+    return new RawResponse(status, headers, "");
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    var line = new StringBuilder();
+    for (int b = in.read(); b != '\n'; b = in.read()) {
+      if (b < 0) {
+        throw new IOException("Connection closed mid-line");
+      }
+      if (b != '\r') {
+        line.append((char) b);
+      }
+    }
+    return line.toString();
+  }
+}
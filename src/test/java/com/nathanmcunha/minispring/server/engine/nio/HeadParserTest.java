@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+class HeadParserTest {
+
+  @Test
+  void shouldReadConnectionTokensTheSameInAnyLocale() throws Exception {
+    Locale previous = Locale.getDefault();
+    // Turkish lower-cases "I" to a dotless "ı", which would turn KEEP-ALIVE into "keep-alıve".
+    Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+    try {
+      assertTrue(parse("GET / HTTP/1.0\r\nConnection: KEEP-ALIVE\r\n\r\n").keepAlive());
+      assertFalse(parse("GET / HTTP/1.1\r\nConnection: CLOSE\r\n\r\n").keepAlive());
+      assertTrue(parse("POST / HTTP/1.1\r\nTransfer-Encoding: CHUNKED\r\n\r\n").chunked());
+    } finally {
+      Locale.setDefault(previous);
+    }
+  }
+
+  private static RequestHead parse(String head) throws MalformedRequestException {
+    return HeadParser.parse(ByteBuffer.wrap(head.getBytes(StandardCharsets.US_ASCII)), 8192);
+  }
+}
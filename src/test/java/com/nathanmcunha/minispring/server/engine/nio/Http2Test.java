@@ -0,0 +1,219 @@
+package com.nathanmcunha.minispring.server.engine.nio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.engine.Http2Config;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HeaderBlock;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HpackDecoder;
+import com.nathanmcunha.minispring.server.engine.nio.hpack.HpackEncoder;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class Http2Test {
+
+  private static final byte[] PREFACE =
+      "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  private URI start(Http2Config http2) throws IOException {
+    server =
+        TestServer.start(
+            "nio",
+            ServerConfig.defaults(0).withHttp2(http2),
+            (context, engine) -> {
+              engine.mount("/", new DispatcherServlet(context.getRouterRegistry()));
+              engine.mount(
+                  "/upload",
+                  exchange -> {
+                    byte[] body = exchange.getRequestBody().readAllBytes();
+                    byte[] size = String.valueOf(body.length).getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, size.length);
+                    try (var out = exchange.getResponseBody()) {
+                      out.write(size);
+                    }
+                  });
+              engine.mount(
+                  "/big",
+                  exchange -> {
+                    exchange.getResponseHeaders().add("Connection", "keep-alive");
+                    exchange.sendResponseHeaders(200, 0);
+                    try (var out = exchange.getResponseBody()) {
+                      for (int i = 0; i < 100_000; i++) {
+                        out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                      }
+                    }
+                  });
+            });
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldUpgradeAndMultiplexRequestsOnOneConnection() throws Exception {
+    URI base = start(Http2Config.defaults());
+
+    var first = client.send(HttpRequest.newBuilder(base.resolve("/echo/hi")).build(), ofString());
+    List<CompletableFuture<HttpResponse<String>>> concurrent = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      concurrent.add(
+          client.sendAsync(
+              HttpRequest.newBuilder(base.resolve("/echo/n" + i)).build(), ofString()));
+    }
+    var missing = client.send(HttpRequest.newBuilder(base.resolve("/nope")).build(), ofString());
+
+    assertEquals(HttpClient.Version.HTTP_2, first.version());
+    assertEquals(200, first.statusCode());
+    assertEquals("hi", first.body());
+    for (int i = 0; i < 50; i++) {
+      var response = concurrent.get(i).join();
+      assertEquals(HttpClient.Version.HTTP_2, response.version());
+      assertEquals("n" + i, response.body());
+    }
+    assertEquals(404, missing.statusCode());
+  }
+
+  @Test
+  void shouldFlowControlLargeBodiesBothWays() throws Exception {
+    URI base = start(Http2Config.defaults().withInitialWindowSize(16 * 1024));
+    byte[] upload = new byte[3 * 1024 * 1024];
+    client.send(HttpRequest.newBuilder(base.resolve("/echo/warm-up")).build(), ofString());
+
+    var uploaded =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/upload"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(upload))
+                .build(),
+            ofString());
+    var big = client.send(HttpRequest.newBuilder(base.resolve("/big")).build(), ofString());
+
+    assertEquals(HttpClient.Version.HTTP_2, uploaded.version());
+    assertEquals(String.valueOf(upload.length), uploaded.body());
+    assertEquals(HttpClient.Version.HTTP_2, big.version());
+    assertTrue(big.body().startsWith("line 0\nline 1\n"));
+    assertTrue(big.body().endsWith("line 99999\n"));
+    assertTrue(big.headers().firstValue("connection").isEmpty());
+  }
+
+  @Test
+  void shouldSpeakHttp2ByPriorKnowledge() throws Exception {
+    URI base = start(Http2Config.defaults());
+    var encoder = new HpackEncoder(4096);
+    var block = new HeaderBlock();
+    encoder.begin(block);
+    encoder.header(":method", "GET", block);
+    encoder.header(":scheme", "http", block);
+    encoder.header(":path", "/echo/raw", block);
+    encoder.header(":authority", "localhost", block);
+
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket.setSoTimeout(5000);
+      OutputStream out = socket.getOutputStream();
+      out.write(PREFACE);
+      writeFrame(out, 0x4, 0, 0, new byte[0]);
+      writeFrame(out, 0x6, 0, 0, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+      writeFrame(out, 0x1, 0x5, 1, bytes(block.bytes()));
+      out.flush();
+
+      var in = new DataInputStream(socket.getInputStream());
+      var decoder = new HpackDecoder(4096);
+      Map<String, String> headers = new HashMap<>();
+      var body = new ByteArrayOutputStream();
+      boolean pinged = false;
+      boolean ended = false;
+      while (!ended) {
+        int length = in.readUnsignedShort() << 8 | in.readUnsignedByte();
+        int type = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        int stream = in.readInt();
+        byte[] payload = in.readNBytes(length);
+        switch (type) {
+          case 0x0 -> {
+            assertEquals(1, stream);
+            body.write(payload);
+            ended = (flags & 0x1) != 0;
+          }
+          case 0x1 -> {
+            assertEquals(1, stream);
+            decoder.decode(payload, 0, length, 1 << 16, headers::put);
+            ended = (flags & 0x1) != 0;
+          }
+          case 0x6 -> {
+            assertEquals(0x1, flags);
+            assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, payload);
+            pinged = true;
+          }
+          default -> {}
+        }
+      }
+
+      assertTrue(pinged);
+      assertEquals("200", headers.get(":status"));
+      assertEquals("raw", body.toString(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void shouldStayOnHttp11WhenHttp2IsDisabled() throws Exception {
+    URI base = start(Http2Config.disabled());
+
+    var response =
+        client.send(HttpRequest.newBuilder(base.resolve("/echo/hi")).build(), ofString());
+
+    assertEquals(HttpClient.Version.HTTP_1_1, response.version());
+    assertEquals("hi", response.body());
+    try (var socket = new Socket(base.getHost(), base.getPort())) {
+      socket.setSoTimeout(5000);
+      socket.getOutputStream().write(PREFACE);
+      String status = new String(socket.getInputStream().readNBytes(12), StandardCharsets.UTF_8);
+      assertEquals("HTTP/1.1 505", status);
+    }
+  }
+
+  private static void writeFrame(OutputStream out, int type, int flags, int stream, byte[] payload)
+      throws IOException {
+    var header = ByteBuffer.allocate(9);
+    header.put((byte) (payload.length >>> 16)).putShort((short) payload.length);
+    header.put((byte) type).put((byte) flags).putInt(stream);
+    out.write(header.array());
+    out.write(payload);
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static HttpResponse.BodyHandler<String> ofString() {
+    return HttpResponse.BodyHandlers.ofString();
+  }
+}
@@ -0,0 +1,145 @@
+package com.nathanmcunha.minispring.server.engine.nio.hpack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HpackTest {
+
+  @Test
+  void shouldDecodeTheRfcRequestExamplesWithoutHuffman() throws Exception {
+    var decoder = new HpackDecoder(4096);
+
+    // RFC 7541 C.3.1 and C.3.2: the second request reuses :authority from the dynamic table.
+    assertEquals(
+        List.of(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com"),
+        decode(decoder, "828684410f7777772e6578616d706c652e636f6d"));
+    assertEquals(
+        List.of(
+            ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+            "cache-control", "no-cache"),
+        decode(decoder, "828684be58086e6f2d6361636865"));
+  }
+
+  @Test
+  void shouldDecodeTheRfcRequestExamplesWithHuffman() throws Exception {
+    var decoder = new HpackDecoder(4096);
+
+    // RFC 7541 C.4.1 to C.4.3.
+    assertEquals(
+        List.of(":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com"),
+        decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+    assertEquals(
+        List.of(
+            ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+            "cache-control", "no-cache"),
+        decode(decoder, "828684be5886a8eb10649cbf"));
+    assertEquals(
+        List.of(
+            ":method", "GET", ":scheme", "https", ":path", "/index.html",
+            ":authority", "www.example.com", "custom-key", "custom-value"),
+        decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"));
+  }
+
+  @Test
+  void shouldRoundTripEveryByteThroughHuffman() throws Exception {
+    var text = new StringBuilder();
+    for (int c = 0; c < 256; c++) {
+      text.append((char) c);
+    }
+    var block = new HeaderBlock();
+    Huffman.encode(text.toString(), block);
+    byte[] bytes = new byte[block.size()];
+    block.bytes().get(bytes);
+
+    assertEquals(Huffman.encodedLength(text.toString()), bytes.length);
+    assertEquals(text.toString(), Huffman.decode(bytes, 0, bytes.length));
+  }
+
+  @Test
+  void shouldIndexRepeatedResponseFieldsButNotDates() throws Exception {
+    var encoder = new HpackEncoder(4096);
+    var decoder = new HpackDecoder(4096);
+    var block = new HeaderBlock();
+    int[] sizes = new int[2];
+    for (int i = 0; i < 2; i++) {
+      encoder.begin(block);
+      encoder.header(":status", "200", block);
+      encoder.header("content-type", "application/json", block);
+      encoder.header("date", "Sun, 18 Oct 2026 10:00:0" + i + " GMT", block);
+      sizes[i] = block.size();
+
+      assertEquals(
+          List.of(
+              ":status", "200", "content-type", "application/json",
+              "date", "Sun, 18 Oct 2026 10:00:0" + i + " GMT"),
+          decode(decoder, block.bytes()));
+    }
+
+    assertTrue(sizes[1] < sizes[0] - 10, "second block " + sizes[1] + " vs " + sizes[0]);
+  }
+
+  @Test
+  void shouldAnnounceASmallerPeerTableBeforeTheNextBlock() throws Exception {
+    var encoder = new HpackEncoder(4096);
+    var decoder = new HpackDecoder(4096);
+    var block = new HeaderBlock();
+    encoder.begin(block);
+    encoder.header("server", "mini-spring", block);
+    decode(decoder, block.bytes());
+
+    encoder.setPeerTableSize(0);
+    encoder.begin(block);
+    encoder.header("server", "mini-spring", block);
+
+    assertEquals(0x20, block.bytes().get(0) & 0xFF);
+    assertEquals(List.of("server", "mini-spring"), decode(decoder, block.bytes()));
+  }
+
+  @Test
+  void shouldStopDeliveringFieldsPastTheListLimitButKeepTheTable() throws Exception {
+    var decoder = new HpackDecoder(4096);
+    List<String> fields = new ArrayList<>();
+    byte[] block = HexFormat.of().parseHex("400a637573746f6d2d6b65790d637573746f6d2d686561646572");
+
+    assertFalse(decoder.decode(block, 0, block.length, 40, (name, value) -> fields.add(name)));
+    assertTrue(fields.isEmpty());
+    assertEquals(List.of("custom-key", "custom-header"), decode(decoder, "be"));
+  }
+
+  @Test
+  void shouldRejectMalformedBlocks() {
+    var decoder = new HpackDecoder(4096);
+
+    assertThrows(HpackException.class, () -> decode(decoder, "80"));
+    assertThrows(HpackException.class, () -> decode(decoder, "ff"));
+    assertThrows(HpackException.class, () -> decode(decoder, "3fe21f"));
+    assertThrows(HpackException.class, () -> decode(decoder, "8240"));
+  }
+
+  private static List<String> decode(HpackDecoder decoder, String hex) throws Exception {
+    byte[] block = HexFormat.of().parseHex(hex);
+    List<String> fields = new ArrayList<>();
+    decoder.decode(
+        block,
+        0,
+        block.length,
+        Integer.MAX_VALUE,
+        (name, value) -> {
+          fields.add(name);
+          fields.add(value);
+        });
+    return fields;
+  }
+
+  private static List<String> decode(HpackDecoder decoder, ByteBuffer block) throws Exception {
+    return decode(decoder, HexFormat.of().formatHex(block.array(), 0, block.limit()));
+  }
+}
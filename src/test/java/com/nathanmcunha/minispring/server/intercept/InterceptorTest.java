@@ -0,0 +1,114 @@
+package com.nathanmcunha.minispring.server.intercept;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.nathanmcunha.minispring.server.test_components.rest.TokenInterceptor;
+import com.nathanmcunha.minispring.server.test_components.rest.TraceInterceptor;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InterceptorTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  @BeforeEach
+  void start() throws Exception {
+    server = TestServer.start("nio", ServerConfig.defaults(0).withSelectors(1));
+  }
+
+  @AfterEach
+  void stop() {
+    server.close();
+  }
+
+  @Test
+  void shouldMatchPatternsAgainstTemplates() {
+    assertTrue(pattern("/**").matches("/"));
+    assertTrue(pattern("/**").matches("/users/{id}"));
+    assertTrue(pattern("/users/*").matches("/users/{id}"));
+    assertFalse(pattern("/users/*").matches("/users/{id}/orders"));
+    assertTrue(pattern("/users/**/orders").matches("/users/{id}/orders"));
+    assertTrue(pattern("/users/**/orders").matches("/users/orders"));
+    assertFalse(pattern("/users/admin").matches("/users/{id}"));
+    assertTrue(pattern("/users/{id}").matches("/users/{id}"));
+    assertTrue(PathPattern.parse("users/*") instanceof Result.Failure);
+    assertTrue(PathPattern.parse("/users/id*") instanceof Result.Failure);
+  }
+
+  @Test
+  void shouldResolveEachRoutesInterceptorsInOrder() {
+    assertEquals(
+        List.of(TraceInterceptor.class, TokenInterceptor.class),
+        classesOf(match("/guarded/ann")));
+    assertEquals(List.of(TokenInterceptor.class), classesOf(match("/guarded-cached/ann")));
+    assertEquals(0, match("/echo/hi").route().interceptors().length);
+  }
+
+  @Test
+  void shouldLetInterceptorsAnswerInPlaceOfTheHandler() throws Exception {
+    var refused = get("/guarded/ann", null);
+    var allowed = get("/guarded/ann", "secret");
+
+    assertEquals(401, refused.statusCode());
+    assertEquals("missing token", refused.body());
+    assertEquals("/guarded/{name}", refused.headers().firstValue("x-route").orElse(null));
+    assertEquals(200, allowed.statusCode());
+    assertEquals("hello ann", allowed.body());
+    assertEquals("/guarded/{name}", allowed.headers().firstValue("x-route").orElse(null));
+    // afterCompletion runs once the response is out, so it may trail the client a little.
+    for (int i = 0; i < 100 && trace().completed().size() < 2; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of(401, 200), trace().completed());
+  }
+
+  @Test
+  void shouldRunInterceptorsBeforeTheResponseCache() throws Exception {
+    var first = get("/guarded-cached/bob", "secret");
+    var hit = get("/guarded-cached/bob", "secret");
+    var refused = get("/guarded-cached/bob", null);
+
+    assertEquals(200, first.statusCode());
+    assertEquals(first.body(), hit.body());
+    assertEquals(401, refused.statusCode());
+  }
+
+  private RouteMatch match(String path) {
+    var registry = server.context().getRouterRegistry();
+    return ((Result.Success<RouteMatch, FrameworkError>) registry.route("GET", path)).value();
+  }
+
+  private static List<Class<?>> classesOf(RouteMatch match) {
+    return Arrays.stream(match.route().interceptors()).<Class<?>>map(Object::getClass).toList();
+  }
+
+  private TraceInterceptor trace() {
+    return server.bean(TraceInterceptor.class);
+  }
+
+  private static PathPattern pattern(String source) {
+    return ((Result.Success<PathPattern, FrameworkError>) PathPattern.parse(source)).value();
+  }
+
+  private HttpResponse<String> get(String path, String token) throws Exception {
+    var request = HttpRequest.newBuilder(server.uri(path));
+    if (token != null) {
+      request.header("X-Token", token);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
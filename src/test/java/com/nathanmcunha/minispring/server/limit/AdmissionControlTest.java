@@ -0,0 +1,162 @@
+package com.nathanmcunha.minispring.server.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.cache.ResponseCache;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.metrics.HttpMetrics;
+import com.nathanmcunha.minispring.server.metrics.MetricsHandler;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControlTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldGrowWhileLatencyHoldsAndShrinkWhenItRises() {
+    var limit = new GradientLimit(new LimitConfig(100, 4, 1_000), 0);
+    int window = 0;
+    for (; window < 20; window++) {
+      feed(limit, window, MILLI, limit.limit(), false);
+    }
+    int grown = limit.limit();
+    for (; window < 25; window++) {
+      feed(limit, window, 10 * MILLI, limit.limit(), false);
+    }
+
+    assertTrue(grown > 100, "grew to " + grown);
+    assertTrue(limit.limit() < grown, "shrank to " + limit.limit());
+  }
+
+  @Test
+  void shouldNotGrowWhileMostSlotsAreIdle() {
+    var limit = new GradientLimit(new LimitConfig(100, 4, 1_000), 0);
+    for (int window = 0; window < 20; window++) {
+      feed(limit, window, MILLI, 3, false);
+    }
+
+    assertEquals(100, limit.limit());
+  }
+
+  @Test
+  void shouldBackOffOnDropsDownToTheMinimum() {
+    var limit = new GradientLimit(new LimitConfig(100, 4, 1_000), 0);
+    feed(limit, 0, MILLI, 100, true);
+    assertEquals(90, limit.limit());
+
+    for (int window = 1; window < 100; window++) {
+      feed(limit, window, MILLI, 100, true);
+    }
+    assertEquals(4, limit.limit());
+  }
+
+  @Test
+  void shouldRefuseOverEitherLimitAndCountTheRejection() {
+    var admission =
+        new AdmissionControl(
+            AdmissionConfig.defaults()
+                .withGlobal(new LimitConfig(2, 2, 2))
+                .withRoute(new LimitConfig(1, 1, 1)));
+    Limiter users = admission.route(new RouteKey("GET", "/users/{id}"));
+    Limiter orders = admission.route(new RouteKey("GET", "/orders"));
+    Limiter files = admission.route(new RouteKey("GET", "/files"));
+
+    assertTrue(admission.tryAcquire(users));
+    assertFalse(admission.tryAcquire(users));
+    assertTrue(admission.tryAcquire(orders));
+    assertFalse(admission.tryAcquire(files));
+
+    assertEquals(1, users.rejected());
+    assertEquals(0, files.rejected());
+    assertEquals(0, files.inFlight(), "The route slot is given back when the global one fails");
+    assertEquals(1, admission.route(AdmissionControl.GLOBAL).rejected());
+    admission.release(users, MILLI, false);
+    assertTrue(admission.tryAcquire(files));
+  }
+
+  @Test
+  void shouldShedRequestsOverTheLimitWith503() throws Exception {
+    var admission =
+        new AdmissionControl(
+            AdmissionConfig.defaults()
+                .withRoute(new LimitConfig(1, 1, 1))
+                .withRetryAfter(Duration.ofSeconds(2)));
+    var compression = Compression.defaults();
+    var metrics = new HttpMetrics();
+    server =
+        TestServer.start(
+            "nio",
+            ServerConfig.defaults(0).withSelectors(1),
+            (context, engine) -> {
+              engine.mount(
+                  "/",
+                  new DispatcherServlet(
+                      context.getRouterRegistry(),
+                      ResponseCache.defaults(),
+                      compression,
+                      metrics,
+                      admission));
+              engine.mount("/metrics", new MetricsHandler(metrics, compression, admission));
+            });
+    Limiter slow = admission.route(new RouteKey("GET", "/slow/{millis}"));
+
+    var first =
+        client.sendAsync(
+            HttpRequest.newBuilder(server.uri("/slow/500")).build(),
+            HttpResponse.BodyHandlers.ofString());
+    for (int i = 0; i < 100 && slow.inFlight() == 0; i++) {
+      Thread.sleep(5);
+    }
+    var shed = get(server.uri("/slow/1"));
+    var other = get(server.uri("/echo/hi"));
+
+    assertEquals(503, shed.statusCode());
+    assertEquals("2", shed.headers().firstValue("retry-after").orElse(null));
+    assertEquals(200, other.statusCode());
+    assertEquals(200, first.get().statusCode());
+    String text = get(server.uri("/metrics")).body();
+    assertTrue(
+        text.contains(
+            "minispring_http_rejected_requests_total{method=\"GET\",route=\"/slow/{millis}\"} 1"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_concurrency_limit{method=\"GET\",route=\"/slow/{millis}\"} 1"),
+        text);
+  }
+
+  /** Closes one window of samples, all at the same latency. */
+  private static void feed(
+      GradientLimit limit, int window, long nanos, int inFlight, boolean dropped) {
+    long now = (window + 1) * GradientLimit.WINDOW_NANOS;
+    for (int i = 0; i < GradientLimit.MIN_SAMPLES; i++) {
+      limit.record(nanos, inFlight, dropped, now);
+    }
+  }
+
+  private HttpResponse<String> get(URI uri) throws Exception {
+    return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,144 @@
+package com.nathanmcunha.minispring.server.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncLogTest {
+
+  @TempDir Path directory;
+
+  private static IllegalStateException failure() {
+    return new IllegalStateException("boom");
+  }
+
+  @Test
+  void shouldWriteAccessLinesAndLeaveOutDuplicateStackTraces() throws IOException {
+    Path file = directory.resolve("logs/server.log");
+    var log = AsyncLog.start(LogConfig.toFile(file));
+
+    log.access(new InetSocketAddress("127.0.0.1", 4000), "GET", "/items/1", 200, 1_500_000);
+    for (int i = 0; i < 3; i++) {
+      log.error("GET /fail failed with 500: " + i, failure());
+    }
+    log.error("No cause", null);
+    log.warn("GET /missing failed with 404");
+    log.close();
+
+    String written = Files.readString(file);
+    assertTrue(written.contains(" 127.0.0.1 \"GET /items/1\" 200 1500us\n"), written);
+    assertTrue(written.contains(" ERROR GET /fail failed with 500: 0\n"), written);
+    assertTrue(written.contains(" ERROR GET /fail failed with 500: 2\n"), written);
+    assertTrue(written.contains(" ERROR No cause\n"), written);
+    assertTrue(written.contains(" WARN GET /missing failed with 404\n"), written);
+    assertEquals(1, countTraces(written));
+    assertEquals(2, log.suppressed());
+    assertEquals(0, log.dropped());
+  }
+
+  @Test
+  void shouldRollTheFileOverAndKeepOnlyMaxFiles() throws IOException {
+    Path file = directory.resolve("access.log");
+    var log = AsyncLog.start(LogConfig.toFile(file).withMaxFileBytes(300).withMaxFiles(2));
+
+    for (int i = 0; i < 40; i++) {
+      log.access(null, "GET", "/r/" + i, 200, 1000);
+    }
+    log.close();
+
+    assertTrue(Files.size(file) <= 300);
+    assertTrue(Files.exists(directory.resolve("access.log.1")));
+    assertTrue(Files.exists(directory.resolve("access.log.2")));
+    assertFalse(Files.exists(directory.resolve("access.log.3")));
+    assertTrue(Files.readString(file).contains("\"GET /r/39\""));
+  }
+
+  @Test
+  void shouldDropAndCountRatherThanWaitWhenFull() throws IOException {
+    Path file = directory.resolve("server.log");
+    // Without the writer nothing makes room, so all but the first four records are dropped.
+    var log = AsyncLog.unstarted(LogConfig.toFile(file).withCapacity(4));
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 1000; i++) {
+      log.error("error " + i, null);
+    }
+    long elapsed = System.nanoTime() - start;
+    assertEquals(1000 - 4, log.dropped());
+
+    log.startWriter();
+    log.close();
+
+    assertTrue(elapsed < Duration.ofSeconds(5).toNanos());
+    String written = Files.readString(file);
+    assertTrue(written.contains(" ERROR error 3\n"), written);
+    assertFalse(written.contains(" ERROR error 4\n"), written);
+    assertTrue(written.contains(" WARN 996 log records dropped"), written);
+  }
+
+  @Test
+  void shouldHandEveryItemToTheConsumerOnceAcrossProducers() throws InterruptedException {
+    var ring = new RingBuffer<Integer>(64);
+    int producers = 4;
+    int perProducer = 50_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      int base = p * perProducer;
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    for (int i = 0; i < perProducer; i++) {
+                      while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                      }
+                    }
+                  }));
+    }
+    var seen = new BitSet(producers * perProducer);
+    int[] last = new int[producers];
+    Arrays.fill(last, -1);
+    boolean[] ordered = {true};
+    int received = 0;
+    while (received < producers * perProducer) {
+      received +=
+          ring.drain(
+              item -> {
+                int producer = item / perProducer;
+                ordered[0] &= item % perProducer > last[producer];
+                last[producer] = item % perProducer;
+                seen.set(item);
+              },
+              128);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(64, ring.capacity());
+    assertEquals(producers * perProducer, seen.cardinality());
+    assertTrue(ordered[0]);
+  }
+
+  private static int countTraces(String written) {
+    int traces = 0;
+    for (String line : written.split("\n")) {
+      if (line.equals("java.lang.IllegalStateException: boom")) {
+        traces++;
+      }
+    }
+    return traces;
+  }
+}
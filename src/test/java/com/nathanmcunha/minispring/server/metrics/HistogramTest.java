@@ -0,0 +1,65 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+
+  @Test
+  void shouldCoverEveryValueWithAdjacentBuckets() {
+    assertEquals(0, Histogram.index(0));
+    assertEquals(31, Histogram.index(31));
+    assertEquals(Histogram.BUCKETS - 1, Histogram.index((1L << 36) - 1));
+    for (int i = 0; i < Histogram.BUCKETS - 1; i++) {
+      long highest = Histogram.highestValue(i);
+      assertEquals(i, Histogram.index(highest), "highest value of bucket " + i);
+      assertEquals(i + 1, Histogram.index(highest + 1), "value after bucket " + i);
+    }
+  }
+
+  @Test
+  void shouldReportQuantilesWithinThreePercent() {
+    var histogram = new Histogram();
+    for (long value = 1; value <= 100_000; value++) {
+      histogram.record(value);
+    }
+    var snapshot = histogram.snapshot();
+
+    assertEquals(100_000, snapshot.count());
+    assertEquals(100_000L * 100_001 / 2, snapshot.sum());
+    for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+      double expected = quantile * 100_000;
+      double error = Math.abs(snapshot.valueAtQuantile(quantile) - expected) / expected;
+      assertTrue(error < 0.03, quantile + " off by " + error);
+    }
+    assertEquals(1000, snapshot.countAtOrBelow(1000) - snapshot.countAtOrBelow(0), 40);
+  }
+
+  @Test
+  void shouldNotLoseConcurrentRecordings() throws Exception {
+    var histogram = new Histogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(
+          Thread.ofPlatform()
+              .start(
+                  () -> {
+                    for (int i = 0; i < 100_000; i++) {
+                      histogram.record(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+                    }
+                  }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    var snapshot = histogram.snapshot();
+    assertEquals(800_000, snapshot.count());
+    assertEquals(800_000, snapshot.countAtOrBelow(Long.MAX_VALUE));
+  }
+}
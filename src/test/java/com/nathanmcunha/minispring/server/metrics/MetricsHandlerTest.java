@@ -0,0 +1,128 @@
+package com.nathanmcunha.minispring.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.cache.ResponseCache;
+import com.nathanmcunha.minispring.server.compression.Compression;
+import com.nathanmcunha.minispring.server.dispatch.DispatcherServlet;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.limit.AdmissionControl;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MetricsHandlerTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final HttpMetrics metrics = new HttpMetrics();
+  private TestServer server;
+
+  private URI start(String name) throws Exception {
+    var compression = Compression.defaults();
+    server =
+        TestServer.start(
+            name,
+            ServerConfig.defaults(0).withSelectors(1),
+            (context, engine) -> {
+              engine.mount(
+                  "/",
+                  new DispatcherServlet(
+                      context.getRouterRegistry(),
+                      ResponseCache.defaults(),
+                      compression,
+                      metrics,
+                      AdmissionControl.defaults()));
+              engine.mount("/metrics", new MetricsHandler(metrics, compression));
+            });
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldExportRouteMetricsInPrometheusFormat(String name) throws Exception {
+    URI base = start(name);
+    for (String word : List.of("a", "b", "c")) {
+      get(base.resolve("/echo/" + word));
+    }
+    get(base.resolve("/nowhere"));
+    get(base.resolve("/binary/missing"));
+
+    var scrape =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/metrics")).build(),
+            HttpResponse.BodyHandlers.ofString());
+    String text = scrape.body();
+
+    assertEquals(200, scrape.statusCode());
+    assertEquals(
+        PrometheusFormat.CONTENT_TYPE, scrape.headers().firstValue("content-type").orElse(null));
+    assertTrue(text.contains("# TYPE minispring_http_request_duration_seconds histogram\n"), text);
+    assertTrue(
+        text.contains(
+            "minispring_http_requests_total{method=\"GET\",route=\"/echo/{word}\",status=\"200\"}"
+                + " 3\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_requests_total{method=\"*\",route=\"unmatched\",status=\"404\"} 1\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_request_errors_total{method=\"GET\",route=\"/binary/missing\","
+                + "type=\"NoSuchFileException\"} 1\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_request_duration_seconds_count{method=\"GET\",route=\"/echo/{word}\"}"
+                + " 3\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_request_duration_seconds_bucket{method=\"GET\",route=\"/echo/{word}\","
+                + "le=\"+Inf\"} 3\n"),
+        text);
+    assertTrue(
+        text.contains(
+            "minispring_http_requests_in_flight{method=\"GET\",route=\"/echo/{word}\"} 0\n"),
+        text);
+
+    RouteMetrics echo = metrics.route(new RouteKey("GET", "/echo/{word}"));
+    var latency = echo.latency().snapshot();
+    assertEquals(3, latency.count());
+    assertTrue(latency.valueAtQuantile(1) > 0);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldAnswerOnlyItsOwnPath(String name) throws Exception {
+    URI base = start(name);
+
+    for (String path : List.of("/metrics-foo", "/metrics/x", "/metricsanything")) {
+      var response =
+          client.send(
+              HttpRequest.newBuilder(base.resolve(path)).build(),
+              HttpResponse.BodyHandlers.ofString());
+      assertEquals(404, response.statusCode(), path);
+      assertEquals("", response.body(), path);
+    }
+  }
+
+  private void get(URI uri) throws Exception {
+    client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+  }
+}
@@ -0,0 +1,194 @@
+package com.nathanmcunha.minispring.server.multipart;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MultipartFormTest {
+
+  private static final String BOUNDARY = "----form7MA4YWxkTrZu0gW";
+  private static final String CONTENT_TYPE = "multipart/form-data; boundary=\"" + BOUNDARY + "\"";
+
+  @TempDir Path directory;
+
+  /** Bytes that look like delimiters without being one, around every buffer size. */
+  private static byte[] content(int size) {
+    byte[] almost =
+        ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "x")
+            .getBytes(StandardCharsets.ISO_8859_1);
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = i % 997 < almost.length ? almost[i % 997] : (byte) (i * 31);
+    }
+    return bytes;
+  }
+
+  private static byte[] body(Object... fields) {
+    var out = new ByteArrayOutputStream();
+    out.writeBytes("preamble to ignore\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    for (int i = 0; i < fields.length; i += 2) {
+      String head = "--" + BOUNDARY + "\r\n" + fields[i] + "\r\n\r\n";
+      out.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+      out.writeBytes(
+          fields[i + 1] instanceof byte[] bytes
+              ? bytes
+              : fields[i + 1].toString().getBytes(StandardCharsets.UTF_8));
+      out.writeBytes("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+    out.writeBytes(("--" + BOUNDARY + "--\r\nepilogue").getBytes(StandardCharsets.ISO_8859_1));
+    return out.toByteArray();
+  }
+
+  /** Hands out the body a few bytes at a time, so delimiters arrive split across reads. */
+  private static InputStream dribble(byte[] body) {
+    var random = new Random(42);
+    return new ByteArrayInputStream(body) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+      }
+    };
+  }
+
+  private MultipartConfig config() {
+    return MultipartConfig.defaults().withMemoryThreshold(1024).withDirectory(directory);
+  }
+
+  private long spilledFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void shouldStreamSmallPartsToMemoryAndLargeOnesToDisk() throws IOException {
+    byte[] upload = content(200_000);
+    byte[] body =
+        body(
+            "Content-Disposition: form-data; name=\"title\"",
+            "Quarterly; \"final\"",
+            "Content-Disposition: form-data; name=\"note\"\r\n"
+                + "Content-Type: text/plain; charset=UTF-16",
+            "héllo".getBytes(StandardCharsets.UTF_16),
+            "Content-Disposition: form-data; name=\"file\"; filename=\"re\\\"port;1.bin\"\r\n"
+                + "Content-Type: application/octet-stream",
+            upload,
+            "Content-Disposition: form-data; name=\"empty\"",
+            "");
+
+    MultipartForm form;
+    try (var in = dribble(body)) {
+      form = MultipartForm.read(in, CONTENT_TYPE, body.length, config());
+    }
+
+    assertEquals(4, form.parts().size());
+    assertEquals("Quarterly; \"final\"", form.field("title"));
+    assertEquals("héllo", form.field("note"));
+    assertEquals("", form.field("empty"));
+    assertNull(form.part("missing"));
+    Part file = form.part("file");
+    assertEquals("re\"port;1.bin", file.filename());
+    assertEquals("application/octet-stream", file.contentType());
+    assertEquals(upload.length, file.size());
+    assertFalse(file.inMemory());
+    assertTrue(form.part("title").inMemory());
+    try (var in = file.openStream()) {
+      assertArrayEquals(upload, in.readAllBytes());
+    }
+    var sent = new ByteArrayOutputStream();
+    file.transferTo(Channels.newChannel(sent));
+    assertArrayEquals(upload, sent.toByteArray());
+    assertEquals(1, spilledFiles());
+
+    form.close();
+
+    assertEquals(0, spilledFiles());
+  }
+
+  @Test
+  void shouldMoveSpilledPartsOutOfTheFormsCare(@TempDir Path target) throws IOException {
+    byte[] upload = content(5000);
+    byte[] body =
+        body("Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"", upload);
+    var form = read(body, config());
+
+    Path kept = form.part("file").moveTo(target.resolve("kept.bin"));
+    form.close();
+
+    assertEquals(0, spilledFiles());
+    assertArrayEquals(upload, Files.readAllBytes(kept));
+    try (var in = form.part("file").openStream()) {
+      assertArrayEquals(upload, in.readAllBytes());
+    }
+  }
+
+  @Test
+  void shouldRejectBodiesOverTheLimitsAndCleanUp() throws IOException {
+    byte[] upload = content(10_000);
+    byte[] body =
+        body(
+            "Content-Disposition: form-data; name=\"a\"; filename=\"a.bin\"",
+            upload,
+            "Content-Disposition: form-data; name=\"b\"; filename=\"b.bin\"",
+            upload);
+    InputStream unread =
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new AssertionError("The body should not be read");
+          }
+        };
+
+    var declared =
+        assertThrows(
+            MultipartException.class,
+            () ->
+                MultipartForm.read(
+                    unread, CONTENT_TYPE, 2048, config().withMaxRequestBytes(1024)));
+    var streamed =
+        assertThrows(
+            MultipartException.class, () -> read(body, config().withMaxRequestBytes(15_000)));
+    var part =
+        assertThrows(
+            MultipartException.class, () -> read(body, config().withMaxPartBytes(9_999)));
+    var parts =
+        assertThrows(MultipartException.class, () -> read(body, config().withMaxParts(1)));
+    var truncated =
+        assertThrows(
+            MultipartException.class,
+            () -> read(Arrays.copyOf(body, body.length - 20), config()));
+    var mediaType =
+        assertThrows(
+            MultipartException.class,
+            () -> MultipartForm.read(unread, "application/json", 2, config()));
+
+    assertEquals(413, declared.status());
+    assertEquals(413, streamed.status());
+    assertEquals(413, part.status());
+    assertEquals(413, parts.status());
+    assertEquals(400, truncated.status());
+    assertEquals(415, mediaType.status());
+    assertEquals(0, spilledFiles());
+  }
+
+  private static MultipartForm read(byte[] body, MultipartConfig config) throws IOException {
+    return MultipartForm.read(new ByteArrayInputStream(body), CONTENT_TYPE, -1, config);
+  }
+}
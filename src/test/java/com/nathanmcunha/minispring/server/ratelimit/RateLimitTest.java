@@ -0,0 +1,130 @@
+package com.nathanmcunha.minispring.server.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RateLimitTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldAllowABurstThenOneRequestPerInterval() {
+    var buckets = new TokenBuckets(SECOND, 3, 1024, 4);
+
+    assertEquals(0, buckets.acquire(7, 0));
+    assertEquals(0, buckets.acquire(7, 0));
+    assertEquals(0, buckets.acquire(7, 0));
+    assertEquals(SECOND, buckets.acquire(7, 0));
+    assertEquals(SECOND / 2, buckets.acquire(7, SECOND / 2));
+    assertEquals(0, buckets.acquire(7, SECOND));
+    assertTrue(buckets.acquire(7, SECOND) > 0);
+    assertEquals(0, buckets.acquire(8, SECOND), "Other clients have buckets of their own");
+  }
+
+  @Test
+  void shouldForgetIdleClients() {
+    var buckets = new TokenBuckets(SECOND, 1, 1 << 20, 1);
+    for (long key = 1; key <= 12; key++) {
+      buckets.acquire(key, 0);
+    }
+    assertEquals(12, buckets.size());
+
+    buckets.acquire(100, 5 * SECOND);
+
+    assertEquals(1, buckets.size());
+  }
+
+  @Test
+  void shouldStayWithinItsKeyBudgetUnderAFloodOfClients() {
+    var buckets = new TokenBuckets(SECOND, 1, 64, 1);
+    for (long key = 1; key <= 100_000; key++) {
+      assertEquals(0, buckets.acquire(key * 0x9E3779B97F4A7C15L, 0));
+    }
+
+    assertTrue(buckets.size() <= 96, "tracking " + buckets.size());
+  }
+
+  @Test
+  void shouldAbsorbAFloodOfNewClientsWithoutRebuildingForEachOne() {
+    // 4 stripes of 32768 slots, flooded with about ten times what they hold, twice over: first
+    // with keys that could be evicted, then with keys that are out of tokens at once.
+    var evictable = new TokenBuckets(SECOND, 10, 1 << 16, 4);
+    var throttled = new TokenBuckets(SECOND, 1, 1 << 16, 4);
+
+    long start = System.nanoTime();
+    for (long key = 1; key <= 1_000_000; key++) {
+      assertEquals(0, evictable.acquire(key * 0x9E3779B97F4A7C15L, 0));
+      assertEquals(0, throttled.acquire(key * 0x9E3779B97F4A7C15L, 0));
+    }
+    long elapsed = System.nanoTime() - start;
+
+    assertTrue(elapsed < 10 * SECOND, "took " + elapsed / 1_000_000 + "ms");
+    assertTrue(evictable.size() <= 4 * 24_576, "tracking " + evictable.size());
+    assertTrue(throttled.size() <= 4 * 24_576, "tracking " + throttled.size());
+  }
+
+  @Test
+  void shouldKeepThrottlingAClientThroughAFloodOfNewClients() {
+    var buckets = new TokenBuckets(SECOND, 2, 16, 1);
+    long throttled = 0x9E3779B97F4A7C15L;
+    assertEquals(0, buckets.acquire(throttled, 0));
+    assertEquals(0, buckets.acquire(throttled, 0));
+    assertTrue(buckets.acquire(throttled, 0) > 0);
+
+    for (long key = 2; key <= 1_000; key++) {
+      assertEquals(0, buckets.acquire(key * 0x9E3779B97F4A7C15L, 0));
+    }
+    for (long key = 1_001; key <= 2_000; key++) {
+      buckets.acquire(key * 0x9E3779B97F4A7C15L, 0);
+      buckets.acquire(key * 0x9E3779B97F4A7C15L, 0);
+    }
+
+    assertTrue(buckets.acquire(throttled, 0) > 0);
+    assertTrue(buckets.size() <= 24, "tracking " + buckets.size());
+  }
+
+  @Test
+  void shouldAnswer429BeforeTheHandlerOnceTheBudgetIsSpent() throws Exception {
+    server = TestServer.start("nio", ServerConfig.defaults(0).withSelectors(1));
+
+    var first = get("/limited/a", "key-1");
+    var second = get("/limited/b", "key-1");
+    var third = get("/limited/c", "key-1");
+    var otherClient = get("/limited/a", "key-2");
+    var unlimited = get("/echo/hi", "key-1");
+
+    assertEquals(200, first.statusCode());
+    assertEquals("limited a", first.body());
+    assertEquals(200, second.statusCode());
+    assertEquals(429, third.statusCode());
+    assertEquals("", third.body());
+    long retryAfter = Long.parseLong(third.headers().firstValue("retry-after").orElseThrow());
+    assertTrue(retryAfter > 0 && retryAfter <= 30, "retry after " + retryAfter);
+    assertEquals(200, otherClient.statusCode());
+    assertEquals(200, unlimited.statusCode());
+  }
+
+  private HttpResponse<String> get(String path, String key) throws Exception {
+    return client.send(
+        HttpRequest.newBuilder(server.uri(path)).header("X-Api-Key", key).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,228 @@
+package com.nathanmcunha.minispring.server.resource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.engine.ServerEngine;
+import com.nathanmcunha.minispring.server.engine.ServerEngines;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class StaticResourceHandlerTest {
+
+  private static final String CSS = "body { color: #333; }\n";
+
+  @TempDir Path dir;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private ServerEngine engine;
+  private StaticResourceHandler handler;
+  private Path root;
+
+  private URI start(String name, StaticResourceConfig config) throws IOException {
+    handler = StaticResourceHandler.create(config);
+    engine = ServerEngines.create(name, ServerConfig.defaults(0).withSelectors(1));
+    engine.mount("/static", handler);
+    engine.start();
+    return URI.create("http://localhost:" + engine.address().getPort());
+  }
+
+  private URI start(String name) throws IOException {
+    root = Files.createDirectories(dir.resolve("public"));
+    Files.writeString(root.resolve("app.css"), CSS);
+    return start(name, StaticResourceConfig.defaults(root));
+  }
+
+  @AfterEach
+  void stop() throws IOException {
+    if (engine != null) {
+      engine.stop(Duration.ofSeconds(1));
+    }
+    if (handler != null) {
+      handler.close();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldServeFilesWithValidators(String name) throws Exception {
+    URI base = start(name);
+
+    var response = get(base.resolve("/static/app.css"), null, null);
+    var headers = response.headers();
+
+    assertEquals(200, response.statusCode());
+    assertEquals(CSS, new String(response.body(), StandardCharsets.UTF_8));
+    assertEquals("text/css; charset=utf-8", headers.firstValue("content-type").orElse(null));
+    assertTrue(headers.firstValue("etag").orElseThrow().startsWith("\""));
+    assertNotNull(headers.firstValue("last-modified").orElse(null));
+    assertEquals("no-cache", headers.firstValue("cache-control").orElse(null));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldAnswerConditionalRequestsWith304(String name) throws Exception {
+    URI base = start(name);
+    URI css = base.resolve("/static/app.css");
+    var first = get(css, null, null);
+    String etag = first.headers().firstValue("etag").orElseThrow();
+    String lastModified = first.headers().firstValue("last-modified").orElseThrow();
+
+    var byTag = get(css, "If-None-Match", "\"other\", " + etag);
+    var byWeakTag = get(css, "If-None-Match", "W/" + etag);
+    var byDate = get(css, "If-Modified-Since", lastModified);
+    var changed = get(css, "If-None-Match", "\"other\"");
+
+    assertEquals(304, byTag.statusCode());
+    assertEquals(0, byTag.body().length);
+    assertEquals(etag, byTag.headers().firstValue("etag").orElse(null));
+    assertEquals(304, byWeakTag.statusCode());
+    assertEquals(304, byDate.statusCode());
+    assertEquals(200, changed.statusCode());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldServePrecompressedSiblingsTheClientAccepts(String name) throws Exception {
+    URI base = start(name);
+    byte[] gzipped = gzip(CSS);
+    Files.write(root.resolve("app.css.gz"), gzipped);
+    Files.writeString(root.resolve("app.css.br"), "pretend brotli");
+    URI css = base.resolve("/static/app.css");
+
+    var gzip = get(css, "Accept-Encoding", "gzip, deflate");
+    var notBrotli = get(css, "Accept-Encoding", "br;q=0, gzip");
+    var brotli = get(css, "Accept-Encoding", "gzip, br");
+    var plain = get(css, null, null);
+
+    assertArrayEquals(gzipped, gzip.body());
+    assertEquals("gzip", gzip.headers().firstValue("content-encoding").orElse(null));
+    assertEquals("text/css; charset=utf-8", gzip.headers().firstValue("content-type").get());
+    assertEquals("Accept-Encoding", gzip.headers().firstValue("vary").orElse(null));
+    assertEquals("gzip", notBrotli.headers().firstValue("content-encoding").orElse(null));
+    assertEquals("pretend brotli", new String(brotli.body(), StandardCharsets.UTF_8));
+    assertEquals(CSS, new String(plain.body(), StandardCharsets.UTF_8));
+    assertFalse(plain.headers().firstValue("content-encoding").isPresent());
+    assertFalse(
+        gzip.headers().firstValue("etag").equals(plain.headers().firstValue("etag")),
+        "Each encoding is a representation of its own");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldServeLargeFilesFromAMapping(String name) throws Exception {
+    root = Files.createDirectories(dir.resolve("public"));
+    byte[] video = new byte[3 * 1024 * 1024];
+    for (int i = 0; i < video.length; i++) {
+      video[i] = (byte) (i * 31);
+    }
+    Files.write(root.resolve("clip.bin"), video);
+    URI base = start(name, StaticResourceConfig.defaults(root).withMaxCachedFileBytes(1024));
+
+    var response = get(base.resolve("/static/clip.bin"), null, null);
+    var head =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/static/clip.bin"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertEquals(200, response.statusCode());
+    assertArrayEquals(video, response.body());
+    assertEquals(200, head.statusCode());
+    assertEquals(
+        String.valueOf(video.length), head.headers().firstValue("content-length").orElse(null));
+  }
+
+  @Test
+  void shouldSeeChangedFilesWithoutARestart() throws Exception {
+    URI base = start("nio");
+    URI css = base.resolve("/static/app.css");
+    assertEquals(CSS, new String(get(css, null, null).body(), StandardCharsets.UTF_8));
+
+    Path staged = Files.writeString(dir.resolve("staged.css"), "p { margin: 0; }");
+    Files.move(staged, root.resolve("app.css"), StandardCopyOption.REPLACE_EXISTING);
+
+    String body = CSS;
+    for (int i = 0; i < 100 && body.equals(CSS); i++) {
+      Thread.sleep(50);
+      body = new String(get(css, null, null).body(), StandardCharsets.UTF_8);
+    }
+    assertEquals("p { margin: 0; }", body);
+  }
+
+  @Test
+  void shouldOnlyServeFilesInsideTheRoot() throws Exception {
+    URI base = start("nio");
+    Files.writeString(dir.resolve("secret.txt"), "secret");
+    Files.writeString(root.resolve(".env"), "TOKEN=1");
+    Files.writeString(root.resolve("index.html"), "<h1>home</h1>");
+
+    assertEquals(404, get(base.resolve("/static/%2e%2e/secret.txt"), null, null).statusCode());
+    assertEquals(404, get(base.resolve("/static/.env"), null, null).statusCode());
+    assertEquals(404, get(base.resolve("/staticapp.css"), null, null).statusCode());
+    assertEquals(404, get(base.resolve("/static/app.css/x"), null, null).statusCode());
+    assertEquals(404, get(base.resolve("/static/missing.css"), null, null).statusCode());
+    assertEquals("<h1>home</h1>", new String(get(base.resolve("/static/"), null, null).body()));
+    var post =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/static/app.css"))
+                .POST(HttpRequest.BodyPublishers.ofString("x"))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+    assertEquals(405, post.statusCode());
+    assertEquals("GET, HEAD", post.headers().firstValue("allow").orElse(null));
+  }
+
+  @Test
+  void shouldKeepHeapContentWithinItsBudget() throws Exception {
+    root = Files.createDirectories(dir.resolve("public"));
+    for (int i = 0; i < 10; i++) {
+      Files.write(root.resolve("file" + i + ".bin"), new byte[3 * 1024]);
+    }
+    var config = StaticResourceConfig.defaults(root).withCacheBytes(10 * 1024);
+
+    try (var cache = new ResourceCache(config)) {
+      for (int i = 0; i < 10; i++) {
+        assertEquals(3 * 1024, cache.lookup("file" + i + ".bin").length());
+        assertTrue(cache.heapBytes() <= 10 * 1024, "over budget after file" + i);
+      }
+      assertEquals(3 * 1024, cache.lookup("file0.bin").length());
+    }
+  }
+
+  private HttpResponse<byte[]> get(URI uri, String header, String value) throws Exception {
+    var request = HttpRequest.newBuilder(uri);
+    if (header != null) {
+      request.header(header, value);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+}
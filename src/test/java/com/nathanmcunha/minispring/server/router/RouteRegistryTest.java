@@ -5,8 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.nathanmcunha.minispring.annotations.Cached;
 import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Header;
+import com.nathanmcunha.minispring.annotations.Intercepts;
+import com.nathanmcunha.minispring.annotations.Param;
+import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.RateLimited;
 import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.annotations.WebSocket;
 import com.nathanmcunha.minispring.common.Result;
 import com.nathanmcunha.minispring.container.registry.BeanFactory;
 import com.nathanmcunha.minispring.error.FrameworkError;
@@ -97,4 +104,198 @@ class RouteRegistryTest {
     assertEquals(
         MissingController.class, ((FrameworkError.ControllerBeanNotFound) error).beanClass());
   }
+
+  @Test
+  void shouldFailOnTemplatesWithTheSameShape() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class UsersController {
+      @Get("/users/{id}")
+      public void byId(String id) {}
+
+      @Get("/users/{name}")
+      public void byName(String name) {}
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(UsersController.class));
+    when(factory.getBean(UsersController.class)).thenReturn(Optional.of(new UsersController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.RouteCollision);
+    assertEquals("GET", ((FrameworkError.RouteCollision) error).verb());
+  }
+
+  @Test
+  void shouldFailWhenHandlerParameterHasNoMatchingPathVariable() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class OrdersController {
+      @Get("/orders/{id}")
+      public void handle(String orderId) {}
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(OrdersController.class));
+    when(factory.getBean(OrdersController.class)).thenReturn(Optional.of(new OrdersController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenPostHandlerHasMoreThanOneBodyParameter() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class OrdersController {
+      @Post("/orders")
+      public void create(String note, List<Long> items) {}
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(OrdersController.class));
+    when(factory.getBean(OrdersController.class)).thenReturn(Optional.of(new OrdersController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenNonGetRouteIsCached() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class OrdersController {
+      @Post("/orders")
+      @Cached(ttl = 5)
+      public String create(String note) {
+        return note;
+      }
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(OrdersController.class));
+    when(factory.getBean(OrdersController.class)).thenReturn(Optional.of(new OrdersController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenCachedRouteReadsRequestHeaders() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class ProfileController {
+      @Get("/profile")
+      @Cached(ttl = 5)
+      public String profile(@Header("Authorization") String authorization) {
+        return authorization;
+      }
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(ProfileController.class));
+    when(factory.getBean(ProfileController.class))
+        .thenReturn(Optional.of(new ProfileController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenInterceptsBeanIsNotAnInterceptor() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Intercepts("/api/**")
+    class NotAnInterceptor {}
+
+    when(factory.getBeansWithAnnotation(Intercepts.class))
+        .thenReturn(List.of(NotAnInterceptor.class));
+    when(factory.getBean(NotAnInterceptor.class)).thenReturn(Optional.of(new NotAnInterceptor()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenRateLimitIsNotPositive() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class SearchController {
+      @Get("/search")
+      @RateLimited(requests = 0)
+      public String search() {
+        return "";
+      }
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(SearchController.class));
+    when(factory.getBean(SearchController.class)).thenReturn(Optional.of(new SearchController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenWebSocketRouteDoesNotReturnAListener() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class FeedController {
+      @WebSocket("/feed")
+      public String feed() {
+        return "";
+      }
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(FeedController.class));
+    when(factory.getBean(FeedController.class)).thenReturn(Optional.of(new FeedController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
+
+  @Test
+  void shouldFailWhenOptionalParamIsPrimitive() {
+    BeanFactory factory = mock(BeanFactory.class);
+
+    @Rest
+    class PagesController {
+      @Get("/pages")
+      public void list(@Param(required = false) int page) {}
+    }
+
+    when(factory.getBeansWithAnnotation(Rest.class)).thenReturn(List.of(PagesController.class));
+    when(factory.getBean(PagesController.class)).thenReturn(Optional.of(new PagesController()));
+
+    var result = RouterRegistry.create(factory);
+
+    assertTrue(result instanceof Result.Failure);
+    var error = ((Result.Failure<RouterRegistry, FrameworkError>) result).error();
+    assertTrue(error instanceof FrameworkError.InvalidRouteDefinition);
+  }
 }
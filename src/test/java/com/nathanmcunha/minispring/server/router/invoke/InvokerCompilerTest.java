@@ -0,0 +1,64 @@
+package com.nathanmcunha.minispring.server.router.invoke;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class InvokerCompilerTest {
+
+  public String greet(String name) {
+    return "Hello " + name;
+  }
+
+  public int answer() {
+    return 42;
+  }
+
+  public void nothing() {}
+
+  public void explode() {
+    throw new IllegalStateException("boom");
+  }
+
+  private String hidden() {
+    return "hidden";
+  }
+
+  @Test
+  void shouldInvokeMethodWithArguments() throws Exception {
+    var invoker = InvokerCompiler.compile(this, getClass().getMethod("greet", String.class));
+
+    assertEquals("Hello Mini", invoker.invoke(new Object[] {"Mini"}));
+  }
+
+  @Test
+  void shouldBoxPrimitiveReturnValues() throws Exception {
+    var invoker = InvokerCompiler.compile(this, getClass().getMethod("answer"));
+
+    assertEquals(42, invoker.invoke(new Object[0]));
+  }
+
+  @Test
+  void shouldReturnNullForVoidMethods() throws Exception {
+    var invoker = InvokerCompiler.compile(this, getClass().getMethod("nothing"));
+
+    assertNull(invoker.invoke(new Object[0]));
+  }
+
+  @Test
+  void shouldPropagateControllerExceptionsUnwrapped() throws Exception {
+    var invoker = InvokerCompiler.compile(this, getClass().getMethod("explode"));
+
+    var thrown = assertThrows(IllegalStateException.class, () -> invoker.invoke(new Object[0]));
+    assertEquals("boom", thrown.getMessage());
+  }
+
+  @Test
+  void shouldFailOnEveryCallWhenMethodIsNotPublic() throws Exception {
+    var invoker = InvokerCompiler.compile(this, getClass().getDeclaredMethod("hidden"));
+
+    assertThrows(IllegalAccessException.class, () -> invoker.invoke(new Object[0]));
+  }
+}
@@ -0,0 +1,138 @@
+package com.nathanmcunha.minispring.server.router.tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.common.Result;
+import com.nathanmcunha.minispring.error.FrameworkError;
+import com.nathanmcunha.minispring.server.router.model.MethodHandler;
+import com.nathanmcunha.minispring.server.router.model.Route;
+import com.nathanmcunha.minispring.server.router.model.RouteKey;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RouteTreeTest {
+
+  public void handle() {}
+
+  private final RouteTree tree = new RouteTree("GET");
+
+  private Route add(String template) throws NoSuchMethodException {
+    var route =
+        new Route(
+            new RouteKey("GET", template),
+            new MethodHandler(this, getClass().getMethod("handle")));
+    var parsed = ((Result.Success<RouteTemplate, FrameworkError>) RouteTemplate.parse(template));
+    assertTrue(tree.insert(parsed.value(), route).isEmpty(), "Unexpected collision: " + template);
+    return route;
+  }
+
+  private RouteMatch match(String path) {
+    var result = tree.find(path);
+    assertTrue(result instanceof Result.Success, "Expected a match for " + path);
+    return ((Result.Success<RouteMatch, FrameworkError>) result).value();
+  }
+
+  @Test
+  void shouldMatchStaticRoutesSharingPrefixes() throws Exception {
+    var users = add("/users");
+    var usersMe = add("/users/me");
+    var user = add("/user");
+
+    assertSame(users, match("/users").route());
+    assertSame(usersMe, match("/users/me").route());
+    assertSame(user, match("/user").route());
+    assertTrue(tree.find("/use") instanceof Result.Failure);
+    assertTrue(tree.find("/users/") instanceof Result.Failure);
+  }
+
+  @Test
+  void shouldReuseTheSameResultForStaticHits() throws Exception {
+    add("/ping");
+
+    assertSame(tree.find("/ping"), tree.find("/ping"));
+  }
+
+  @Test
+  void shouldCaptureTemplateVariables() throws Exception {
+    var orders = add("/users/{id}/orders/{orderId}");
+
+    var match = match("/users/42/orders/7");
+
+    assertSame(orders, match.route());
+    assertEquals(Map.of("id", "42", "orderId", "7"), match.variables().asMap());
+  }
+
+  @Test
+  void shouldPreferStaticSegmentsOverVariables() throws Exception {
+    var me = add("/users/me");
+    var byId = add("/users/{id}");
+
+    assertSame(me, match("/users/me").route());
+    assertSame(byId, match("/users/mel").route());
+    assertEquals("mel", match("/users/mel").variables().value(0));
+  }
+
+  @Test
+  void shouldBacktrackWhenStaticBranchDeadEnds() throws Exception {
+    add("/users/me/settings");
+    var orders = add("/users/{id}/orders");
+
+    var match = match("/users/me/orders");
+
+    assertSame(orders, match.route());
+    assertEquals("me", match.variables().get("id").orElseThrow());
+  }
+
+  @Test
+  void shouldCaptureRemainderWithCatchAll() throws Exception {
+    var named = add("/files/{*path}");
+    var anonymous = add("/assets/*");
+
+    assertSame(named, match("/files/a/b/c.txt").route());
+    assertEquals("a/b/c.txt", match("/files/a/b/c.txt").variables().get("path").orElseThrow());
+    assertEquals("css/site.css", match("/assets/css/site.css").variables().get("*").orElseThrow());
+    assertSame(anonymous, match("/assets/").route());
+  }
+
+  @Test
+  void shouldNotMatchEmptySegmentsWithVariables() throws Exception {
+    add("/users/{id}");
+
+    var result = tree.find("/users/");
+
+    assertTrue(result instanceof Result.Failure<RouteMatch, FrameworkError>(var error)
+        && error instanceof FrameworkError.RouteNotFound);
+  }
+
+  @Test
+  void shouldReportCollisionForTemplatesOfTheSameShape() throws Exception {
+    var existing = add("/users/{id}");
+    var template = ((Result.Success<RouteTemplate, FrameworkError>) RouteTemplate.parse("/users/{name}"));
+
+    var collision = tree.insert(template.value(), existing);
+
+    assertSame(existing, collision.orElseThrow());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"/users/{id", "/users/{}", "/files/{name}.json", "/a/{x}/{x}", "/{*rest}/tail"})
+  void shouldRejectMalformedTemplates(String template) {
+    assertTrue(RouteTemplate.parse(template) instanceof Result.Failure);
+  }
+
+  @Test
+  void shouldHandleThousandsOfRoutes() throws Exception {
+    for (int i = 0; i < 5_000; i++) {
+      add("/api/v1/resource" + i + "/{id}");
+      add("/api/v1/resource" + i);
+    }
+
+    assertEquals("/api/v1/resource4321/{id}", match("/api/v1/resource4321/9").route().key().path());
+    assertEquals("/api/v1/resource17", match("/api/v1/resource17").route().key().path());
+  }
+}
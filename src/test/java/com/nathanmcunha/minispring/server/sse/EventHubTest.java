@@ -0,0 +1,136 @@
+package com.nathanmcunha.minispring.server.sse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.test_components.rest.TickEvents;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class EventHubTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+  private TickEvents ticks;
+
+  private URI start(String name) throws Exception {
+    server = TestServer.start(name, ServerConfig.defaults(0).withSelectors(1));
+    ticks = server.bean(TickEvents.class);
+    return server.uri("/");
+  }
+
+  @AfterEach
+  void stop() {
+    if (ticks != null) {
+      ticks.closeAll();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldEncodeEventsInWireFormat() {
+    assertEquals(
+        "event: price\nid: 7\ndata: one\ndata: two\ndata: \n\n",
+        encoded(new ServerSentEvent("price", "7", "one\r\ntwo\n")));
+    assertEquals("data: {\"a\":1}\n\n", encoded(ServerSentEvent.json(Map.of("a", 1))));
+  }
+
+  @Test
+  void shouldDropASubscriberThatFallsBehind() {
+    var hub = new EventHub(SseConfig.defaults().withMaxPendingEvents(2));
+    var slow = hub.subscribe();
+    var event = ServerSentEvent.of("tick");
+
+    assertEquals(1, hub.publish(event));
+    assertEquals(1, hub.publish(event));
+    assertEquals(0, hub.publish(event));
+
+    assertTrue(slow.isDropped());
+    assertFalse(slow.isOpen());
+    assertEquals(0, hub.subscribers());
+    assertEquals(1, hub.droppedSubscribers());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldBroadcastToEverySubscriberWithHeartbeats(String name) throws Exception {
+    URI base = start(name);
+    var first = open(base.resolve("/events/ticks"));
+    var second = open(base.resolve("/events/ticks"));
+    for (int i = 0; i < 200 && ticks.subscribers() < 2; i++) {
+      Thread.sleep(5);
+    }
+
+    assertEquals(2, ticks.publish(ServerSentEvent.of("hello").withId("1")));
+    for (var response : List.of(first, second)) {
+      assertEquals(200, response.statusCode());
+      assertEquals("text/event-stream", response.headers().firstValue("content-type").orElse(""));
+      var lines =
+          new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+      assertEquals("id: 1", lines.readLine());
+      assertEquals("data: hello", lines.readLine());
+      assertEquals("", lines.readLine());
+      assertEquals(":", lines.readLine(), "a heartbeat while the stream is quiet");
+    }
+    ticks.closeAll();
+    assertEquals(-1, skipHeartbeats(first.body()), "the response ends once the stream closes");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"nio", "jdk"})
+  void shouldEndTheResponseWhenTheStreamCloses(String name) throws Exception {
+    URI base = start(name);
+
+    var response =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/events/countdown/3")).build(),
+            HttpResponse.BodyHandlers.ofString());
+    var next =
+        client.send(
+            HttpRequest.newBuilder(base.resolve("/echo/after")).build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertEquals(
+        "event: count\ndata: 3\n\nevent: count\ndata: 2\n\nevent: count\ndata: 1\n\n",
+        response.body().replace(":\n\n", ""));
+    assertEquals("after", next.body());
+  }
+
+  private HttpResponse<InputStream> open(URI uri) throws Exception {
+    return client.send(
+        HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  /** Reads past any heartbeats still in flight, up to the end of the body. */
+  private static int skipHeartbeats(InputStream body) throws Exception {
+    int c;
+    while ((c = body.read()) == ':' || c == '\n') {
+      // Heartbeats only.
+    }
+    return c;
+  }
+
+  private static String encoded(ServerSentEvent event) {
+    byte[] bytes = event.encode();
+    assertArrayEquals(bytes, event.encode());
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,95 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+@Rest
+public class AsyncRestComponent {
+
+  @Get(value = "/async/{name}")
+  public CompletableFuture<String> async(String name) {
+    return CompletableFuture.supplyAsync(
+        () -> "async " + name, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Post(value = "/async-created/{name}")
+  public CompletionStage<Response<List<String>>> asyncCreated(String name) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            Response.Builder(HttpStatus.CREATED.value())
+                .header("X-Name", name)
+                .body(List.of(name)));
+  }
+
+  @Get(value = "/async-fail")
+  public CompletableFuture<String> asyncFail() {
+    return CompletableFuture.failedFuture(new IllegalStateException("async boom"));
+  }
+
+  @Get(value = "/publish/{count}")
+  public Flow.Publisher<Integer> publish(int count) {
+    return countTo(count);
+  }
+
+  @Get(value = "/publish-text")
+  public Flow.Publisher<String> publishText() {
+    return subscriber ->
+        countTo(3).subscribe(
+            new Flow.Subscriber<>() {
+              @Override
+              public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+              }
+
+              @Override
+              public void onNext(Integer item) {
+                subscriber.onNext("line " + item + "\n");
+              }
+
+              @Override
+              public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+              }
+
+              @Override
+              public void onComplete() {
+                subscriber.onComplete();
+              }
+            });
+  }
+
+  /** Publishes 0 until {@code count}, on the thread that requests them. */
+  private static Flow.Publisher<Integer> countTo(int count) {
+    return subscriber ->
+        subscriber.onSubscribe(
+            new Flow.Subscription() {
+              private int next;
+              private boolean done;
+
+              @Override
+              public synchronized void request(long n) {
+                for (long i = 0; i < n && next < count; i++) {
+                  subscriber.onNext(next++);
+                }
+                if (next == count && !done) {
+                  done = true;
+                  subscriber.onComplete();
+                }
+              }
+
+              @Override
+              public synchronized void cancel() {
+                done = true;
+                next = count;
+              }
+            });
+  }
+}
@@ -0,0 +1,50 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Rest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Rest
+public class BinaryRestComponent {
+
+  /** {@code n} bytes of a repeating pattern, for the binary body routes below. */
+  public static byte[] pattern(int n) {
+    byte[] bytes = new byte[n];
+    for (int i = 0; i < n; i++) {
+      bytes[i] = (byte) (i % 251);
+    }
+    return bytes;
+  }
+
+  @Get(value = "/binary/bytes/{n}")
+  public byte[] bytes(int n) {
+    return pattern(n);
+  }
+
+  @Get(value = "/binary/buffer/{n}")
+  public ByteBuffer buffer(int n) {
+    return ByteBuffer.allocateDirect(n).put(pattern(n)).flip();
+  }
+
+  @Get(value = "/binary/stream/{n}")
+  public InputStream stream(int n) {
+    return new ByteArrayInputStream(pattern(n));
+  }
+
+  @Get(value = "/binary/file/{n}")
+  public Path file(int n) throws IOException {
+    Path file = Files.createTempFile("minispring-", ".bin");
+    file.toFile().deleteOnExit();
+    return Files.write(file, pattern(n));
+  }
+
+  @Get(value = "/binary/missing")
+  public Path missingFile() {
+    return Path.of("does-not-exist.bin");
+  }
+}
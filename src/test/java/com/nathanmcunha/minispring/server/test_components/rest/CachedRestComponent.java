@@ -0,0 +1,28 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Cached;
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Counts its calls, so tests can tell a cached answer from a fresh one. */
+@Rest
+public class CachedRestComponent {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Get(value = "/cached/{name}")
+  @Cached(ttl = 1, unit = TimeUnit.HOURS)
+  public String cached(String name) {
+    return name + "#" + calls.incrementAndGet();
+  }
+
+  @Get(value = "/cached-missing")
+  @Cached(ttl = 1, unit = TimeUnit.HOURS)
+  public Response<String> cachedMissing() {
+    return Response.Builder(HttpStatus.NOT_FOUND.value()).body("gone #" + calls.get());
+  }
+}
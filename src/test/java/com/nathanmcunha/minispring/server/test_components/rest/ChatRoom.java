@@ -0,0 +1,7 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Component;
+import com.nathanmcunha.minispring.server.websocket.WebSocketHub;
+
+@Component
+public class ChatRoom extends WebSocketHub {}
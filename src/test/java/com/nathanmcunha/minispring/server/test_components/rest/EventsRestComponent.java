@@ -0,0 +1,35 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.sse.EventStream;
+import com.nathanmcunha.minispring.server.sse.ServerSentEvent;
+
+@Rest
+public class EventsRestComponent {
+
+  private final TickEvents ticks;
+
+  public EventsRestComponent(TickEvents ticks) {
+    this.ticks = ticks;
+  }
+
+  @Get(value = "/events/ticks")
+  public EventStream ticks() {
+    return ticks.subscribe();
+  }
+
+  @Get(value = "/events/countdown/{from}")
+  public EventStream countdown(int from) {
+    var stream = EventStream.create();
+    Thread.ofVirtual()
+        .start(
+            () -> {
+              for (int i = from; i > 0; i--) {
+                stream.send(ServerSentEvent.of(Integer.toString(i)).withEvent("count"));
+              }
+              stream.close();
+            });
+    return stream;
+  }
+}
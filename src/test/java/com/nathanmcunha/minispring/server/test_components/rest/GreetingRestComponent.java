@@ -0,0 +1,26 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.dispatch.protocol.HttpStatus;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import java.util.List;
+
+@Rest
+public class GreetingRestComponent {
+
+  public record Greeting(String message, List<String> tags, int count) {}
+
+  @Get(value = "/greeting")
+  public Response<Greeting> greeting() {
+    return Response.Builder(HttpStatus.OK.value())
+        .body(new Greeting("Hello \"Mini\"", List.of("a", "b"), 2));
+  }
+
+  @Post(value = "/greeting")
+  public Response<Greeting> createGreeting(Greeting greeting) {
+    return Response.Builder(HttpStatus.CREATED.value())
+        .body(new Greeting(greeting.message(), greeting.tags(), greeting.tags().size()));
+  }
+}
@@ -0,0 +1,24 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Cached;
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Rest;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Routes behind {@link TokenInterceptor}. */
+@Rest
+public class GuardedRestComponent {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Get(value = "/guarded/{name}")
+  public String guarded(String name) {
+    return "hello " + name;
+  }
+
+  @Get(value = "/guarded-cached/{name}")
+  @Cached(ttl = 60)
+  public String guardedCached(String name) {
+    return "cached " + name + " " + calls.incrementAndGet();
+  }
+}
@@ -0,0 +1,22 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.RateLimited;
+import com.nathanmcunha.minispring.annotations.Rest;
+import java.util.concurrent.TimeUnit;
+
+@Rest
+public class LimitsRestComponent {
+
+  @Get(value = "/slow/{millis}")
+  public String slow(long millis) throws InterruptedException {
+    Thread.sleep(millis);
+    return "slept " + millis;
+  }
+
+  @Get(value = "/limited/{name}")
+  @RateLimited(requests = 2, unit = TimeUnit.MINUTES, header = "X-Api-Key")
+  public String limited(String name) {
+    return "limited " + name;
+  }
+}
@@ -0,0 +1,38 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Header;
+import com.nathanmcunha.minispring.annotations.Param;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Request;
+
+@Rest
+public class RoutingRestComponent {
+
+  @Get(value = "/echo/{word}")
+  public String echo(String word) {
+    return word;
+  }
+
+  @Get(value = "/square/{n}")
+  public long square(long n) {
+    return n * n;
+  }
+
+  @Get(value = "/search/{kind}")
+  public String search(
+      String kind,
+      @Param String q,
+      @Param(value = "page", required = false) Integer page,
+      @Header("X-Client") String client,
+      Request request) {
+    return String.join(
+        "|",
+        kind,
+        q,
+        String.valueOf(page),
+        client,
+        String.valueOf(request.params("tag")),
+        request.cookie("session"));
+  }
+}
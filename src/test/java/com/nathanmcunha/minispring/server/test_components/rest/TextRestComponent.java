@@ -0,0 +1,37 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Cached;
+import com.nathanmcunha.minispring.annotations.Get;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.annotations.Uncompressed;
+import java.util.concurrent.TimeUnit;
+
+@Rest
+public class TextRestComponent {
+
+  /** {@code n} lines of repetitive text, for the compression routes below. */
+  public static String lines(int n) {
+    var text = new StringBuilder();
+    for (int i = 0; i < n; i++) {
+      text.append("line ").append(i).append(" of a rather repetitive body\n");
+    }
+    return text.toString();
+  }
+
+  @Get(value = "/text/{n}")
+  public String text(int n) {
+    return lines(n);
+  }
+
+  @Get(value = "/text-uncompressed/{n}")
+  @Uncompressed
+  public String uncompressedText(int n) {
+    return lines(n);
+  }
+
+  @Get(value = "/cached-text/{n}")
+  @Cached(ttl = 1, unit = TimeUnit.HOURS)
+  public String cachedText(int n) {
+    return lines(n);
+  }
+}
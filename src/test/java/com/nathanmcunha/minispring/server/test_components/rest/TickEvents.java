@@ -0,0 +1,14 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Component;
+import com.nathanmcunha.minispring.server.sse.EventHub;
+import com.nathanmcunha.minispring.server.sse.SseConfig;
+import java.time.Duration;
+
+@Component
+public class TickEvents extends EventHub {
+
+  public TickEvents() {
+    super(SseConfig.defaults().withHeartbeat(Duration.ofMillis(100)));
+  }
+}
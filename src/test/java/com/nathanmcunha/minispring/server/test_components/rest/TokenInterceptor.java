@@ -0,0 +1,20 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Intercepts;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import com.nathanmcunha.minispring.server.intercept.Interceptor;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.sun.net.httpserver.HttpExchange;
+
+/** Ordered after {@link TraceInterceptor} although its name sorts first. */
+@Intercepts(value = {"/guarded/**", "/guarded-cached/*"}, order = 10)
+public class TokenInterceptor implements Interceptor {
+
+  @Override
+  public Response<?> before(HttpExchange exchange, RouteMatch match) {
+    if ("secret".equals(exchange.getRequestHeaders().getFirst("X-Token"))) {
+      return null;
+    }
+    return Response.Builder(401).body("missing token");
+  }
+}
@@ -0,0 +1,30 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Intercepts;
+import com.nathanmcunha.minispring.server.dispatch.protocol.Response;
+import com.nathanmcunha.minispring.server.intercept.Interceptor;
+import com.nathanmcunha.minispring.server.router.model.RouteMatch;
+import com.sun.net.httpserver.HttpExchange;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Intercepts("/guarded/*")
+public class TraceInterceptor implements Interceptor {
+
+  private final List<Integer> completed = new CopyOnWriteArrayList<>();
+
+  @Override
+  public Response<?> before(HttpExchange exchange, RouteMatch match) {
+    exchange.getResponseHeaders().set("X-Route", match.route().key().path());
+    return null;
+  }
+
+  @Override
+  public void afterCompletion(HttpExchange exchange, RouteMatch match, Throwable failure) {
+    completed.add(exchange.getResponseCode());
+  }
+
+  public List<Integer> completed() {
+    return completed;
+  }
+}
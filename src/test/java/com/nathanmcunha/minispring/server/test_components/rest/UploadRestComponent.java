@@ -0,0 +1,36 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.nathanmcunha.minispring.annotations.Multipart;
+import com.nathanmcunha.minispring.annotations.Post;
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.server.multipart.MultipartForm;
+import com.nathanmcunha.minispring.server.multipart.Part;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+@Rest
+public class UploadRestComponent {
+
+  /** Keeps the uploaded file by moving it, and describes what arrived. */
+  @Post(value = "/attachments")
+  @Multipart(memoryThreshold = 1024, maxRequestBytes = 8 * 1024 * 1024)
+  public String upload(MultipartForm form) throws IOException {
+    Part file = form.part("file");
+    boolean inMemory = file.inMemory();
+    Path kept = file.moveTo(Files.createTempFile("kept-", ".bin"), REPLACE_EXISTING);
+    var crc = new CRC32();
+    crc.update(Files.readAllBytes(kept));
+    Files.delete(kept);
+    return String.join(
+        "|",
+        form.field("title"),
+        file.filename(),
+        String.valueOf(file.size()),
+        String.valueOf(inMemory),
+        Long.toHexString(crc.getValue()));
+  }
+}
@@ -0,0 +1,56 @@
+package com.nathanmcunha.minispring.server.test_components.rest;
+
+import com.nathanmcunha.minispring.annotations.Rest;
+import com.nathanmcunha.minispring.annotations.WebSocket;
+import com.nathanmcunha.minispring.server.websocket.WebSocketListener;
+import com.nathanmcunha.minispring.server.websocket.WebSocketSession;
+import java.nio.ByteBuffer;
+
+@Rest
+public class WebSocketRestComponent {
+
+  private final ChatRoom room;
+
+  public WebSocketRestComponent(ChatRoom room) {
+    this.room = room;
+  }
+
+  @WebSocket(value = "/ws/echo")
+  public WebSocketListener echo() {
+    return new Echo();
+  }
+
+  @WebSocket(value = "/ws/small", maxMessageBytes = 16)
+  public WebSocketListener small() {
+    return new Echo();
+  }
+
+  @WebSocket(value = "/ws/chat/{name}")
+  public WebSocketListener chat(String name) {
+    return new WebSocketListener() {
+      @Override
+      public void onOpen(WebSocketSession session) {
+        room.join(session);
+      }
+
+      @Override
+      public void onText(WebSocketSession session, String text) {
+        room.broadcast(name + ": " + text);
+      }
+    };
+  }
+
+  private static final class Echo implements WebSocketListener {
+    @Override
+    public void onText(WebSocketSession session, String text) {
+      session.send(text);
+    }
+
+    @Override
+    public void onBinary(WebSocketSession session, ByteBuffer data) {
+      byte[] copy = new byte[data.remaining()];
+      data.get(copy);
+      session.send(copy);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.nathanmcunha.minispring.server.websocket;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nathanmcunha.minispring.server.TestServer;
+import com.nathanmcunha.minispring.server.engine.ServerConfig;
+import com.nathanmcunha.minispring.server.test_components.rest.ChatRoom;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WebSocketTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private TestServer server;
+  private ChatRoom room;
+
+  private URI start(String name) throws Exception {
+    server = TestServer.start(name, ServerConfig.defaults(0).withSelectors(1));
+    room = server.bean(ChatRoom.class);
+    return URI.create("ws://localhost:" + server.uri("/").getPort());
+  }
+
+  @AfterEach
+  void stop() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  void shouldEchoTextReassembledFromFragments() throws Exception {
+    URI base = start("nio");
+    var messages = new Messages();
+    WebSocket socket = client.newWebSocketBuilder().buildAsync(base.resolve("/ws/echo"), messages)
+        .get(5, TimeUnit.SECONDS);
+
+    socket.sendText("hello", true).get(5, TimeUnit.SECONDS);
+    socket.sendText("wor", false).get(5, TimeUnit.SECONDS);
+    socket.sendText("ld é€", true).get(5, TimeUnit.SECONDS);
+
+    assertEquals("hello", messages.next());
+    assertEquals("world é€", messages.next());
+    socket.sendClose(WebSocket.NORMAL_CLOSURE, "bye").get(5, TimeUnit.SECONDS);
+    assertEquals("closed 1000", messages.next());
+  }
+
+  @Test
+  void shouldEchoABinaryMessageLargerThanAPooledBuffer() throws Exception {
+    URI base = start("nio");
+    var messages = new Messages();
+    WebSocket socket = client.newWebSocketBuilder().buildAsync(base.resolve("/ws/echo"), messages)
+        .get(5, TimeUnit.SECONDS);
+    byte[] data = new byte[40_000];
+    new Random(7).nextBytes(data);
+
+    socket.sendBinary(ByteBuffer.wrap(data), true).get(5, TimeUnit.SECONDS);
+
+    assertArrayEquals(data, messages.nextBinary());
+  }
+
+  @Test
+  void shouldCloseWith1009WhenAMessageExceedsTheLimit() throws Exception {
+    URI base = start("nio");
+    var messages = new Messages();
+    WebSocket socket = client.newWebSocketBuilder().buildAsync(base.resolve("/ws/small"), messages)
+        .get(5, TimeUnit.SECONDS);
+
+    socket.sendText("short", true).get(5, TimeUnit.SECONDS);
+    assertEquals("short", messages.next());
+    socket.sendText("far too long for this endpoint", true).get(5, TimeUnit.SECONDS);
+
+    assertEquals("closed 1009", messages.next());
+  }
+
+  @Test
+  void shouldBroadcastToTheHubAndLeaveItOnClose() throws Exception {
+    URI base = start("nio");
+    var alice = new Messages();
+    var bob = new Messages();
+    WebSocket aliceSocket =
+        client.newWebSocketBuilder().buildAsync(base.resolve("/ws/chat/alice"), alice)
+            .get(5, TimeUnit.SECONDS);
+    client.newWebSocketBuilder().buildAsync(base.resolve("/ws/chat/bob"), bob)
+        .get(5, TimeUnit.SECONDS);
+    awaitSessions(2);
+
+    aliceSocket.sendText("hi", true).get(5, TimeUnit.SECONDS);
+
+    assertEquals("alice: hi", alice.next());
+    assertEquals("alice: hi", bob.next());
+    aliceSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").get(5, TimeUnit.SECONDS);
+    awaitSessions(1);
+  }
+
+  @Test
+  void shouldRejectAPlainRequestToAWebSocketRoute() throws Exception {
+    URI base = start("nio");
+
+    var response = get("/ws/echo");
+
+    assertEquals(400, response.statusCode());
+  }
+
+  @Test
+  void shouldAnswer501OnAnEngineThatCannotUpgrade() throws Exception {
+    URI base = start("jdk");
+
+    var response = get("/ws/echo");
+
+    assertEquals(501, response.statusCode());
+  }
+
+  @Test
+  void shouldEncodeFrameHeadersByPayloadLength() {
+    assertArrayEquals(new byte[] {(byte) 0x81, 2, 'h', 'i'}, WebSocketMessage.text("hi").frame());
+    byte[] medium = WebSocketMessage.binary(new byte[300]).frame();
+    assertEquals(4 + 300, medium.length);
+    assertEquals(126, medium[1]);
+    byte[] large = WebSocketMessage.binary(new byte[70_000]).frame();
+    assertEquals(10 + 70_000, large.length);
+    assertEquals(127, large[1]);
+  }
+
+  private HttpResponse<String> get(String path) throws Exception {
+    URI uri = server.uri(path);
+    return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private void awaitSessions(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (room.sessions() != expected && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, room.sessions());
+  }
+
+  /** Collects what the client receives, one whole message at a time. */
+  private static final class Messages implements WebSocket.Listener {
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private final StringBuilder text = new StringBuilder();
+    private final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+    @Override
+    public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+      text.append(data);
+      if (last) {
+        received.add(text.toString());
+        text.setLength(0);
+      }
+      socket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket socket, ByteBuffer data, boolean last) {
+      byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      binary.writeBytes(bytes);
+      if (last) {
+        received.add(binary.toByteArray());
+        binary.reset();
+      }
+      socket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+      received.add("closed " + statusCode);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void onError(WebSocket socket, Throwable error) {
+      received.add("error " + error);
+    }
+
+    String next() throws InterruptedException {
+      Object message = received.poll(5, TimeUnit.SECONDS);
+      assertTrue(message instanceof String, "received " + message);
+      return (String) message;
+    }
+
+    byte[] nextBinary() throws InterruptedException {
+      Object message = received.poll(5, TimeUnit.SECONDS);
+      assertTrue(message instanceof byte[], "received " + message);
+      return (byte[]) message;
+    }
+  }
+}